@@ -0,0 +1,96 @@
+package com.banking.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings: a fixed-size bit set that answers "definitely
+ * absent" or "possibly present".
+ * 
+ * The size is derived from the expected number of insertions and the target
+ * false-positive rate (about 9.6 bits per entry at 1%, so 10 million entries take
+ * about 12 MB). Beyond the expected number of insertions the false-positive rate rises,
+ * but an inserted value is never reported absent.
+ * 
+ * Each value is hashed once to 64 bits; the k bit positions are derived from the two
+ * 32-bit halves by double hashing. Bits are set with atomic updates, so inserts and
+ * lookups need no lock.
+ * 
+ * @author Banking Platform Team
+ */
+public class BloomFilter {
+    
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min((bits + 63) / 64, Integer.MAX_VALUE - 8);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+    
+    /**
+     * Adds the value.
+     */
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+        }
+    }
+    
+    /**
+     * @return false if the value was definitely never added
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1, h2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public long getBitSize() {
+        return bitSize;
+    }
+    
+    public int getHashCount() {
+        return hashCount;
+    }
+    
+    private long index(int h1, int h2, int i) {
+        return Math.floorMod(h1 + (long) i * h2, bitSize);
+    }
+    
+    private static long hash(String value) {
+        // FNV-1a, then a full avalanche so both halves are usable as independent hashes
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
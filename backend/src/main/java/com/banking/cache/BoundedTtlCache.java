@@ -0,0 +1,190 @@
+package com.banking.cache;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe in-memory cache with a fixed time-to-live per entry.
+ * 
+ * Entries are kept in a ConcurrentHashMap; a FIFO queue records insertion order.
+ * Because every entry has the same TTL, insertion order is also expiry order, so
+ * both size-based and TTL-based eviction only ever look at the head of the queue.
+ * 
+ * Eviction happens:
+ * - On insert, when the cache grows beyond its maximum size (oldest entries first)
+ * - On read, when the requested entry has expired
+ * - On {@link #evictExpired()}, typically called from a scheduled task
+ * 
+ * Hit, miss and eviction counts are tracked for metrics.
+ * 
+ * @param <K> Key type
+ * @param <V> Value type
+ * @author Banking Platform Team
+ */
+public class BoundedTtlCache<K, V> {
+    
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxSize;
+    private final long ttlNanos;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public BoundedTtlCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+    
+    /**
+     * Returns the live value for the key, or null if absent or expired.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+    
+    /**
+     * Stores the value unless a live value is already present.
+     * 
+     * @return The existing live value, or null if the given value was stored
+     */
+    public V putIfAbsent(K key, V value) {
+        Entry<K, V> created = new Entry<>(key, value, System.nanoTime() + ttlNanos);
+        while (true) {
+            Entry<K, V> existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                insertionOrder.add(created);
+                enforceMaxSize();
+                return null;
+            }
+            if (!existing.isExpired(System.nanoTime())) {
+                return existing.value;
+            }
+            // Replace the expired entry and try again
+            if (entries.remove(key, existing)) {
+                evictions.increment();
+            }
+        }
+    }
+    
+    /**
+     * Stores the value, replacing any existing entry.
+     */
+    public void put(K key, V value) {
+        Entry<K, V> created = new Entry<>(key, value, System.nanoTime() + ttlNanos);
+        entries.put(key, created);
+        insertionOrder.add(created);
+        enforceMaxSize();
+    }
+    
+    /**
+     * Removes the entry for the key, if any.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+    
+    /**
+     * Removes the entry for the key only if it is currently mapped to the given value.
+     */
+    public void invalidate(K key, V value) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null && entry.value == value) {
+            entries.remove(key, entry);
+        }
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        entries.clear();
+        insertionOrder.clear();
+    }
+    
+    /**
+     * Removes all expired entries from the head of the insertion queue.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        Entry<K, V> head;
+        while ((head = insertionOrder.peek()) != null) {
+            // Stale queue nodes (replaced or invalidated entries) are dropped without counting
+            if (entries.get(head.key) != head) {
+                insertionOrder.poll();
+                continue;
+            }
+            if (!head.isExpired(now)) {
+                return;
+            }
+            insertionOrder.poll();
+            if (entries.remove(head.key, head)) {
+                evictions.increment();
+            }
+        }
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    
+    private void enforceMaxSize() {
+        while (entries.size() > maxSize) {
+            Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+    
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAtNanos;
+        
+        private Entry(K key, V value, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+        
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.banking.config;
 
 import com.banking.security.JwtAuthenticationEntryPoint;
 import com.banking.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -124,6 +125,8 @@ public class SecurityConfig {
             
             // Configure endpoint authorization
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches (long-poll responses) were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints (no authentication required)
                 .requestMatchers("/api/auth/**", "/swagger-ui/**", "/api-docs/**", "/v3/api-docs/**").permitAll()
                 // Health check endpoints (for Docker health checks)
@@ -87,5 +87,23 @@ public class AccountController {
             @RequestParam Account.AccountStatus status) {
         return ResponseEntity.ok(accountService.updateAccountStatus(accountId, status));
     }
+    
+    /**
+     * Turns balance striping on or off for a high-fan-in account (ADMIN only).
+     * 
+     * Endpoint: PUT /api/accounts/{accountId}/striped?striped={true|false}
+     * 
+     * Security: Requires ADMIN role.
+     * 
+     * @param accountId UUID of the account
+     * @param striped Whether incoming credits go to stripe rows
+     * @return Updated account details
+     */
+    @PutMapping("/{accountId}/striped")
+    public ResponseEntity<AccountDto> updateAccountStriping(
+            @PathVariable UUID accountId,
+            @RequestParam boolean striped) {
+        return ResponseEntity.ok(accountService.updateAccountStriping(accountId, striped));
+    }
 }
 
@@ -2,16 +2,26 @@ package com.banking.controller;
 
 import com.banking.dto.AccountDto;
 import com.banking.dto.AuditLogDto;
+import com.banking.dto.FraudBacktestRequest;
+import com.banking.dto.FraudBacktestResult;
 import com.banking.dto.FraudEventDto;
+import com.banking.dto.FraudThresholdDto;
+import com.banking.dto.FraudThresholdRequest;
 import com.banking.dto.TransactionDto;
+import com.banking.entity.User;
+import com.banking.fraud.FraudLimits;
 import com.banking.repository.AuditLogRepository;
 import com.banking.repository.FraudEventRepository;
 import com.banking.service.AccountService;
+import com.banking.service.FraudBacktestService;
+import com.banking.service.FraudThresholdService;
 import com.banking.service.TransferService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -25,6 +35,8 @@ public class AdminController {
     private final TransferService transferService;
     private final AuditLogRepository auditLogRepository;
     private final FraudEventRepository fraudEventRepository;
+    private final FraudBacktestService fraudBacktestService;
+    private final FraudThresholdService fraudThresholdService;
     
     @GetMapping("/accounts")
     public ResponseEntity<List<AccountDto>> getAllAccounts() {
@@ -63,6 +75,8 @@ public class AdminController {
                 .username(event.getUser().getUsername())
                 .type(event.getType().name())
                 .timestamp(event.getTimestamp())
+                .lastTimestamp(event.getLastTimestamp() != null ? event.getLastTimestamp() : event.getTimestamp())
+                .occurrences(event.getOccurrences())
                 .description(event.getDescription())
                 .amount(event.getAmount())
                 .severity(event.getSeverity().name())
@@ -70,5 +84,67 @@ public class AdminController {
             .collect(Collectors.toList());
         return ResponseEntity.ok(events);
     }
+    
+    /**
+     * Starts a replay of historical transfers through the fraud rules with candidate
+     * settings. Returns 202 Accepted; the result is polled at the Location header.
+     */
+    @PostMapping("/fraud-backtests")
+    public ResponseEntity<FraudBacktestResult> startFraudBacktest(@Valid @RequestBody FraudBacktestRequest request) {
+        FraudBacktestResult backtest = fraudBacktestService.start(request);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/admin/fraud-backtests/" + backtest.getId()))
+            .body(backtest);
+    }
+    
+    @GetMapping("/fraud-backtests/{id}")
+    public ResponseEntity<FraudBacktestResult> getFraudBacktest(@PathVariable UUID id) {
+        return ResponseEntity.ok(fraudBacktestService.get(id));
+    }
+    
+    @GetMapping("/fraud-thresholds")
+    public ResponseEntity<List<FraudThresholdDto>> getFraudThresholds() {
+        return ResponseEntity.ok(fraudThresholdService.getThresholds());
+    }
+    
+    @PutMapping("/fraud-thresholds/segments/{segment}")
+    public ResponseEntity<FraudThresholdDto> setSegmentFraudThreshold(
+            @PathVariable User.Segment segment,
+            @Valid @RequestBody FraudThresholdRequest request) {
+        return ResponseEntity.ok(fraudThresholdService.setSegmentThreshold(segment, request));
+    }
+    
+    @PutMapping("/fraud-thresholds/users/{userId}")
+    public ResponseEntity<FraudThresholdDto> setUserFraudThreshold(
+            @PathVariable UUID userId,
+            @Valid @RequestBody FraudThresholdRequest request) {
+        return ResponseEntity.ok(fraudThresholdService.setUserThreshold(userId, request));
+    }
+    
+    @DeleteMapping("/fraud-thresholds/{id}")
+    public ResponseEntity<Void> deleteFraudThreshold(@PathVariable UUID id) {
+        fraudThresholdService.deleteThreshold(id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Reloads the fraud limits cache, e.g. after the tables were changed directly or on
+     * another instance.
+     */
+    @PostMapping("/fraud-thresholds/reload")
+    public ResponseEntity<Void> reloadFraudThresholds() {
+        fraudThresholdService.reload();
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PutMapping("/users/{userId}/segment")
+    public ResponseEntity<Void> setUserSegment(@PathVariable UUID userId, @RequestParam User.Segment segment) {
+        fraudThresholdService.setUserSegment(userId, segment);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @GetMapping("/users/{userId}/fraud-limits")
+    public ResponseEntity<FraudLimits> getUserFraudLimits(@PathVariable UUID userId) {
+        return ResponseEntity.ok(fraudThresholdService.getUserLimits(userId));
+    }
 }
-
@@ -1,7 +1,10 @@
 package com.banking.controller;
 
+import com.banking.dto.BatchTransferRequest;
+import com.banking.dto.BatchTransferResponse;
 import com.banking.dto.TransferRequest;
 import com.banking.dto.TransactionDto;
+import com.banking.service.AsyncTransferService;
 import com.banking.service.TransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -9,8 +12,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST Controller for money transfer operations.
@@ -26,21 +31,82 @@ import java.util.UUID;
 public class TransferController {
     
     private final TransferService transferService;
+    private final AsyncTransferService asyncTransferService;
     
     /**
      * Executes a money transfer between two accounts.
      * 
      * Endpoint: POST /api/transfers
      * 
+     * Clients may send an Idempotency-Key header; retries with the same key return
+     * the original transaction instead of executing the transfer again.
+     * 
      * @param request Transfer request with fromIban, toIban, amount, description
+     * @param idempotencyKey Optional Idempotency-Key header
      * @return Created transaction with HTTP 201 status
      */
     @PostMapping
-    public ResponseEntity<TransactionDto> transfer(@Valid @RequestBody TransferRequest request) {
-        TransactionDto transaction = transferService.transfer(request);
+    public ResponseEntity<TransactionDto> transfer(@Valid @RequestBody TransferRequest request,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false)
+                                                   String idempotencyKey) {
+        TransactionDto transaction = transferService.transfer(request, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
     }
     
+    /**
+     * Executes a batch of transfers in a single database transaction.
+     * 
+     * Endpoint: POST /api/transfers/batch
+     * 
+     * @param request Batch request with up to 1000 transfers and the execution mode
+     *                (ALL_OR_NOTHING or BEST_EFFORT)
+     * @return Per-item results in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        return ResponseEntity.ok(transferService.transferBatch(request));
+    }
+    
+    /**
+     * Submits a money transfer for asynchronous execution.
+     * 
+     * Endpoint: POST /api/transfers/async
+     * 
+     * The transfer is persisted as PENDING and executed by a worker pool; the
+     * outcome (COMPLETED, REJECTED or FAILED) is available at GET /api/transfers/{id}.
+     * 
+     * @param request Transfer request with fromIban, toIban, amount, description
+     * @return PENDING transaction with HTTP 202 status and its status URL in Location
+     */
+    @PostMapping("/async")
+    public ResponseEntity<TransactionDto> submitTransfer(@Valid @RequestBody TransferRequest request) {
+        TransactionDto transaction = asyncTransferService.submit(request);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/transfers/" + transaction.getId()))
+            .body(transaction);
+    }
+    
+    /**
+     * Retrieves a single transaction, e.g. the status of an asynchronous transfer.
+     * 
+     * Endpoint: GET /api/transfers/{id}?waitMs=
+     * 
+     * With waitMs the response is held (long-poll) until the transfer leaves PENDING
+     * or the wait expires, without blocking a request thread.
+     * 
+     * Security: Only the owner of the sender or receiver account, or ADMIN, can access.
+     * 
+     * @param id UUID of the transaction
+     * @param waitMs Optional maximum wait in milliseconds while the transfer is PENDING
+     * @return Transaction with its current status
+     */
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<TransactionDto>> getTransaction(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        return asyncTransferService.awaitTransaction(id, waitMs).thenApply(ResponseEntity::ok);
+    }
+    
     /**
      * Retrieves transaction history for a specific account.
      * 
@@ -17,6 +17,7 @@ public class AccountDto {
     private String iban;
     private BigDecimal balance;
     private String status;
+    private boolean striped;
     private UUID userId;
     private String userName;
 }
@@ -0,0 +1,17 @@
+package com.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemResult {
+    private int index;
+    private String status;
+    private TransactionDto transaction;
+    private String error;
+}
@@ -0,0 +1,27 @@
+package com.banking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid TransferRequest> transfers;
+    
+    private BatchMode mode = BatchMode.ALL_OR_NOTHING;
+    
+    /**
+     * Batch execution mode.
+     * 
+     * ALL_OR_NOTHING: Any rejected item rolls back the whole batch
+     * BEST_EFFORT: Valid items are committed, invalid items are reported as rejected
+     */
+    public enum BatchMode {
+        ALL_OR_NOTHING, BEST_EFFORT
+    }
+}
@@ -0,0 +1,20 @@
+package com.banking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private String mode;
+    private int total;
+    private int completed;
+    private int rejected;
+    private List<BatchTransferItemResult> results;
+}
@@ -0,0 +1,34 @@
+package com.banking.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Period and candidate fraud settings of a backtest. Settings left empty use the
+ * current configuration.
+ */
+@Data
+public class FraudBacktestRequest {
+    @NotNull
+    private LocalDateTime from;
+    
+    @NotNull
+    private LocalDateTime to;
+    
+    @DecimalMin(value = "0.01")
+    private BigDecimal dailyTransferLimit;
+    
+    @Min(1)
+    private Integer rapidTransferThreshold;
+    
+    @Min(1)
+    private Integer rapidTransferWindowMinutes;
+    
+    @DecimalMin(value = "0.01")
+    private BigDecimal suspiciousAmount;
+}
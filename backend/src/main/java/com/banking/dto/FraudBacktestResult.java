@@ -0,0 +1,41 @@
+package com.banking.dto;
+
+import com.banking.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudBacktestResult {
+    private UUID id;
+    private Status status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Money dailyTransferLimit;
+    private int rapidTransferThreshold;
+    private int rapidTransferWindowMinutes;
+    private Money suspiciousAmount;
+    /** Historical transfers replayed */
+    private long transfers;
+    /** Transfers at least one rule would have rejected */
+    private long rejected;
+    private Map<String, Long> rejectedByRule;
+    private Map<String, Long> flaggedByRule;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
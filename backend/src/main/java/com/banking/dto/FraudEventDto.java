@@ -1,11 +1,11 @@
 package com.banking.dto;
 
+import com.banking.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -19,8 +19,10 @@ public class FraudEventDto {
     private String username;
     private String type;
     private LocalDateTime timestamp;
+    private LocalDateTime lastTimestamp;
+    private int occurrences;
     private String description;
-    private BigDecimal amount;
+    private Money amount;
     private String severity;
 }
 
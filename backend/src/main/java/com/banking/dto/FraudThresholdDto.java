@@ -0,0 +1,24 @@
+package com.banking.dto;
+
+import com.banking.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudThresholdDto {
+    private UUID id;
+    private String segment;
+    private UUID userId;
+    private Money dailyTransferLimit;
+    private Integer rapidTransferThreshold;
+    private Integer rapidTransferWindowMinutes;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package com.banking.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Fraud limits of a segment or user. Limits left empty are inherited.
+ */
+@Data
+public class FraudThresholdRequest {
+    @DecimalMin(value = "0.01")
+    private BigDecimal dailyTransferLimit;
+    
+    @Min(1)
+    private Integer rapidTransferThreshold;
+    
+    @Min(1)
+    private Integer rapidTransferWindowMinutes;
+}
@@ -21,5 +21,6 @@ public class TransactionDto {
     private LocalDateTime timestamp;
     private String status;
     private String description;
+    private String failureReason;
 }
 
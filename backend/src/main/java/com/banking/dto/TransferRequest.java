@@ -2,6 +2,8 @@ package com.banking.dto;
 
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -14,9 +16,11 @@ public class TransferRequest {
     @NotBlank
     private String toIban;
     
+    @NotNull
     @DecimalMin(value = "0.01")
     private BigDecimal amount;
     
+    @Size(max = 500)
     private String description;
 }
 
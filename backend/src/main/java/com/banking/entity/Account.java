@@ -5,8 +5,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.annotations.SourceType;
+import org.hibernate.generator.EventType;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
@@ -17,6 +21,7 @@ import java.util.UUID;
  * - Balance stored as DECIMAL(19,2) for precise monetary calculations
  * - Status (ACTIVE, FROZEN, CLOSED)
  * - Owner (User entity)
+ * - Striped flag for high-fan-in accounts (see {@link AccountBalanceStripe})
  * 
  * Indexes:
  * - IBAN index for fast lookups during transfers
@@ -27,7 +32,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "accounts", indexes = {
     @Index(name = "idx_iban", columnList = "iban", unique = true),
-    @Index(name = "idx_user_id", columnList = "user_id")
+    @Index(name = "idx_user_id", columnList = "user_id"),
+    @Index(name = "idx_accounts_created_at", columnList = "created_at")
 })
 @Data
 @Builder
@@ -53,11 +59,27 @@ public class Account {
     @Column(nullable = false)
     private AccountStatus status;
     
+    /**
+     * Creation time, taken from the database clock on insert so all instances compare
+     * it against one clock; null for accounts created before it was recorded
+     */
+    @Column(name = "created_at", updatable = false)
+    @CurrentTimestamp(event = EventType.INSERT, source = SourceType.DB)
+    private LocalDateTime createdAt;
+    
     /** Account owner - lazy loaded to optimize queries */
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    /**
+     * Striped accounts receive credits into sub-balance stripes instead of this row.
+     * Their total balance is balance plus the sum of their stripes.
+     */
+    @Column(nullable = false, columnDefinition = "boolean not null default false")
+    @Builder.Default
+    private boolean striped = false;
+    
     /**
      * Account status enumeration.
      * 
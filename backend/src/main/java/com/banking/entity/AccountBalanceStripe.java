@@ -0,0 +1,53 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Sub-balance slot of a striped account.
+ * 
+ * Credits to a striped account are added to one of its stripes instead of the
+ * accounts row, so concurrent credits do not serialize on a single row lock.
+ * The account's total balance is its own balance plus the sum of its stripes;
+ * the compactor periodically folds the stripes back into the accounts row.
+ * 
+ * @author Banking Platform Team
+ */
+@Entity
+@Table(name = "account_balance_stripes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceStripe {
+    
+    @EmbeddedId
+    private StripeId id;
+    
+    /** Credits accumulated in this stripe since the last fold */
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+    
+    /**
+     * Composite key: one row per (account, stripe index).
+     */
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StripeId implements Serializable {
+        
+        @Column(name = "account_id", nullable = false)
+        private UUID accountId;
+        
+        @Column(nullable = false)
+        private int stripe;
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted snapshot of an account's running transfer statistics.
+ * 
+ * Written periodically by the anomaly detector so a restart can resume the statistics
+ * without scanning the transfer history. Amounts are in minor units, gaps in seconds.
+ * 
+ * @author Banking Platform Team
+ */
+@Entity
+@Table(name = "account_statistics")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountStatistics {
+    
+    /** Sender account */
+    @Id
+    @Column(length = 34)
+    private String iban;
+    
+    /** Number of transfers sent from the account */
+    @Column(nullable = false)
+    private long sampleCount;
+    
+    /** Time of the last transfer */
+    private LocalDateTime lastAt;
+    
+    /** Welford running mean and sum of squared deviations of the amounts */
+    @Column(nullable = false)
+    private double amountMean;
+    
+    @Column(nullable = false)
+    private double amountM2;
+    
+    /** Exponentially weighted mean and variance of the amounts */
+    @Column(nullable = false)
+    private double amountEwma;
+    
+    @Column(nullable = false)
+    private double amountEwvar;
+    
+    /** The same statistics for the time between two transfers */
+    @Column(nullable = false)
+    private double gapMean;
+    
+    @Column(nullable = false)
+    private double gapM2;
+    
+    @Column(nullable = false)
+    private double gapEwma;
+    
+    @Column(nullable = false)
+    private double gapEwvar;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
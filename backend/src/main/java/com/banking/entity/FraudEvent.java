@@ -1,12 +1,12 @@
 package com.banking.entity;
 
 import jakarta.persistence.*;
+import com.banking.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -40,12 +40,23 @@ public class FraudEvent {
     private String description;
     
     @Column(precision = 19, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private FraudSeverity severity;
     
+    /**
+     * Number of occurrences this row stands for. Repeats of the same type for the same
+     * user within the dedup window are coalesced into one row.
+     */
+    @Column(nullable = false, columnDefinition = "integer not null default 1")
+    @Builder.Default
+    private int occurrences = 1;
+    
+    /** Time of the last coalesced occurrence (null for single events) */
+    private LocalDateTime lastTimestamp;
+    
     public enum FraudType {
         DAILY_LIMIT_EXCEEDED, RAPID_TRANSFERS, SUSPICIOUS_AMOUNT, ACCOUNT_ANOMALY
     }
@@ -0,0 +1,57 @@
+package com.banking.entity;
+
+import com.banking.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Fraud limits of one customer segment or one user, overriding the configured defaults.
+ * 
+ * Exactly one of segment and userId is set. Empty limits are inherited: a user's
+ * from the user's segment, a segment's from the configuration.
+ * 
+ * @author Banking Platform Team
+ */
+@Entity
+@Table(name = "fraud_thresholds", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_fraud_threshold_segment", columnNames = "segment"),
+    @UniqueConstraint(name = "uk_fraud_threshold_user", columnNames = "user_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FraudThreshold {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    /** Segment the limits apply to; null for a user override */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private User.Segment segment;
+    
+    /** User the limits apply to; null for a segment */
+    @Column(name = "user_id")
+    private UUID userId;
+    
+    /** Maximum total amount per day */
+    @Column(precision = 19, scale = 2)
+    private Money dailyTransferLimit;
+    
+    /** Maximum number of transfers within the rapid-transfer window */
+    private Integer rapidTransferThreshold;
+    
+    /** Length of the rapid-transfer window in minutes */
+    private Integer rapidTransferWindowMinutes;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,56 @@
+package com.banking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Durable record of a transfer executed with an Idempotency-Key header.
+ * 
+ * Written in the same database transaction as the transfer itself, so a key is
+ * recorded if and only if its transfer committed. The unique constraint on
+ * (user_id, idempotency_key) also deduplicates requests racing across instances.
+ * 
+ * @author Banking Platform Team
+ */
+@Entity
+@Table(name = "idempotency_keys",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_user_key",
+        columnNames = {"user_id", "idempotency_key"}),
+    indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    /** Client-supplied key, unique per user */
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    /** SHA-256 fingerprint of the request, used to detect key reuse with a different payload */
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", nullable = false)
+    private Transaction transaction;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
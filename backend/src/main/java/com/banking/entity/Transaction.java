@@ -14,7 +14,8 @@ import java.util.UUID;
 @Table(name = "transactions", indexes = {
     @Index(name = "idx_sender_account", columnList = "sender_account_id"),
     @Index(name = "idx_receiver_account", columnList = "receiver_account_id"),
-    @Index(name = "idx_timestamp", columnList = "timestamp")
+    @Index(name = "idx_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_sender_status_timestamp", columnList = "sender_account_id, status, timestamp")
 })
 @Data
 @Builder
@@ -47,6 +48,15 @@ public class Transaction {
     @Column(length = 500)
     private String description;
     
+    /** User who submitted an asynchronous transfer; processed on behalf of this user */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "initiated_by")
+    private User initiatedBy;
+    
+    /** Reason a transfer ended as REJECTED or FAILED */
+    @Column(length = 500)
+    private String failureReason;
+    
     public enum TransactionStatus {
         PENDING, COMPLETED, FAILED, REJECTED
     }
@@ -22,6 +22,10 @@ import java.util.UUID;
  * - CUSTOMER: Standard banking customer with account management capabilities
  * - ADMIN: System administrator with full access to all accounts and audit logs
  * 
+ * Segments (select the fraud limits, see FraudThreshold):
+ * - RETAIL: Private customers (default)
+ * - BUSINESS: Business customers, usually with higher limits
+ * 
  * @author Banking Platform Team
  */
 @Entity
@@ -62,6 +66,12 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Role role;
     
+    /** Customer segment (RETAIL or BUSINESS) */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20, columnDefinition = "varchar(20) default 'RETAIL'")
+    @Builder.Default
+    private Segment segment = Segment.RETAIL;
+    
     /** Account enabled status (false = account locked) */
     @Column(nullable = false)
     private boolean enabled = true;
@@ -89,5 +99,9 @@ public class User implements UserDetails {
     public enum Role {
         CUSTOMER, ADMIN
     }
+    
+    public enum Segment {
+        RETAIL, BUSINESS
+    }
 }
 
@@ -0,0 +1,53 @@
+package com.banking.entity;
+
+import com.banking.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Amount a user has transferred (or reserved for in-flight transfers) on one day.
+ * 
+ * Transfers reserve their amount with a conditional increment in their own
+ * transaction, so concurrent transfers of the same user serialize on this row and
+ * cannot jointly exceed the daily limit. A rolled-back transfer releases its
+ * reservation with the rollback.
+ * 
+ * @author Banking Platform Team
+ */
+@Entity
+@Table(name = "user_daily_totals")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDailyTotal {
+    
+    @EmbeddedId
+    private DailyTotalId id;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money total;
+    
+    /**
+     * Composite key: one row per (user, day).
+     */
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyTotalId implements Serializable {
+        
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+        
+        @Column(nullable = false)
+        private LocalDate day;
+    }
+}
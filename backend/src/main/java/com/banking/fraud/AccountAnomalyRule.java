@@ -0,0 +1,78 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.OptionalDouble;
+
+/**
+ * Flags transfers that are unusual for the sender account: an amount far above, or a
+ * time since the previous transfer far below, what the account usually does.
+ * 
+ * Reads the in-memory {@link AccountStatisticsTracker}; accounts with too few transfers
+ * are not scored. Anomalies are logged for review, the transfer is not blocked, so the
+ * rule runs concurrently with the others and is skipped if it exceeds its time budget.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@Order(40)
+@RequiredArgsConstructor
+public class AccountAnomalyRule implements FraudRule {
+    
+    private final AccountStatisticsTracker accountStatisticsTracker;
+    
+    /** z-score above which an amount or gap is anomalous */
+    @Value("${banking.fraud.anomaly.z-threshold}")
+    private double zThreshold;
+    
+    /** Time budget of one evaluation */
+    @Value("${banking.fraud.anomaly.timeout-ms}")
+    private long timeoutMs;
+    
+    @Override
+    public String name() {
+        return "account-anomaly";
+    }
+    
+    @Override
+    public FraudRuleResult evaluate(TransferContext context) {
+        OptionalDouble amountScore = accountStatisticsTracker.amountScore(
+            context.fromIban(), context.amount().getMinorUnits());
+        OptionalDouble gapScore = accountStatisticsTracker.gapScore(context.fromIban(), LocalDateTime.now());
+        
+        StringBuilder description = new StringBuilder();
+        if (amountScore.isPresent() && amountScore.getAsDouble() > zThreshold) {
+            description.append(String.format(Locale.ROOT, "Unusual amount for account %s. Amount: %s, z-score: %.1f",
+                context.fromIban(), context.amount(), amountScore.getAsDouble()));
+        }
+        if (gapScore.isPresent() && gapScore.getAsDouble() > zThreshold) {
+            if (!description.isEmpty()) {
+                description.append("; ");
+            }
+            description.append(String.format(Locale.ROOT, "Unusual transfer frequency for account %s. z-score: %.1f",
+                context.fromIban(), gapScore.getAsDouble()));
+        }
+        
+        if (description.isEmpty()) {
+            return FraudRuleResult.pass(name());
+        }
+        return FraudRuleResult.flag(name(), FraudEvent.FraudType.ACCOUNT_ANOMALY, FraudEvent.FraudSeverity.MEDIUM,
+            description.toString());
+    }
+    
+    @Override
+    public boolean isInline() {
+        return false;
+    }
+    
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+}
@@ -0,0 +1,301 @@
+package com.banking.fraud;
+
+import com.banking.entity.AccountStatistics;
+import com.banking.money.Money;
+import com.banking.repository.AccountStatisticsRepository;
+import com.banking.service.TransferCompletedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming per-account statistics of transfer amounts and inter-arrival times.
+ * 
+ * For every sender account two metrics are kept, each with:
+ * - Welford's running mean and sum of squared deviations (the account's long-run behaviour)
+ * - An exponentially weighted mean and variance (its recent behaviour)
+ * 
+ * All of an account's state is one double[] of {@value #SLOTS} slots, updated in O(1)
+ * per COMPLETED transfer via {@link TransferCompletedEvent}; the array's monitor guards it.
+ * 
+ * Lifecycle:
+ * 1. Startup: the most recently updated accounts are loaded from account_statistics
+ * 2. Every COMPLETED transfer: applied to the sender's statistics after commit
+ * 3. Periodically (and on shutdown): changed accounts are upserted with one JDBC batch
+ * 
+ * Transfers completed after the last flush before a crash are not replayed; they only
+ * age the statistics slightly. Like the velocity counters, the statistics only see
+ * transfers completed by this instance.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountStatisticsTracker {
+    
+    /** Slots of an account's state: sample count, time of the last transfer, then two metrics */
+    private static final int COUNT = 0;
+    private static final int LAST_AT = 1;
+    private static final int AMOUNT = 2;
+    private static final int GAP = 6;
+    private static final int SLOTS = 10;
+    
+    /** Offsets within a metric */
+    private static final int MEAN = 0;
+    private static final int M2 = 1;
+    private static final int EWMA = 2;
+    private static final int EWVAR = 3;
+    
+    /** Lower bound of a standard deviation, relative to its mean, so near-constant series don't flag noise */
+    private static final double MIN_RELATIVE_STDDEV = 0.05;
+    
+    private static final String UPSERT_STATISTICS =
+        "INSERT INTO account_statistics (iban, sample_count, last_at, amount_mean, amount_m2, amount_ewma, " +
+        "amount_ewvar, gap_mean, gap_m2, gap_ewma, gap_ewvar, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (iban) DO UPDATE SET sample_count = EXCLUDED.sample_count, last_at = EXCLUDED.last_at, " +
+        "amount_mean = EXCLUDED.amount_mean, amount_m2 = EXCLUDED.amount_m2, amount_ewma = EXCLUDED.amount_ewma, " +
+        "amount_ewvar = EXCLUDED.amount_ewvar, gap_mean = EXCLUDED.gap_mean, gap_m2 = EXCLUDED.gap_m2, " +
+        "gap_ewma = EXCLUDED.gap_ewma, gap_ewvar = EXCLUDED.gap_ewvar, updated_at = EXCLUDED.updated_at";
+    
+    private final AccountStatisticsRepository accountStatisticsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    /** Whether statistics are kept; without them no account is scored */
+    @Value("${banking.fraud.anomaly.enabled}")
+    private boolean enabled;
+    
+    /** Maximum number of accounts with statistics in memory */
+    @Value("${banking.fraud.anomaly.max-accounts}")
+    private int maxAccounts;
+    
+    /** Weight of the latest transfer in the exponentially weighted statistics */
+    @Value("${banking.fraud.anomaly.ewma-alpha}")
+    private double ewmaAlpha;
+    
+    /** Transfers an account needs before it is scored */
+    @Value("${banking.fraud.anomaly.min-samples}")
+    private int minSamples;
+    
+    private final Map<String, double[]> statistics = new ConcurrentHashMap<>();
+    
+    /** Accounts changed since the last flush */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<AccountStatistics> snapshots = accountStatisticsRepository.findAll(
+                PageRequest.of(0, maxAccounts, Sort.by(Sort.Direction.DESC, "updatedAt"))).getContent();
+            for (AccountStatistics snapshot : snapshots) {
+                statistics.put(snapshot.getIban(), toState(snapshot));
+            }
+            log.info("Loaded transfer statistics for {} accounts", statistics.size());
+        } catch (RuntimeException ex) {
+            // Accounts start from scratch instead
+            log.warn("Could not load transfer statistics: {}", ex.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+    
+    /**
+     * Applies a completed transfer to the sender's statistics, after its commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        record(event.fromIban(), Money.toMinorUnits(event.amount()), secondsOf(event.timestamp()));
+    }
+    
+    void record(String iban, double amount, double at) {
+        double[] state = statistics.get(iban);
+        if (state == null) {
+            if (statistics.size() >= maxAccounts) {
+                return;
+            }
+            state = statistics.computeIfAbsent(iban, key -> new double[SLOTS]);
+        }
+        synchronized (state) {
+            double count = ++state[COUNT];
+            update(state, AMOUNT, count, amount);
+            if (count > 1) {
+                // Out-of-order completions count as simultaneous
+                update(state, GAP, count - 1, Math.max(0, at - state[LAST_AT]));
+            }
+            state[LAST_AT] = Math.max(state[LAST_AT], at);
+        }
+        dirty.add(iban);
+    }
+    
+    /**
+     * z-score of an amount for the account: how far it lies above both the long-run and
+     * the recent mean, in standard deviations (the smaller of the two).
+     * 
+     * @param iban Sender account
+     * @param amount Amount in minor units
+     * @return Score, or empty if the account has fewer than min-samples transfers
+     */
+    public OptionalDouble amountScore(String iban, long amount) {
+        double[] state = statistics.get(iban);
+        if (state == null) {
+            return OptionalDouble.empty();
+        }
+        synchronized (state) {
+            if (state[COUNT] < minSamples) {
+                return OptionalDouble.empty();
+            }
+            return OptionalDouble.of(score(state, AMOUNT, state[COUNT], amount, false));
+        }
+    }
+    
+    /**
+     * z-score of the time since the account's last transfer: how far it lies below both
+     * the long-run and the recent mean gap, in standard deviations.
+     * 
+     * @param iban Sender account
+     * @param now Time of the transfer being checked
+     * @return Score, or empty if the account has fewer than min-samples transfers
+     */
+    public OptionalDouble gapScore(String iban, LocalDateTime now) {
+        double[] state = statistics.get(iban);
+        if (state == null) {
+            return OptionalDouble.empty();
+        }
+        synchronized (state) {
+            if (state[COUNT] < minSamples) {
+                return OptionalDouble.empty();
+            }
+            double gap = Math.max(0, secondsOf(now) - state[LAST_AT]);
+            return OptionalDouble.of(score(state, GAP, state[COUNT] - 1, gap, true));
+        }
+    }
+    
+    /**
+     * Upserts the accounts changed since the last flush in one JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.anomaly.flush-interval-ms}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<String> flushed = new ArrayList<>(dirty);
+        List<Object[]> rows = new ArrayList<>(flushed.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (String iban : flushed) {
+            // Removed before the copy, so an update racing with the flush marks it again
+            dirty.remove(iban);
+            double[] state = statistics.get(iban);
+            if (state == null) {
+                continue;
+            }
+            synchronized (state) {
+                rows.add(new Object[] {
+                    iban, (long) state[COUNT], toTimestamp(state[LAST_AT]),
+                    state[AMOUNT + MEAN], state[AMOUNT + M2], state[AMOUNT + EWMA], state[AMOUNT + EWVAR],
+                    state[GAP + MEAN], state[GAP + M2], state[GAP + EWMA], state[GAP + EWVAR], now
+                });
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_STATISTICS, rows);
+        } catch (RuntimeException ex) {
+            dirty.addAll(flushed);
+            log.warn("Could not persist transfer statistics: {}", ex.getMessage());
+        }
+    }
+    
+    int trackedAccounts() {
+        return statistics.size();
+    }
+    
+    /**
+     * Adds one sample to a metric: Welford's update of mean and M2, then the
+     * exponentially weighted mean and variance (seeded with the first sample).
+     */
+    private void update(double[] state, int metric, double count, double value) {
+        double delta = value - state[metric + MEAN];
+        state[metric + MEAN] += delta / count;
+        state[metric + M2] += delta * (value - state[metric + MEAN]);
+        
+        if (count == 1) {
+            state[metric + EWMA] = value;
+            state[metric + EWVAR] = 0;
+        } else {
+            double diff = value - state[metric + EWMA];
+            state[metric + EWMA] += ewmaAlpha * diff;
+            state[metric + EWVAR] = (1 - ewmaAlpha) * (state[metric + EWVAR] + ewmaAlpha * diff * diff);
+        }
+    }
+    
+    /**
+     * Deviation of a value from the long-run and the recent mean, in standard deviations.
+     * 
+     * @param below true if values below the mean are anomalous, false for values above
+     * @return The smaller of the two scores, so only values unusual against both count
+     */
+    private static double score(double[] state, int metric, double count, double value, boolean below) {
+        double mean = state[metric + MEAN];
+        double stddev = count > 1 ? Math.sqrt(state[metric + M2] / (count - 1)) : 0;
+        double longRun = (below ? mean - value : value - mean) / floor(stddev, mean);
+        
+        double ewma = state[metric + EWMA];
+        double recent = (below ? ewma - value : value - ewma) / floor(Math.sqrt(state[metric + EWVAR]), ewma);
+        return Math.min(longRun, recent);
+    }
+    
+    private static double floor(double stddev, double mean) {
+        return Math.max(stddev, Math.max(Math.abs(mean) * MIN_RELATIVE_STDDEV, 1.0));
+    }
+    
+    private static double secondsOf(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) + timestamp.getNano() / 1e9;
+    }
+    
+    private static LocalDateTime toTimestamp(double seconds) {
+        long whole = (long) Math.floor(seconds);
+        int nanos = (int) Math.min(999_999_999, Math.round((seconds - whole) * 1e9));
+        return LocalDateTime.ofEpochSecond(whole, nanos, ZoneOffset.UTC);
+    }
+    
+    private static double[] toState(AccountStatistics snapshot) {
+        double[] state = new double[SLOTS];
+        state[COUNT] = snapshot.getSampleCount();
+        state[LAST_AT] = snapshot.getLastAt() != null ? secondsOf(snapshot.getLastAt()) : 0;
+        state[AMOUNT + MEAN] = snapshot.getAmountMean();
+        state[AMOUNT + M2] = snapshot.getAmountM2();
+        state[AMOUNT + EWMA] = snapshot.getAmountEwma();
+        state[AMOUNT + EWVAR] = snapshot.getAmountEwvar();
+        state[GAP + MEAN] = snapshot.getGapMean();
+        state[GAP + M2] = snapshot.getGapM2();
+        state[GAP + EWMA] = snapshot.getGapEwma();
+        state[GAP + EWVAR] = snapshot.getGapEwvar();
+        return state;
+    }
+}
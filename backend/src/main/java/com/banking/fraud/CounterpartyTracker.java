@@ -0,0 +1,204 @@
+package com.banking.fraud;
+
+import com.banking.service.TransferCompletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Approximate number of distinct counterparties per user and per account within a
+ * sliding window: receiver accounts per sending user, and sending users per receiver
+ * account. It also remembers the last {@value #RECENT_RECEIVERS} distinct receivers of
+ * each user, so a transfer to a new receiver can be told apart.
+ * 
+ * Each tracked user and account has one {@link WindowedHyperLogLog} of fixed size
+ * (about 300 bytes; users another 256 for their receivers), updated in O(1) per COMPLETED transfer via
+ * {@link TransferCompletedEvent}. Lookups read memory only; there is no database query
+ * and no seeding, so after a restart the counts build up again over one window.
+ * 
+ * Memory is bounded by max-accounts per direction; beyond it new users and accounts
+ * are not tracked until idle ones have been evicted. Like the velocity counters, the
+ * sketches only see transfers completed by this instance.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+public class CounterpartyTracker {
+    
+    /** Distinct receivers remembered per user */
+    static final int RECENT_RECEIVERS = 32;
+    
+    /** Whether counterparties are tracked; without it every count is the current transfer only */
+    @Value("${banking.fraud.counterparties.enabled}")
+    private boolean enabled;
+    
+    /** Sliding window of the counts in minutes */
+    @Value("${banking.fraud.counterparties.window-minutes}")
+    private int windowMinutes;
+    
+    /** Maximum number of users, and of receiver accounts, tracked */
+    @Value("${banking.fraud.counterparties.max-accounts}")
+    private int maxAccounts;
+    
+    private final Map<UUID, WindowedHyperLogLog> receiversBySender = new ConcurrentHashMap<>();
+    private final Map<String, WindowedHyperLogLog> sendersByReceiver = new ConcurrentHashMap<>();
+    
+    /** Receivers each user paid most recently; released together with the user's sketch */
+    private final Map<UUID, RecentReceivers> recentReceivers = new ConcurrentHashMap<>();
+    
+    /**
+     * Adds a completed transfer to both sketches, after its commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        record(event.senderUserId(), event.toIban(), event.timestamp());
+    }
+    
+    void record(UUID senderUserId, String toIban, LocalDateTime at) {
+        long millis = millisOf(at);
+        long receiverHash = WindowedHyperLogLog.hash(toIban);
+        add(receiversBySender, senderUserId, receiverHash, millis);
+        add(sendersByReceiver, toIban, WindowedHyperLogLog.hash(senderUserId), millis);
+        
+        RecentReceivers receivers = recentReceivers.get(senderUserId);
+        if (receivers == null) {
+            if (recentReceivers.size() >= maxAccounts) {
+                return;
+            }
+            receivers = recentReceivers.computeIfAbsent(senderUserId, key -> new RecentReceivers());
+        }
+        synchronized (receivers) {
+            receivers.add(receiverHash);
+        }
+    }
+    
+    /**
+     * Estimated number of distinct accounts the user sent to within the window,
+     * including the given receiver.
+     */
+    public long distinctReceivers(UUID senderUserId, String toIban, LocalDateTime now) {
+        return estimate(receiversBySender.get(senderUserId), WindowedHyperLogLog.hash(toIban), now);
+    }
+    
+    /**
+     * Estimated number of distinct users that sent to the account within the window,
+     * including the given sender.
+     */
+    public long distinctSenders(String toIban, UUID senderUserId, LocalDateTime now) {
+        return estimate(sendersByReceiver.get(toIban), WindowedHyperLogLog.hash(senderUserId), now);
+    }
+    
+    /**
+     * Whether the user paid the receiver recently: among the user's last
+     * {@value #RECENT_RECEIVERS} distinct receivers, while the user has transfers within
+     * the window. Untracked users have no known receivers.
+     */
+    public boolean isKnownReceiver(UUID senderUserId, String toIban) {
+        RecentReceivers receivers = recentReceivers.get(senderUserId);
+        if (receivers == null) {
+            return false;
+        }
+        long hash = WindowedHyperLogLog.hash(toIban);
+        synchronized (receivers) {
+            return receivers.contains(hash);
+        }
+    }
+    
+    /**
+     * Releases the sketches of users and accounts without a transfer in the window.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.counterparties.evict-interval-ms}")
+    public void evictIdle() {
+        evictIdle(LocalDateTime.now());
+    }
+    
+    void evictIdle(LocalDateTime now) {
+        long millis = millisOf(now);
+        evictIdle(receiversBySender, millis);
+        evictIdle(sendersByReceiver, millis);
+        recentReceivers.keySet().removeIf(userId -> !receiversBySender.containsKey(userId));
+    }
+    
+    int trackedSenders() {
+        return receiversBySender.size();
+    }
+    
+    int trackedReceivers() {
+        return sendersByReceiver.size();
+    }
+    
+    private <K> void add(Map<K, WindowedHyperLogLog> sketches, K key, long hash, long millis) {
+        WindowedHyperLogLog sketch = sketches.get(key);
+        if (sketch == null) {
+            if (sketches.size() >= maxAccounts) {
+                return;
+            }
+            sketch = sketches.computeIfAbsent(key, k -> new WindowedHyperLogLog(windowMinutes * 60_000L));
+        }
+        synchronized (sketch) {
+            sketch.add(hash, millis);
+        }
+    }
+    
+    private long estimate(WindowedHyperLogLog sketch, long hash, LocalDateTime now) {
+        if (sketch == null) {
+            return 1;
+        }
+        synchronized (sketch) {
+            return sketch.estimateWith(hash, millisOf(now));
+        }
+    }
+    
+    private static <K> void evictIdle(Map<K, WindowedHyperLogLog> sketches, long millis) {
+        sketches.forEach((key, sketch) -> {
+            synchronized (sketch) {
+                if (sketch.isIdle(millis)) {
+                    sketches.remove(key, sketch);
+                }
+            }
+        });
+    }
+    
+    private static long millisOf(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    /**
+     * Ring of the hashes of a user's last distinct receivers. Access is synchronized on
+     * the instance.
+     */
+    private static final class RecentReceivers {
+        
+        private final long[] hashes = new long[RECENT_RECEIVERS];
+        private int next;
+        private int size;
+        
+        boolean contains(long hash) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        void add(long hash) {
+            if (contains(hash)) {
+                return;
+            }
+            hashes[next] = hash;
+            next = (next + 1) % hashes.length;
+            size = Math.min(size + 1, hashes.length);
+        }
+    }
+}
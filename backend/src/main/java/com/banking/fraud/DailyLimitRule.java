@@ -0,0 +1,40 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.money.Money;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects a transfer that would take the sender's total for today above the daily limit.
+ * 
+ * An early check on committed transfers only; the limit itself is enforced by the
+ * reservation inside the transfer's transaction. The limit is the sender's
+ * {@link FraudLimits}.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@Order(20)
+public class DailyLimitRule implements FraudRule {
+    
+    public static final String REJECTION = "Transfer rejected: Daily limit exceeded";
+    
+    @Override
+    public String name() {
+        return "daily-limit";
+    }
+    
+    @Override
+    public FraudRuleResult evaluate(TransferContext context) {
+        // Projected total including the current transfer, compared without allocating
+        if (!Money.exceedsLimit(context.dailyTotal().getMinorUnits(), context.amount().getMinorUnits(),
+                context.limits().dailyTransferLimit().getMinorUnits())) {
+            return FraudRuleResult.pass(name());
+        }
+        return FraudRuleResult.reject(name(), FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED, FraudEvent.FraudSeverity.HIGH,
+            String.format("Daily limit exceeded. Daily total: %s, Attempted: %s",
+                context.dailyTotal(), context.amount()),
+            REJECTION);
+    }
+}
@@ -0,0 +1,84 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flags senders that pay many distinct accounts, and receivers paid by many distinct
+ * users, within a short window - the fan-out and fan-in of money mules, which a plain
+ * transfer count does not see.
+ * 
+ * Reads the approximate counts of the in-memory {@link CounterpartyTracker}. As the
+ * counts are estimates, transfers are flagged for review, not blocked; the rule runs
+ * concurrently with the others and is skipped if it exceeds its time budget.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@Order(50)
+@RequiredArgsConstructor
+public class DistinctCounterpartyRule implements FraudRule {
+    
+    private final CounterpartyTracker counterpartyTracker;
+    
+    /** Distinct receiver accounts per user within the window above which a transfer is flagged */
+    @Value("${banking.fraud.counterparties.max-receivers}")
+    private int maxReceivers;
+    
+    /** Distinct sending users per account within the window above which a transfer is flagged */
+    @Value("${banking.fraud.counterparties.max-senders}")
+    private int maxSenders;
+    
+    @Value("${banking.fraud.counterparties.window-minutes}")
+    private int windowMinutes;
+    
+    /** Time budget of one evaluation */
+    @Value("${banking.fraud.counterparties.timeout-ms}")
+    private long timeoutMs;
+    
+    @Override
+    public String name() {
+        return "distinct-counterparties";
+    }
+    
+    @Override
+    public FraudRuleResult evaluate(TransferContext context) {
+        LocalDateTime now = LocalDateTime.now();
+        long receivers = counterpartyTracker.distinctReceivers(context.sender().getId(), context.toIban(), now);
+        long senders = counterpartyTracker.distinctSenders(context.toIban(), context.sender().getId(), now);
+        
+        StringBuilder description = new StringBuilder();
+        if (receivers > maxReceivers) {
+            description.append(String.format("Many distinct receivers. About %d accounts in last %d minutes",
+                receivers, windowMinutes));
+        }
+        if (senders > maxSenders) {
+            if (!description.isEmpty()) {
+                description.append("; ");
+            }
+            description.append(String.format("Many distinct senders to %s. About %d users in last %d minutes",
+                context.toIban(), senders, windowMinutes));
+        }
+        
+        if (description.isEmpty()) {
+            return FraudRuleResult.pass(name());
+        }
+        return FraudRuleResult.flag(name(), FraudEvent.FraudType.ACCOUNT_ANOMALY, FraudEvent.FraudSeverity.MEDIUM,
+            description.toString());
+    }
+    
+    @Override
+    public boolean isInline() {
+        return false;
+    }
+    
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+}
@@ -0,0 +1,38 @@
+package com.banking.fraud;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Aggregated decision of all fraud rules for one transfer.
+ * 
+ * The transfer is rejected if any rule rejects it; the first rejecting rule in
+ * registry order provides the message reported to the client.
+ * 
+ * @param results Per-rule results in registry order
+ */
+public record FraudDecision(List<FraudRuleResult> results) {
+    
+    /** Decision without any rule result */
+    public static final FraudDecision ALLOW = new FraudDecision(List.of());
+    
+    public boolean isRejected() {
+        return rejection().isPresent();
+    }
+    
+    /**
+     * @return First rejecting rule result, if any
+     */
+    public Optional<FraudRuleResult> rejection() {
+        return results.stream()
+            .filter(result -> result.outcome() == FraudRuleResult.Outcome.REJECT)
+            .findFirst();
+    }
+    
+    /**
+     * @return Results to be logged as fraud events
+     */
+    public List<FraudRuleResult> triggered() {
+        return results.stream().filter(FraudRuleResult::isTriggered).toList();
+    }
+}
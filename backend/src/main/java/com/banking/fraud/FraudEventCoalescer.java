@@ -0,0 +1,153 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.money.Money;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-windowed deduplication of fraud events, in front of the {@link FraudEventSink}.
+ * 
+ * Events are keyed by (user, type):
+ * 1. The first event of a key opens a window and is written immediately
+ * 2. Repeats within the window are coalesced in memory into one event that carries the
+ *    occurrence count, the first and last repeat times, the summed amounts, the highest
+ *    severity and the latest description
+ * 3. When the window closes, the coalesced event (if any) is written
+ * 
+ * A user hammering transfers therefore produces at most two rows per type and window
+ * instead of one per attempt. On shutdown all open windows are written.
+ * 
+ * Every event, coalesced or not, is also passed to the {@link FraudReactionQueue}, so
+ * a CRITICAL event freezes the user's accounts without waiting for its window.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@RequiredArgsConstructor
+public class FraudEventCoalescer {
+    
+    private final FraudEventSink fraudEventSink;
+    private final FraudReactionQueue fraudReactionQueue;
+    
+    /** Length of a dedup window */
+    @Value("${banking.fraud.events.dedup-window-ms}")
+    private long windowMs;
+    
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+    
+    /**
+     * Writes the event, or coalesces it into the open window of its user and type.
+     * 
+     * @param event Event to log
+     */
+    public void submit(FraudEvent event) {
+        submit(event, System.currentTimeMillis());
+    }
+    
+    void submit(FraudEvent event, long now) {
+        fraudReactionQueue.submit(event);
+        List<FraudEvent> ready = new ArrayList<>(2);
+        windows.compute(new WindowKey(event.getUser().getId(), event.getType()), (key, window) -> {
+            if (window != null && now < window.closesAt) {
+                window.add(event);
+                return window;
+            }
+            // A window that expired before the sweep saw it is closed here
+            if (window != null && window.repeats != null) {
+                ready.add(window.repeats);
+            }
+            ready.add(event);
+            return new Window(now + windowMs);
+        });
+        // Outside the map's bin lock: the sink may write synchronously
+        ready.forEach(fraudEventSink::submit);
+    }
+    
+    /**
+     * Writes and removes the windows that have closed.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.events.dedup-window-ms}")
+    public void closeExpired() {
+        closeExpired(System.currentTimeMillis());
+    }
+    
+    void closeExpired(long now) {
+        for (WindowKey key : windows.keySet()) {
+            List<FraudEvent> ready = new ArrayList<>(1);
+            windows.computeIfPresent(key, (k, window) -> {
+                if (now < window.closesAt) {
+                    return window;
+                }
+                if (window.repeats != null) {
+                    ready.add(window.repeats);
+                }
+                return null;
+            });
+            ready.forEach(fraudEventSink::submit);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        closeExpired(Long.MAX_VALUE);
+    }
+    
+    int openWindows() {
+        return windows.size();
+    }
+    
+    private record WindowKey(UUID userId, FraudEvent.FraudType type) {
+    }
+    
+    /**
+     * Open window of one key; only accessed inside the map's compute functions.
+     */
+    private static final class Window {
+        
+        private final long closesAt;
+        
+        /** Coalesced repeats, null until the first repeat */
+        private FraudEvent repeats;
+        
+        private Window(long closesAt) {
+            this.closesAt = closesAt;
+        }
+        
+        private void add(FraudEvent event) {
+            if (repeats == null) {
+                repeats = FraudEvent.builder()
+                    .user(event.getUser())
+                    .type(event.getType())
+                    .timestamp(event.getTimestamp())
+                    .lastTimestamp(event.getTimestamp())
+                    .description(event.getDescription())
+                    .amount(event.getAmount())
+                    .severity(event.getSeverity())
+                    .build();
+                return;
+            }
+            repeats.setOccurrences(repeats.getOccurrences() + 1);
+            if (event.getTimestamp().isAfter(repeats.getLastTimestamp())) {
+                repeats.setLastTimestamp(event.getTimestamp());
+            }
+            repeats.setDescription(event.getDescription());
+            if (event.getAmount() != null) {
+                Money total = repeats.getAmount();
+                repeats.setAmount(total != null ? total.plus(event.getAmount()) : event.getAmount());
+            }
+            if (event.getSeverity().compareTo(repeats.getSeverity()) > 0) {
+                repeats.setSeverity(event.getSeverity());
+            }
+        }
+    }
+}
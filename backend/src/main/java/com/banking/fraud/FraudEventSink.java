@@ -0,0 +1,215 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, batched writer of fraud events.
+ * 
+ * Callers only enqueue the event into a bounded in-memory buffer; a single background
+ * writer inserts the buffered events with JDBC batching. A batch is written when it
+ * reaches batch-size events or flush-interval-ms after its first event, whichever
+ * comes first. Events therefore appear in the fraud event list with up to one flush
+ * interval of delay, and are not part of the caller's transaction.
+ * 
+ * Overflow policy, when the buffer is full:
+ * - HIGH and CRITICAL events are inserted synchronously by the caller, so they are never lost
+ * - LOW and MEDIUM events are dropped and counted (banking.fraud.events.dropped)
+ * 
+ * Before start and after stop every event is inserted synchronously. On shutdown the
+ * writer drains the buffer before it exits; it stops after the web server, so events of
+ * the last requests are still written.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FraudEventSink implements SmartLifecycle {
+    
+    private static final String INSERT_FRAUD_EVENT =
+        "INSERT INTO fraud_events (id, user_id, type, timestamp, description, amount, severity, " +
+        "occurrences, last_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    /** Maximum number of buffered events */
+    @Value("${banking.fraud.events.capacity}")
+    private int capacity;
+    
+    /** Maximum events per batch insert */
+    @Value("${banking.fraud.events.batch-size}")
+    private int batchSize;
+    
+    /** Maximum time an event waits in the buffer */
+    @Value("${banking.fraud.events.flush-interval-ms}")
+    private long flushIntervalMs;
+    
+    /** Dropped events not yet reported in the log */
+    private final AtomicLong unreportedDrops = new AtomicLong();
+    
+    private BlockingQueue<FraudEvent> buffer;
+    private Counter written;
+    private Counter dropped;
+    private Thread writer;
+    private volatile boolean running;
+    
+    /**
+     * Queues a fraud event for insertion.
+     * 
+     * @param event Event to persist; an id is assigned if it has none
+     */
+    public void submit(FraudEvent event) {
+        if (event.getId() == null) {
+            event.setId(UUID.randomUUID());
+        }
+        if (running && buffer.offer(event)) {
+            return;
+        }
+        if (!running || event.getSeverity() == FraudEvent.FraudSeverity.HIGH
+                || event.getSeverity() == FraudEvent.FraudSeverity.CRITICAL) {
+            write(List.of(event));
+            return;
+        }
+        dropped.increment();
+        unreportedDrops.incrementAndGet();
+    }
+    
+    @Override
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+        written = Counter.builder("banking.fraud.events.written")
+            .description("Fraud events inserted")
+            .register(meterRegistry);
+        dropped = Counter.builder("banking.fraud.events.dropped")
+            .description("Low and medium severity fraud events dropped because the buffer was full")
+            .register(meterRegistry);
+        Gauge.builder("banking.fraud.events.buffered", buffer, BlockingQueue::size)
+            .description("Fraud events waiting to be inserted")
+            .register(meterRegistry);
+        
+        running = true;
+        writer = new Thread(this::writeLoop, "fraud-event-writer");
+        writer.start();
+        log.info("Fraud event sink started with a buffer of {} events", capacity);
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // The writer drains the buffer before it exits
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything still buffered after the timeout is written by the caller
+        List<FraudEvent> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+        log.info("Fraud event sink stopped");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Stops after the web server (phase 0 is stopped late), so in-flight requests can still log events.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+    
+    /**
+     * Writes batches until stopped and the buffer is empty.
+     */
+    private void writeLoop() {
+        List<FraudEvent> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                FraudEvent first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    reportDrops();
+                    continue;
+                }
+                batch.add(first);
+                
+                // Fill the batch until it is full or the first event has waited flush-interval-ms
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    FraudEvent next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            reportDrops();
+        }
+    }
+    
+    private void write(List<FraudEvent> events) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_FRAUD_EVENT, events, events.size(), (ps, event) -> {
+                ps.setObject(1, event.getId());
+                ps.setObject(2, event.getUser().getId());
+                ps.setString(3, event.getType().name());
+                ps.setObject(4, event.getTimestamp());
+                ps.setString(5, event.getDescription());
+                ps.setBigDecimal(6, event.getAmount() != null ? event.getAmount().toBigDecimal() : null);
+                ps.setString(7, event.getSeverity().name());
+                ps.setInt(8, event.getOccurrences());
+                ps.setObject(9, event.getLastTimestamp());
+            });
+            if (written != null) {
+                written.increment(events.size());
+            }
+        } catch (RuntimeException ex) {
+            log.error("Could not write {} fraud events: {}", events.size(), ex.getMessage());
+        }
+    }
+    
+    private void reportDrops() {
+        long drops = unreportedDrops.getAndSet(0);
+        if (drops > 0) {
+            log.warn("Fraud event buffer full: dropped {} low/medium severity events", drops);
+        }
+    }
+}
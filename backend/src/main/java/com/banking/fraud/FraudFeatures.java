@@ -0,0 +1,56 @@
+package com.banking.fraud;
+
+import com.banking.money.Money;
+
+/**
+ * Feature vector of a transfer for the {@link FraudModel}: a primitive double[] with one
+ * slot per feature, filled in place so scoring allocates nothing.
+ * 
+ * Features are scaled to comparable ranges, so plain logistic-regression weights apply:
+ * - amount: ln(1 + amount in major units)
+ * - time-of-day-sin, time-of-day-cos: local time of day on the unit circle, so
+ *   23:59 and 00:00 are neighbours
+ * - recent-transfers: the sender's COMPLETED transfers within the rapid-transfer window
+ * - new-receiver: 1 if the sender has not paid the receiver recently, else 0
+ * 
+ * @author Banking Platform Team
+ */
+public final class FraudFeatures {
+    
+    public static final int AMOUNT = 0;
+    public static final int TIME_OF_DAY_SIN = 1;
+    public static final int TIME_OF_DAY_COS = 2;
+    public static final int RECENT_TRANSFERS = 3;
+    public static final int NEW_RECEIVER = 4;
+    
+    /** Length of a feature vector */
+    public static final int COUNT = 5;
+    
+    /** Names of the features, as used for the weights in model files */
+    static final String[] NAMES = {"amount", "time-of-day-sin", "time-of-day-cos", "recent-transfers", "new-receiver"};
+    
+    private static final double SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final double MINOR_UNITS = Math.pow(10, Money.SCALE);
+    
+    private FraudFeatures() {
+    }
+    
+    /**
+     * Fills a feature vector.
+     * 
+     * @param amountMinor Transfer amount in minor units
+     * @param secondOfDay Local time of the transfer, in seconds since midnight
+     * @param recentTransfers The sender's transfers within the rapid-transfer window
+     * @param newReceiver Whether the sender has not paid the receiver recently
+     * @param features Vector of {@link #COUNT} slots to fill
+     */
+    public static void extract(long amountMinor, int secondOfDay, long recentTransfers, boolean newReceiver,
+                               double[] features) {
+        double angle = 2 * Math.PI * secondOfDay / SECONDS_PER_DAY;
+        features[AMOUNT] = Math.log1p(Math.max(0, amountMinor) / MINOR_UNITS);
+        features[TIME_OF_DAY_SIN] = Math.sin(angle);
+        features[TIME_OF_DAY_COS] = Math.cos(angle);
+        features[RECENT_TRANSFERS] = recentTransfers;
+        features[NEW_RECEIVER] = newReceiver ? 1 : 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.banking.fraud;
+
+import com.banking.money.Money;
+
+/**
+ * Fraud limits that apply to one user, resolved from the user's override, the user's
+ * segment and the configured defaults.
+ * 
+ * @param dailyTransferLimit Maximum total amount per day
+ * @param rapidTransferThreshold Maximum number of transfers within the rapid-transfer window
+ * @param rapidTransferWindowMinutes Length of the rapid-transfer window in minutes
+ */
+public record FraudLimits(Money dailyTransferLimit, int rapidTransferThreshold, int rapidTransferWindowMinutes) {
+}
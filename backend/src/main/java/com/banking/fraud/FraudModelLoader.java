@@ -0,0 +1,79 @@
+package com.banking.fraud;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads the {@link FraudModel} from a local file and swaps in new versions without a
+ * restart.
+ * 
+ * The file is checked every reload interval; when its modification time changed, the
+ * new model is parsed completely and then published with a single volatile write, so
+ * transfers being scored keep the model they started with. A file that cannot be read
+ * or parsed is logged and the previous model stays active.
+ * 
+ * Replace the file atomically (write a temporary file, then rename it) so a reload
+ * never sees a half-written model.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+public class FraudModelLoader {
+    
+    /** Model file; empty disables model scoring */
+    @Value("${banking.fraud.model.path}")
+    private String path;
+    
+    /** Score from which a transfer is flagged, unless the model file sets one */
+    @Value("${banking.fraud.model.threshold}")
+    private double threshold;
+    
+    private volatile FraudModel model;
+    
+    /** Modification time of the last file read, successful or not */
+    private long loadedModified = Long.MIN_VALUE;
+    
+    @PostConstruct
+    void init() {
+        reload();
+    }
+    
+    /**
+     * Loads the model file if it changed since the last check.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.model.reload-interval-ms}")
+    public synchronized void reload() {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        Path file = Path.of(path);
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == loadedModified) {
+                return;
+            }
+            loadedModified = modified;
+            FraudModel loaded = FraudModel.load(file, threshold);
+            model = loaded;
+            log.info("Loaded fraud model {} from {} (threshold {})", loaded.getVersion(), file, loaded.getThreshold());
+        } catch (IOException | IllegalArgumentException ex) {
+            log.warn("Could not load fraud model from {}: {}; keeping model {}", file, ex.getMessage(),
+                model != null ? model.getVersion() : "none");
+        }
+    }
+    
+    /**
+     * @return Active model, or null if none is loaded
+     */
+    public FraudModel current() {
+        return model;
+    }
+}
@@ -0,0 +1,252 @@
+package com.banking.fraud;
+
+import com.banking.entity.Account;
+import com.banking.entity.AuditLog;
+import com.banking.entity.FraudEvent;
+import com.banking.ledger.LedgerEngine;
+import com.banking.repository.UserRepository;
+import com.banking.service.AccountLookupCache;
+import com.banking.service.AuditService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous reaction to CRITICAL fraud events: all ACTIVE accounts of the user are
+ * frozen.
+ * 
+ * Process Flow:
+ * 1. {@link FraudEventCoalescer} queues the user of every CRITICAL event; the caller
+ *    only enqueues, so the transfer that raised the event is not delayed
+ * 2. A single background worker collects the queued users for up to flush-interval-ms
+ *    or batch-size users
+ * 3. One UPDATE freezes the ACTIVE accounts of all users in the batch, and the
+ *    ACCOUNT_FROZEN audit entries are inserted in the same transaction
+ * 4. After the commit, the frozen accounts are removed from the account cache and
+ *    their in-memory ledger state is updated
+ * 
+ * A user is queued at most once until the worker picks it up, so the queue is bounded
+ * by the number of users and no reaction is dropped. Freezing is idempotent: accounts
+ * that are already frozen or closed are not touched. A failed batch is logged and
+ * counted (banking.fraud.reactions.failed); the accounts can then be frozen by an admin.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FraudReactionQueue implements SmartLifecycle {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditService auditService;
+    private final UserRepository userRepository;
+    private final LedgerEngine ledgerEngine;
+    private final AccountLookupCache accountLookupCache;
+    private final MeterRegistry meterRegistry;
+    
+    /** Whether CRITICAL fraud events freeze the user's accounts */
+    @Value("${banking.fraud.reactions.enabled}")
+    private boolean enabled;
+    
+    /** Maximum users per freeze batch */
+    @Value("${banking.fraud.reactions.batch-size}")
+    private int batchSize;
+    
+    /** Maximum time a user waits in the queue */
+    @Value("${banking.fraud.reactions.flush-interval-ms}")
+    private long flushIntervalMs;
+    
+    private final BlockingQueue<Reaction> queue = new LinkedBlockingQueue<>();
+    
+    /** Users in the queue, so repeated events of one user are queued once */
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+    
+    private Counter frozen;
+    private Counter failed;
+    private Thread worker;
+    private volatile boolean running;
+    
+    /**
+     * Queues the freeze of the accounts of the event's user, if the event is CRITICAL.
+     * 
+     * @param event Fraud event
+     */
+    public void submit(FraudEvent event) {
+        if (!enabled || event.getSeverity() != FraudEvent.FraudSeverity.CRITICAL) {
+            return;
+        }
+        UUID userId = event.getUser().getId();
+        if (queued.add(userId)) {
+            queue.add(new Reaction(userId, event.getType()));
+        }
+    }
+    
+    @Override
+    public void start() {
+        frozen = Counter.builder("banking.fraud.reactions.frozen")
+            .description("Accounts frozen after CRITICAL fraud events")
+            .register(meterRegistry);
+        failed = Counter.builder("banking.fraud.reactions.failed")
+            .description("Users whose accounts could not be frozen after a CRITICAL fraud event")
+            .register(meterRegistry);
+        
+        running = true;
+        worker = new Thread(this::reactLoop, "fraud-reaction-worker");
+        worker.start();
+        log.info("Fraud reaction queue started (freeze on CRITICAL events {})", enabled ? "enabled" : "disabled");
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // The worker drains the queue before it exits
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Fraud reaction queue stopped with {} users not frozen", queue.size());
+        }
+        log.info("Fraud reaction queue stopped");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Stops after the web server, together with the fraud event sink.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+    
+    /**
+     * Freezes batches until stopped and the queue is empty.
+     */
+    private void reactLoop() {
+        List<Reaction> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Reaction first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // Fill the batch until it is full or the first user has waited flush-interval-ms
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Reaction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                // Events raised from here on queue the user again and re-check new accounts
+                batch.forEach(reaction -> queued.remove(reaction.userId()));
+                freeze(batch);
+                batch.clear();
+            }
+        }
+    }
+    
+    /**
+     * Freezes the ACTIVE accounts of the users in one transaction with their audit entries.
+     */
+    void freeze(List<Reaction> batch) {
+        Map<UUID, FraudEvent.FraudType> reasons = new LinkedHashMap<>();
+        batch.forEach(reaction -> reasons.putIfAbsent(reaction.userId(), reaction.type()));
+        
+        List<FrozenAccount> accounts;
+        try {
+            accounts = transactionTemplate.execute(status -> {
+                List<FrozenAccount> updated = freezeActiveAccounts(reasons.keySet());
+                LocalDateTime now = LocalDateTime.now();
+                auditService.logAll(updated.stream()
+                    .map(account -> AuditLog.builder()
+                        .user(userRepository.getReferenceById(account.userId()))
+                        .action(AuditLog.AuditAction.ACCOUNT_FROZEN)
+                        .timestamp(now)
+                        .details(String.format("Account %s status changed from ACTIVE to FROZEN after CRITICAL %s fraud event",
+                            account.iban(), reasons.get(account.userId())))
+                        .build())
+                    .toList());
+                return updated;
+            });
+        } catch (RuntimeException ex) {
+            log.error("Could not freeze the accounts of users {}: {}", reasons.keySet(), ex.getMessage());
+            if (failed != null) {
+                failed.increment(reasons.size());
+            }
+            return;
+        }
+        
+        // Only after the commit, so no transfer sees a status that might still roll back
+        accounts.forEach(account -> accountLookupCache.invalidate(account.iban()));
+        if (ledgerEngine.isEnabled()) {
+            accounts.forEach(account -> ledgerEngine.updateStatus(account.iban(), Account.AccountStatus.FROZEN));
+        }
+        if (frozen != null) {
+            frozen.increment(accounts.size());
+        }
+        if (!accounts.isEmpty()) {
+            log.warn("Froze {} accounts of {} users after CRITICAL fraud events", accounts.size(), reasons.size());
+        }
+    }
+    
+    private List<FrozenAccount> freezeActiveAccounts(Set<UUID> userIds) {
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        return jdbcTemplate.query(
+            "UPDATE accounts SET status = 'FROZEN' WHERE status = 'ACTIVE' AND user_id IN (" + placeholders + ") " +
+            "RETURNING iban, user_id",
+            (rs, rowNum) -> new FrozenAccount(rs.getString("iban"), rs.getObject("user_id", UUID.class)),
+            userIds.toArray());
+    }
+    
+    int queuedUsers() {
+        return queue.size();
+    }
+    
+    record Reaction(UUID userId, FraudEvent.FraudType type) {
+    }
+    
+    private record FrozenAccount(String iban, UUID userId) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.banking.fraud;
+
+/**
+ * A fraud check applied to single transfers by the {@link FraudRuleRegistry}.
+ * 
+ * Rules are Spring beans; every FraudRule bean is registered automatically and
+ * evaluated in {@code @Order} order. A rule reads only the pre-fetched
+ * {@link TransferContext} and must not query the database itself, so adding a rule
+ * adds no round trip to the transfer path.
+ * 
+ * Rules that compare pre-fetched values run inline on the request thread. Rules that
+ * compute more run concurrently on the registry's pool within their time budget; if
+ * they exceed it, the transfer is not blocked by them.
+ * 
+ * @author Banking Platform Team
+ */
+public interface FraudRule {
+    
+    /**
+     * @return Stable name, used in fraud events and as the metrics tag
+     */
+    String name();
+    
+    /**
+     * Evaluates one transfer.
+     * 
+     * @param context Pre-fetched transfer data, shared by all rules
+     * @return Result of this rule
+     */
+    FraudRuleResult evaluate(TransferContext context);
+    
+    /**
+     * @return true to run on the request thread, false to run concurrently with the other rules
+     */
+    default boolean isInline() {
+        return true;
+    }
+    
+    /**
+     * @return Time budget of a concurrent rule in milliseconds; 0 uses banking.fraud.rules.timeout-ms
+     */
+    default long timeoutMs() {
+        return 0;
+    }
+}
@@ -0,0 +1,169 @@
+package com.banking.fraud;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry and evaluator of all {@link FraudRule} beans.
+ * 
+ * Process Flow:
+ * 1. Concurrent rules are started on a bounded pool, each with its own time budget
+ * 2. Inline rules run on the calling thread meanwhile
+ * 3. The concurrent results are collected; a rule that timed out, failed or could not
+ *    be scheduled is SKIPPED and does not block the transfer
+ * 4. All results are aggregated into one {@link FraudDecision}, in registry order
+ * 
+ * Every evaluation is timed per rule (banking.fraud.rule.latency, tagged with the rule
+ * and its outcome, with p50/p95/p99).
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FraudRuleRegistry {
+    
+    /** All rule beans, in @Order order */
+    private final List<FraudRule> rules;
+    private final MeterRegistry meterRegistry;
+    
+    /** Threads evaluating concurrent rules */
+    @Value("${banking.fraud.rules.workers}")
+    private int workers;
+    
+    /** Maximum number of queued rule evaluations; beyond that rules are skipped */
+    @Value("${banking.fraud.rules.queue-capacity}")
+    private int queueCapacity;
+    
+    /** Default time budget of a concurrent rule */
+    @Value("${banking.fraud.rules.timeout-ms}")
+    private long timeoutMs;
+    
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+    
+    private ThreadPoolTaskExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("fraud-rule-");
+        executor.initialize();
+        log.info("Registered fraud rules: {}", rules.stream().map(FraudRule::name).toList());
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * @return Registered rules in evaluation order
+     */
+    public List<FraudRule> getRules() {
+        return rules;
+    }
+    
+    /**
+     * Evaluates all rules against one transfer.
+     * 
+     * @param context Pre-fetched transfer data
+     * @return Aggregated decision
+     */
+    public FraudDecision evaluate(TransferContext context) {
+        FraudRuleResult[] results = new FraudRuleResult[rules.size()];
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        
+        // Step 1: Start the concurrent rules first, so they overlap with the inline ones
+        for (int i = 0; i < rules.size(); i++) {
+            FraudRule rule = rules.get(i);
+            if (!rule.isInline()) {
+                int index = i;
+                pending.add(submit(rule, context).thenAccept(result -> results[index] = result));
+            }
+        }
+        
+        // Step 2: Inline rules on the calling thread
+        for (int i = 0; i < rules.size(); i++) {
+            FraudRule rule = rules.get(i);
+            if (rule.isInline()) {
+                long start = System.nanoTime();
+                results[i] = rule.evaluate(context);
+                recordLatency(rule.name(), outcomeTag(results[i]), System.nanoTime() - start);
+            }
+        }
+        
+        // Step 3: Every concurrent result completes within its budget
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        return new FraudDecision(Arrays.asList(results));
+    }
+    
+    /**
+     * Schedules a concurrent rule; the returned future completes with SKIPPED once its
+     * budget is exhausted. A timed-out evaluation keeps running, but its result is ignored.
+     */
+    private CompletableFuture<FraudRuleResult> submit(FraudRule rule, TransferContext context) {
+        long budgetMs = rule.timeoutMs() > 0 ? rule.timeoutMs() : timeoutMs;
+        long submitted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> evaluateConcurrent(rule, context, submitted), executor)
+                .completeOnTimeout(null, budgetMs, TimeUnit.MILLISECONDS)
+                .thenApply(result -> {
+                    if (result != null) {
+                        return result;
+                    }
+                    log.warn("Fraud rule {} exceeded its budget of {} ms", rule.name(), budgetMs);
+                    recordLatency(rule.name(), "timeout", System.nanoTime() - submitted);
+                    return FraudRuleResult.skipped(rule.name());
+                });
+        } catch (TaskRejectedException ex) {
+            log.warn("Fraud rule {} skipped: evaluation queue is full", rule.name());
+            recordLatency(rule.name(), "rejected", 0);
+            return CompletableFuture.completedFuture(FraudRuleResult.skipped(rule.name()));
+        }
+    }
+    
+    private FraudRuleResult evaluateConcurrent(FraudRule rule, TransferContext context, long submitted) {
+        try {
+            FraudRuleResult result = rule.evaluate(context);
+            recordLatency(rule.name(), outcomeTag(result), System.nanoTime() - submitted);
+            return result;
+        } catch (RuntimeException ex) {
+            log.warn("Fraud rule {} failed: {}", rule.name(), ex.getMessage());
+            recordLatency(rule.name(), "error", System.nanoTime() - submitted);
+            return FraudRuleResult.skipped(rule.name());
+        }
+    }
+    
+    private static String outcomeTag(FraudRuleResult result) {
+        return result.outcome().name().toLowerCase();
+    }
+    
+    private void recordLatency(String rule, String outcome, long nanos) {
+        latencyTimers.computeIfAbsent(rule + ":" + outcome, key -> Timer.builder("banking.fraud.rule.latency")
+                .description("Evaluation time of one fraud rule for one transfer")
+                .tag("rule", rule)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,55 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+
+/**
+ * Outcome of one fraud rule for one transfer.
+ * 
+ * FLAG and REJECT results are logged as fraud events; only REJECT blocks the transfer.
+ * 
+ * @param rule Name of the rule
+ * @param outcome What the rule decided
+ * @param type Fraud type of the event (null unless flagged or rejected)
+ * @param severity Severity of the event (null unless flagged or rejected)
+ * @param description Event description (null unless flagged or rejected)
+ * @param rejection Message reported to the client (null unless rejected)
+ */
+public record FraudRuleResult(String rule, Outcome outcome, FraudEvent.FraudType type,
+                              FraudEvent.FraudSeverity severity, String description, String rejection) {
+    
+    public enum Outcome {
+        /** Nothing suspicious */
+        PASS,
+        /** Suspicious, logged but allowed */
+        FLAG,
+        /** Blocks the transfer */
+        REJECT,
+        /** Timed out or failed; does not block the transfer */
+        SKIPPED
+    }
+    
+    public static FraudRuleResult pass(String rule) {
+        return new FraudRuleResult(rule, Outcome.PASS, null, null, null, null);
+    }
+    
+    public static FraudRuleResult skipped(String rule) {
+        return new FraudRuleResult(rule, Outcome.SKIPPED, null, null, null, null);
+    }
+    
+    public static FraudRuleResult flag(String rule, FraudEvent.FraudType type,
+                                       FraudEvent.FraudSeverity severity, String description) {
+        return new FraudRuleResult(rule, Outcome.FLAG, type, severity, description, null);
+    }
+    
+    public static FraudRuleResult reject(String rule, FraudEvent.FraudType type, FraudEvent.FraudSeverity severity,
+                                         String description, String rejection) {
+        return new FraudRuleResult(rule, Outcome.REJECT, type, severity, description, rejection);
+    }
+    
+    /**
+     * @return true if the result is logged as a fraud event
+     */
+    public boolean isTriggered() {
+        return outcome == Outcome.FLAG || outcome == Outcome.REJECT;
+    }
+}
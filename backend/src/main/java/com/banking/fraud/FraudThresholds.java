@@ -0,0 +1,129 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudThreshold;
+import com.banking.entity.User;
+import com.banking.money.Money;
+import com.banking.repository.FraudThresholdRepository;
+import com.banking.repository.UserRepository;
+import com.banking.repository.UserSegment;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory cache of the fraud limits of every user.
+ * 
+ * Limits are resolved per field, most specific first:
+ * 1. The user's override (fraud_thresholds row with user_id)
+ * 2. The user's segment (fraud_thresholds row with segment)
+ * 3. The configured defaults (banking.fraud.*)
+ * 
+ * A reload resolves everything up front into an immutable snapshot: one map entry for
+ * every user whose limits differ from the RETAIL segment (users outside RETAIL and users
+ * with an override), and the RETAIL limits for all others. A lookup on the transfer path
+ * is therefore one map read, and a reload swaps the snapshot without blocking lookups.
+ * Reloads are serialized, so a slow reload that read the tables earlier cannot
+ * overwrite the snapshot of a later one.
+ * 
+ * Reloaded at startup, after every change through the admin API, and on request
+ * (after editing the tables directly, or on other instances).
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FraudThresholds {
+    
+    private final FraudThresholdRepository fraudThresholdRepository;
+    private final UserRepository userRepository;
+    
+    /** Default maximum total amount a user can transfer per day */
+    @Value("${banking.fraud.daily-transfer-limit}")
+    private Money dailyTransferLimit;
+    
+    /** Default maximum number of transfers allowed within the time window */
+    @Value("${banking.fraud.rapid-transfer-threshold}")
+    private int rapidTransferThreshold;
+    
+    /** Default time window in minutes for rapid transfer detection */
+    @Value("${banking.fraud.rapid-transfer-window-minutes}")
+    private int rapidTransferWindowMinutes;
+    
+    private volatile Snapshot snapshot;
+    
+    /**
+     * Immutable resolved limits: users that differ from RETAIL, and the RETAIL limits.
+     */
+    private record Snapshot(Map<UUID, FraudLimits> byUser, FraudLimits retail) {
+    }
+    
+    @PostConstruct
+    public synchronized void reload() {
+        FraudLimits defaults = defaults();
+        List<FraudThreshold> thresholds = fraudThresholdRepository.findAll();
+        
+        Map<User.Segment, FraudLimits> bySegment = new EnumMap<>(User.Segment.class);
+        for (User.Segment segment : User.Segment.values()) {
+            bySegment.put(segment, defaults);
+        }
+        for (FraudThreshold threshold : thresholds) {
+            if (threshold.getSegment() != null) {
+                bySegment.put(threshold.getSegment(), resolve(threshold, defaults));
+            }
+        }
+        
+        Map<UUID, User.Segment> segments = new HashMap<>();
+        for (UserSegment user : userRepository.findSegmentsOtherThan(User.Segment.RETAIL)) {
+            segments.put(user.userId(), user.segment());
+        }
+        
+        Map<UUID, FraudLimits> byUser = new HashMap<>();
+        segments.forEach((userId, segment) -> byUser.put(userId, bySegment.get(segment)));
+        int overrides = 0;
+        for (FraudThreshold threshold : thresholds) {
+            if (threshold.getUserId() != null) {
+                User.Segment segment = segments.getOrDefault(threshold.getUserId(), User.Segment.RETAIL);
+                byUser.put(threshold.getUserId(), resolve(threshold, bySegment.get(segment)));
+                overrides++;
+            }
+        }
+        
+        snapshot = new Snapshot(Map.copyOf(byUser), bySegment.get(User.Segment.RETAIL));
+        log.info("Loaded fraud limits: {} segment and {} user overrides, {} users outside RETAIL",
+            thresholds.size() - overrides, overrides, segments.size());
+    }
+    
+    /**
+     * Limits that apply to a user.
+     */
+    public FraudLimits limitsFor(UUID userId) {
+        Snapshot current = snapshot;
+        return current.byUser().getOrDefault(userId, current.retail());
+    }
+    
+    /**
+     * Limits from the configuration, without any override.
+     */
+    public FraudLimits defaults() {
+        return new FraudLimits(dailyTransferLimit, rapidTransferThreshold, rapidTransferWindowMinutes);
+    }
+    
+    private static FraudLimits resolve(FraudThreshold threshold, FraudLimits inherited) {
+        return new FraudLimits(
+            threshold.getDailyTransferLimit() != null
+                ? threshold.getDailyTransferLimit() : inherited.dailyTransferLimit(),
+            threshold.getRapidTransferThreshold() != null
+                ? threshold.getRapidTransferThreshold() : inherited.rapidTransferThreshold(),
+            threshold.getRapidTransferWindowMinutes() != null
+                ? threshold.getRapidTransferWindowMinutes() : inherited.rapidTransferWindowMinutes());
+    }
+}
@@ -0,0 +1,73 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * Flags transfers that the {@link FraudModel} scores at or above its threshold.
+ * 
+ * The feature vector is built from the shared {@link TransferContext} and the in-memory
+ * {@link CounterpartyTracker}, into a per-thread buffer; the rule adds no database query
+ * and scoring allocates nothing. Without a loaded model every transfer passes. High
+ * scores are logged for review, the transfer is not blocked, so the rule runs
+ * concurrently with the others and is skipped if it exceeds its time budget.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@Order(60)
+@RequiredArgsConstructor
+public class ModelScoreRule implements FraudRule {
+    
+    private static final ThreadLocal<double[]> FEATURES =
+        ThreadLocal.withInitial(() -> new double[FraudFeatures.COUNT]);
+    
+    private final FraudModelLoader fraudModelLoader;
+    private final CounterpartyTracker counterpartyTracker;
+    
+    /** Time budget of one evaluation */
+    @Value("${banking.fraud.model.timeout-ms}")
+    private long timeoutMs;
+    
+    @Override
+    public String name() {
+        return "model-score";
+    }
+    
+    @Override
+    public FraudRuleResult evaluate(TransferContext context) {
+        FraudModel model = fraudModelLoader.current();
+        if (model == null) {
+            return FraudRuleResult.pass(name());
+        }
+        
+        boolean newReceiver = !counterpartyTracker.isKnownReceiver(context.sender().getId(), context.toIban());
+        double[] features = FEATURES.get();
+        FraudFeatures.extract(context.amount().getMinorUnits(), LocalTime.now().toSecondOfDay(),
+            context.recentTransfers(), newReceiver, features);
+        double score = model.score(features);
+        
+        if (score < model.getThreshold()) {
+            return FraudRuleResult.pass(name());
+        }
+        return FraudRuleResult.flag(name(), FraudEvent.FraudType.SUSPICIOUS_AMOUNT, FraudEvent.FraudSeverity.MEDIUM,
+            String.format(Locale.ROOT, "High fraud score %.2f (model %s). Amount: %s%s",
+                score, model.getVersion(), context.amount(), newReceiver ? ", new receiver" : ""));
+    }
+    
+    @Override
+    public boolean isInline() {
+        return false;
+    }
+    
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+}
@@ -0,0 +1,37 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects a transfer if the sender already completed the maximum number of transfers
+ * within the rapid-transfer window.
+ * 
+ * Threshold and window are the sender's {@link FraudLimits}.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@Order(10)
+public class RapidTransferRule implements FraudRule {
+    
+    public static final String REJECTION = "Transfer rejected: Rapid transfer detected";
+    
+    @Override
+    public String name() {
+        return "rapid-transfers";
+    }
+    
+    @Override
+    public FraudRuleResult evaluate(TransferContext context) {
+        FraudLimits limits = context.limits();
+        if (context.recentTransfers() < limits.rapidTransferThreshold()) {
+            return FraudRuleResult.pass(name());
+        }
+        return FraudRuleResult.reject(name(), FraudEvent.FraudType.RAPID_TRANSFERS, FraudEvent.FraudSeverity.MEDIUM,
+            String.format("Rapid transfer detected. Count: %d in last %d minutes",
+                context.recentTransfers(), limits.rapidTransferWindowMinutes()),
+            REJECTION);
+    }
+}
@@ -0,0 +1,52 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.money.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flags single transfers at or above a configured amount for review; they are not blocked.
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+@Order(30)
+public class SuspiciousAmountRule implements FraudRule {
+    
+    /** Single-transfer amount from which a transfer is flagged */
+    @Value("${banking.fraud.suspicious-amount}")
+    private Money suspiciousAmount;
+    
+    /**
+     * Rule with the configured threshold.
+     */
+    public SuspiciousAmountRule() {
+    }
+    
+    /**
+     * Rule with an explicit threshold, e.g. a candidate threshold for a backtest.
+     */
+    public SuspiciousAmountRule(Money suspiciousAmount) {
+        this.suspiciousAmount = suspiciousAmount;
+    }
+    
+    public Money getSuspiciousAmount() {
+        return suspiciousAmount;
+    }
+    
+    @Override
+    public String name() {
+        return "suspicious-amount";
+    }
+    
+    @Override
+    public FraudRuleResult evaluate(TransferContext context) {
+        if (context.amount().isLessThan(suspiciousAmount)) {
+            return FraudRuleResult.pass(name());
+        }
+        return FraudRuleResult.flag(name(), FraudEvent.FraudType.SUSPICIOUS_AMOUNT, FraudEvent.FraudSeverity.LOW,
+            String.format("Large single transfer. Amount: %s, Threshold: %s", context.amount(), suspiciousAmount));
+    }
+}
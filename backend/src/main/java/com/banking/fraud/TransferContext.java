@@ -0,0 +1,22 @@
+package com.banking.fraud;
+
+import com.banking.entity.User;
+import com.banking.money.Money;
+
+/**
+ * Data of one transfer and its sender's history, loaded once and shared by all fraud rules.
+ * 
+ * Single-rule checks (batch and asynchronous submission) only fill the fields their
+ * rule reads; the others are null.
+ * 
+ * @param sender User initiating the transfer
+ * @param fromIban Sender account
+ * @param toIban Receiver account
+ * @param amount Transfer amount
+ * @param recentTransfers COMPLETED transfers of the sender within the rapid-transfer window
+ * @param dailyTotal Amount the sender has transferred today, excluding this transfer
+ * @param limits The sender's fraud limits
+ */
+public record TransferContext(User sender, String fromIban, String toIban, Money amount,
+                              long recentTransfers, Money dailyTotal, FraudLimits limits) {
+}
@@ -0,0 +1,421 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.entity.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.TransferEdge;
+import com.banking.repository.UserRepository;
+import com.banking.service.FraudDetectionService;
+import com.banking.service.TransferCompletedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory directed graph of recent transfers (account to account) for detecting
+ * money-mule patterns.
+ * 
+ * Every COMPLETED transfer adds one edge and is checked incrementally, without any
+ * periodic recompute:
+ * - Cycles: a bounded depth-first search from the receiver back to the sender along
+ *   edges in time order (money moving A to B to C and back to A within the window)
+ * - Hubs: an account reaching fan-in-threshold incoming or fan-out-threshold outgoing
+ *   transfers within the window
+ * Detections are logged as ACCOUNT_ANOMALY fraud events. A cycle is HIGH; once the
+ * sender account has closed critical-cycles cycles within the window it is CRITICAL,
+ * which freezes the sender's accounts ({@link FraudReactionQueue}).
+ * 
+ * Storage is compact: accounts get int ids, and each account's edges are (neighbor, time)
+ * pairs packed into one int[] per direction, in arrival order. Edges older than the window
+ * are dropped from the head of a list whenever it is touched; a periodic sweep releases
+ * accounts without live edges, and their ids are reused.
+ * 
+ * All graph state is owned by one worker thread, so it needs no locking and the transfer
+ * path only hands the edge over. When the worker's queue is full, edges are dropped.
+ * At startup the graph is rebuilt from the transfers within the window.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferGraph {
+    
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final UserRepository userRepository;
+    private final FraudDetectionService fraudDetectionService;
+    
+    /** Whether the graph is maintained */
+    @Value("${banking.fraud.graph.enabled}")
+    private boolean enabled;
+    
+    /** Sliding window of the graph */
+    @Value("${banking.fraud.graph.window-minutes}")
+    private int windowMinutes;
+    
+    /** Longest cycle searched for, in transfers */
+    @Value("${banking.fraud.graph.max-cycle-length}")
+    private int maxCycleLength;
+    
+    /** Upper bound of the accounts visited by one cycle search */
+    @Value("${banking.fraud.graph.max-visits}")
+    private int maxVisits;
+    
+    /** Incoming transfers within the window that make an account a fan-in hub */
+    @Value("${banking.fraud.graph.fan-in-threshold}")
+    private int fanInThreshold;
+    
+    /** Outgoing transfers within the window that make an account a fan-out hub */
+    @Value("${banking.fraud.graph.fan-out-threshold}")
+    private int fanOutThreshold;
+    
+    /** Cycles closed by one account within the window that make a detection CRITICAL (0 never) */
+    @Value("${banking.fraud.graph.critical-cycles}")
+    private int criticalCycles;
+    
+    /** Maximum number of transfers waiting for the graph worker */
+    @Value("${banking.fraud.graph.queue-capacity}")
+    private int queueCapacity;
+    
+    /** Edge times are seconds relative to this epoch second, so they fit in an int */
+    private final long baseSecond = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private String[] ibans = new String[1024];
+    private int nextId;
+    private int[] freeIds = new int[64];
+    private int freeCount;
+    
+    private final Adjacency outgoing = new Adjacency();
+    private final Adjacency incoming = new Adjacency();
+    
+    /** Cycles closed by each account, as (receiver, time) pairs */
+    private final Adjacency cycles = new Adjacency();
+    
+    /** Accounts visited by the current cycle search are marked with the current stamp */
+    private int[] visited = new int[1024];
+    private int stamp;
+    private int visits;
+    
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private ThreadPoolTaskExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int edges = 0;
+            for (TransferEdge edge : transactionRepository.findEdgesSince(
+                    Transaction.TransactionStatus.COMPLETED, now.minusMinutes(windowMinutes))) {
+                record(edge.fromIban(), edge.toIban(), null, edge.timestamp(), false);
+                edges++;
+            }
+            log.info("Rebuilt transfer graph with {} edges between {} accounts", edges, nodeIds.size());
+        } catch (RuntimeException ex) {
+            // The graph fills up with new transfers instead
+            log.warn("Could not rebuild transfer graph: {}", ex.getMessage());
+        }
+        
+        // Started after the rebuild, which hands the graph over to the worker
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transfer-graph-");
+        executor.initialize();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Hands a completed transfer to the graph worker, after its commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(() -> record(event.fromIban(), event.toIban(), event.senderUserId(),
+                event.timestamp(), true));
+        } catch (TaskRejectedException ex) {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Drops expired edges and releases accounts without live edges.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.graph.sweep-interval-ms}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("Transfer graph queue full: {} transfers were not added", lost);
+        }
+        try {
+            executor.execute(() -> sweep(LocalDateTime.now()));
+        } catch (TaskRejectedException ex) {
+            // The next sweep catches up
+        }
+    }
+    
+    /**
+     * Adds one transfer to the graph and checks it. Only called by the graph worker
+     * (or before the worker starts).
+     * 
+     * @param senderUserId User the detections are logged for (null if not checked)
+     * @param detect false to only add the edge
+     */
+    void record(String fromIban, String toIban, UUID senderUserId, LocalDateTime timestamp, boolean detect) {
+        int time = timeOf(timestamp);
+        int cutoff = time - windowMinutes * 60;
+        int from = nodeId(fromIban);
+        int to = nodeId(toIban);
+        
+        outgoing.prune(from, cutoff);
+        incoming.prune(to, cutoff);
+        outgoing.add(from, to, time);
+        incoming.add(to, from, time);
+        if (!detect) {
+            return;
+        }
+        
+        // Cycles: a time-ordered path back from the receiver to the sender
+        int[] path = new int[maxCycleLength];
+        int length = findPath(to, from, cutoff, path);
+        if (length > 0) {
+            StringBuilder cycle = new StringBuilder(fromIban).append(" -> ").append(toIban);
+            for (int i = 0; i < length; i++) {
+                cycle.append(" -> ").append(ibans[path[i]]);
+            }
+            cycles.prune(from, cutoff);
+            cycles.add(from, to, time);
+            int closed = cycles.count(from);
+            if (criticalCycles > 0 && closed >= criticalCycles) {
+                logDetection(senderUserId, FraudEvent.FraudSeverity.CRITICAL,
+                    String.format("Transfer cycle within %d minutes (%d cycles closed by %s): %s",
+                        windowMinutes, closed, fromIban, cycle));
+            } else {
+                logDetection(senderUserId, FraudEvent.FraudSeverity.HIGH,
+                    String.format("Transfer cycle within %d minutes: %s", windowMinutes, cycle));
+            }
+        }
+        
+        // Hubs: reported once, when the count reaches the threshold
+        if (outgoing.count(from) == fanOutThreshold) {
+            logDetection(senderUserId, FraudEvent.FraudSeverity.MEDIUM,
+                String.format("Fan-out hub: %s sent %d transfers within %d minutes",
+                    fromIban, fanOutThreshold, windowMinutes));
+        }
+        if (incoming.count(to) == fanInThreshold) {
+            accountRepository.findUserIdByIban(toIban).ifPresent(owner ->
+                logDetection(owner, FraudEvent.FraudSeverity.MEDIUM,
+                    String.format("Fan-in hub: %s received %d transfers within %d minutes",
+                        toIban, fanInThreshold, windowMinutes)));
+        }
+    }
+    
+    void sweep(LocalDateTime now) {
+        int cutoff = timeOf(now) - windowMinutes * 60;
+        for (int id = 0; id < nextId; id++) {
+            if (ibans[id] == null) {
+                continue;
+            }
+            outgoing.prune(id, cutoff);
+            incoming.prune(id, cutoff);
+            cycles.prune(id, cutoff);
+            if (outgoing.count(id) == 0 && incoming.count(id) == 0 && cycles.count(id) == 0) {
+                nodeIds.remove(ibans[id]);
+                ibans[id] = null;
+                if (freeCount == freeIds.length) {
+                    freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+                }
+                freeIds[freeCount++] = id;
+            }
+        }
+    }
+    
+    int nodeCount() {
+        return nodeIds.size();
+    }
+    
+    int edgeCount() {
+        int edges = 0;
+        for (int id = 0; id < nextId; id++) {
+            edges += outgoing.count(id);
+        }
+        return edges;
+    }
+    
+    /**
+     * Bounded depth-first search for a path from start to target whose edge times never
+     * decrease, using at most max-cycle-length - 1 edges.
+     * 
+     * @param path Filled with the accounts after start, ending with target
+     * @return Number of edges of the path found, or 0
+     */
+    private int findPath(int start, int target, int cutoff, int[] path) {
+        if (++stamp == 0) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        visits = 0;
+        visited[start] = stamp;
+        return search(start, target, cutoff, 0, path);
+    }
+    
+    private int search(int node, int target, int minTime, int depth, int[] path) {
+        if (depth == maxCycleLength - 1 || visits >= maxVisits) {
+            return 0;
+        }
+        int[] edges = outgoing.edges[node];
+        for (int i = outgoing.head[node]; i < outgoing.tail[node]; i += 2) {
+            int neighbor = edges[i];
+            int time = edges[i + 1];
+            if (time < minTime) {
+                continue;
+            }
+            if (neighbor == target) {
+                path[depth] = neighbor;
+                return depth + 1;
+            }
+            if (visited[neighbor] == stamp) {
+                continue;
+            }
+            visited[neighbor] = stamp;
+            visits++;
+            path[depth] = neighbor;
+            int length = search(neighbor, target, time, depth + 1, path);
+            if (length > 0) {
+                return length;
+            }
+        }
+        return 0;
+    }
+    
+    private void logDetection(UUID userId, FraudEvent.FraudSeverity severity, String description) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            fraudDetectionService.logFraudEvent(userRepository.getReferenceById(userId),
+                FraudEvent.FraudType.ACCOUNT_ANOMALY, description, null, severity);
+        } catch (RuntimeException ex) {
+            log.warn("Could not log transfer graph detection: {}", ex.getMessage());
+        }
+    }
+    
+    private int nodeId(String iban) {
+        Integer id = nodeIds.get(iban);
+        if (id != null) {
+            return id;
+        }
+        int created = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        if (created == ibans.length) {
+            int capacity = ibans.length * 2;
+            ibans = Arrays.copyOf(ibans, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+            outgoing.grow(capacity);
+            incoming.grow(capacity);
+            cycles.grow(capacity);
+        }
+        ibans[created] = iban;
+        nodeIds.put(iban, created);
+        return created;
+    }
+    
+    private int timeOf(LocalDateTime timestamp) {
+        return (int) (timestamp.toEpochSecond(ZoneOffset.UTC) - baseSecond);
+    }
+    
+    /**
+     * Edge lists of all accounts in one direction. An account's list is a slice
+     * [head, tail) of its int[], holding (neighbor, time) pairs in arrival order.
+     */
+    private static final class Adjacency {
+        
+        private int[][] edges = new int[1024][];
+        private int[] head = new int[1024];
+        private int[] tail = new int[1024];
+        
+        private void grow(int capacity) {
+            edges = Arrays.copyOf(edges, capacity);
+            head = Arrays.copyOf(head, capacity);
+            tail = Arrays.copyOf(tail, capacity);
+        }
+        
+        private void add(int node, int neighbor, int time) {
+            int[] list = edges[node];
+            if (list == null) {
+                list = new int[8];
+                edges[node] = list;
+            } else if (tail[node] + 2 > list.length) {
+                // Compact in place if at least half of the array is expired, otherwise grow
+                int live = tail[node] - head[node];
+                int[] target = live + 2 <= list.length / 2 ? list : new int[list.length * 2];
+                System.arraycopy(list, head[node], target, 0, live);
+                list = target;
+                edges[node] = list;
+                head[node] = 0;
+                tail[node] = live;
+            }
+            list[tail[node]] = neighbor;
+            list[tail[node] + 1] = time;
+            tail[node] += 2;
+        }
+        
+        /**
+         * Drops the expired edges at the head of the list; an empty list is released.
+         */
+        private void prune(int node, int cutoff) {
+            int[] list = edges[node];
+            if (list == null) {
+                return;
+            }
+            int first = head[node];
+            while (first < tail[node] && list[first + 1] < cutoff) {
+                first += 2;
+            }
+            if (first == tail[node]) {
+                edges[node] = null;
+                head[node] = 0;
+                tail[node] = 0;
+            } else {
+                head[node] = first;
+            }
+        }
+        
+        private int count(int node) {
+            return (tail[node] - head[node]) / 2;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.banking.fraud;
+
+import com.banking.entity.Transaction;
+import com.banking.money.Money;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.TransferActivity;
+import com.banking.service.TransferCompletedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory per-user velocity counters for the fraud checks.
+ * 
+ * Answers "completed transfers in the last N minutes" and "amount sent since midnight"
+ * without a database round trip:
+ * - Transfer count: a ring of one-minute buckets per user, N buckets long. Each bucket is a
+ *   single long holding the bucket's minute and its count, so the ring is one long[]
+ * - Daily total: the current day and the sum of that day in minor units
+ * 
+ * N is the configured rapid-transfer window. Users with a shorter window in their
+ * {@link FraudLimits} are counted from the same ring; longer windows are not tracked.
+ * 
+ * Counters are kept per user in a ConcurrentHashMap; each user's counters are guarded by
+ * their own monitor, so users never contend with each other.
+ * 
+ * Lifecycle of a user's counters:
+ * 1. Startup: rebuilt from today's COMPLETED rows of the transactions table
+ * 2. First use of an unknown user: seeded from that user's rows (one indexed query)
+ * 3. Every COMPLETED transfer: applied after commit via {@link TransferCompletedEvent}
+ * 4. Idle users are evicted; they are seeded again on next use
+ * 
+ * Memory is bounded by max-users. When the map is full, the checks fall back to the
+ * database until idle users have been evicted.
+ * 
+ * The counters only see transfers completed by this instance. With more than one
+ * instance, disable them (banking.fraud.velocity.enabled=false).
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VelocityTracker {
+    
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    
+    /** Low bits of a bucket hold the count, the high bits the bucket's minute */
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    
+    private final TransactionRepository transactionRepository;
+    
+    /** Whether the counters are used; without them every check queries the database */
+    @Value("${banking.fraud.velocity.enabled}")
+    private boolean enabled;
+    
+    /** Maximum number of users with counters in memory */
+    @Value("${banking.fraud.velocity.max-users}")
+    private int maxUsers;
+    
+    /** Users without a transfer or check for this long are evicted */
+    @Value("${banking.fraud.velocity.idle-after-minutes}")
+    private long idleAfterMinutes;
+    
+    /** Length of the default rapid-transfer window, one bucket per minute; longer windows are not tracked */
+    @Value("${banking.fraud.rapid-transfer-window-minutes}")
+    private int windowMinutes;
+    
+    private final Map<UUID, UserCounters> counters = new ConcurrentHashMap<>();
+    
+    /**
+     * Rebuilds the counters of all users active today.
+     * 
+     * Runs before the application accepts transfers, so no completion can be missed
+     * between the query and the registration of the counters.
+     */
+    @PostConstruct
+    void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Map<UUID, List<TransferActivity>> byUser = transactionRepository
+                .findActivitySince(Transaction.TransactionStatus.COMPLETED, seedSince(now))
+                .stream()
+                .collect(Collectors.groupingBy(TransferActivity::userId));
+            
+            for (Map.Entry<UUID, List<TransferActivity>> entry : byUser.entrySet()) {
+                if (counters.size() >= maxUsers) {
+                    break;
+                }
+                UserCounters user = new UserCounters(windowMinutes, minuteOf(now));
+                user.seed(entry.getValue(), false);
+                counters.put(entry.getKey(), user);
+            }
+            log.info("Rebuilt velocity counters for {} users", counters.size());
+        } catch (RuntimeException ex) {
+            // Users are seeded one by one on first use instead
+            log.warn("Could not rebuild velocity counters: {}", ex.getMessage());
+        }
+    }
+    
+    /**
+     * Number of COMPLETED transfers sent by the user within the last minutes.
+     * 
+     * @param userId Owner of the sender accounts
+     * @param minutes Window, at most the configured rapid-transfer window
+     * @return Count, or empty if the user is not tracked or the window is longer than
+     *         the counters, and the database must be asked
+     */
+    public OptionalLong recentTransfers(UUID userId, int minutes) {
+        return recentTransfers(userId, minutes, LocalDateTime.now());
+    }
+    
+    OptionalLong recentTransfers(UUID userId, int minutes, LocalDateTime now) {
+        if (minutes > windowMinutes) {
+            return OptionalLong.empty();
+        }
+        UserCounters user = countersFor(userId, now);
+        if (user == null) {
+            return OptionalLong.empty();
+        }
+        long minute = minuteOf(now);
+        synchronized (user) {
+            if (!user.ready) {
+                return OptionalLong.empty();
+            }
+            user.lastUsedMinute = minute;
+            return OptionalLong.of(user.count(minute, minutes));
+        }
+    }
+    
+    /**
+     * Amount of the COMPLETED transfers sent by the user today.
+     * 
+     * @param userId Owner of the sender accounts
+     * @return Total in minor units, or empty if the user is not tracked
+     */
+    public OptionalLong dailyTotal(UUID userId) {
+        return dailyTotal(userId, LocalDateTime.now());
+    }
+    
+    OptionalLong dailyTotal(UUID userId, LocalDateTime now) {
+        UserCounters user = countersFor(userId, now);
+        if (user == null) {
+            return OptionalLong.empty();
+        }
+        long minute = minuteOf(now);
+        synchronized (user) {
+            if (!user.ready) {
+                return OptionalLong.empty();
+            }
+            user.lastUsedMinute = minute;
+            return OptionalLong.of(user.day == minute / MINUTES_PER_DAY ? user.dayTotal : 0);
+        }
+    }
+    
+    /**
+     * Applies a completed transfer to the sender's counters, after its commit.
+     * 
+     * Users without counters are skipped: the transfer is already committed, so the
+     * seeding query on their next check includes it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        UserCounters user = counters.get(event.senderUserId());
+        if (user == null) {
+            return;
+        }
+        synchronized (user) {
+            if (user.ready) {
+                user.record(event.transactionId(), minuteOf(event.timestamp()), Money.toMinorUnits(event.amount()));
+            }
+        }
+    }
+    
+    /**
+     * Evicts users that have been idle for idle-after-minutes.
+     */
+    @Scheduled(fixedDelayString = "${banking.fraud.velocity.evict-interval-ms}")
+    public void evictIdle() {
+        evictIdle(LocalDateTime.now());
+    }
+    
+    void evictIdle(LocalDateTime now) {
+        long minute = minuteOf(now);
+        counters.forEach((userId, user) -> {
+            synchronized (user) {
+                if (user.lastUsedMinute < minute - idleAfterMinutes) {
+                    counters.remove(userId, user);
+                } else if (user.seededIds != null && user.seededMinute < minute - 1) {
+                    // Completions racing with the seed query have long been delivered
+                    user.seededIds = null;
+                }
+            }
+        });
+    }
+    
+    int trackedUsers() {
+        return counters.size();
+    }
+    
+    /**
+     * Returns the user's counters, seeding them from the database if needed.
+     * 
+     * The new counters are registered and locked before the query runs. A completion
+     * arriving meanwhile waits for the seed and is skipped if the seed already counted it;
+     * a completion that found no counters committed before the query and is in its result.
+     * 
+     * @return Counters, or null if disabled, full or the seed failed
+     */
+    private UserCounters countersFor(UUID userId, LocalDateTime now) {
+        if (!enabled) {
+            return null;
+        }
+        UserCounters user = counters.get(userId);
+        if (user != null || counters.size() >= maxUsers) {
+            return user;
+        }
+        
+        UserCounters created = new UserCounters(windowMinutes, minuteOf(now));
+        synchronized (created) {
+            UserCounters existing = counters.putIfAbsent(userId, created);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                created.seed(transactionRepository.findActivityBySenderUser(
+                    userId, Transaction.TransactionStatus.COMPLETED, seedSince(now)), true);
+            } catch (RuntimeException ex) {
+                counters.remove(userId, created);
+                log.warn("Could not seed velocity counters of user {}: {}", userId, ex.getMessage());
+                return null;
+            }
+        }
+        return created;
+    }
+    
+    /**
+     * Earliest timestamp the counters need: midnight or the window start, whichever is earlier.
+     */
+    private LocalDateTime seedSince(LocalDateTime now) {
+        LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
+        LocalDateTime windowStart = now.minusMinutes(windowMinutes);
+        return windowStart.isBefore(startOfDay) ? windowStart : startOfDay;
+    }
+    
+    /**
+     * Local minutes since the epoch; plain arithmetic, no time-zone lookup.
+     */
+    static long minuteOf(LocalDateTime timestamp) {
+        return timestamp.toLocalDate().toEpochDay() * MINUTES_PER_DAY
+            + timestamp.getHour() * 60L + timestamp.getMinute();
+    }
+    
+    /**
+     * Counters of one user. All access is synchronized on the instance.
+     */
+    private static final class UserCounters {
+        
+        /** Ring of one-minute buckets: (minute << COUNT_BITS) | count */
+        private final long[] buckets;
+        
+        /** Day (epoch day) of dayTotal */
+        private long day = Long.MIN_VALUE;
+        private long dayTotal;
+        
+        private long lastUsedMinute;
+        
+        /** False until seeded; unseeded counters are never answered from */
+        private boolean ready;
+        
+        /** Transactions counted by the seed, to skip their racing completion events */
+        private Set<UUID> seededIds;
+        private long seededMinute;
+        
+        UserCounters(int windowMinutes, long minute) {
+            this.buckets = new long[windowMinutes];
+            this.lastUsedMinute = minute;
+        }
+        
+        void seed(List<TransferActivity> activity, boolean rememberIds) {
+            for (TransferActivity transfer : activity) {
+                add(minuteOf(transfer.timestamp()), Money.toMinorUnits(transfer.amount()));
+            }
+            if (rememberIds && !activity.isEmpty()) {
+                seededIds = new HashSet<>();
+                for (TransferActivity transfer : activity) {
+                    seededIds.add(transfer.transactionId());
+                }
+            }
+            seededMinute = lastUsedMinute;
+            ready = true;
+        }
+        
+        void record(UUID transactionId, long minute, long amountMinor) {
+            if (seededIds != null && seededIds.contains(transactionId)) {
+                return;
+            }
+            add(minute, amountMinor);
+            lastUsedMinute = Math.max(lastUsedMinute, minute);
+        }
+        
+        private void add(long minute, long amountMinor) {
+            int index = (int) Math.floorMod(minute, (long) buckets.length);
+            long bucketMinute = buckets[index] >>> COUNT_BITS;
+            if (minute > bucketMinute) {
+                buckets[index] = (minute << COUNT_BITS) | 1;
+            } else if (minute == bucketMinute && (buckets[index] & COUNT_MASK) < COUNT_MASK) {
+                buckets[index]++;
+            }
+            // Older than the bucket's minute: already outside the window
+            
+            long transferDay = minute / MINUTES_PER_DAY;
+            if (transferDay == day) {
+                dayTotal = Math.addExact(dayTotal, amountMinor);
+            } else if (transferDay > day) {
+                day = transferDay;
+                dayTotal = amountMinor;
+            }
+            // Earlier days do not count towards today's total
+        }
+        
+        long count(long nowMinute, int minutes) {
+            long count = 0;
+            for (long bucket : buckets) {
+                long bucketMinute = bucket >>> COUNT_BITS;
+                if (bucketMinute > nowMinute - minutes && bucketMinute <= nowMinute) {
+                    count += bucket & COUNT_MASK;
+                }
+            }
+            return count;
+        }
+    }
+}
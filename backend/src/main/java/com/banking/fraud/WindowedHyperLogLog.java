@@ -0,0 +1,131 @@
+package com.banking.fraud;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * HyperLogLog sketch of the distinct items seen within a sliding time window, in fixed
+ * memory regardless of how many items are added.
+ * 
+ * The window is split into {@value #BUCKETS} sub-windows with {@value #REGISTERS}
+ * registers each (one byte per register). An estimate merges the sub-windows still in
+ * the window, so it covers between three quarters of the window and the whole window.
+ * The standard error is about 13%, with linear counting for small counts. Items are
+ * added as 64-bit hashes, see {@link #hash(String)}.
+ * 
+ * Not thread-safe; callers synchronize on the sketch.
+ */
+final class WindowedHyperLogLog {
+    
+    static final int BUCKETS = 4;
+    
+    private static final int INDEX_BITS = 6;
+    static final int REGISTERS = 1 << INDEX_BITS;
+    
+    /** Bias correction of the raw estimate for 64 registers */
+    private static final double ALPHA = 0.709;
+    
+    private final long bucketMillis;
+    private final byte[] registers = new byte[BUCKETS * REGISTERS];
+    
+    /** Sub-window each bucket currently holds; a bucket is cleared when reused */
+    private final long[] bucketEpochs = new long[BUCKETS];
+    
+    WindowedHyperLogLog(long windowMillis) {
+        this.bucketMillis = Math.max(windowMillis / BUCKETS, 1);
+        Arrays.fill(bucketEpochs, Long.MIN_VALUE);
+    }
+    
+    /**
+     * Adds an item seen at the given time. Items older than the bucket they map to
+     * (late deliveries beyond the window) are ignored.
+     */
+    void add(long hash, long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        int bucket = (int) Math.floorMod(epoch, BUCKETS);
+        if (epoch < bucketEpochs[bucket]) {
+            return;
+        }
+        if (epoch > bucketEpochs[bucket]) {
+            Arrays.fill(registers, bucket * REGISTERS, (bucket + 1) * REGISTERS, (byte) 0);
+            bucketEpochs[bucket] = epoch;
+        }
+        int register = bucket * REGISTERS + index(hash);
+        registers[register] = (byte) Math.max(registers[register], rank(hash));
+    }
+    
+    /**
+     * Estimated number of distinct items in the window, counting the given item as well
+     * without adding it.
+     */
+    long estimateWith(long hash, long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        byte[] merged = new byte[REGISTERS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (bucketEpochs[bucket] > epoch - BUCKETS && bucketEpochs[bucket] <= epoch) {
+                int offset = bucket * REGISTERS;
+                for (int i = 0; i < REGISTERS; i++) {
+                    merged[i] = (byte) Math.max(merged[i], registers[offset + i]);
+                }
+            }
+        }
+        merged[index(hash)] = (byte) Math.max(merged[index(hash)], rank(hash));
+        
+        double sum = 0;
+        int zeros = 0;
+        for (byte rank : merged) {
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more precise for small counts
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    /**
+     * Whether all sub-windows have left the window; such a sketch estimates nothing.
+     */
+    boolean isIdle(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        for (long bucketEpoch : bucketEpochs) {
+            if (bucketEpoch > epoch - BUCKETS) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static long hash(String value) {
+        // FNV-1a, then a full avalanche so all bits of the hash are usable
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+    
+    static long hash(UUID value) {
+        return mix(mix(value.getMostSignificantBits()) ^ value.getLeastSignificantBits());
+    }
+    
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+    
+    private static int index(long hash) {
+        return (int) (hash >>> (Long.SIZE - INDEX_BITS));
+    }
+    
+    /** Position of the first 1-bit in the hash bits after the index */
+    private static byte rank(long hash) {
+        return (byte) (Math.min(Long.numberOfLeadingZeros(hash << INDEX_BITS), Long.SIZE - INDEX_BITS) + 1);
+    }
+}
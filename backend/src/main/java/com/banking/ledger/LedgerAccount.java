@@ -0,0 +1,27 @@
+package com.banking.ledger;
+
+import com.banking.entity.Account;
+
+import java.util.UUID;
+
+/**
+ * In-memory state of one account inside the ledger engine.
+ * 
+ * Mutable, and only ever read or written by the worker thread of the shard
+ * that owns the account's IBAN, so it needs no synchronization.
+ * Balances are held in minor units (cents).
+ */
+final class LedgerAccount {
+    
+    final UUID id;
+    final UUID ownerId;
+    long balance;
+    Account.AccountStatus status;
+    
+    LedgerAccount(UUID id, UUID ownerId, long balance, Account.AccountStatus status) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.balance = balance;
+        this.status = status;
+    }
+}
@@ -0,0 +1,265 @@
+package com.banking.ledger;
+
+import com.banking.dto.TransactionDto;
+import com.banking.entity.Account;
+import com.banking.money.Money;
+import com.banking.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory sharded ledger for high-volume transfer processing.
+ * 
+ * Enabled with banking.transfer.mode=LEDGER. Architecture:
+ * - Accounts are partitioned into shards by IBAN hash
+ * - Each shard is owned by one worker thread that applies all changes to its
+ *   accounts from a queue (single writer per account, no locks)
+ * - A transfer is submitted to the sender's shard, which validates and debits;
+ *   the credit is then handed to the receiver's shard. If the credit fails the
+ *   refund is handed back to the sender's shard. The hand-off always goes
+ *   sender shard -> receiver shard, so there is no cross-shard coordination
+ * - The database becomes a write-behind journal: transaction rows and balance
+ *   deltas are persisted in group commits by {@link LedgerJournal}
+ * 
+ * While the ledger is enabled it is the only writer of account balances; batch
+ * transfers are disabled and balances returned by account queries trail the
+ * in-memory state by at most one journal flush.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerEngine implements SmartLifecycle {
+    
+    /** Balance including striped credits not yet folded into accounts.balance */
+    private static final String TOTAL_BALANCE =
+        "balance + COALESCE((SELECT SUM(s.amount) FROM account_balance_stripes s WHERE s.account_id = accounts.id), 0) AS balance";
+    
+    private static final String LOAD_ACCOUNT =
+        "SELECT id, user_id, " + TOTAL_BALANCE + ", status FROM accounts WHERE iban = ?";
+    
+    private static final String LOAD_ACTIVE_ACCOUNTS =
+        "SELECT id, iban, user_id, " + TOTAL_BALANCE + ", status FROM accounts WHERE status = 'ACTIVE'";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyService idempotencyService;
+    
+    /** Transfer mode; the engine only starts in LEDGER mode */
+    @Value("${banking.transfer.mode}")
+    private String transferMode;
+    
+    /** Number of shards (worker threads) */
+    @Value("${banking.ledger.shards}")
+    private int shardCount;
+    
+    /** Maximum transfers per journal group commit */
+    @Value("${banking.ledger.journal.batch-size}")
+    private int journalBatchSize;
+    
+    /** Maximum time the journal waits for a transfer before checking for shutdown */
+    @Value("${banking.ledger.journal.flush-interval-ms}")
+    private long journalFlushIntervalMs;
+    
+    /** Attempts to write a batch before its transfers are written one by one */
+    @Value("${banking.ledger.journal.max-attempts}")
+    private int journalMaxAttempts;
+    
+    /** Pause between attempts to write a batch */
+    @Value("${banking.ledger.journal.retry-delay-ms}")
+    private long journalRetryDelayMs;
+    
+    /** Maximum number of transfers accepted but not yet journaled */
+    @Value("${banking.ledger.max-in-flight}")
+    private int maxInFlight;
+    
+    /** Maximum time a submission waits for capacity */
+    @Value("${banking.ledger.submit-timeout-ms}")
+    private long submitTimeoutMs;
+    
+    private LedgerShard[] shards;
+    private Thread[] shardThreads;
+    private LedgerJournal journal;
+    private Thread journalThread;
+    private Semaphore capacity;
+    private volatile boolean running;
+    
+    public boolean isEnabled() {
+        return "LEDGER".equalsIgnoreCase(transferMode);
+    }
+    
+    /**
+     * Submits a transfer to the ledger.
+     * 
+     * The returned future completes once the transfer is applied in memory and its
+     * journal batch has committed, or exceptionally with the rejection reason.
+     * 
+     * @param fromIban Sender IBAN
+     * @param toIban Receiver IBAN
+     * @param amount Transfer amount
+     * @param description Optional description
+     * @param userId Id of the user executing the transfer
+     * @param anyOwner True if the user may transfer from any account (ADMIN)
+     * @param idempotencyKey Key recorded in the journal batch of the transfer (may be null)
+     * @return Future with the completed transaction
+     * @throws IllegalStateException if the ledger is not running or at capacity
+     */
+    public CompletableFuture<TransactionDto> submit(String fromIban, String toIban, BigDecimal amount,
+                                                    String description, UUID userId, boolean anyOwner,
+                                                    IdempotencyService.PendingKey idempotencyKey) {
+        if (!running) {
+            throw new IllegalStateException("Ledger is not running");
+        }
+        long minorUnits = Money.toMinorUnits(amount);
+        
+        acquireCapacity();
+        LedgerTransfer transfer = new LedgerTransfer(fromIban, toIban, minorUnits, description, userId, anyOwner,
+            idempotencyKey);
+        transfer.result.whenComplete((result, error) -> capacity.release());
+        
+        LedgerShard senderShard = shardFor(fromIban);
+        senderShard.enqueue(() -> senderShard.debit(transfer));
+        return transfer.result;
+    }
+    
+    /**
+     * Applies an account status change to the in-memory state.
+     * 
+     * @param iban Account IBAN
+     * @param status New status
+     */
+    public void updateStatus(String iban, Account.AccountStatus status) {
+        if (!running) {
+            return;
+        }
+        LedgerShard shard = shardFor(iban);
+        shard.enqueue(() -> shard.updateStatus(iban, status));
+    }
+    
+    LedgerShard shardFor(String iban) {
+        return shards[(iban.hashCode() & 0x7fffffff) % shards.length];
+    }
+    
+    void journal(LedgerTransfer transfer) {
+        journal.append(transfer);
+    }
+    
+    /**
+     * Reverts a transfer the journal could not persist: the receiver's shard takes the
+     * credit back, then the sender's shard refunds the debit and rejects the transfer.
+     */
+    void revert(LedgerTransfer transfer, RuntimeException reason) {
+        LedgerShard receiverShard = shardFor(transfer.toIban);
+        receiverShard.enqueue(() -> receiverShard.revertCredit(transfer, reason));
+    }
+    
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        
+        capacity = new Semaphore(maxInFlight);
+        shards = new LedgerShard[shardCount];
+        shardThreads = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LedgerShard(i, this, this::loadAccount);
+        }
+        preloadActiveAccounts();
+        
+        for (int i = 0; i < shardCount; i++) {
+            shardThreads[i] = new Thread(shards[i], "ledger-shard-" + i);
+            shardThreads[i].start();
+        }
+        journal = new LedgerJournal(this, jdbcTemplate, transactionTemplate, idempotencyService, journalBatchSize,
+            journalFlushIntervalMs, journalMaxAttempts, journalRetryDelayMs);
+        journalThread = new Thread(journal, "ledger-journal");
+        journalThread.start();
+        
+        running = true;
+        log.info("Ledger engine started with {} shards", shardCount);
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        
+        // Wait until every accepted transfer is journaled, then stop the threads
+        try {
+            if (capacity.tryAcquire(maxInFlight, 30, TimeUnit.SECONDS)) {
+                capacity.release(maxInFlight);
+            } else {
+                log.warn("Ledger stopped with transfers still in flight");
+            }
+            for (LedgerShard shard : shards) {
+                shard.stop();
+            }
+            for (Thread thread : shardThreads) {
+                thread.join();
+            }
+            journal.stop();
+            journalThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Ledger engine stopped");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private void acquireCapacity() {
+        try {
+            if (!capacity.tryAcquire(submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Ledger is at capacity, please retry");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting transfer");
+        }
+    }
+    
+    /**
+     * Warms up the shards with all ACTIVE accounts; other accounts load on first use.
+     */
+    private void preloadActiveAccounts() {
+        jdbcTemplate.query(LOAD_ACTIVE_ACCOUNTS, rs -> {
+            String iban = rs.getString("iban");
+            shardFor(iban).preload(iban, new LedgerAccount(
+                rs.getObject("id", UUID.class),
+                rs.getObject("user_id", UUID.class),
+                Money.toMinorUnits(rs.getBigDecimal("balance")),
+                Account.AccountStatus.ACTIVE));
+        });
+    }
+    
+    /**
+     * Loads one account from the database. Runs on the owning shard's thread.
+     */
+    private LedgerAccount loadAccount(String iban) {
+        List<LedgerAccount> found = jdbcTemplate.query(LOAD_ACCOUNT, (rs, rowNum) -> new LedgerAccount(
+            rs.getObject("id", UUID.class),
+            rs.getObject("user_id", UUID.class),
+            Money.toMinorUnits(rs.getBigDecimal("balance")),
+            Account.AccountStatus.valueOf(rs.getString("status"))), iban);
+        return found.isEmpty() ? null : found.get(0);
+    }
+}
@@ -0,0 +1,174 @@
+package com.banking.ledger;
+
+import com.banking.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind journal of the ledger engine.
+ * 
+ * A single thread drains applied transfers and persists them in group commits:
+ * one database transaction per batch containing
+ * - a JDBC batch insert of the transaction rows
+ * - one balance delta UPDATE per touched account (in id order)
+ * - the idempotency_keys rows of the transfers submitted with an Idempotency-Key
+ * 
+ * Callers are only acknowledged after their batch committed, so an acknowledged
+ * transfer is durable, while the commit cost is shared by the whole batch.
+ * A failed batch is retried up to max-attempts times. If it still fails, its transfers
+ * are written one by one, so a single bad transfer cannot hold up the journal; a
+ * transfer that fails on its own is reverted in memory and rejected (see
+ * {@link LedgerEngine#revert}).
+ */
+@Slf4j
+final class LedgerJournal implements Runnable {
+    
+    private static final String INSERT_TRANSACTION =
+        "INSERT INTO transactions (id, sender_account_id, receiver_account_id, amount, timestamp, status, description) " +
+        "VALUES (?, ?, ?, ?, ?, 'COMPLETED', ?)";
+    
+    private static final String APPLY_DELTA =
+        "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+    
+    private final LedgerEngine engine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyService idempotencyService;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final BlockingQueue<LedgerTransfer> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running = true;
+    
+    LedgerJournal(LedgerEngine engine, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                  IdempotencyService idempotencyService, int batchSize, long flushIntervalMs,
+                  int maxAttempts, long retryDelayMs) {
+        this.engine = engine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idempotencyService = idempotencyService;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+    }
+    
+    void append(LedgerTransfer transfer) {
+        queue.add(transfer);
+    }
+    
+    void stop() {
+        running = false;
+    }
+    
+    @Override
+    public void run() {
+        List<LedgerTransfer> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LedgerTransfer first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Writes a batch and completes its transfers, falling back to one write per transfer.
+     */
+    private void writeBatch(List<LedgerTransfer> batch) throws InterruptedException {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                write(batch);
+                batch.forEach(LedgerTransfer::complete);
+                return;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                log.warn("Ledger journal write of {} transfers failed (attempt {} of {})",
+                    batch.size(), attempt, maxAttempts, ex);
+                if (attempt < maxAttempts) {
+                    Thread.sleep(retryDelayMs);
+                }
+            }
+        }
+        
+        if (batch.size() == 1) {
+            revert(batch.get(0), failure);
+            return;
+        }
+        log.warn("Writing {} ledger transfers individually", batch.size());
+        for (LedgerTransfer transfer : batch) {
+            try {
+                write(List.of(transfer));
+                transfer.complete();
+            } catch (RuntimeException ex) {
+                revert(transfer, ex);
+            }
+        }
+    }
+    
+    private void revert(LedgerTransfer transfer, RuntimeException cause) {
+        if (transfer.idempotencyKey != null && cause instanceof DataIntegrityViolationException) {
+            // Most likely the key was recorded by another instance; the caller looks up its result
+            engine.revert(transfer, cause);
+            return;
+        }
+        log.error("Ledger transfer {} could not be journaled and is reverted", transfer.transactionId, cause);
+        engine.revert(transfer, new IllegalStateException("Transfer could not be processed"));
+    }
+    
+    private void write(List<LedgerTransfer> batch) {
+        // Net balance change per account, ordered by id to keep a stable lock order
+        Map<UUID, Long> deltas = new TreeMap<>();
+        for (LedgerTransfer transfer : batch) {
+            deltas.merge(transfer.senderId, -transfer.amount, Long::sum);
+            deltas.merge(transfer.receiverId, transfer.amount, Long::sum);
+        }
+        List<Map.Entry<UUID, Long>> updates = new ArrayList<>(deltas.entrySet());
+        Map<UUID, IdempotencyService.PendingKey> keys = new LinkedHashMap<>();
+        for (LedgerTransfer transfer : batch) {
+            if (transfer.idempotencyKey != null) {
+                keys.put(transfer.transactionId, transfer.idempotencyKey);
+            }
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, batch, batch.size(), (ps, transfer) -> {
+                ps.setObject(1, transfer.transactionId);
+                ps.setObject(2, transfer.senderId);
+                ps.setObject(3, transfer.receiverId);
+                ps.setBigDecimal(4, BigDecimal.valueOf(transfer.amount, 2));
+                ps.setObject(5, transfer.timestamp);
+                ps.setString(6, transfer.description);
+            });
+            jdbcTemplate.batchUpdate(APPLY_DELTA, updates, updates.size(), (ps, delta) -> {
+                ps.setBigDecimal(1, BigDecimal.valueOf(delta.getValue(), 2));
+                ps.setObject(2, delta.getKey());
+            });
+            idempotencyService.recordAll(keys);
+        });
+    }
+}
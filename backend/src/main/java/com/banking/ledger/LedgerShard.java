@@ -0,0 +1,183 @@
+package com.banking.ledger;
+
+import com.banking.entity.Account;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * One partition of the in-memory ledger.
+ * 
+ * Owns the accounts whose IBAN hashes to this shard and a single worker thread
+ * that applies every change to them, one task at a time from its queue. Because
+ * each account has exactly one writer, debits and credits need no locks and are
+ * applied in arrival order per account.
+ * 
+ * Accounts are loaded from the database on first access and then stay resident;
+ * the journal persists balance deltas, so the in-memory balance remains authoritative.
+ */
+@Slf4j
+final class LedgerShard implements Runnable {
+    
+    private static final int DRAIN_BATCH = 256;
+    
+    private final int index;
+    private final LedgerEngine engine;
+    private final Function<String, LedgerAccount> loader;
+    private final Map<String, LedgerAccount> accounts = new HashMap<>();
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running = true;
+    
+    LedgerShard(int index, LedgerEngine engine, Function<String, LedgerAccount> loader) {
+        this.index = index;
+        this.engine = engine;
+        this.loader = loader;
+    }
+    
+    void enqueue(Runnable task) {
+        queue.add(task);
+    }
+    
+    void stop() {
+        running = false;
+    }
+    
+    @Override
+    public void run() {
+        List<Runnable> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Runnable first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Runnable task : batch) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException ex) {
+                        log.error("Ledger shard {} task failed", index, ex);
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Step 1 (sender shard): validates and debits the sender, then hands the
+     * credit to the receiver's shard.
+     */
+    void debit(LedgerTransfer transfer) {
+        LedgerAccount sender = account(transfer.fromIban);
+        if (sender == null) {
+            transfer.reject(new IllegalArgumentException("Sender account not found"));
+            return;
+        }
+        if (!transfer.anyOwner && !sender.ownerId.equals(transfer.userId)) {
+            transfer.reject(new SecurityException("Access denied: You can only transfer from your own accounts"));
+            return;
+        }
+        if (sender.status != Account.AccountStatus.ACTIVE) {
+            transfer.reject(new IllegalStateException("Sender account is not active"));
+            return;
+        }
+        if (sender.balance < transfer.amount) {
+            transfer.reject(new IllegalStateException("Insufficient balance"));
+            return;
+        }
+        
+        sender.balance -= transfer.amount;
+        transfer.senderId = sender.id;
+        
+        LedgerShard receiverShard = engine.shardFor(transfer.toIban);
+        if (receiverShard == this) {
+            credit(transfer);
+        } else {
+            receiverShard.enqueue(() -> receiverShard.credit(transfer));
+        }
+    }
+    
+    /**
+     * Step 2 (receiver shard): credits the receiver and passes the transfer to the
+     * journal, or hands a refund back to the sender's shard if the receiver is invalid.
+     */
+    void credit(LedgerTransfer transfer) {
+        LedgerAccount receiver = account(transfer.toIban);
+        if (receiver == null || receiver.status != Account.AccountStatus.ACTIVE) {
+            handBackRefund(transfer, receiver == null
+                ? new IllegalArgumentException("Receiver account not found")
+                : new IllegalStateException("Receiver account is not active"));
+            return;
+        }
+        
+        receiver.balance += transfer.amount;
+        transfer.receiverId = receiver.id;
+        engine.journal(transfer);
+    }
+    
+    /**
+     * Compensation (receiver shard): takes back the credit of a transfer the journal
+     * could not persist, then hands the refund to the sender's shard.
+     */
+    void revertCredit(LedgerTransfer transfer, RuntimeException reason) {
+        LedgerAccount receiver = account(transfer.toIban);
+        receiver.balance -= transfer.amount;
+        if (receiver.balance < 0) {
+            // The credit was already spent; the journaled debits overdrew the stored balance as well
+            log.error("Account {} is overdrawn by {} minor units after reverting transfer {}",
+                transfer.toIban, -receiver.balance, transfer.transactionId);
+        }
+        handBackRefund(transfer, reason);
+    }
+    
+    /**
+     * Compensation (sender shard): returns the debited amount when the credit failed.
+     */
+    void refund(LedgerTransfer transfer, RuntimeException reason) {
+        account(transfer.fromIban).balance += transfer.amount;
+        transfer.reject(reason);
+    }
+    
+    private void handBackRefund(LedgerTransfer transfer, RuntimeException reason) {
+        LedgerShard senderShard = engine.shardFor(transfer.fromIban);
+        if (senderShard == this) {
+            refund(transfer, reason);
+        } else {
+            senderShard.enqueue(() -> senderShard.refund(transfer, reason));
+        }
+    }
+    
+    void updateStatus(String iban, Account.AccountStatus status) {
+        LedgerAccount account = account(iban);
+        if (account != null) {
+            account.status = status;
+        }
+    }
+    
+    void preload(String iban, LedgerAccount account) {
+        accounts.putIfAbsent(iban, account);
+    }
+    
+    private LedgerAccount account(String iban) {
+        LedgerAccount account = accounts.get(iban);
+        if (account == null) {
+            account = loader.apply(iban);
+            if (account != null) {
+                accounts.put(iban, account);
+            }
+        }
+        return account;
+    }
+}
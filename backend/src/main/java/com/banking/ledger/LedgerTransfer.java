@@ -0,0 +1,66 @@
+package com.banking.ledger;
+
+import com.banking.dto.TransactionDto;
+import com.banking.entity.Transaction;
+import com.banking.service.IdempotencyService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One transfer travelling through the ledger engine.
+ * 
+ * Created by the submitting thread, then handed from the sender's shard to the
+ * receiver's shard and finally to the journal. Each hand-off goes through a
+ * blocking queue, which publishes the fields written by the previous owner.
+ */
+final class LedgerTransfer {
+    
+    final UUID transactionId = UUID.randomUUID();
+    final LocalDateTime timestamp = LocalDateTime.now();
+    final String fromIban;
+    final String toIban;
+    final long amount;
+    final String description;
+    final UUID userId;
+    final boolean anyOwner;
+    
+    /** Recorded in the journal batch that writes the transfer; null without an Idempotency-Key */
+    final IdempotencyService.PendingKey idempotencyKey;
+    final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+    
+    /** Set by the sender shard after the debit */
+    UUID senderId;
+    
+    /** Set by the receiver shard after the credit */
+    UUID receiverId;
+    
+    LedgerTransfer(String fromIban, String toIban, long amount, String description,
+                   UUID userId, boolean anyOwner, IdempotencyService.PendingKey idempotencyKey) {
+        this.fromIban = fromIban;
+        this.toIban = toIban;
+        this.amount = amount;
+        this.description = description;
+        this.userId = userId;
+        this.anyOwner = anyOwner;
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    void complete() {
+        result.complete(TransactionDto.builder()
+            .id(transactionId)
+            .fromIban(fromIban)
+            .toIban(toIban)
+            .amount(BigDecimal.valueOf(amount, 2))
+            .timestamp(timestamp)
+            .status(Transaction.TransactionStatus.COMPLETED.name())
+            .description(description)
+            .build());
+    }
+    
+    void reject(RuntimeException reason) {
+        result.completeExceptionally(reason);
+    }
+}
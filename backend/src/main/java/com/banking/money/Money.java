@@ -0,0 +1,218 @@
+package com.banking.money;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Immutable amount of money, stored as a long of minor units (1/100 SEK) plus currency.
+ * 
+ * Arithmetic on a long avoids the BigDecimal allocations of add/subtract/compare on
+ * the transfer and fraud paths. All operations are overflow-checked and throw
+ * {@link ArithmeticException} instead of wrapping around.
+ * 
+ * Money is immutable, so plus/minus still allocate a new instance. Hot loops (limit
+ * checks, running totals) use the static minor-unit helpers ({@link #addMinor},
+ * {@link #exceedsLimit}) on plain longs instead, which allocate nothing. They assume
+ * the platform currency.
+ * 
+ * Conversion at the edges keeps the external formats unchanged:
+ * - Database: {@link MoneyConverter} maps to DECIMAL(19,2)
+ * - JSON: {@link MoneyJsonComponent} writes and reads a plain decimal number
+ * 
+ * All accounts use the platform currency (SEK). Mixing currencies in one
+ * operation is rejected.
+ * 
+ * @author Banking Platform Team
+ */
+public final class Money implements Comparable<Money> {
+    
+    /** Currency of all accounts on the platform */
+    public static final Currency SEK = Currency.getInstance("SEK");
+    
+    /** Decimal places of the minor unit, matching the DECIMAL(19,2) columns */
+    public static final int SCALE = 2;
+    
+    public static final Money ZERO = new Money(0, SEK);
+    
+    private final long minorUnits;
+    private final Currency currency;
+    
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+    
+    /**
+     * Creates an amount from minor units.
+     * 
+     * @param minorUnits Amount in minor units (1 SEK = 100)
+     * @param currency Currency
+     * @return Money
+     */
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency is required");
+        }
+        return new Money(minorUnits, currency);
+    }
+    
+    /**
+     * Creates an amount in the platform currency from minor units.
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits, SEK);
+    }
+    
+    /**
+     * Creates an amount in the platform currency from a decimal.
+     * 
+     * @param amount Decimal amount with at most 2 decimals
+     * @return Money
+     * @throws IllegalArgumentException if the amount has more decimals or does not fit a long
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(toMinorUnits(amount));
+    }
+    
+    /**
+     * Parses a decimal string, e.g. a configuration value such as "10000.00".
+     * 
+     * Also lets Spring convert @Value properties to Money.
+     */
+    public static Money valueOf(String amount) {
+        try {
+            return of(new BigDecimal(amount.trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+    }
+    
+    /**
+     * Converts a decimal to minor units without creating a Money instance.
+     * 
+     * @param amount Decimal amount with at most 2 decimals
+     * @return Amount in minor units
+     * @throws IllegalArgumentException if the amount has more decimals or does not fit a long
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Amount must have at most 2 decimals and fit 19 digits");
+        }
+    }
+    
+    /**
+     * Adds two amounts in minor units without creating Money instances.
+     * 
+     * @throws ArithmeticException if the sum does not fit a long
+     */
+    public static long addMinor(long a, long b) {
+        return Math.addExact(a, b);
+    }
+    
+    /**
+     * Subtracts two amounts in minor units without creating Money instances.
+     * 
+     * @throws ArithmeticException if the difference does not fit a long
+     */
+    public static long subtractMinor(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+    
+    /**
+     * Checks whether adding an amount to a running total goes above a limit, all in
+     * minor units. Allocation-free form of {@code total.plus(amount).isGreaterThan(limit)}.
+     * 
+     * @param totalMinor Total so far
+     * @param amountMinor Amount to add
+     * @param limitMinor Limit the new total may reach but not exceed
+     * @return True if the new total is above the limit
+     * @throws ArithmeticException if the new total does not fit a long
+     */
+    public static boolean exceedsLimit(long totalMinor, long amountMinor, long limitMinor) {
+        return Math.addExact(totalMinor, amountMinor) > limitMinor;
+    }
+    
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+    
+    public Currency getCurrency() {
+        return currency;
+    }
+    
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(addMinor(minorUnits, other.minorUnits), currency);
+    }
+    
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(subtractMinor(minorUnits, other.minorUnits), currency);
+    }
+    
+    public boolean isGreaterThan(Money other) {
+        return compareTo(other) > 0;
+    }
+    
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+    
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+    
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+    
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+    
+    /**
+     * @return The amount as a decimal with scale 2
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+    
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException(
+                "Currency mismatch: " + currency.getCurrencyCode() + " and " + other.currency.getCurrencyCode());
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money other)) {
+            return false;
+        }
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+    
+    /**
+     * @return Plain decimal, e.g. "100.00", so log and audit messages read as before
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
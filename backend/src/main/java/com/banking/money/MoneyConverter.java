@@ -0,0 +1,28 @@
+package com.banking.money;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link Money} attributes to the existing DECIMAL(19,2) columns.
+ * 
+ * Applied automatically to every Money attribute; the column definition
+ * (precision = 19, scale = 2) stays on the entity field.
+ * 
+ * @author Banking Platform Team
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+    
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
+    
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount != null ? Money.of(amount) : null;
+    }
+}
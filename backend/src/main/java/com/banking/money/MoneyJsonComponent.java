@@ -0,0 +1,45 @@
+package com.banking.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Jackson mapping for {@link Money}: a plain decimal number such as 100.00,
+ * the same JSON the BigDecimal fields produced.
+ * 
+ * @author Banking Platform Team
+ */
+@JsonComponent
+public class MoneyJsonComponent {
+    
+    public static class Serializer extends JsonSerializer<Money> {
+        
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toBigDecimal());
+        }
+    }
+    
+    public static class Deserializer extends JsonDeserializer<Money> {
+        
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            // Same input as a BigDecimal field: numbers and numeric strings
+            BigDecimal amount = context.readValue(parser, BigDecimal.class);
+            try {
+                return Money.of(amount);
+            } catch (IllegalArgumentException ex) {
+                throw JsonMappingException.from(parser, ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.banking.repository;
+
+import com.banking.entity.AccountBalanceStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AccountBalanceStripeRepository
+        extends JpaRepository<AccountBalanceStripe, AccountBalanceStripe.StripeId> {
+    
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM AccountBalanceStripe s WHERE s.id.accountId = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") UUID accountId);
+    
+    /** Accounts with credits waiting to be folded */
+    @Query("SELECT DISTINCT s.id.accountId FROM AccountBalanceStripe s")
+    List<UUID> findAccountIdsWithStripes();
+}
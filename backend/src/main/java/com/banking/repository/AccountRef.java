@@ -0,0 +1,9 @@
+package com.banking.repository;
+
+import java.util.UUID;
+
+/**
+ * Account id and striping flag, resolved from an IBAN without loading the entity.
+ */
+public record AccountRef(UUID id, boolean striped) {
+}
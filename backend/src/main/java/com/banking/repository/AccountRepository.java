@@ -2,9 +2,16 @@ package com.banking.repository;
 
 import com.banking.entity.Account;
 import com.banking.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,5 +22,127 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     List<Account> findByUser(User user);
     List<Account> findByUserId(UUID userId);
     boolean existsByIban(String iban);
+    
+    /**
+     * Resolves an IBAN to the account id without loading the entity,
+     * so the row can afterwards be loaded under a lock in id order.
+     */
+    @Query("SELECT a.id FROM Account a WHERE a.iban = :iban")
+    Optional<UUID> findIdByIban(@Param("iban") String iban);
+    
+    /**
+     * Resolves the owner of an account without loading the entity.
+     */
+    @Query("SELECT a.user.id FROM Account a WHERE a.iban = :iban")
+    Optional<UUID> findUserIdByIban(@Param("iban") String iban);
+    
+    /**
+     * Resolves an IBAN to the account id and striping flag without loading the entity.
+     */
+    @Query("SELECT new com.banking.repository.AccountRef(a.id, a.striped) FROM Account a WHERE a.iban = :iban")
+    Optional<AccountRef> findRefByIban(@Param("iban") String iban);
+    
+    /**
+     * Resolves the id, owner and status of an account without loading the entity.
+     */
+    @Query("SELECT new com.banking.repository.AccountSummary(a.id, a.iban, a.user.id, a.status) " +
+           "FROM Account a WHERE a.iban = :iban")
+    Optional<AccountSummary> findSummaryByIban(@Param("iban") String iban);
+    
+    /**
+     * Loads an account with a row-level write lock (SELECT ... FOR UPDATE).
+     * The lock is held until the surrounding transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") UUID id);
+    
+    /**
+     * Loads and write-locks all accounts with the given IBANs.
+     * Rows are locked in ascending id order, matching the single-transfer lock order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.iban IN :ibans ORDER BY a.id")
+    List<Account> findByIbanInForUpdate(@Param("ibans") Collection<String> ibans);
+    
+    /**
+     * Sets the PostgreSQL lock_timeout for the current transaction only,
+     * so a blocked row lock fails fast instead of waiting indefinitely.
+     */
+    @Query(value = "SELECT set_config('lock_timeout', :timeout, true)", nativeQuery = true)
+    String setLockTimeout(@Param("timeout") String timeout);
+    
+    /**
+     * Debits an account in a single conditional statement.
+     * 
+     * The row is only updated if the account is ACTIVE, has sufficient balance and,
+     * unless anyOwner is set, belongs to the given owner. PostgreSQL re-checks the
+     * WHERE clause after waiting on a concurrent update of the same row, so the
+     * balance check cannot race with another debit.
+     * 
+     * @return Id of the debited account, or empty if no row matched
+     */
+    @Query(value = "UPDATE accounts SET balance = balance - :amount " +
+                   "WHERE iban = :iban AND status = 'ACTIVE' AND balance >= :amount " +
+                   "AND (:anyOwner = true OR user_id = :ownerId) " +
+                   "RETURNING id", nativeQuery = true)
+    Optional<UUID> debitIfSufficient(@Param("iban") String iban,
+                                     @Param("amount") BigDecimal amount,
+                                     @Param("ownerId") UUID ownerId,
+                                     @Param("anyOwner") boolean anyOwner);
+    
+    /**
+     * Credits an ACTIVE account in a single statement.
+     * 
+     * Regular accounts are updated directly. Striped accounts are credited by adding
+     * the amount to the given stripe, so their accounts row is not locked.
+     * 
+     * @return Id of the credited account, or empty if no ACTIVE account matched
+     */
+    @Query(value = "WITH target AS (" +
+                   "  SELECT id, striped FROM accounts WHERE iban = :iban AND status = 'ACTIVE'), " +
+                   "direct AS (" +
+                   "  UPDATE accounts a SET balance = a.balance + :amount FROM target t " +
+                   "  WHERE a.id = t.id AND NOT t.striped AND a.status = 'ACTIVE' RETURNING a.id), " +
+                   "striped AS (" +
+                   "  INSERT INTO account_balance_stripes (account_id, stripe, amount) " +
+                   "  SELECT id, :stripe, :amount FROM target WHERE striped " +
+                   "  ON CONFLICT (account_id, stripe) " +
+                   "  DO UPDATE SET amount = account_balance_stripes.amount + EXCLUDED.amount RETURNING account_id) " +
+                   "SELECT id FROM direct UNION ALL SELECT account_id FROM striped", nativeQuery = true)
+    Optional<UUID> creditIfActive(@Param("iban") String iban,
+                                  @Param("amount") BigDecimal amount,
+                                  @Param("stripe") int stripe);
+    
+    /**
+     * Resolves the id of a striped account.
+     * 
+     * @return Id, or empty if the account does not exist or is not striped
+     */
+    @Query("SELECT a.id FROM Account a WHERE a.iban = :iban AND a.striped = true")
+    Optional<UUID> findStripedIdByIban(@Param("iban") String iban);
+    
+    /**
+     * Folds all stripes of an account into its balance.
+     * 
+     * The accounts row is locked first and the stripe rows second - the same order
+     * as every other path that touches both - and the deleted stripe amounts are
+     * added to the balance in the same statement, so no credit is lost or counted twice.
+     * 
+     * @return New balance, or empty if the account does not exist
+     */
+    @Query(value = "WITH target AS (SELECT id FROM accounts WHERE id = :id FOR UPDATE), " +
+                   "folded AS (" +
+                   "  DELETE FROM account_balance_stripes s USING target t " +
+                   "  WHERE s.account_id = t.id RETURNING s.amount) " +
+                   "UPDATE accounts a SET balance = a.balance + (SELECT COALESCE(SUM(amount), 0) FROM folded) " +
+                   "FROM target t WHERE a.id = t.id RETURNING a.balance", nativeQuery = true)
+    Optional<BigDecimal> foldStripes(@Param("id") UUID id);
+    
+    /**
+     * Turns striping on or off without writing any other column.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Account a SET a.striped = :striped WHERE a.id = :id")
+    int updateStriped(@Param("id") UUID id, @Param("striped") boolean striped);
 }
-
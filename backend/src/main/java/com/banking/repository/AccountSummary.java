@@ -0,0 +1,12 @@
+package com.banking.repository;
+
+import com.banking.entity.Account;
+
+import java.util.UUID;
+
+/**
+ * Identity, owner and status of an account, resolved from an IBAN without loading the
+ * entity. Carries no balance; balances are always read from the database.
+ */
+public record AccountSummary(UUID id, String iban, UUID ownerId, Account.AccountStatus status) {
+}
@@ -2,6 +2,7 @@ package com.banking.repository;
 
 import com.banking.entity.FraudEvent;
 import com.banking.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +15,11 @@ public interface FraudEventRepository extends JpaRepository<FraudEvent, UUID> {
     List<FraudEvent> findByUserOrderByTimestampDesc(User user);
     List<FraudEvent> findByTimestampBetweenOrderByTimestampDesc(
         LocalDateTime start, LocalDateTime end);
+    
+    /**
+     * All fraud events, newest first, with their users fetched in the same query.
+     */
+    @EntityGraph(attributePaths = "user")
     List<FraudEvent> findAllByOrderByTimestampDesc();
 }
 
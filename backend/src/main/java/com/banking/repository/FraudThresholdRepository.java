@@ -0,0 +1,15 @@
+package com.banking.repository;
+
+import com.banking.entity.FraudThreshold;
+import com.banking.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface FraudThresholdRepository extends JpaRepository<FraudThreshold, UUID> {
+    Optional<FraudThreshold> findBySegment(User.Segment segment);
+    Optional<FraudThreshold> findByUserId(UUID userId);
+}
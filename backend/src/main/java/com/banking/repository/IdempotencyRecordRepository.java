@@ -0,0 +1,42 @@
+package com.banking.repository;
+
+import com.banking.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
+    
+    /**
+     * Loads an unexpired record together with its transaction and both accounts,
+     * so the stored response can be rebuilt without further queries.
+     */
+    @Query("SELECT r FROM IdempotencyRecord r " +
+           "JOIN FETCH r.transaction t " +
+           "JOIN FETCH t.senderAccount " +
+           "JOIN FETCH t.receiverAccount " +
+           "WHERE r.userId = :userId AND r.idempotencyKey = :key AND r.expiresAt > :now")
+    Optional<IdempotencyRecord> findActive(@Param("userId") UUID userId,
+                                           @Param("key") String key,
+                                           @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+           "WHERE r.userId = :userId AND r.idempotencyKey = :key AND r.expiresAt <= :now")
+    int deleteExpiredKey(@Param("userId") UUID userId,
+                         @Param("key") String key,
+                         @Param("now") LocalDateTime now);
+}
@@ -2,11 +2,18 @@ package com.banking.repository;
 
 import com.banking.entity.Account;
 import com.banking.entity.Transaction;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -17,5 +24,97 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
         UUID senderAccountId, UUID receiverAccountId);
     List<Transaction> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
     long countBySenderAccountAndTimestampAfter(Account account, LocalDateTime timestamp);
+    
+    /**
+     * Sums the amounts of the user's transfers in the given status within a time window.
+     * 
+     * Runs as one aggregate query: the user's accounts are found through idx_user_id,
+     * their transfers through idx_sender_status_timestamp. No entities are loaded.
+     * 
+     * @return Total amount, zero if there are no matching transfers
+     */
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t JOIN t.senderAccount a " +
+           "WHERE a.user.id = :userId AND t.status = :status AND t.timestamp BETWEEN :start AND :end")
+    BigDecimal sumAmountBySenderUser(@Param("userId") UUID userId,
+                                     @Param("status") Transaction.TransactionStatus status,
+                                     @Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+    
+    /**
+     * Counts the user's transfers in the given status within a time window.
+     * Uses the same indexes as {@link #sumAmountBySenderUser}.
+     */
+    @Query("SELECT COUNT(t) FROM Transaction t JOIN t.senderAccount a " +
+           "WHERE a.user.id = :userId AND t.status = :status AND t.timestamp BETWEEN :start AND :end")
+    long countBySenderUser(@Param("userId") UUID userId,
+                           @Param("status") Transaction.TransactionStatus status,
+                           @Param("start") LocalDateTime start,
+                           @Param("end") LocalDateTime end);
+    
+    /**
+     * Transfers of one user in the given status since a point in time, as projections.
+     * Used to seed the user's velocity counters.
+     */
+    @Query("SELECT new com.banking.repository.TransferActivity(t.id, a.user.id, t.timestamp, t.amount) " +
+           "FROM Transaction t JOIN t.senderAccount a " +
+           "WHERE a.user.id = :userId AND t.status = :status AND t.timestamp >= :since")
+    List<TransferActivity> findActivityBySenderUser(@Param("userId") UUID userId,
+                                                    @Param("status") Transaction.TransactionStatus status,
+                                                    @Param("since") LocalDateTime since);
+    
+    /**
+     * Transfers of all users in the given status since a point in time, as projections.
+     * Used to rebuild the velocity counters at startup.
+     */
+    @Query("SELECT new com.banking.repository.TransferActivity(t.id, a.user.id, t.timestamp, t.amount) " +
+           "FROM Transaction t JOIN t.senderAccount a " +
+           "WHERE t.status = :status AND t.timestamp >= :since")
+    List<TransferActivity> findActivitySince(@Param("status") Transaction.TransactionStatus status,
+                                             @Param("since") LocalDateTime since);
+    
+    /**
+     * Transfers in the given status since a point in time, as sender/receiver IBAN pairs.
+     * Used to rebuild the transfer graph at startup.
+     */
+    @Query("SELECT new com.banking.repository.TransferEdge(s.iban, r.iban, t.timestamp) " +
+           "FROM Transaction t JOIN t.senderAccount s JOIN t.receiverAccount r " +
+           "WHERE t.status = :status AND t.timestamp >= :since ORDER BY t.timestamp")
+    List<TransferEdge> findEdgesSince(@Param("status") Transaction.TransactionStatus status,
+                                      @Param("since") LocalDateTime since);
+    
+    /**
+     * Loads a transaction together with both accounts and the initiating user,
+     * so it can be mapped to a DTO outside of a transaction.
+     */
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.senderAccount JOIN FETCH t.receiverAccount " +
+           "LEFT JOIN FETCH t.initiatedBy WHERE t.id = :id")
+    Optional<Transaction> findWithAccountsById(@Param("id") UUID id);
+    
+    /**
+     * Loads a transaction with a row-level write lock. Used to claim a PENDING
+     * transfer, so it is processed by exactly one worker.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") UUID id);
+    
+    /**
+     * Ids of transfers still in the given status that were submitted before the cutoff.
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = :status AND t.timestamp < :cutoff ORDER BY t.timestamp")
+    List<UUID> findIdsByStatusAndTimestampBefore(@Param("status") Transaction.TransactionStatus status,
+                                                 @Param("cutoff") LocalDateTime cutoff);
+    
+    /**
+     * Moves a PENDING transfer to a final status. Does nothing if it is no longer PENDING.
+     * 
+     * @return Number of updated rows (0 or 1)
+     */
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.failureReason = :reason " +
+           "WHERE t.id = :id AND t.status = com.banking.entity.Transaction.TransactionStatus.PENDING")
+    int closePending(@Param("id") UUID id,
+                     @Param("status") Transaction.TransactionStatus status,
+                     @Param("reason") String reason);
 }
 
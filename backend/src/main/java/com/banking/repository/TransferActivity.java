@@ -0,0 +1,11 @@
+package com.banking.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection of a completed transfer for the fraud velocity counters.
+ */
+public record TransferActivity(UUID transactionId, UUID userId, LocalDateTime timestamp, BigDecimal amount) {
+}
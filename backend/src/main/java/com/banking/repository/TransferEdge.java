@@ -0,0 +1,9 @@
+package com.banking.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a completed transfer as an edge of the fraud transfer graph.
+ */
+public record TransferEdge(String fromIban, String toIban, LocalDateTime timestamp) {
+}
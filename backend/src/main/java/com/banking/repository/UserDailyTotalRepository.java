@@ -0,0 +1,64 @@
+package com.banking.repository;
+
+import com.banking.entity.UserDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserDailyTotalRepository extends JpaRepository<UserDailyTotal, UserDailyTotal.DailyTotalId> {
+    
+    /**
+     * Adds an amount to the user's total of the day if the result stays within the limit.
+     * The row lock is held until the calling transaction ends.
+     * 
+     * @return 1 if reserved, 0 if the row is missing or the limit would be exceeded
+     */
+    @Modifying
+    @Query(value = "UPDATE user_daily_totals SET total = total + :amount " +
+                   "WHERE user_id = :userId AND day = :day AND total + :amount <= :limit", nativeQuery = true)
+    int addIfWithinLimit(@Param("userId") UUID userId,
+                         @Param("day") LocalDate day,
+                         @Param("amount") BigDecimal amount,
+                         @Param("limit") BigDecimal limit);
+    
+    /**
+     * Adds an amount to the user's total of the day unconditionally.
+     * Only used while the row is locked and the limit was checked by the caller.
+     */
+    @Modifying
+    @Query(value = "UPDATE user_daily_totals SET total = total + :amount " +
+                   "WHERE user_id = :userId AND day = :day", nativeQuery = true)
+    int add(@Param("userId") UUID userId,
+            @Param("day") LocalDate day,
+            @Param("amount") BigDecimal amount);
+    
+    /**
+     * Creates the user's row for the day, starting from the transfers already committed
+     * since midnight. Does nothing if the row exists (waits for a concurrent insert).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_daily_totals (user_id, day, total) " +
+                   "SELECT :userId, :day, COALESCE(SUM(t.amount), 0) " +
+                   "FROM transactions t JOIN accounts a ON a.id = t.sender_account_id " +
+                   "WHERE a.user_id = :userId AND t.status = 'COMPLETED' AND t.timestamp >= :startOfDay " +
+                   "ON CONFLICT (user_id, day) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId,
+                       @Param("day") LocalDate day,
+                       @Param("startOfDay") LocalDateTime startOfDay);
+    
+    /**
+     * Reads the user's total of the day under a row lock.
+     */
+    @Query(value = "SELECT total FROM user_daily_totals WHERE user_id = :userId AND day = :day FOR UPDATE",
+           nativeQuery = true)
+    Optional<BigDecimal> findTotalForUpdate(@Param("userId") UUID userId, @Param("day") LocalDate day);
+}
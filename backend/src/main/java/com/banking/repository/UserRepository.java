@@ -2,8 +2,11 @@ package com.banking.repository;
 
 import com.banking.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,5 +15,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    
+    @Query("SELECT new com.banking.repository.UserSegment(u.id, u.segment) FROM User u WHERE u.segment <> :segment")
+    List<UserSegment> findSegmentsOtherThan(@Param("segment") User.Segment segment);
 }
 
@@ -0,0 +1,11 @@
+package com.banking.repository;
+
+import com.banking.entity.User;
+
+import java.util.UUID;
+
+/**
+ * Projection of a user's customer segment, for the fraud limits cache.
+ */
+public record UserSegment(UUID userId, User.Segment segment) {
+}
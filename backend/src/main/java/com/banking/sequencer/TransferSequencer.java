@@ -0,0 +1,539 @@
+package com.banking.sequencer;
+
+import com.banking.dto.TransactionDto;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.repository.AccountRepository;
+import com.banking.service.BalanceStripingService;
+import com.banking.service.FraudDetectionService;
+import com.banking.service.IdempotencyService;
+import com.banking.service.TransferMetrics;
+import com.banking.service.TransferRetryPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring-buffer transfer sequencer with group commit.
+ * 
+ * Enabled with banking.transfer.mode=SEQUENCER. Transfers are claimed into the slots
+ * of a pre-allocated ring buffer and pass three stages, each a single thread that
+ * follows the previous one by sequence number:
+ * 1. Validation: checks the request and resolves both accounts (read-only)
+ * 2. Journal: applies many transfers with the conditional debit/credit statements
+ *    and inserts their transaction rows and idempotency keys in one database
+ *    transaction (group commit)
+ * 3. Completion: completes the callers' futures and frees the slots
+ * 
+ * All balance updates are issued in sequence order by one thread, so transfers on the
+ * same account are applied in submission order and the group never deadlocks with
+ * itself. One commit covers up to batch-size transfers instead of one each.
+ * 
+ * The database stays the source of truth, so the other transfer paths (batch,
+ * asynchronous) can run alongside the sequencer.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferSequencer implements SmartLifecycle {
+    
+    private static final String INSERT_TRANSACTION =
+        "INSERT INTO transactions (id, sender_account_id, receiver_account_id, amount, timestamp, status, description) " +
+        "VALUES (?, ?, ?, ?, ?, 'COMPLETED', ?)";
+    
+    /** Busy-spin iterations before a waiting stage starts parking */
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+    
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferRetryPolicy transferRetryPolicy;
+    private final TransferMetrics transferMetrics;
+    private final BalanceStripingService balanceStripingService;
+    private final FraudDetectionService fraudDetectionService;
+    private final IdempotencyService idempotencyService;
+    
+    /** Transfer mode; the sequencer only starts in SEQUENCER mode */
+    @Value("${banking.transfer.mode}")
+    private String transferMode;
+    
+    /** Number of slots in the ring buffer (power of two) */
+    @Value("${banking.sequencer.ring-size}")
+    private int ringSize;
+    
+    /** Maximum transfers per group commit */
+    @Value("${banking.sequencer.batch-size}")
+    private int batchSize;
+    
+    /** Maximum time a submission waits for a free slot */
+    @Value("${banking.sequencer.submit-timeout-ms}")
+    private long submitTimeoutMs;
+    
+    /** Producers between the acceptance check and publishing their slot */
+    private final AtomicInteger submitting = new AtomicInteger();
+    
+    /** Next sequence to hand out to a producer */
+    private final AtomicLong claimed = new AtomicLong();
+    
+    /** Last sequence processed by each stage */
+    private final AtomicLong validated = new AtomicLong(-1);
+    private final AtomicLong journaled = new AtomicLong(-1);
+    private final AtomicLong completed = new AtomicLong(-1);
+    
+    private TransferSlot[] ring;
+    private int mask;
+    private Semaphore freeSlots;
+    private Thread[] stages;
+    private volatile boolean accepting;
+    private volatile boolean running;
+    
+    public boolean isEnabled() {
+        return "SEQUENCER".equalsIgnoreCase(transferMode);
+    }
+    
+    /**
+     * Submits a transfer to the sequencer.
+     * 
+     * The returned future completes after the group containing the transfer has
+     * committed, or exceptionally with the rejection reason.
+     * 
+     * @param fromIban Sender IBAN
+     * @param toIban Receiver IBAN
+     * @param amount Transfer amount
+     * @param description Optional description
+     * @param userId Id of the user executing the transfer
+     * @param anyOwner True if the user may transfer from any account (ADMIN)
+     * @param idempotencyKey Key recorded in the group commit of the transfer (may be null)
+     * @return Future with the completed transaction
+     * @throws IllegalStateException if the sequencer is not running or no slot frees up in time
+     */
+    public CompletableFuture<TransactionDto> submit(String fromIban, String toIban, BigDecimal amount,
+                                                    String description, UUID userId, boolean anyOwner,
+                                                    IdempotencyService.PendingKey idempotencyKey) {
+        if (!accepting) {
+            throw new IllegalStateException("Transfer sequencer is not running");
+        }
+        acquireSlot();
+        
+        // Checked again after the wait for a slot: stop() waits for every producer that
+        // gets past this check, so no slot is claimed after it drained the ring
+        submitting.incrementAndGet();
+        try {
+            if (!accepting) {
+                freeSlots.release();
+                throw new IllegalStateException("Transfer sequencer is not running");
+            }
+            return claim(fromIban, toIban, amount, description, userId, anyOwner, idempotencyKey);
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+    
+    private CompletableFuture<TransactionDto> claim(String fromIban, String toIban, BigDecimal amount,
+                                                    String description, UUID userId, boolean anyOwner,
+                                                    IdempotencyService.PendingKey idempotencyKey) {
+        long sequence = claimed.getAndIncrement();
+        TransferSlot slot = ring[(int) (sequence & mask)];
+        slot.transactionId = UUID.randomUUID();
+        slot.timestamp = LocalDateTime.now();
+        slot.fromIban = fromIban;
+        slot.toIban = toIban;
+        slot.amount = amount;
+        slot.description = description;
+        slot.userId = userId;
+        slot.anyOwner = anyOwner;
+        slot.idempotencyKey = idempotencyKey;
+        CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+        slot.result = result;
+        
+        // Publish - the validation stage picks the slot up once it sees this sequence
+        slot.sequence = sequence;
+        return result;
+    }
+    
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalStateException("banking.sequencer.ring-size must be a power of two");
+        }
+        
+        ring = new TransferSlot[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new TransferSlot();
+        }
+        mask = ringSize - 1;
+        freeSlots = new Semaphore(ringSize);
+        
+        running = true;
+        stages = new Thread[] {
+            new Thread(this::validationStage, "sequencer-validation"),
+            new Thread(this::journalStage, "sequencer-journal"),
+            new Thread(this::completionStage, "sequencer-completion")
+        };
+        for (Thread stage : stages) {
+            stage.start();
+        }
+        accepting = true;
+        log.info("Transfer sequencer started with {} slots", ringSize);
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        
+        // Drain every claimed transfer before the stages stop
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while ((submitting.get() > 0 || completed.get() < claimed.get() - 1) && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        running = false;
+        try {
+            for (Thread stage : stages) {
+                stage.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        failUndrained();
+        log.info("Transfer sequencer stopped");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Stage 1: validates transfers in sequence order.
+     */
+    private void validationStage() {
+        long next = 0;
+        while (awaitPublished(next)) {
+            TransferSlot slot = ring[(int) (next & mask)];
+            try {
+                slot.rejection = validate(slot);
+            } catch (RuntimeException ex) {
+                log.error("Transfer validation failed", ex);
+                slot.rejection = new IllegalStateException("Transfer could not be processed");
+            }
+            validated.set(next);
+            next++;
+        }
+    }
+    
+    /**
+     * Stage 2: applies and persists all validated transfers available, up to batch-size per commit.
+     */
+    private void journalStage() {
+        long next = 0;
+        while (awaitCursor(validated, next)) {
+            long end = Math.min(validated.get(), next + batchSize - 1);
+            List<TransferSlot> group = new ArrayList<>((int) (end - next + 1));
+            for (long sequence = next; sequence <= end; sequence++) {
+                group.add(ring[(int) (sequence & mask)]);
+            }
+            journal(group);
+            journaled.set(end);
+            next = end + 1;
+        }
+    }
+    
+    /**
+     * Stage 3: hands the outcome to the callers and releases the slots.
+     */
+    private void completionStage() {
+        long next = 0;
+        while (awaitCursor(journaled, next)) {
+            long end = journaled.get();
+            for (long sequence = next; sequence <= end; sequence++) {
+                TransferSlot slot = ring[(int) (sequence & mask)];
+                CompletableFuture<TransactionDto> result = slot.result;
+                if (slot.rejection != null) {
+                    result.completeExceptionally(slot.rejection);
+                } else {
+                    result.complete(toDto(slot));
+                }
+                slot.clear();
+                completed.set(sequence);
+                freeSlots.release();
+            }
+            next = end + 1;
+        }
+    }
+    
+    /**
+     * Completes the futures of the transfers the stages did not finish before the drain
+     * timed out: committed ones with their result, the others with a rejection.
+     */
+    private void failUndrained() {
+        long last = claimed.get() - 1;
+        long committed = journaled.get();
+        int failed = 0;
+        for (long sequence = completed.get() + 1; sequence <= last; sequence++) {
+            TransferSlot slot = ring[(int) (sequence & mask)];
+            CompletableFuture<TransactionDto> result = slot.result;
+            if (slot.sequence != sequence || result == null) {
+                continue;
+            }
+            if (sequence > committed) {
+                result.completeExceptionally(new IllegalStateException("Transfer sequencer stopped, please retry"));
+                failed++;
+            } else if (slot.rejection != null) {
+                result.completeExceptionally(slot.rejection);
+            } else {
+                result.complete(toDto(slot));
+            }
+            slot.clear();
+        }
+        if (failed > 0) {
+            log.warn("Transfer sequencer stopped with {} transfers not processed", failed);
+        }
+    }
+    
+    private RuntimeException validate(TransferSlot slot) {
+        if (slot.fromIban.equals(slot.toIban)) {
+            return new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        if (slot.amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return new IllegalArgumentException("Transfer amount must be positive");
+        }
+        
+        Optional<UUID> senderId = accountRepository.findIdByIban(slot.fromIban);
+        if (senderId.isEmpty()) {
+            return new IllegalArgumentException("Sender account not found");
+        }
+        Optional<UUID> receiverId = accountRepository.findIdByIban(slot.toIban);
+        if (receiverId.isEmpty()) {
+            return new IllegalArgumentException("Receiver account not found");
+        }
+        slot.senderId = senderId.get();
+        slot.receiverId = receiverId.get();
+        return null;
+    }
+    
+    /**
+     * Commits one group. If the group fails for a reason other than lock contention,
+     * its transfers are committed one by one so a single bad transfer cannot fail the others.
+     */
+    private void journal(List<TransferSlot> group) {
+        try {
+            commitGroup(group);
+        } catch (RuntimeException ex) {
+            if (group.size() == 1) {
+                group.get(0).rejection = processingFailure(group.get(0), ex);
+                return;
+            }
+            log.warn("Group commit of {} transfers failed, committing individually", group.size(), ex);
+            for (TransferSlot slot : group) {
+                try {
+                    commitGroup(List.of(slot));
+                } catch (RuntimeException single) {
+                    slot.rejection = processingFailure(slot, single);
+                }
+            }
+        }
+    }
+    
+    private void commitGroup(List<TransferSlot> group) {
+        RuntimeException[] outcome = transferRetryPolicy.execute(() ->
+            transactionTemplate.execute(status -> applyGroup(group)));
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).rejection = outcome[i];
+        }
+    }
+    
+    /**
+     * Applies a group of transfers. Must be called inside a transaction.
+     * 
+     * @return Rejection per transfer, null for applied transfers
+     */
+    private RuntimeException[] applyGroup(List<TransferSlot> group) {
+        RuntimeException[] outcome = new RuntimeException[group.size()];
+        List<TransferSlot> applied = new ArrayList<>(group.size());
+        
+        for (int i = 0; i < group.size(); i++) {
+            TransferSlot slot = group.get(i);
+            if (slot.rejection != null) {
+                outcome[i] = slot.rejection;
+                continue;
+            }
+            RuntimeException rejection = debit(slot);
+            if (rejection != null) {
+                outcome[i] = rejection;
+                continue;
+            }
+            // Between debit and credit, so a rejection only has to refund the sender
+            if (!fraudDetectionService.reserveDailyLimit(slot.userId, slot.amount)) {
+                accountRepository.creditIfActive(slot.fromIban, slot.amount,
+                    balanceStripingService.stripeFor(slot.toIban));
+                outcome[i] = new IllegalStateException("Transfer rejected: Daily limit exceeded");
+                continue;
+            }
+            if (accountRepository.creditIfActive(slot.toIban, slot.amount,
+                    balanceStripingService.stripeFor(slot.fromIban)).isEmpty()) {
+                // Undo the debit and the reservation within the same transaction
+                accountRepository.creditIfActive(slot.fromIban, slot.amount,
+                    balanceStripingService.stripeFor(slot.toIban));
+                fraudDetectionService.releaseDailyLimit(slot.userId, slot.amount);
+                outcome[i] = new IllegalStateException("Receiver account is not active");
+                continue;
+            }
+            applied.add(slot);
+        }
+        
+        if (!applied.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, applied, applied.size(), (ps, slot) -> {
+                ps.setObject(1, slot.transactionId);
+                ps.setObject(2, slot.senderId);
+                ps.setObject(3, slot.receiverId);
+                ps.setBigDecimal(4, slot.amount);
+                ps.setObject(5, slot.timestamp);
+                ps.setString(6, slot.description);
+            });
+            Map<UUID, IdempotencyService.PendingKey> keys = new LinkedHashMap<>();
+            for (TransferSlot slot : applied) {
+                if (slot.idempotencyKey != null) {
+                    keys.put(slot.transactionId, slot.idempotencyKey);
+                }
+            }
+            idempotencyService.recordAll(keys);
+        }
+        transferMetrics.recordCommitGroup(applied.size());
+        return outcome;
+    }
+    
+    /**
+     * Debits the sender with the conditional UPDATE. If it matches no row, reads the
+     * sender once to report why; a striped sender is folded and debited once more.
+     * 
+     * @return Rejection, or null if the sender was debited
+     */
+    private RuntimeException debit(TransferSlot slot) {
+        if (accountRepository.debitIfSufficient(slot.fromIban, slot.amount, slot.userId, slot.anyOwner).isPresent()) {
+            return null;
+        }
+        Optional<Account> sender = accountRepository.findByIban(slot.fromIban);
+        if (sender.isEmpty()) {
+            return new IllegalArgumentException("Sender account not found");
+        }
+        if (!slot.anyOwner && !sender.get().getUser().getId().equals(slot.userId)) {
+            return new SecurityException("Access denied: You can only transfer from your own accounts");
+        }
+        if (sender.get().getStatus() != Account.AccountStatus.ACTIVE) {
+            return new IllegalStateException("Sender account is not active");
+        }
+        if (sender.get().isStriped()) {
+            balanceStripingService.fold(sender.get().getId());
+            if (accountRepository.debitIfSufficient(slot.fromIban, slot.amount, slot.userId, slot.anyOwner).isPresent()) {
+                return null;
+            }
+        }
+        return new IllegalStateException("Insufficient balance");
+    }
+    
+    private RuntimeException processingFailure(TransferSlot slot, RuntimeException ex) {
+        if (ex instanceof IllegalStateException) {
+            return ex;
+        }
+        if (slot.idempotencyKey != null && ex instanceof DataIntegrityViolationException) {
+            // Most likely the key was recorded by another instance; the caller looks up its result
+            return ex;
+        }
+        log.error("Transfer could not be journaled", ex);
+        return new IllegalStateException("Transfer could not be processed");
+    }
+    
+    private void acquireSlot() {
+        try {
+            if (!freeSlots.tryAcquire(submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Transfer sequencer is at capacity, please retry");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting transfer");
+        }
+    }
+    
+    /**
+     * Waits until the producer published the given sequence.
+     * 
+     * @return false if the sequencer stopped
+     */
+    private boolean awaitPublished(long sequence) {
+        TransferSlot slot = ring[(int) (sequence & mask)];
+        int tries = 0;
+        while (slot.sequence != sequence) {
+            if (!running) {
+                return false;
+            }
+            tries = idle(tries);
+        }
+        return true;
+    }
+    
+    /**
+     * Waits until the previous stage processed the given sequence.
+     * 
+     * @return false if the sequencer stopped
+     */
+    private boolean awaitCursor(AtomicLong cursor, long sequence) {
+        int tries = 0;
+        while (cursor.get() < sequence) {
+            if (!running) {
+                return false;
+            }
+            tries = idle(tries);
+        }
+        return true;
+    }
+    
+    private int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return tries + 1;
+    }
+    
+    private TransactionDto toDto(TransferSlot slot) {
+        return TransactionDto.builder()
+            .id(slot.transactionId)
+            .fromIban(slot.fromIban)
+            .toIban(slot.toIban)
+            .amount(slot.amount)
+            .timestamp(slot.timestamp)
+            .status(Transaction.TransactionStatus.COMPLETED.name())
+            .description(slot.description)
+            .build();
+    }
+}
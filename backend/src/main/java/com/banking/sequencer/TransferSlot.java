@@ -0,0 +1,56 @@
+package com.banking.sequencer;
+
+import com.banking.dto.TransactionDto;
+import com.banking.service.IdempotencyService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reusable entry of the sequencer ring buffer.
+ * 
+ * Slots are allocated once at startup and overwritten for every transfer that
+ * claims them. The producer writes the request fields and then publishes the slot
+ * by writing its sequence (volatile); each stage only reads a slot after the
+ * previous stage advanced past it, which makes the earlier plain writes visible.
+ */
+final class TransferSlot {
+    
+    /** Sequence of the transfer currently held; written last by the producer */
+    volatile long sequence = -1;
+    
+    UUID transactionId;
+    LocalDateTime timestamp;
+    String fromIban;
+    String toIban;
+    BigDecimal amount;
+    String description;
+    UUID userId;
+    boolean anyOwner;
+    IdempotencyService.PendingKey idempotencyKey;
+    CompletableFuture<TransactionDto> result;
+    
+    /** Set by the validation stage */
+    UUID senderId;
+    UUID receiverId;
+    
+    /** Set by the validation or journal stage; null if the transfer was applied */
+    RuntimeException rejection;
+    
+    void clear() {
+        transactionId = null;
+        timestamp = null;
+        fromIban = null;
+        toIban = null;
+        amount = null;
+        description = null;
+        userId = null;
+        idempotencyKey = null;
+        result = null;
+        senderId = null;
+        receiverId = null;
+        rejection = null;
+    }
+}
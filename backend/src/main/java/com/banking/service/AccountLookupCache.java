@@ -0,0 +1,171 @@
+package com.banking.service;
+
+import com.banking.cache.BoundedTtlCache;
+import com.banking.entity.Account;
+import com.banking.entity.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of account id, owner and status by IBAN, so transfers with an unknown
+ * sender, a foreign sender or an inactive account are rejected before any database
+ * transaction opens.
+ * 
+ * Only these fields are cached - balances are always read from the database, and the
+ * transfer paths check status and ownership again under their own locks or conditions.
+ * A stale entry can therefore only reject a transfer early, never let an invalid one through.
+ * 
+ * Consistency:
+ * - Status changes and account creation on this instance invalidate the entry
+ *   immediately and again after their transaction completes
+ * - A lookup that raced with an invalidation does not keep its result
+ * - Changes made by other instances are seen after at most ttl-seconds
+ * 
+ * Absent IBANs are not cached; the {@link KnownIbanFilter} answers most of them without
+ * a query. Hit, miss and eviction counts and the size are exposed
+ * through the actuator metrics endpoint (banking.account.cache.*).
+ * 
+ * @author Banking Platform Team
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountLookupCache {
+    
+    private final AccountRepository accountRepository;
+    private final KnownIbanFilter knownIbanFilter;
+    private final MeterRegistry meterRegistry;
+    
+    /** Maximum number of cached accounts */
+    @Value("${banking.account-cache.max-entries}")
+    private int maxEntries;
+    
+    /** How long an entry is used before it is read again */
+    @Value("${banking.account-cache.ttl-seconds}")
+    private long ttlSeconds;
+    
+    private BoundedTtlCache<String, AccountSummary> accounts;
+    
+    /** Incremented by every invalidation, so lookups can detect that they raced with one */
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        accounts = new BoundedTtlCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        FunctionCounter.builder("banking.account.cache.hits", accounts, BoundedTtlCache::getHitCount)
+            .description("Account lookups answered from memory")
+            .register(meterRegistry);
+        FunctionCounter.builder("banking.account.cache.misses", accounts, BoundedTtlCache::getMissCount)
+            .description("Account lookups read from the database")
+            .register(meterRegistry);
+        FunctionCounter.builder("banking.account.cache.evictions", accounts, BoundedTtlCache::getEvictionCount)
+            .description("Cached accounts evicted by size or expiry")
+            .register(meterRegistry);
+        Gauge.builder("banking.account.cache.size", accounts, BoundedTtlCache::size)
+            .description("Cached accounts")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * @param iban Account IBAN
+     * @return Id, owner and status of the account, or empty if it does not exist
+     */
+    public Optional<AccountSummary> find(String iban) {
+        AccountSummary cached = accounts.get(iban);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (!knownIbanFilter.mightExist(iban)) {
+            return Optional.empty();
+        }
+        long seen = invalidations.get();
+        Optional<AccountSummary> loaded = accountRepository.findSummaryByIban(iban);
+        loaded.ifPresent(summary -> {
+            accounts.put(iban, summary);
+            // Loaded before a concurrent invalidation completed: the row may already be outdated
+            if (invalidations.get() != seen) {
+                accounts.invalidate(iban, summary);
+            }
+        });
+        return loaded;
+    }
+    
+    /**
+     * Checks that the sender account exists, is ACTIVE and, unless the user is an admin,
+     * belongs to the user.
+     * 
+     * @throws IllegalArgumentException if the account does not exist
+     * @throws SecurityException if the account belongs to another user
+     * @throws IllegalStateException if the account is not ACTIVE
+     */
+    public AccountSummary requireSender(User user, String iban) {
+        AccountSummary sender = find(iban)
+            .orElseThrow(() -> new IllegalArgumentException("Sender account not found"));
+        if (user.getRole() != User.Role.ADMIN && !sender.ownerId().equals(user.getId())) {
+            throw new SecurityException("Access denied: You can only transfer from your own accounts");
+        }
+        if (sender.status() != Account.AccountStatus.ACTIVE) {
+            throw new IllegalStateException("Sender account is not active");
+        }
+        return sender;
+    }
+    
+    /**
+     * Checks that the receiver account exists and is ACTIVE.
+     * 
+     * @throws IllegalArgumentException if the account does not exist
+     * @throws IllegalStateException if the account is not ACTIVE
+     */
+    public AccountSummary requireReceiver(String iban) {
+        AccountSummary receiver = find(iban)
+            .orElseThrow(() -> new IllegalArgumentException("Receiver account not found"));
+        if (receiver.status() != Account.AccountStatus.ACTIVE) {
+            throw new IllegalStateException("Receiver account is not active");
+        }
+        return receiver;
+    }
+    
+    /**
+     * Removes the account now and, inside a transaction, once more after it completes,
+     * so a lookup during the transaction cannot keep the old row.
+     * 
+     * @param iban IBAN of an account that was created or changed
+     */
+    public void invalidate(String iban) {
+        evict(iban);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(iban);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Removes expired entries.
+     */
+    @Scheduled(fixedDelayString = "${banking.account-cache.evict-interval-ms}")
+    public void evictExpired() {
+        accounts.evictExpired();
+    }
+    
+    private void evict(String iban) {
+        invalidations.incrementAndGet();
+        accounts.invalidate(iban);
+    }
+}
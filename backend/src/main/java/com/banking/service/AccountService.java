@@ -5,7 +5,9 @@ import com.banking.dto.CreateAccountRequest;
 import com.banking.entity.Account;
 import com.banking.entity.AuditLog;
 import com.banking.entity.User;
+import com.banking.ledger.LedgerEngine;
 import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
 import com.banking.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
@@ -25,6 +27,11 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final AuditService auditService;
+    private final LedgerEngine ledgerEngine;
+    private final BalanceStripingService balanceStripingService;
+    private final IbanAllocator ibanAllocator;
+    private final AccountLookupCache accountLookupCache;
+    private final KnownIbanFilter knownIbanFilter;
     
     @Transactional
     public AccountDto createAccount(CreateAccountRequest request) {
@@ -40,19 +47,16 @@ public class AccountService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"))
             : currentUser;
         
-        String iban = generateIban();
-        while (accountRepository.existsByIban(iban)) {
-            iban = generateIban();
-        }
-        
         Account account = Account.builder()
-            .iban(iban)
+            .iban(ibanAllocator.next())
             .balance(request.getInitialBalance() != null ? request.getInitialBalance() : BigDecimal.ZERO)
             .status(Account.AccountStatus.ACTIVE)
             .user(accountOwner)
             .build();
         
         Account savedAccount = accountRepository.save(account);
+        knownIbanFilter.add(savedAccount.getIban());
+        accountLookupCache.invalidate(savedAccount.getIban());
         
         auditService.logAction(currentUser, AuditLog.AuditAction.ACCOUNT_CREATED,
             "Account created: " + savedAccount.getIban(), null);
@@ -83,15 +87,18 @@ public class AccountService {
     
     @Transactional(readOnly = true)
     public AccountDto getAccountByIban(String iban) {
-        Account account = accountRepository.findByIban(iban)
+        // Existence and ownership from the account cache; only permitted reads load the balance
+        AccountSummary summary = accountLookupCache.find(iban)
             .orElseThrow(() -> new IllegalArgumentException("Account not found"));
         
         User currentUser = getCurrentUser();
         if (currentUser.getRole() != User.Role.ADMIN && 
-            !account.getUser().getId().equals(currentUser.getId())) {
+            !summary.ownerId().equals(currentUser.getId())) {
             throw new SecurityException("Access denied");
         }
         
+        Account account = accountRepository.findById(summary.id())
+            .orElseThrow(() -> new IllegalArgumentException("Account not found"));
         return toDto(account);
     }
     
@@ -107,6 +114,12 @@ public class AccountService {
         Account.AccountStatus oldStatus = account.getStatus();
         account.setStatus(status);
         Account savedAccount = accountRepository.save(account);
+        accountLookupCache.invalidate(account.getIban());
+        
+        // A frozen account must also stop accepting transfers in the in-memory ledger
+        if (ledgerEngine.isEnabled()) {
+            ledgerEngine.updateStatus(account.getIban(), status);
+        }
         
         AuditLog.AuditAction action = status == Account.AccountStatus.FROZEN 
             ? AuditLog.AuditAction.ACCOUNT_FROZEN 
@@ -119,17 +132,35 @@ public class AccountService {
         return toDto(savedAccount);
     }
     
-    private String generateIban() {
-        return "SE" + String.format("%02d", (int)(Math.random() * 100)) + 
-               String.format("%016d", (long)(Math.random() * 10000000000000000L));
+    @Transactional
+    public AccountDto updateAccountStriping(UUID accountId, boolean striped) {
+        if (getCurrentUser().getRole() != User.Role.ADMIN) {
+            throw new SecurityException("Only admins can update account striping");
+        }
+        
+        if (!striped) {
+            // Fold under the account lock before the flag flips, so debits see the full balance
+            balanceStripingService.fold(accountId);
+        }
+        accountRepository.updateStriped(accountId, striped);
+        
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+        
+        auditService.logAction(getCurrentUser(), AuditLog.AuditAction.ADMIN_ACTION,
+            String.format("Account %s balance striping %s", 
+                account.getIban(), striped ? "enabled" : "disabled"), null);
+        
+        return toDto(account);
     }
     
     private AccountDto toDto(Account account) {
         return AccountDto.builder()
             .id(account.getId())
             .iban(account.getIban())
-            .balance(account.getBalance())
+            .balance(balanceStripingService.getBalance(account))
             .status(account.getStatus().name())
+            .striped(account.isStriped())
             .userId(account.getUser().getId())
             .userName(account.getUser().getUsername())
             .build();
@@ -0,0 +1,275 @@
+package com.banking.service;
+
+import com.banking.dto.TransactionDto;
+import com.banking.dto.TransferRequest;
+import com.banking.entity.Transaction;
+import com.banking.entity.User;
+import com.banking.fraud.RapidTransferRule;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
+import com.banking.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous transfer submission.
+ * 
+ * Decouples the HTTP request from the ledger work:
+ * 1. Submission: the request thread runs the cheap checks (account existence, ownership
+ *    and status from the {@link AccountLookupCache}, rapid transfers counting the user's
+ *    PENDING ones), persists the transfer as PENDING and returns immediately
+ * 2. Processing: a bounded worker pool applies the transfer through
+ *    {@link TransferService#completePendingTransfer}, which moves it to COMPLETED;
+ *    rejected transfers end as REJECTED and unexpected errors as FAILED, both with a reason
+ * 3. Status: clients poll the transaction, optionally long-polling until it leaves PENDING
+ * 
+ * PENDING rows are the durable queue. Transfers the pool could not accept, or that were
+ * still queued when the application stopped, are picked up again by the recovery sweep.
+ * Processing the same row twice is harmless: the worker claims it under a row lock.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsyncTransferService {
+    
+    private final TransferService transferService;
+    private final FraudDetectionService fraudDetectionService;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountLookupCache accountLookupCache;
+    
+    /** Transfer mode; PENDING transfers are not supported by the in-memory ledger */
+    @Value("${banking.transfer.mode}")
+    private TransferService.TransferMode transferMode;
+    
+    /** Number of worker threads applying transfers */
+    @Value("${banking.transfer.async.workers}")
+    private int workers;
+    
+    /** Maximum number of queued transfers; beyond that they wait for the recovery sweep */
+    @Value("${banking.transfer.async.queue-capacity}")
+    private int queueCapacity;
+    
+    /** Upper bound for a long-poll wait */
+    @Value("${banking.transfer.async.max-wait-ms}")
+    private long maxWaitMs;
+    
+    /** Age after which a PENDING transfer is considered lost and re-queued */
+    @Value("${banking.transfer.async.stale-after-ms}")
+    private long staleAfterMs;
+    
+    /** Completion of transfers queued on this instance, for long-polling */
+    private final Map<UUID, CompletableFuture<TransactionDto>> completions = new ConcurrentHashMap<>();
+    
+    private ThreadPoolTaskExecutor executor;
+    
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transfer-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Accepts a transfer for asynchronous execution.
+     * 
+     * @param request Transfer request with fromIban, toIban, amount, description
+     * @return PENDING transaction; poll {@link #awaitTransaction} for the outcome
+     * @throws IllegalStateException if the rapid-transfer check fails or the ledger engine is active
+     * @throws SecurityException if user doesn't own sender account
+     * @throws IllegalArgumentException if accounts not found or invalid transfer
+     */
+    public TransactionDto submit(TransferRequest request) {
+        if (transferMode == TransferService.TransferMode.LEDGER) {
+            throw new IllegalStateException("Asynchronous transfers are not available in LEDGER mode");
+        }
+        if (request.getFromIban().equals(request.getToIban())) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+        
+        User currentUser = getCurrentUser();
+        
+        // Unknown, foreign or inactive accounts are rejected from the account cache, before any transaction
+        AccountSummary sender = accountLookupCache.requireSender(currentUser, request.getFromIban());
+        AccountSummary receiver = accountLookupCache.requireReceiver(request.getToIban());
+        
+        // Counts completed and still PENDING transfers; the worker checks the completed ones again
+        if (!fraudDetectionService.checkRapidSubmissions(currentUser)) {
+            throw new IllegalStateException(RapidTransferRule.REJECTION);
+        }
+        
+        Transaction pending = transactionTemplate.execute(status ->
+            transactionRepository.save(Transaction.builder()
+                .senderAccount(accountRepository.getReferenceById(sender.id()))
+                .receiverAccount(accountRepository.getReferenceById(receiver.id()))
+                .amount(request.getAmount())
+                .timestamp(LocalDateTime.now())
+                .status(Transaction.TransactionStatus.PENDING)
+                .description(request.getDescription())
+                .initiatedBy(currentUser)
+                .build()));
+        
+        // Queued only after the PENDING row committed, so a worker always finds it
+        enqueue(pending.getId());
+        
+        return TransactionDto.builder()
+            .id(pending.getId())
+            .fromIban(request.getFromIban())
+            .toIban(request.getToIban())
+            .amount(pending.getAmount())
+            .timestamp(pending.getTimestamp())
+            .status(pending.getStatus().name())
+            .description(pending.getDescription())
+            .build();
+    }
+    
+    /**
+     * Returns the transaction, waiting up to waitMs while it is still PENDING.
+     * 
+     * The wait does not hold a request thread: the returned future completes when the
+     * worker finishes the transfer, or with the PENDING state when the wait expires.
+     * Only transfers queued on this instance can be awaited; others return immediately.
+     * 
+     * @param transactionId UUID of the transaction
+     * @param waitMs Maximum wait in milliseconds (capped by configuration, 0 for no wait)
+     * @return Future with the transaction
+     * @throws SecurityException if the user may not view the transaction
+     */
+    public CompletableFuture<TransactionDto> awaitTransaction(UUID transactionId, long waitMs) {
+        // Look up the completion before reading the row: a worker completes it only after commit
+        CompletableFuture<TransactionDto> completion = completions.get(transactionId);
+        TransactionDto current = transferService.getTransaction(transactionId);
+        
+        if (completion == null || waitMs <= 0 ||
+            !Transaction.TransactionStatus.PENDING.name().equals(current.getStatus())) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return completion.copy()
+            .completeOnTimeout(current, Math.min(waitMs, maxWaitMs), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Re-queues all PENDING transfers left over from a previous run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        if (transferMode != TransferService.TransferMode.LEDGER) {
+            requeuePending(LocalDateTime.now());
+        }
+    }
+    
+    /**
+     * Re-queues PENDING transfers that were not processed in time, e.g. because the
+     * queue was full or the instance that accepted them stopped.
+     */
+    @Scheduled(fixedDelayString = "${banking.transfer.async.recovery-interval-ms}")
+    public void recoverStale() {
+        if (transferMode != TransferService.TransferMode.LEDGER) {
+            requeuePending(LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000));
+        }
+    }
+    
+    private void requeuePending(LocalDateTime cutoff) {
+        List<UUID> stale = transactionRepository.findIdsByStatusAndTimestampBefore(
+            Transaction.TransactionStatus.PENDING, cutoff);
+        for (UUID transactionId : stale) {
+            if (!completions.containsKey(transactionId)) {
+                enqueue(transactionId);
+            }
+        }
+        if (!stale.isEmpty()) {
+            log.info("Re-queued {} pending transfers", stale.size());
+        }
+    }
+    
+    private void enqueue(UUID transactionId) {
+        completions.put(transactionId, new CompletableFuture<>());
+        try {
+            executor.execute(() -> process(transactionId));
+        } catch (TaskRejectedException ex) {
+            completions.remove(transactionId);
+            log.warn("Transfer queue full, transfer {} left for the recovery sweep", transactionId);
+        }
+    }
+    
+    /**
+     * Worker task: applies one PENDING transfer and publishes its final state.
+     */
+    private void process(UUID transactionId) {
+        TransactionDto result = null;
+        try {
+            result = transferService.completePendingTransfer(transactionId);
+        } catch (IllegalArgumentException | IllegalStateException | SecurityException ex) {
+            // Retries exhausted on lock contention is a processing failure, not a business rejection
+            Transaction.TransactionStatus status = ex.getCause() instanceof ConcurrencyFailureException
+                ? Transaction.TransactionStatus.FAILED
+                : Transaction.TransactionStatus.REJECTED;
+            result = close(transactionId, status, ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Transfer {} failed", transactionId, ex);
+            result = close(transactionId, Transaction.TransactionStatus.FAILED, "Transfer could not be processed");
+        } finally {
+            CompletableFuture<TransactionDto> completion = completions.remove(transactionId);
+            if (completion != null) {
+                if (result != null) {
+                    completion.complete(result);
+                } else {
+                    completion.completeExceptionally(new IllegalStateException("Transfer status unavailable"));
+                }
+            }
+        }
+    }
+    
+    private TransactionDto close(UUID transactionId, Transaction.TransactionStatus status, String reason) {
+        try {
+            return transferService.closePendingTransfer(transactionId, status, reason);
+        } catch (RuntimeException ex) {
+            // Stays PENDING and is retried by the recovery sweep
+            log.error("Could not close transfer {} as {}", transactionId, status, ex);
+            return null;
+        }
+    }
+    
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (User) authentication.getPrincipal();
+    }
+}
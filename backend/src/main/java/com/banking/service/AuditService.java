@@ -9,6 +9,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -42,5 +44,29 @@ public class AuditService {
         
         auditLogRepository.save(auditLog);
     }
+    
+    @Async
+    @Transactional
+    public void logActions(User user, AuditLog.AuditAction action, List<String> details, String ipAddress) {
+        LocalDateTime now = LocalDateTime.now();
+        List<AuditLog> auditLogs = details.stream()
+            .map(detail -> AuditLog.builder()
+                .user(user)
+                .action(action)
+                .timestamp(now)
+                .details(detail)
+                .ipAddress(ipAddress)
+                .build())
+            .collect(Collectors.toList());
+        
+        auditLogRepository.saveAll(auditLogs);
+    }
+    
+    /**
+     * Inserts prepared audit entries in the caller's transaction, in JDBC batches.
+     */
+    @Transactional
+    public void logAll(List<AuditLog> auditLogs) {
+        auditLogRepository.saveAll(auditLogs);
+    }
 }
-
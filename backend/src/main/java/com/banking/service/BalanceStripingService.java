@@ -0,0 +1,104 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.repository.AccountBalanceStripeRepository;
+import com.banking.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Balance striping for high-fan-in accounts (merchants, fee collection).
+ * 
+ * A striped account receives credits into one of N stripe rows chosen by the
+ * sender's IBAN hash, so thousands of concurrent senders no longer queue on the
+ * single accounts row. Balances are defined as:
+ * 
+ *   total balance = accounts.balance + sum(stripes)
+ * 
+ * Rules that keep this correct:
+ * - Credits only ever add to a stripe
+ * - Debits are checked against accounts.balance; if that is not enough, the stripes
+ *   are folded into it first (under the account row lock) and the check is repeated,
+ *   so a debit is always checked against the full total
+ * - The compactor folds stripes into the balance in the background
+ * - Reads add the stripes to the stored balance
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceStripingService {
+    
+    private final AccountRepository accountRepository;
+    private final AccountBalanceStripeRepository stripeRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    /** Number of stripes per striped account */
+    @Value("${banking.striping.stripes}")
+    private int stripes;
+    
+    /**
+     * Chooses the stripe a sender's credits go to.
+     * 
+     * Hashing by sender spreads many senders across all stripes, while one sender's
+     * transfers already serialize on that sender's own row lock.
+     * 
+     * @param senderIban IBAN of the sending account
+     * @return Stripe index
+     */
+    public int stripeFor(String senderIban) {
+        return (senderIban.hashCode() & 0x7fffffff) % stripes;
+    }
+    
+    /**
+     * Folds all stripes of an account into its balance. Must be called inside a transaction.
+     * 
+     * @param accountId Account id
+     * @return New stored balance, which is now the total balance
+     * @throws IllegalArgumentException if the account does not exist
+     */
+    public BigDecimal fold(UUID accountId) {
+        return accountRepository.foldStripes(accountId)
+            .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+    }
+    
+    /**
+     * Returns the total balance of an account, including credits not yet folded.
+     * 
+     * @param account Account entity
+     * @return Total balance
+     */
+    public BigDecimal getBalance(Account account) {
+        if (!account.isStriped()) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(stripeRepository.sumByAccountId(account.getId()));
+    }
+    
+    /**
+     * Background compactor: folds the stripes of every account that has any.
+     * 
+     * Each account is folded in its own short transaction. Accounts whose striping
+     * was turned off are folded as well, so no stripe is left behind.
+     */
+    @Scheduled(fixedDelayString = "${banking.striping.compact-interval-ms}")
+    public void compact() {
+        List<UUID> accountIds = stripeRepository.findAccountIdsWithStripes();
+        for (UUID accountId : accountIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> fold(accountId));
+            } catch (RuntimeException ex) {
+                log.warn("Could not fold stripes of account {}: {}", accountId, ex.getMessage());
+            }
+        }
+    }
+}
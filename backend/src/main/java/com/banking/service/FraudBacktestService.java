@@ -0,0 +1,427 @@
+package com.banking.service;
+
+import com.banking.dto.FraudBacktestRequest;
+import com.banking.dto.FraudBacktestResult;
+import com.banking.fraud.DailyLimitRule;
+import com.banking.fraud.FraudLimits;
+import com.banking.fraud.FraudRule;
+import com.banking.fraud.FraudRuleResult;
+import com.banking.fraud.FraudThresholds;
+import com.banking.fraud.RapidTransferRule;
+import com.banking.fraud.SuspiciousAmountRule;
+import com.banking.fraud.TransferContext;
+import com.banking.money.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays historical transfers through the fraud rules with candidate settings, to see
+ * what a change of the settings would have rejected before it goes live.
+ * 
+ * Process Flow:
+ * 1. An admin starts a backtest for a period; settings left empty use the configured defaults
+ * 2. Completed transfers of the period are streamed from the database in time order with
+ *    a bounded fetch size, so memory does not grow with the size of the period
+ * 3. Each transfer is routed by sender to one of a fixed number of partitions; a
+ *    partition owns the history of its users, so partitions replay in parallel on a
+ *    fork-join pool while every user's transfers are still seen in time order
+ * 4. The rapid-transfer, daily-limit and suspicious-amount rules are evaluated with the
+ *    sender's replayed history; a transfer any rule rejects does not count towards that
+ *    history, as it would not have been completed
+ * 5. Rejections and flags are counted per rule and merged into the result
+ * 
+ * The replayed history only contains the streamed transfers: transfers rejected at the
+ * time are not in the table, and rules that need live state (account statistics, the
+ * transfer graph) are not replayed. The candidate limits apply to every user; segment and
+ * user overrides are not replayed. One backtest runs at a time; results of the most
+ * recent backtests are kept in memory only.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FraudBacktestService {
+    
+    private static final String SELECT_TRANSFERS =
+        "SELECT a.user_id, t.timestamp, t.amount FROM transactions t " +
+        "JOIN accounts a ON a.id = t.sender_account_id " +
+        "WHERE t.status = 'COMPLETED' AND t.timestamp >= ? AND t.timestamp < ? " +
+        "ORDER BY t.timestamp";
+    
+    /** Results kept for lookup; older ones are discarded */
+    private static final int MAX_RESULTS = 20;
+    
+    /** Transfers replayed by a partition between two evictions of idle users */
+    private static final int EVICT_EVERY = 100_000;
+    
+    /** Marks the end of the stream for a partition */
+    private static final ReplayedTransfer END = new ReplayedTransfer(null, 0, 0, 0);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FraudThresholds fraudThresholds;
+    private final SuspiciousAmountRule suspiciousAmountRule;
+    
+    /** Partitions replayed in parallel */
+    @Value("${banking.fraud.backtest.parallelism}")
+    private int parallelism;
+    
+    /** Rows fetched from the database per round trip */
+    @Value("${banking.fraud.backtest.fetch-size}")
+    private int fetchSize;
+    
+    /** Transfers buffered per partition; the reader waits when a partition falls behind */
+    @Value("${banking.fraud.backtest.queue-capacity}")
+    private int queueCapacity;
+    
+    private final Map<UUID, FraudBacktestResult> results = Collections.synchronizedMap(
+        new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, FraudBacktestResult> eldest) {
+                return size() > MAX_RESULTS;
+            }
+        });
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    private ExecutorService executor;
+    private Executor runner;
+    
+    @PostConstruct
+    void init() {
+        executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "fraud-backtest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        runner = executor;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Starts a backtest in the background.
+     * 
+     * @param request Period and candidate settings
+     * @return The running backtest, to be polled by id
+     * @throws IllegalArgumentException if the period is empty
+     * @throws IllegalStateException if a backtest is already running
+     */
+    public FraudBacktestResult start(FraudBacktestRequest request) {
+        if (!request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("Backtest period must end after it starts");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A fraud backtest is already running");
+        }
+        
+        FraudLimits defaults = fraudThresholds.defaults();
+        FraudBacktestResult job = FraudBacktestResult.builder()
+            .id(UUID.randomUUID())
+            .status(FraudBacktestResult.Status.RUNNING)
+            .from(request.getFrom())
+            .to(request.getTo())
+            .dailyTransferLimit(request.getDailyTransferLimit() != null
+                ? Money.of(request.getDailyTransferLimit()) : defaults.dailyTransferLimit())
+            .rapidTransferThreshold(request.getRapidTransferThreshold() != null
+                ? request.getRapidTransferThreshold() : defaults.rapidTransferThreshold())
+            .rapidTransferWindowMinutes(request.getRapidTransferWindowMinutes() != null
+                ? request.getRapidTransferWindowMinutes() : defaults.rapidTransferWindowMinutes())
+            .suspiciousAmount(request.getSuspiciousAmount() != null
+                ? Money.of(request.getSuspiciousAmount()) : suspiciousAmountRule.getSuspiciousAmount())
+            .startedAt(LocalDateTime.now())
+            .build();
+        results.put(job.getId(), job);
+        
+        try {
+            runner.execute(() -> run(job));
+        } catch (RuntimeException ex) {
+            running.set(false);
+            results.remove(job.getId());
+            throw ex;
+        }
+        return job;
+    }
+    
+    /**
+     * Returns a backtest by id.
+     * 
+     * @throws IllegalArgumentException if no such backtest is kept
+     */
+    public FraudBacktestResult get(UUID id) {
+        FraudBacktestResult result = results.get(id);
+        if (result == null) {
+            throw new IllegalArgumentException("Fraud backtest not found");
+        }
+        return result;
+    }
+    
+    private void run(FraudBacktestResult job) {
+        log.info("Fraud backtest {} started for {} to {}", job.getId(), job.getFrom(), job.getTo());
+        try {
+            FraudBacktestResult completed = replay(job);
+            results.put(job.getId(), completed);
+            log.info("Fraud backtest {} completed: {} of {} transfers rejected",
+                job.getId(), completed.getRejected(), completed.getTransfers());
+        } catch (RuntimeException ex) {
+            log.error("Fraud backtest {} failed", job.getId(), ex);
+            results.put(job.getId(), job.toBuilder()
+                .status(FraudBacktestResult.Status.FAILED)
+                .finishedAt(LocalDateTime.now())
+                .error(ex.getMessage())
+                .build());
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private FraudBacktestResult replay(FraudBacktestResult job) {
+        List<FraudRule> rules = List.of(
+            new RapidTransferRule(),
+            new DailyLimitRule(),
+            new SuspiciousAmountRule(job.getSuspiciousAmount()));
+        FraudLimits limits = new FraudLimits(job.getDailyTransferLimit(), job.getRapidTransferThreshold(),
+            job.getRapidTransferWindowMinutes());
+        
+        Partition[] partitions = new Partition[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            partitions[i] = new Partition(rules, limits, queueCapacity);
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long[] transfers = {0};
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(parallelism);
+            for (Partition partition : partitions) {
+                tasks.add(pool.submit(partition::run));
+            }
+            try {
+                stream(job.getFrom(), job.getTo(), rs -> {
+                    UUID userId = rs.getObject(1, UUID.class);
+                    LocalDateTime timestamp = rs.getObject(2, LocalDateTime.class);
+                    ReplayedTransfer transfer = new ReplayedTransfer(userId,
+                        timestamp.toEpochSecond(ZoneOffset.UTC),
+                        timestamp.toLocalDate().toEpochDay(),
+                        Money.toMinorUnits(rs.getBigDecimal(3)));
+                    partitions[Math.floorMod(userId.hashCode(), parallelism)].put(transfer);
+                    transfers[0]++;
+                });
+            } finally {
+                for (Partition partition : partitions) {
+                    partition.put(END);
+                }
+            }
+            tasks.forEach(ForkJoinTask::join);
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        long rejected = 0;
+        long[] rejectedByRule = new long[rules.size()];
+        long[] flaggedByRule = new long[rules.size()];
+        for (Partition partition : partitions) {
+            if (partition.failure != null) {
+                throw partition.failure;
+            }
+            rejected += partition.rejected;
+            for (int i = 0; i < rules.size(); i++) {
+                rejectedByRule[i] += partition.rejectedByRule[i];
+                flaggedByRule[i] += partition.flaggedByRule[i];
+            }
+        }
+        
+        Map<String, Long> rejectedCounts = new LinkedHashMap<>();
+        Map<String, Long> flaggedCounts = new LinkedHashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            rejectedCounts.put(rules.get(i).name(), rejectedByRule[i]);
+            flaggedCounts.put(rules.get(i).name(), flaggedByRule[i]);
+        }
+        return job.toBuilder()
+            .status(FraudBacktestResult.Status.COMPLETED)
+            .transfers(transfers[0])
+            .rejected(rejected)
+            .rejectedByRule(rejectedCounts)
+            .flaggedByRule(flaggedCounts)
+            .finishedAt(LocalDateTime.now())
+            .build();
+    }
+    
+    /**
+     * Streams the completed transfers of a period in time order. The fetch size only
+     * takes effect inside a transaction, so the query runs in one.
+     */
+    private void stream(LocalDateTime from, LocalDateTime to, RowCallbackHandler handler) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_TRANSFERS);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, from);
+            statement.setObject(2, to);
+            return statement;
+        }, handler));
+    }
+    
+    /** A historical transfer as seen by the replay */
+    private record ReplayedTransfer(UUID userId, long second, long day, long amount) {
+    }
+    
+    /**
+     * The users of one partition, replayed by a single task. Counters are only read
+     * after the task has been joined.
+     */
+    private static final class Partition {
+        
+        private final List<FraudRule> rules;
+        private final FraudLimits limits;
+        private final long windowSeconds;
+        private final BlockingQueue<ReplayedTransfer> queue;
+        private final Map<UUID, UserHistory> users = new HashMap<>();
+        private final long[] rejectedByRule;
+        private final long[] flaggedByRule;
+        private long rejected;
+        private long replayed;
+        private RuntimeException failure;
+        
+        Partition(List<FraudRule> rules, FraudLimits limits, int queueCapacity) {
+            this.rules = rules;
+            this.limits = limits;
+            this.windowSeconds = limits.rapidTransferWindowMinutes() * 60L;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.rejectedByRule = new long[rules.size()];
+            this.flaggedByRule = new long[rules.size()];
+        }
+        
+        void put(ReplayedTransfer transfer) {
+            try {
+                queue.put(transfer);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Fraud backtest interrupted", ex);
+            }
+        }
+        
+        void run() {
+            try {
+                while (true) {
+                    ReplayedTransfer transfer = queue.take();
+                    if (transfer == END) {
+                        return;
+                    }
+                    // After a failure the queue is still drained so the reader is not blocked
+                    if (failure == null) {
+                        try {
+                            replay(transfer);
+                        } catch (RuntimeException ex) {
+                            failure = ex;
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException("Fraud backtest interrupted", ex);
+            }
+        }
+        
+        private void replay(ReplayedTransfer transfer) {
+            UserHistory history = users.computeIfAbsent(transfer.userId(),
+                id -> new UserHistory(limits.rapidTransferThreshold()));
+            long dailyTotal = history.day == transfer.day() ? history.dailyTotal : 0;
+            TransferContext context = new TransferContext(null, null, null,
+                Money.ofMinor(transfer.amount()),
+                history.countSince(transfer.second() - windowSeconds),
+                Money.ofMinor(dailyTotal),
+                limits);
+            
+            boolean isRejected = false;
+            for (int i = 0; i < rules.size(); i++) {
+                FraudRuleResult result = rules.get(i).evaluate(context);
+                if (result.outcome() == FraudRuleResult.Outcome.REJECT) {
+                    rejectedByRule[i]++;
+                    isRejected = true;
+                } else if (result.outcome() == FraudRuleResult.Outcome.FLAG) {
+                    flaggedByRule[i]++;
+                }
+            }
+            if (isRejected) {
+                rejected++;
+            } else {
+                history.record(transfer.second(), transfer.day(), transfer.amount());
+            }
+            
+            if (++replayed % EVICT_EVERY == 0) {
+                // Users without a transfer in the window or today no longer affect any rule
+                long cutoff = transfer.second() - windowSeconds;
+                users.values().removeIf(user -> user.lastSecond < cutoff && user.day < transfer.day());
+            }
+        }
+    }
+    
+    /**
+     * Replayed history of one user: the times of the last threshold accepted transfers,
+     * which is all the rapid-transfer rule can see, and the total of the current day.
+     */
+    private static final class UserHistory {
+        
+        private final long[] seconds;
+        private int next;
+        private int size;
+        private long lastSecond;
+        private long day = Long.MIN_VALUE;
+        private long dailyTotal;
+        
+        UserHistory(int capacity) {
+            this.seconds = new long[Math.max(capacity, 1)];
+        }
+        
+        long countSince(long cutoff) {
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                if (seconds[i] > cutoff) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        
+        void record(long second, long transferDay, long amount) {
+            seconds[next] = second;
+            next = (next + 1) % seconds.length;
+            size = Math.min(size + 1, seconds.length);
+            lastSecond = second;
+            if (day != transferDay) {
+                day = transferDay;
+                dailyTotal = 0;
+            }
+            dailyTotal += amount;
+        }
+    }
+}
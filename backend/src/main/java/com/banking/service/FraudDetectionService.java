@@ -1,27 +1,56 @@
 package com.banking.service;
 
-import com.banking.entity.Account;
+import com.banking.dto.TransferRequest;
 import com.banking.entity.FraudEvent;
 import com.banking.entity.Transaction;
 import com.banking.entity.User;
-import com.banking.repository.FraudEventRepository;
+import com.banking.entity.UserDailyTotal;
+import com.banking.fraud.DailyLimitRule;
+import com.banking.fraud.FraudDecision;
+import com.banking.fraud.FraudEventCoalescer;
+import com.banking.fraud.FraudLimits;
+import com.banking.fraud.FraudRule;
+import com.banking.fraud.FraudRuleRegistry;
+import com.banking.fraud.FraudRuleResult;
+import com.banking.fraud.FraudThresholds;
+import com.banking.fraud.RapidTransferRule;
+import com.banking.fraud.TransferContext;
+import com.banking.fraud.VelocityTracker;
+import com.banking.money.Money;
 import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserDailyTotalRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
 
 /**
  * Fraud Detection Service for monitoring and preventing suspicious transactions.
  * 
- * Implements two main fraud detection mechanisms:
- * 1. Daily Transfer Limit: Prevents excessive transfers within 24 hours
- * 2. Rapid Transfer Detection: Detects multiple transfers within a time window
+ * Single transfers are screened by all registered {@link FraudRule}s:
+ * 1. Loading: the sender's history is loaded once into a {@link TransferContext}
+ * 2. Evaluation: the {@link FraudRuleRegistry} runs the rules and aggregates their results
+ * 3. Logging: every flagged or rejecting rule is queued as one fraud event
  * 
- * All fraud events are logged for audit and monitoring purposes.
+ * Batch and asynchronous submissions only run the rapid-transfer or daily-limit rule.
+ * 
+ * The sender's history is read from the in-memory {@link VelocityTracker} counters; the
+ * database is only queried for users that are not tracked. The rules reject early but
+ * cannot see concurrent transfers; the daily limit is enforced by a reservation on the
+ * user's {@link UserDailyTotal} row inside each transfer's transaction.
+ * 
+ * Limits are per user: the {@link FraudThresholds} cache resolves them from the user's
+ * override, the user's segment and the configured defaults.
+ * 
+ * All fraud events are logged for audit and monitoring purposes. Repeats are coalesced
+ * by the {@link FraudEventCoalescer} and written by the asynchronous fraud event sink.
  * 
  * @author Banking Platform Team
  */
@@ -29,66 +58,126 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class FraudDetectionService {
     
-    private final FraudEventRepository fraudEventRepository;
+    private final FraudEventCoalescer fraudEventCoalescer;
     private final TransactionRepository transactionRepository;
+    private final VelocityTracker velocityTracker;
+    private final UserDailyTotalRepository userDailyTotalRepository;
+    private final FraudRuleRegistry fraudRuleRegistry;
+    private final RapidTransferRule rapidTransferRule;
+    private final DailyLimitRule dailyLimitRule;
+    private final FraudThresholds fraudThresholds;
     
-    /** Maximum total amount a user can transfer per day (configurable) */
-    @Value("${banking.fraud.daily-transfer-limit}")
-    private BigDecimal dailyTransferLimit;
-    
-    /** Maximum number of transfers allowed within the time window */
-    @Value("${banking.fraud.rapid-transfer-threshold}")
-    private int rapidTransferThreshold;
-    
-    /** Time window in minutes for rapid transfer detection */
-    @Value("${banking.fraud.rapid-transfer-window-minutes}")
-    private int rapidTransferWindowMinutes;
+    /**
+     * Screens a single transfer with all registered fraud rules.
+     * 
+     * @param user User attempting the transfer
+     * @param request Transfer request
+     * @return Aggregated decision; the transfer must be rejected if {@link FraudDecision#isRejected()}
+     * @throws IllegalArgumentException if the amount has more than 2 decimals
+     */
+    @Transactional(readOnly = true)
+    public FraudDecision screenTransfer(User user, TransferRequest request) {
+        FraudLimits limits = fraudThresholds.limitsFor(user.getId());
+        TransferContext context = new TransferContext(user, request.getFromIban(), request.getToIban(),
+            Money.of(request.getAmount()), countRecentTransfers(user, limits), calculateDailyTotal(user), limits);
+        
+        FraudDecision decision = fraudRuleRegistry.evaluate(context);
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (FraudRuleResult result : decision.triggered()) {
+            fraudEventCoalescer.submit(toFraudEvent(user, result, context.amount(), now));
+        }
+        return decision;
+    }
     
     /**
      * Checks if the transfer amount would exceed the daily transfer limit.
      * 
      * Calculates total transfers made by user today (since midnight) and adds
-     * the current transfer amount. If projected total exceeds limit, logs fraud event.
+     * the current transfer amount. If projected total exceeds the user's limit, logs fraud event.
      * 
      * @param user User attempting the transfer
      * @param amount Transfer amount to check
      * @return true if transfer is within daily limit, false otherwise
+     * @throws IllegalArgumentException if the amount has more than 2 decimals
      */
     @Transactional(readOnly = true)
     public boolean checkDailyLimit(User user, BigDecimal amount) {
-        // Calculate start of current day (00:00:00)
-        LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Sum all completed transfers by this user today
-        BigDecimal dailyTotal = transactionRepository
-            .findByTimestampBetween(startOfDay, now)
-            .stream()
-            .filter(t -> t.getSenderAccount().getUser().getId().equals(user.getId()))
-            .filter(t -> t.getStatus() == Transaction.TransactionStatus.COMPLETED)
-            .map(Transaction::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        // Calculate projected total including current transfer
-        BigDecimal projectedTotal = dailyTotal.add(amount);
-        
-        // Check if projected total exceeds daily limit
-        if (projectedTotal.compareTo(dailyTransferLimit) > 0) {
-            // Log fraud event with HIGH severity
-            logFraudEvent(user, FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED,
-                String.format("Daily limit exceeded. Daily total: %s, Attempted: %s", 
-                    dailyTotal, amount),
-                amount, FraudEvent.FraudSeverity.HIGH);
+        TransferContext context = new TransferContext(user, null, null, Money.of(amount), 0, calculateDailyTotal(user),
+            fraudThresholds.limitsFor(user.getId()));
+        return apply(dailyLimitRule, context);
+    }
+    
+    /**
+     * Reserves a transfer amount against the user's daily limit.
+     * 
+     * A single conditional UPDATE (total + amount <= limit) on the user's row for today.
+     * Its row lock serializes the user's concurrent transfers until they commit or roll
+     * back, so parallel submissions cannot jointly exceed the limit. The first transfer
+     * of the day creates the row from the transfers already committed today.
+     * 
+     * Must be called inside the transfer's transaction, after its account locks.
+     * 
+     * @param userId User the limit applies to
+     * @param amount Transfer amount
+     * @return true if reserved, false if the limit would be exceeded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserveDailyLimit(UUID userId, BigDecimal amount) {
+        LocalDate today = LocalDate.now();
+        BigDecimal limit = fraudThresholds.limitsFor(userId).dailyTransferLimit().toBigDecimal();
+        if (userDailyTotalRepository.addIfWithinLimit(userId, today, amount, limit) > 0) {
+            return true;
+        }
+        if (userDailyTotalRepository.existsById(new UserDailyTotal.DailyTotalId(userId, today))) {
             return false;
         }
-        
-        return true;
+        userDailyTotalRepository.insertIfAbsent(userId, today, today.atStartOfDay());
+        return userDailyTotalRepository.addIfWithinLimit(userId, today, amount, limit) > 0;
+    }
+    
+    /**
+     * Locks the user's row for today and returns how much can still be transferred.
+     * 
+     * Used by batch transfers, which consume the allowance item by item in memory and
+     * then add the accepted total with {@link #addToDailyTotal} in the same transaction.
+     * 
+     * @param userId User the limit applies to
+     * @return Remaining daily allowance (may be zero or negative)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Money lockRemainingDailyLimit(UUID userId) {
+        LocalDate today = LocalDate.now();
+        Optional<BigDecimal> total = userDailyTotalRepository.findTotalForUpdate(userId, today);
+        if (total.isEmpty()) {
+            userDailyTotalRepository.insertIfAbsent(userId, today, today.atStartOfDay());
+            total = userDailyTotalRepository.findTotalForUpdate(userId, today);
+        }
+        return fraudThresholds.limitsFor(userId).dailyTransferLimit().minus(Money.of(total.orElse(BigDecimal.ZERO)));
+    }
+    
+    /**
+     * Adds an amount to the user's total for today. The row must be locked by
+     * {@link #lockRemainingDailyLimit} in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addToDailyTotal(UUID userId, Money amount) {
+        userDailyTotalRepository.add(userId, LocalDate.now(), amount.toBigDecimal());
+    }
+    
+    /**
+     * Gives back a reservation made by {@link #reserveDailyLimit} in the same transaction,
+     * for a transfer that is rejected while the transaction goes on to commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseDailyLimit(UUID userId, BigDecimal amount) {
+        userDailyTotalRepository.add(userId, LocalDate.now(), amount.negate());
     }
     
     /**
      * Checks for rapid transfer patterns (multiple transfers within time window).
      * 
-     * Counts transfers made by user within the configured time window.
+     * Counts completed transfers made by user within the user's time window.
      * If count exceeds threshold, logs fraud event.
      * 
      * @param user User attempting the transfer
@@ -96,33 +185,89 @@ public class FraudDetectionService {
      */
     @Transactional(readOnly = true)
     public boolean checkRapidTransfers(User user) {
-        // Calculate time window start
-        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(rapidTransferWindowMinutes);
+        FraudLimits limits = fraudThresholds.limitsFor(user.getId());
+        return checkRapidTransfers(user, limits, countRecentTransfers(user, limits));
+    }
+    
+    /**
+     * Rapid-transfer check for an asynchronous submission.
+     * 
+     * The user's PENDING transfers within the window count as well, so a burst of
+     * submissions cannot pass while the earlier ones still wait for a worker.
+     * 
+     * @param user User submitting the transfer
+     * @return true if completed plus pending transfers are within threshold, false otherwise
+     */
+    @Transactional(readOnly = true)
+    public boolean checkRapidSubmissions(User user) {
+        FraudLimits limits = fraudThresholds.limitsFor(user.getId());
         LocalDateTime now = LocalDateTime.now();
-        
-        // Count transfers by this user within the time window
-        long transferCount = transactionRepository
-            .findByTimestampBetween(windowStart, now)
-            .stream()
-            .filter(t -> t.getSenderAccount().getUser().getId().equals(user.getId()))
-            .count();
-        
-        // Check if transfer count exceeds threshold
-        if (transferCount >= rapidTransferThreshold) {
-            // Log fraud event with MEDIUM severity
-            logFraudEvent(user, FraudEvent.FraudType.RAPID_TRANSFERS,
-                String.format("Rapid transfer detected. Count: %d in last %d minutes", 
-                    transferCount, rapidTransferWindowMinutes),
-                null, FraudEvent.FraudSeverity.MEDIUM);
-            return false;
+        long pending = transactionRepository.countBySenderUser(user.getId(), Transaction.TransactionStatus.PENDING,
+            now.minusMinutes(limits.rapidTransferWindowMinutes()), now);
+        return checkRapidTransfers(user, limits, countRecentTransfers(user, limits) + pending);
+    }
+    
+    private boolean checkRapidTransfers(User user, FraudLimits limits, long recentTransfers) {
+        TransferContext context = new TransferContext(user, null, null, null, recentTransfers, null, limits);
+        return apply(rapidTransferRule, context);
+    }
+    
+    /**
+     * Evaluates a single rule and logs a fraud event if it triggers.
+     * 
+     * @return false if the rule rejects the transfer
+     */
+    private boolean apply(FraudRule rule, TransferContext context) {
+        FraudRuleResult result = rule.evaluate(context);
+        if (result.isTriggered()) {
+            fraudEventCoalescer.submit(toFraudEvent(context.sender(), result, context.amount(), LocalDateTime.now()));
+        }
+        return result.outcome() != FraudRuleResult.Outcome.REJECT;
+    }
+    
+    /**
+     * Counts completed transfers made by the user within the user's rapid-transfer window.
+     */
+    private long countRecentTransfers(User user, FraudLimits limits) {
+        int windowMinutes = limits.rapidTransferWindowMinutes();
+        return velocityTracker.recentTransfers(user.getId(), windowMinutes).orElseGet(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            return transactionRepository.countBySenderUser(user.getId(), Transaction.TransactionStatus.COMPLETED,
+                now.minusMinutes(windowMinutes), now);
+        });
+    }
+    
+    /**
+     * Sums all completed transfers sent by the user today (since midnight).
+     * 
+     * Read from the velocity counters; for untracked users the database computes it with
+     * a single indexed aggregate, so the cost depends on the user's own transfers only.
+     * 
+     * @param user User to sum transfers for
+     * @return Total amount transferred today
+     */
+    private Money calculateDailyTotal(User user) {
+        OptionalLong tracked = velocityTracker.dailyTotal(user.getId());
+        if (tracked.isPresent()) {
+            return Money.ofMinor(tracked.getAsLong());
         }
         
-        return true;
+        // Calculate start of current day (00:00:00)
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
+        
+        // Sum all completed transfers by this user today
+        return Money.of(transactionRepository.sumAmountBySenderUser(
+            user.getId(), Transaction.TransactionStatus.COMPLETED, startOfDay, now));
     }
     
     /**
      * Logs a fraud event to the database for audit and monitoring.
      * 
+     * Repeats of the same type for the same user are coalesced by the
+     * {@link FraudEventCoalescer}; events are inserted in the background, so they are
+     * not part of the caller's transaction.
+     * 
      * Fraud events are used for:
      * - Security monitoring
      * - Compliance reporting
@@ -135,9 +280,8 @@ public class FraudDetectionService {
      * @param amount Transfer amount (if applicable)
      * @param severity Severity level (LOW, MEDIUM, HIGH, CRITICAL)
      */
-    @Transactional
     public void logFraudEvent(User user, FraudEvent.FraudType type, String description,
-                             BigDecimal amount, FraudEvent.FraudSeverity severity) {
+                             Money amount, FraudEvent.FraudSeverity severity) {
         FraudEvent fraudEvent = FraudEvent.builder()
             .user(user)
             .type(type)
@@ -147,7 +291,18 @@ public class FraudDetectionService {
             .severity(severity)
             .build();
         
-        fraudEventRepository.save(fraudEvent);
+        fraudEventCoalescer.submit(fraudEvent);
+    }
+    
+    private static FraudEvent toFraudEvent(User user, FraudRuleResult result, Money amount, LocalDateTime timestamp) {
+        return FraudEvent.builder()
+            .user(user)
+            .type(result.type())
+            .timestamp(timestamp)
+            .description(result.description())
+            .amount(amount)
+            .severity(result.severity())
+            .build();
     }
 }
 
@@ -0,0 +1,162 @@
+package com.banking.service;
+
+import com.banking.dto.FraudThresholdDto;
+import com.banking.dto.FraudThresholdRequest;
+import com.banking.entity.AuditLog;
+import com.banking.entity.FraudThreshold;
+import com.banking.entity.User;
+import com.banking.fraud.FraudLimits;
+import com.banking.fraud.FraudThresholds;
+import com.banking.money.Money;
+import com.banking.repository.FraudThresholdRepository;
+import com.banking.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Admin management of the per-segment and per-user fraud limits.
+ * 
+ * Every change is saved, audited and then applied by reloading the
+ * {@link FraudThresholds} cache of this instance; other instances pick it up with
+ * {@link #reload()}.
+ * 
+ * @author Banking Platform Team
+ */
+@Service
+@RequiredArgsConstructor
+public class FraudThresholdService {
+    
+    private final FraudThresholdRepository fraudThresholdRepository;
+    private final UserRepository userRepository;
+    private final FraudThresholds fraudThresholds;
+    private final AuditService auditService;
+    
+    public List<FraudThresholdDto> getThresholds() {
+        return fraudThresholdRepository.findAll()
+            .stream()
+            .map(this::toDto)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Sets the limits of a customer segment.
+     */
+    public FraudThresholdDto setSegmentThreshold(User.Segment segment, FraudThresholdRequest request) {
+        FraudThreshold threshold = fraudThresholdRepository.findBySegment(segment)
+            .orElseGet(() -> FraudThreshold.builder().segment(segment).build());
+        FraudThreshold saved = save(threshold, request);
+        
+        audit(String.format("Fraud limits of segment %s set: %s", segment, describe(saved)));
+        fraudThresholds.reload();
+        return toDto(saved);
+    }
+    
+    /**
+     * Sets the limits of a single user, overriding the user's segment.
+     * 
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public FraudThresholdDto setUserThreshold(UUID userId, FraudThresholdRequest request) {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        FraudThreshold threshold = fraudThresholdRepository.findByUserId(userId)
+            .orElseGet(() -> FraudThreshold.builder().userId(userId).build());
+        FraudThreshold saved = save(threshold, request);
+        
+        audit(String.format("Fraud limits of user %s set: %s", userId, describe(saved)));
+        fraudThresholds.reload();
+        return toDto(saved);
+    }
+    
+    /**
+     * Removes a segment or user override; its limits are inherited again.
+     * 
+     * @throws IllegalArgumentException if the override does not exist
+     */
+    public void deleteThreshold(UUID thresholdId) {
+        FraudThreshold threshold = fraudThresholdRepository.findById(thresholdId)
+            .orElseThrow(() -> new IllegalArgumentException("Fraud threshold not found"));
+        fraudThresholdRepository.delete(threshold);
+        
+        audit(String.format("Fraud limits of %s removed",
+            threshold.getSegment() != null ? "segment " + threshold.getSegment() : "user " + threshold.getUserId()));
+        fraudThresholds.reload();
+    }
+    
+    /**
+     * Moves a user to another customer segment.
+     * 
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public void setUserSegment(UUID userId, User.Segment segment) {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        User.Segment oldSegment = user.getSegment();
+        user.setSegment(segment);
+        userRepository.save(user);
+        
+        audit(String.format("User %s segment changed from %s to %s", user.getUsername(), oldSegment, segment));
+        fraudThresholds.reload();
+    }
+    
+    /**
+     * Limits that currently apply to a user.
+     */
+    public FraudLimits getUserLimits(UUID userId) {
+        return fraudThresholds.limitsFor(userId);
+    }
+    
+    /**
+     * Reloads the limits cache from the database, after the tables were changed
+     * directly or through another instance.
+     */
+    public void reload() {
+        fraudThresholds.reload();
+        audit("Fraud limits reloaded");
+    }
+    
+    private FraudThreshold save(FraudThreshold threshold, FraudThresholdRequest request) {
+        threshold.setDailyTransferLimit(request.getDailyTransferLimit() != null
+            ? Money.of(request.getDailyTransferLimit()) : null);
+        threshold.setRapidTransferThreshold(request.getRapidTransferThreshold());
+        threshold.setRapidTransferWindowMinutes(request.getRapidTransferWindowMinutes());
+        threshold.setUpdatedAt(LocalDateTime.now());
+        return fraudThresholdRepository.save(threshold);
+    }
+    
+    private void audit(String details) {
+        auditService.logAction(getCurrentUser(), AuditLog.AuditAction.ADMIN_ACTION, details, null);
+    }
+    
+    private static String describe(FraudThreshold threshold) {
+        return String.format("daily limit %s, rapid transfers %s in %s minutes",
+            threshold.getDailyTransferLimit() != null ? threshold.getDailyTransferLimit() : "inherited",
+            threshold.getRapidTransferThreshold() != null ? threshold.getRapidTransferThreshold() : "inherited",
+            threshold.getRapidTransferWindowMinutes() != null ? threshold.getRapidTransferWindowMinutes() : "inherited");
+    }
+    
+    private FraudThresholdDto toDto(FraudThreshold threshold) {
+        return FraudThresholdDto.builder()
+            .id(threshold.getId())
+            .segment(threshold.getSegment() != null ? threshold.getSegment().name() : null)
+            .userId(threshold.getUserId())
+            .dailyTransferLimit(threshold.getDailyTransferLimit())
+            .rapidTransferThreshold(threshold.getRapidTransferThreshold())
+            .rapidTransferWindowMinutes(threshold.getRapidTransferWindowMinutes())
+            .updatedAt(threshold.getUpdatedAt())
+            .build();
+    }
+    
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (User) authentication.getPrincipal();
+    }
+}
@@ -0,0 +1,171 @@
+package com.banking.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Allocates unique IBANs for new accounts without probing the accounts table.
+ * 
+ * Account numbers come from the database sequence account_number_seq, leased in
+ * blocks of block-size numbers: the sequence increments by the block size, and a
+ * value v leases the numbers (v - block-size, v]. Instances therefore never hand out
+ * the same number, and changing the block size keeps later blocks above the earlier ones.
+ * 
+ * Within a block, numbers are handed out from memory with a single atomic increment;
+ * only the thread that exhausts a block leases the next one. Numbers of accounts that
+ * were not created (rolled back, or unused at shutdown) are skipped, never reused.
+ * 
+ * An IBAN is built as country code, ISO 13616 mod-97 check digits, and the BBAN of
+ * bank code followed by the account number zero-padded to 17 digits - the Swedish
+ * layout, e.g. SE45 5000 0000 0583 9825 7466.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IbanAllocator {
+    
+    static final String SEQUENCE = "account_number_seq";
+    
+    /** Digits of the account number part of the BBAN */
+    static final int ACCOUNT_NUMBER_DIGITS = 17;
+    
+    private static final long MAX_ACCOUNT_NUMBER = 99_999_999_999_999_999L;
+    
+    /** Country code, check digits and an alphanumeric BBAN, 34 characters at most */
+    private static final Pattern IBAN_FORMAT = Pattern.compile("[A-Z]{2}[0-9]{2}[A-Z0-9]{1,30}");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${banking.iban.country-code}")
+    private String countryCode;
+    
+    /** Bank code leading the BBAN, three digits */
+    @Value("${banking.iban.bank-code}")
+    private String bankCode;
+    
+    /** Account numbers leased per sequence call */
+    @Value("${banking.iban.block-size}")
+    private int blockSize;
+    
+    /** Block numbers are handed out from; exhausted until the first lease */
+    private volatile Block block = new Block(1, 0);
+    
+    /**
+     * Creates the sequence if needed and aligns its increment with the block size.
+     */
+    @PostConstruct
+    void init() {
+        if (!countryCode.matches("[A-Z]{2}") || !bankCode.matches("\\d{3}") || blockSize < 1) {
+            throw new IllegalStateException("Invalid banking.iban settings");
+        }
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE +
+            " START WITH " + blockSize + " INCREMENT BY " + blockSize);
+        jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " INCREMENT BY " + blockSize);
+    }
+    
+    /**
+     * @return IBAN with an account number not handed out before
+     */
+    public String next() {
+        while (true) {
+            Block current = block;
+            long number = current.next.getAndIncrement();
+            if (number <= current.last) {
+                return format(number);
+            }
+            lease(current);
+        }
+    }
+    
+    /**
+     * Replaces the exhausted block with a newly leased one, unless another thread already did.
+     */
+    private synchronized void lease(Block exhausted) {
+        if (block != exhausted) {
+            return;
+        }
+        Long value = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+        if (value == null || value > MAX_ACCOUNT_NUMBER) {
+            throw new IllegalStateException("Account numbers exhausted");
+        }
+        block = new Block(Math.max(value - blockSize + 1, 1), value);
+        log.debug("Leased account numbers {} to {}", block.next.get(), value);
+    }
+    
+    String format(long accountNumber) {
+        String bban = bankCode + String.format("%0" + ACCOUNT_NUMBER_DIGITS + "d", accountNumber);
+        return countryCode + checkDigits(countryCode, bban) + bban;
+    }
+    
+    /**
+     * ISO 13616 check digits: 98 minus the remainder mod 97 of BBAN, country code and
+     * "00" as a number, with letters replaced by 10 (A) to 35 (Z).
+     */
+    static String checkDigits(String countryCode, String bban) {
+        int remainder = mod97(bban + countryCode + "00");
+        return String.format("%02d", 98 - remainder);
+    }
+    
+    /**
+     * Whether the IBAN is well-formed and has valid check digits; does not check the
+     * country's length.
+     */
+    static boolean isValid(String iban) {
+        return IBAN_FORMAT.matcher(iban).matches() && mod97(iban.substring(4) + iban.substring(0, 4)) == 1;
+    }
+    
+    /**
+     * Account number of an IBAN in the layout built here (any country and bank code).
+     * 
+     * @return Account number, or -1 if the IBAN is invalid or has another layout
+     */
+    static long accountNumber(String iban) {
+        if (iban.length() != 7 + ACCOUNT_NUMBER_DIGITS || !isValid(iban)) {
+            return -1;
+        }
+        for (int i = 4; i < iban.length(); i++) {
+            if (!Character.isDigit(iban.charAt(i))) {
+                return -1;
+            }
+        }
+        return Long.parseLong(iban.substring(7));
+    }
+    
+    /**
+     * Remainder mod 97 of the digits, computed piecewise so any length fits in an int.
+     */
+    private static int mod97(String value) {
+        int remainder = 0;
+        for (int i = 0; i < value.length(); i++) {
+            int digit = Character.digit(value.charAt(i), 36);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid IBAN character: " + value.charAt(i));
+            }
+            remainder = (digit < 10 ? remainder * 10 + digit : remainder * 100 + digit) % 97;
+        }
+        return remainder;
+    }
+    
+    /**
+     * Leased range [first, last] of account numbers; next is the first not handed out.
+     */
+    private static final class Block {
+        
+        private final AtomicLong next;
+        private final long last;
+        
+        private Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.banking.service;
+
+import com.banking.cache.BoundedTtlCache;
+import com.banking.dto.TransactionDto;
+import com.banking.dto.TransferRequest;
+import com.banking.entity.IdempotencyRecord;
+import com.banking.entity.Transaction;
+import com.banking.entity.User;
+import com.banking.repository.IdempotencyRecordRepository;
+import com.banking.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for money transfers.
+ * 
+ * Two layers deduplicate retried requests:
+ * 1. In-memory cache (bounded, TTL-evicted) of the result of every keyed transfer
+ *    executed on this instance - a repeated key is answered without any database access
+ * 2. Durable idempotency_keys table, written in the transfer's own transaction -
+ *    answers repeats after a restart or when the retry reaches another instance.
+ *    Transfers committed in groups (ledger journal, sequencer) carry a
+ *    {@link PendingKey} that the group commit records with {@link #recordAll}
+ * 
+ * The cache stores a future per key. The first request for a key executes the
+ * transfer; concurrent duplicates wait on that future instead of executing in parallel.
+ * A failed transfer is not remembered, so the client can retry it with the same key.
+ * 
+ * Keys are scoped per user, and reusing a key with a different request payload is rejected.
+ * 
+ * @author Banking Platform Team
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    
+    private static final int MAX_KEY_LENGTH = 100;
+    
+    private static final String DELETE_EXPIRED_KEY =
+        "DELETE FROM idempotency_keys WHERE user_id = ? AND idempotency_key = ? AND expires_at <= ?";
+    
+    private static final String INSERT_RECORD =
+        "INSERT INTO idempotency_keys (id, idempotency_key, user_id, request_hash, transaction_id, created_at, expires_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    /** How long a key is remembered */
+    @Value("${banking.idempotency.ttl-hours}")
+    private long ttlHours;
+    
+    /** Maximum number of keys held in memory */
+    @Value("${banking.idempotency.max-entries}")
+    private int maxEntries;
+    
+    /** Maximum time a duplicate waits for the in-flight original */
+    @Value("${banking.idempotency.wait-timeout-ms}")
+    private long waitTimeoutMs;
+    
+    private BoundedTtlCache<String, InFlightTransfer> results;
+    
+    @PostConstruct
+    void init() {
+        results = new BoundedTtlCache<>(maxEntries, Duration.ofHours(ttlHours));
+    }
+    
+    /**
+     * Executes the transfer at most once per (user, key).
+     * 
+     * @param user Authenticated user
+     * @param key Client-supplied Idempotency-Key
+     * @param request Transfer request (fingerprinted to detect key reuse)
+     * @param transfer Executes the transfer; must call {@link #record} in its transaction,
+     *                 or hand a {@link #pendingKey} to a group commit
+     * @return Result of the original execution of this key
+     * @throws IllegalArgumentException if the key is invalid or was used for a different request
+     * @throws IllegalStateException if the original request is still in flight after the wait timeout
+     */
+    public TransactionDto execute(User user, String key, TransferRequest request,
+                                  Supplier<TransactionDto> transfer) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        
+        String cacheKey = user.getId() + ":" + key;
+        String requestHash = fingerprint(request);
+        
+        InFlightTransfer mine = new InFlightTransfer(requestHash);
+        InFlightTransfer existing = results.putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            // Repeat or concurrent duplicate - answered from memory, no DB access
+            checkSameRequest(existing.requestHash, requestHash);
+            return await(existing);
+        }
+        
+        try {
+            TransactionDto result = findStored(user.getId(), key, requestHash)
+                .orElseGet(transfer);
+            mine.result.complete(result);
+            return result;
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance committed the same key first - return its result
+            Optional<TransactionDto> stored = findStored(user.getId(), key, requestHash);
+            if (stored.isPresent()) {
+                mine.result.complete(stored.get());
+                return stored.get();
+            }
+            fail(cacheKey, mine, ex);
+            throw ex;
+        } catch (RuntimeException ex) {
+            fail(cacheKey, mine, ex);
+            throw ex;
+        }
+    }
+    
+    /**
+     * Records a completed keyed transfer. Must be called inside the transfer's transaction.
+     * 
+     * @param user Authenticated user
+     * @param key Client-supplied Idempotency-Key
+     * @param request Transfer request
+     * @param transactionId Id of the committed transaction record
+     */
+    public void record(User user, String key, TransferRequest request, UUID transactionId) {
+        LocalDateTime now = LocalDateTime.now();
+        
+        // An expired record may still exist until the next purge
+        idempotencyRecordRepository.deleteExpiredKey(user.getId(), key, now);
+        
+        idempotencyRecordRepository.save(IdempotencyRecord.builder()
+            .idempotencyKey(key)
+            .userId(user.getId())
+            .requestHash(fingerprint(request))
+            .transaction(transactionRepository.getReferenceById(transactionId))
+            .createdAt(now)
+            .expiresAt(now.plusHours(ttlHours))
+            .build());
+    }
+    
+    /**
+     * Prepares the record of a keyed transfer that is committed by a group commit
+     * rather than in a transaction of the caller.
+     * 
+     * @param user Authenticated user
+     * @param key Client-supplied Idempotency-Key
+     * @param request Transfer request
+     * @return Key to pass along with the transfer
+     */
+    public PendingKey pendingKey(User user, String key, TransferRequest request) {
+        return new PendingKey(user.getId(), key, fingerprint(request));
+    }
+    
+    /**
+     * Records the keyed transfers of a group commit with two JDBC batches. Must be called
+     * inside the group's transaction after its transaction rows were inserted, so each
+     * key commits if and only if its transfer does.
+     * 
+     * @param keys Key of each keyed transfer in the group, by transaction id
+     * @throws DataIntegrityViolationException if another request already recorded one of the keys
+     */
+    public void recordAll(Map<UUID, PendingKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Map.Entry<UUID, PendingKey>> rows = new ArrayList<>(keys.entrySet());
+        
+        // An expired record may still exist until the next purge
+        jdbcTemplate.batchUpdate(DELETE_EXPIRED_KEY, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, row.getValue().userId());
+            ps.setString(2, row.getValue().key());
+            ps.setObject(3, now);
+        });
+        jdbcTemplate.batchUpdate(INSERT_RECORD, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setString(2, row.getValue().key());
+            ps.setObject(3, row.getValue().userId());
+            ps.setString(4, row.getValue().requestHash());
+            ps.setObject(5, row.getKey());
+            ps.setObject(6, now);
+            ps.setObject(7, now.plusHours(ttlHours));
+        });
+    }
+    
+    /**
+     * Evicts expired keys from memory and from the database.
+     */
+    @Scheduled(fixedDelayString = "${banking.idempotency.purge-interval-ms}")
+    public void purgeExpired() {
+        results.evictExpired();
+        idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    }
+    
+    private Optional<TransactionDto> findStored(UUID userId, String key, String requestHash) {
+        return idempotencyRecordRepository.findActive(userId, key, LocalDateTime.now())
+            .map(record -> {
+                checkSameRequest(record.getRequestHash(), requestHash);
+                return toDto(record.getTransaction());
+            });
+    }
+    
+    private TransactionDto await(InFlightTransfer inFlight) {
+        try {
+            return inFlight.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Transfer failed", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request");
+        }
+    }
+    
+    private void fail(String cacheKey, InFlightTransfer mine, RuntimeException ex) {
+        // Forget the key so the client can retry, then release any waiting duplicates
+        results.invalidate(cacheKey, mine);
+        mine.result.completeExceptionally(ex);
+    }
+    
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key has already been used for a different request");
+        }
+    }
+    
+    private String fingerprint(TransferRequest request) {
+        String canonical = String.join("|",
+            request.getFromIban(),
+            request.getToIban(),
+            request.getAmount().stripTrailingZeros().toPlainString(),
+            request.getDescription() != null ? request.getDescription() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+    
+    private TransactionDto toDto(Transaction transaction) {
+        return TransactionDto.builder()
+            .id(transaction.getId())
+            .fromIban(transaction.getSenderAccount().getIban())
+            .toIban(transaction.getReceiverAccount().getIban())
+            .amount(transaction.getAmount())
+            .timestamp(transaction.getTimestamp())
+            .status(transaction.getStatus().name())
+            .description(transaction.getDescription())
+            .build();
+    }
+    
+    /**
+     * Idempotency-Key of a transfer on its way to a group commit.
+     * 
+     * @param userId Id of the user the key belongs to
+     * @param key Client-supplied Idempotency-Key
+     * @param requestHash Fingerprint of the request
+     */
+    public record PendingKey(UUID userId, String key, String requestHash) {
+    }
+    
+    /**
+     * Result slot for one idempotency key.
+     */
+    private static final class InFlightTransfer {
+        private final String requestHash;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+        
+        private InFlightTransfer(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
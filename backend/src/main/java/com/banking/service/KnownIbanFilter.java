@@ -0,0 +1,231 @@
+package com.banking.service;
+
+import com.banking.cache.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of the IBANs of all existing accounts, so lookups of IBANs that definitely
+ * do not exist (typos, probing) are answered without a database query.
+ * 
+ * Process Flow:
+ * 1. After startup the accounts table is streamed once into the filter; until then every
+ *    IBAN is reported as possibly existing
+ * 2. Accounts created on this instance are added when they are created
+ * 3. Every refresh-interval-ms, accounts created since the previous refresh (with an
+ *    overlap for transactions that committed late) are added, which covers accounts
+ *    created by other instances
+ * 
+ * created_at is set by the database, and the refresh bound is read from the database
+ * clock as well, so clock skew between instances cannot hide an account. An account is
+ * only missed for good if the transaction creating it stays open longer than the overlap.
+ * 
+ * An account created on another instance is not in the filter until the next refresh.
+ * Account numbers come from a sequence ({@link IbanAllocator}), so such an account has a
+ * number above those seen so far: a miss whose account number is above the highest one
+ * seen by the last build or refresh, less one block (another instance may still be
+ * handing out a block leased just before), is looked up in the database instead of being
+ * rejected.
+ * 
+ * An IBAN is rejected if the filter has never seen it, or - once every stored IBAN has
+ * been found to carry valid ISO 13616 check digits - if its check digits are invalid.
+ * The check digits catch most typos even when the filter gives a false positive. Older
+ * accounts with random check digits turn the checksum rejection off, not the filter.
+ * 
+ * Accounts are never removed, so the filter only grows; it is sized with
+ * expected-accounts and false-positive-rate (10 million accounts at 1% take about 12 MB).
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KnownIbanFilter {
+    
+    private static final String SELECT_ALL_IBANS = "SELECT iban FROM accounts";
+    private static final String SELECT_CREATED_IBANS = "SELECT iban FROM accounts WHERE created_at >= ?";
+    private static final String SELECT_DATABASE_TIME = "SELECT LOCALTIMESTAMP";
+    
+    /** Refreshes re-read this much before the previous one, for transactions that committed late */
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    /** Whether unknown IBANs are rejected; without it every IBAN is looked up */
+    @Value("${banking.iban.filter.enabled}")
+    private boolean enabled;
+    
+    /** Number of accounts the filter is sized for */
+    @Value("${banking.iban.filter.expected-accounts}")
+    private long expectedAccounts;
+    
+    /** Share of unknown IBANs that are still looked up at expected-accounts entries */
+    @Value("${banking.iban.filter.false-positive-rate}")
+    private double falsePositiveRate;
+    
+    /** Rows fetched per database round trip while building */
+    @Value("${banking.iban.filter.fetch-size}")
+    private int fetchSize;
+    
+    /** Account numbers leased per sequence call by every instance */
+    @Value("${banking.iban.block-size}")
+    private int blockSize;
+    
+    private volatile BloomFilter filter;
+    
+    /** Whether IBANs with invalid check digits are rejected: no stored IBAN has them */
+    private volatile boolean checksumsEnforced;
+    
+    /**
+     * Database time at the start of the last build or refresh; accounts created from then
+     * on are read by the next refresh
+     */
+    private volatile LocalDateTime refreshedFrom;
+    
+    /**
+     * Account numbers above this may belong to accounts created since the last build or
+     * refresh, so misses above it are looked up
+     */
+    private volatile long unseenAbove = Long.MAX_VALUE;
+    
+    private final AtomicLong added = new AtomicLong();
+    private volatile boolean overfullReported;
+    private Counter rejected;
+    
+    /**
+     * Streams all IBANs into a new filter, then starts answering lookups from it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        rejected = Counter.builder("banking.iban.filter.rejected")
+            .description("IBAN lookups answered as unknown without a database query")
+            .register(meterRegistry);
+        
+        BloomFilter building = new BloomFilter(expectedAccounts, falsePositiveRate);
+        // Accounts created during the build are added to the new filter as well
+        filter = building;
+        long[] counts = new long[3];
+        LocalDateTime started;
+        try {
+            started = transactionTemplate.execute(status -> {
+                LocalDateTime now = databaseTime();
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SELECT_ALL_IBANS);
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                }, rs -> {
+                    String iban = rs.getString(1);
+                    building.put(iban);
+                    counts[0]++;
+                    if (!IbanAllocator.isValid(iban)) {
+                        counts[1]++;
+                    }
+                    counts[2] = Math.max(counts[2], IbanAllocator.accountNumber(iban));
+                });
+                return now;
+            });
+        } catch (RuntimeException ex) {
+            // Without a complete filter every IBAN is looked up
+            filter = null;
+            log.error("Could not build the IBAN filter: {}", ex.getMessage());
+            return;
+        }
+        added.addAndGet(counts[0]);
+        unseenAbove = counts[2] - blockSize;
+        refreshedFrom = started;
+        checksumsEnforced = counts[1] == 0;
+        log.info("IBAN filter built from {} accounts ({} MB, {} with invalid check digits)",
+            counts[0], building.getBitSize() / 8 / (1024 * 1024), counts[1]);
+        warnIfOverfull();
+    }
+    
+    /**
+     * Adds the accounts created since the previous refresh, by any instance.
+     */
+    @Scheduled(fixedDelayString = "${banking.iban.filter.refresh-interval-ms}")
+    public void refresh() {
+        LocalDateTime from = refreshedFrom;
+        if (from == null) {
+            return;
+        }
+        LocalDateTime started = databaseTime();
+        long[] highest = {unseenAbove + blockSize};
+        jdbcTemplate.query(SELECT_CREATED_IBANS, rs -> {
+            String iban = rs.getString(1);
+            add(iban);
+            highest[0] = Math.max(highest[0], IbanAllocator.accountNumber(iban));
+        }, from.minus(REFRESH_OVERLAP));
+        refreshedFrom = started;
+        unseenAbove = highest[0] - blockSize;
+        warnIfOverfull();
+    }
+    
+    /**
+     * Adds the IBAN of a new account. Called before its transaction commits; a rollback
+     * only leaves a false positive.
+     */
+    public void add(String iban) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        if (!current.mightContain(iban)) {
+            current.put(iban);
+            added.incrementAndGet();
+        }
+        if (checksumsEnforced && !IbanAllocator.isValid(iban)) {
+            checksumsEnforced = false;
+            log.warn("IBAN {} has invalid check digits; unknown IBANs are no longer rejected by checksum", iban);
+        }
+    }
+    
+    /**
+     * @return false if no account with this IBAN exists; true if one may exist
+     */
+    public boolean mightExist(String iban) {
+        BloomFilter current = filter;
+        if (current == null || refreshedFrom == null) {
+            return true;
+        }
+        if (checksumsEnforced && !IbanAllocator.isValid(iban)) {
+            rejected.increment();
+            return false;
+        }
+        if (current.mightContain(iban) || IbanAllocator.accountNumber(iban) > unseenAbove) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+    
+    private LocalDateTime databaseTime() {
+        return jdbcTemplate.queryForObject(SELECT_DATABASE_TIME, LocalDateTime.class);
+    }
+    
+    private void warnIfOverfull() {
+        if (!overfullReported && added.get() > expectedAccounts) {
+            overfullReported = true;
+            log.warn("IBAN filter holds {} accounts but is sized for {}; its false-positive rate is rising",
+                added.get(), expectedAccounts);
+        }
+    }
+}
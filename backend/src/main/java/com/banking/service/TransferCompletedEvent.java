@@ -0,0 +1,22 @@
+package com.banking.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published for every transfer that reached COMPLETED.
+ * 
+ * Transactional listeners receive it after the commit; transfers applied outside
+ * of a database transaction (LEDGER, SEQUENCER) publish it once they are durable.
+ * 
+ * @param transactionId Id of the transaction row
+ * @param senderUserId Owner of the sender account
+ * @param fromIban Sender IBAN
+ * @param toIban Receiver IBAN
+ * @param amount Transferred amount
+ * @param timestamp Timestamp of the transaction row
+ */
+public record TransferCompletedEvent(UUID transactionId, UUID senderUserId, String fromIban, String toIban,
+                                     BigDecimal amount, LocalDateTime timestamp) {
+}
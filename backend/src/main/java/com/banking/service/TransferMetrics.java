@@ -0,0 +1,85 @@
+package com.banking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer metrics for the transfer path.
+ * 
+ * Exposed through the actuator metrics endpoint:
+ * - banking.transfer.retries: transfer attempts retried after a lock/serialization failure
+ * - banking.transfer.retries.exhausted: transfers that failed after the last retry
+ * - banking.transfer.lock.wait: time spent acquiring the account row locks
+ * - banking.transfer.latency: end-to-end latency of single transfers, tagged with the
+ *   transfer mode and outcome, with p50/p95/p99 so the execution modes can be compared
+ * - banking.transfer.commit.group.size: transfers persisted per group commit (SEQUENCER mode)
+ * 
+ * @author Banking Platform Team
+ */
+@Component
+public class TransferMetrics {
+    
+    private final MeterRegistry meterRegistry;
+    private final Counter retriesExhausted;
+    private final Timer lockWait;
+    private final DistributionSummary commitGroupSize;
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+    
+    public TransferMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.retriesExhausted = Counter.builder("banking.transfer.retries.exhausted")
+            .description("Transfers that failed after exhausting all retry attempts")
+            .register(meterRegistry);
+        this.lockWait = Timer.builder("banking.transfer.lock.wait")
+            .description("Time spent acquiring account row locks")
+            .register(meterRegistry);
+        this.commitGroupSize = DistributionSummary.builder("banking.transfer.commit.group.size")
+            .description("Transfers persisted per group commit")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Records one retried transfer attempt.
+     * 
+     * @param reason Simple name of the exception that caused the retry
+     */
+    public void recordRetry(String reason) {
+        meterRegistry.counter("banking.transfer.retries", "reason", reason).increment();
+    }
+    
+    public void recordRetriesExhausted() {
+        retriesExhausted.increment();
+    }
+    
+    public void recordLockWait(long nanos) {
+        lockWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Records the latency of one single transfer.
+     * 
+     * @param mode Transfer mode that executed it
+     * @param outcome "completed" or "rejected"
+     * @param nanos Time from request to result
+     */
+    public void recordTransferLatency(String mode, String outcome, long nanos) {
+        latencyTimers.computeIfAbsent(mode + ":" + outcome, key -> Timer.builder("banking.transfer.latency")
+                .description("End-to-end latency of single transfers")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordCommitGroup(int transfers) {
+        commitGroupSize.record(transfers);
+    }
+}
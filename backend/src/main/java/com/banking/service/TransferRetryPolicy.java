@@ -0,0 +1,83 @@
+package com.banking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry policy for transfer transactions.
+ * 
+ * Retries an operation when the database reports a transient concurrency failure:
+ * - Lock timeout (lock_timeout expired while waiting for a row lock)
+ * - Deadlock detected
+ * - Serialization failure
+ * 
+ * Spring translates all of these into {@link ConcurrencyFailureException} subclasses.
+ * Each attempt must run in its own transaction, so the policy has to wrap the
+ * transaction boundary, never run inside it.
+ * 
+ * Backoff is exponential with random jitter so competing transfers do not retry in lockstep.
+ * 
+ * @author Banking Platform Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferRetryPolicy {
+    
+    private final TransferMetrics transferMetrics;
+    
+    /** Maximum number of attempts, including the first one */
+    @Value("${banking.transfer.retry.max-attempts}")
+    private int maxAttempts;
+    
+    /** Base backoff in milliseconds, doubled after every failed attempt */
+    @Value("${banking.transfer.retry.backoff-ms}")
+    private long backoffMs;
+    
+    /**
+     * Executes the operation, retrying on transient concurrency failures.
+     * 
+     * @param operation Operation to execute (typically one complete transaction)
+     * @return Result of the first successful attempt
+     * @throws IllegalStateException if all attempts fail
+     */
+    public <T> T execute(Supplier<T> operation) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return operation.get();
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    transferMetrics.recordRetriesExhausted();
+                    throw new IllegalStateException(
+                        "Transfer could not be completed due to concurrent activity, please retry", ex);
+                }
+                
+                log.debug("Transfer attempt {} of {} failed: {}", attempt, maxAttempts, ex.getMessage());
+                transferMetrics.recordRetry(ex.getClass().getSimpleName());
+                backoff(attempt);
+                attempt++;
+            }
+        }
+    }
+    
+    private void backoff(int attempt) {
+        if (backoffMs <= 0) {
+            return;
+        }
+        long delay = backoffMs * (1L << (attempt - 1));
+        long jitter = ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(delay + jitter);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transfer retry interrupted", ex);
+        }
+    }
+}
@@ -1,34 +1,62 @@
 package com.banking.service;
 
+import com.banking.dto.BatchTransferItemResult;
+import com.banking.dto.BatchTransferRequest;
+import com.banking.dto.BatchTransferResponse;
 import com.banking.dto.TransferRequest;
 import com.banking.dto.TransactionDto;
 import com.banking.entity.Account;
 import com.banking.entity.AuditLog;
+import com.banking.entity.FraudEvent;
 import com.banking.entity.Transaction;
 import com.banking.entity.User;
+import com.banking.fraud.FraudDecision;
+import com.banking.fraud.RapidTransferRule;
+import com.banking.ledger.LedgerEngine;
+import com.banking.money.Money;
+import com.banking.repository.AccountRef;
 import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
 import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserRepository;
+import com.banking.sequencer.TransferSequencer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
  * Service layer for money transfer operations.
  * 
  * Implements secure, ACID-compliant money transfers with:
- * - Fraud detection (daily limits, rapid transfer detection)
+ * - Fraud detection (pluggable fraud rules: daily limits, rapid transfers, large amounts)
  * - Balance validation
  * - Account status checks
  * - Complete audit trail
  * - Transaction rollback on any failure
+ * - Ordered row locking with bounded retry on lock contention
  * 
  * All transfer operations are transactional to ensure data integrity.
  */
@@ -36,85 +64,859 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TransferService {
     
+    /** Per-item batch result states */
+    private static final String BATCH_COMPLETED = "COMPLETED";
+    private static final String BATCH_REJECTED = "REJECTED";
+    private static final String BATCH_SKIPPED = "SKIPPED";
+    private static final String DAILY_LIMIT_REJECTION = "Transfer rejected: Daily limit exceeded";
+    
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final FraudDetectionService fraudDetectionService;
     private final AuditService auditService;
+    private final TransferRetryPolicy transferRetryPolicy;
+    private final TransferMetrics transferMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyService idempotencyService;
+    private final LedgerEngine ledgerEngine;
+    private final TransferSequencer transferSequencer;
+    private final BalanceStripingService balanceStripingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountLookupCache accountLookupCache;
+    private final UserRepository userRepository;
+    
+    /** Maximum time to wait for an account row lock before the attempt is retried */
+    @Value("${banking.transfer.lock-timeout-ms}")
+    private long lockTimeoutMs;
+    
+    /** Strategy used to apply the balance update of a single transfer */
+    @Value("${banking.transfer.mode}")
+    private TransferMode transferMode;
+    
+    /** Maximum wait for the commit of a ledger or sequencer transfer */
+    @Value("${banking.transfer.queued-timeout-ms}")
+    private long queuedTimeoutMs;
     
     /**
      * Executes a money transfer between two accounts.
      * 
      * Process Flow:
-     * 1. Fraud Detection: Checks rapid transfers and daily limits
-     * 2. Security: Verifies user owns the sender account (or is ADMIN)
-     * 3. Validation: Validates account status, balance, and transfer rules
-     * 4. Execution: Atomically updates both account balances
-     * 5. Recording: Creates transaction record and audit log
+     * 1. Fraud Detection: Screens the transfer with all registered fraud rules
+     * 2. Locking: Locks both account rows in a deterministic order (by id)
+     * 3. Security: Verifies user owns the sender account (or is ADMIN)
+     * 4. Validation: Validates account status, balance, and transfer rules
+     * 5. Execution: Atomically updates both account balances
+     * 6. Recording: Creates transaction record and audit log
      * 
-     * All steps are within a single transaction - any failure rolls back all changes.
+     * Before step 1, transfers from unknown, foreign or inactive accounts and to unknown
+     * or inactive accounts are rejected from the {@link AccountLookupCache}, without
+     * opening a transaction; steps 3 and 4 still check the locked rows.
+     * 
+     * Steps 2-6 run in a single transaction - any failure rolls back all changes.
+     * Lock timeouts, deadlocks and serialization failures roll back the attempt and
+     * are retried in a fresh transaction by {@link TransferRetryPolicy}.
+     * 
+     * In {@link TransferMode#CONDITIONAL} mode steps 2-5 are replaced by two
+     * conditional UPDATE statements (see {@link #executeConditionalTransfer}).
+     * In {@link TransferMode#LEDGER} mode they are applied by the in-memory
+     * {@link LedgerEngine} and persisted by its journal, in {@link TransferMode#SEQUENCER}
+     * mode by the {@link TransferSequencer} with group commits (see {@link #executeQueuedTransfer}).
+     * 
+     * With an Idempotency-Key the transfer executes at most once per user and key;
+     * repeats return the original result (see {@link IdempotencyService}).
      * 
      * @param request Transfer request with fromIban, toIban, amount, description
+     * @param idempotencyKey Optional client-supplied Idempotency-Key (may be null)
      * @return Transaction DTO with transfer details
      * @throws IllegalStateException if fraud checks fail or validation fails
      * @throws SecurityException if user doesn't own sender account
      * @throws IllegalArgumentException if accounts not found or invalid transfer
      */
-    @Transactional
+    public TransactionDto transfer(TransferRequest request, String idempotencyKey) {
+        User currentUser = getCurrentUser();
+        
+        if (idempotencyKey == null) {
+            return executeTransfer(currentUser, request, null);
+        }
+        return idempotencyService.execute(currentUser, idempotencyKey, request,
+            () -> executeTransfer(currentUser, request, idempotencyKey));
+    }
+    
+    /**
+     * Executes a money transfer between two accounts without an idempotency key.
+     * 
+     * @param request Transfer request with fromIban, toIban, amount, description
+     * @return Transaction DTO with transfer details
+     */
     public TransactionDto transfer(TransferRequest request) {
+        return transfer(request, null);
+    }
+    
+    /**
+     * Executes a single transfer and records its latency per transfer mode.
+     * 
+     * @param currentUser Authenticated user executing the transfer
+     * @param request Transfer request
+     * @param idempotencyKey Key recorded with the transfer (may be null)
+     * @return Transaction DTO with transfer details
+     */
+    private TransactionDto executeTransfer(User currentUser, TransferRequest request, String idempotencyKey) {
+        long start = System.nanoTime();
+        String outcome = "rejected";
+        try {
+            TransactionDto result = performTransfer(currentUser, request, idempotencyKey);
+            outcome = "completed";
+            return result;
+        } finally {
+            transferMetrics.recordTransferLatency(transferMode.name(), outcome, System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Runs the fraud rules once, then the retried ledger update transaction.
+     * 
+     * @param currentUser Authenticated user executing the transfer
+     * @param request Transfer request
+     * @param idempotencyKey Key recorded in the transfer transaction (may be null)
+     * @return Transaction DTO with transfer details
+     */
+    private TransactionDto performTransfer(User currentUser, TransferRequest request, String idempotencyKey) {
+        // Unknown, foreign or inactive accounts are rejected from the account cache, before any transaction
+        accountLookupCache.requireSender(currentUser, request.getFromIban());
+        accountLookupCache.requireReceiver(request.getToIban());
+        
+        // Fraud detection - all registered rules, on one pre-fetched context
+        FraudDecision decision = fraudDetectionService.screenTransfer(currentUser, request);
+        if (decision.isRejected()) {
+            throw new IllegalStateException(decision.rejection().get().rejection());
+        }
+        
+        try {
+            if (transferMode == TransferMode.LEDGER || transferMode == TransferMode.SEQUENCER) {
+                return executeQueuedTransfer(currentUser, request, idempotencyKey);
+            }
+            
+            // Fraud checks run once; only the ledger update is retried
+            return transferRetryPolicy.execute(() -> transactionTemplate.execute(status -> {
+                TransactionDto result = transferMode == TransferMode.CONDITIONAL
+                    ? executeConditionalTransfer(currentUser, request, null)
+                    : executeLockedTransfer(currentUser, request, null);
+                
+                // The key commits atomically with the transfer it deduplicates
+                if (idempotencyKey != null) {
+                    idempotencyService.record(currentUser, idempotencyKey, request, result.getId());
+                }
+                return result;
+            }));
+        } catch (IllegalStateException ex) {
+            logReservationRejection(currentUser, request, ex);
+            throw ex;
+        }
+    }
+    
+    /**
+     * Submits a transfer to the in-memory ledger or the sequencer and waits for its commit.
+     * 
+     * Both validate ownership, status and balance themselves and write the transaction
+     * row in a group commit, together with the idempotency key of a keyed transfer.
+     * 
+     * @param currentUser Authenticated user executing the transfer
+     * @param request Transfer request
+     * @param idempotencyKey Key recorded in the group commit (may be null)
+     * @return Transaction DTO with transfer details
+     */
+    private TransactionDto executeQueuedTransfer(User currentUser, TransferRequest request, String idempotencyKey) {
+        if (request.getFromIban().equals(request.getToIban())) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+        
+        boolean anyOwner = currentUser.getRole() == User.Role.ADMIN;
+        IdempotencyService.PendingKey pendingKey = idempotencyKey != null
+            ? idempotencyService.pendingKey(currentUser, idempotencyKey, request)
+            : null;
+        CompletableFuture<TransactionDto> submitted = transferMode == TransferMode.LEDGER
+            ? ledgerEngine.submit(request.getFromIban(), request.getToIban(), request.getAmount(),
+                request.getDescription(), currentUser.getId(), anyOwner, pendingKey)
+            : transferSequencer.submit(request.getFromIban(), request.getToIban(), request.getAmount(),
+                request.getDescription(), currentUser.getId(), anyOwner, pendingKey);
+        
+        TransactionDto result;
+        try {
+            result = submitted.orTimeout(queuedTimeoutMs, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof TimeoutException) {
+                // It may still commit, so a retry must not assume it failed
+                throw new IllegalStateException("Transfer was not confirmed in time, check its status before retrying");
+            }
+            throw ex;
+        }
+        
+        // Already committed by the ledger journal or the group commit
+        UUID senderUserId = anyOwner
+            ? accountRepository.findUserIdByIban(request.getFromIban()).orElse(currentUser.getId())
+            : currentUser.getId();
+        publishCompleted(senderUserId, result.getId(), request, result.getTimestamp());
+        
+        auditService.logAction(currentUser, AuditLog.AuditAction.TRANSFER,
+            String.format("Transfer: %s from %s to %s",
+                request.getAmount(), request.getFromIban(), request.getToIban()),
+            null);
+        
+        return result;
+    }
+    
+    /**
+     * Executes a batch of transfers submitted by the current user in one transaction.
+     * 
+     * Process Flow:
+     * 1. Fraud Detection: Rapid-transfer check, once per batch for each sender owner
+     * 2. Locking: Loads and locks every involved account in one query (ordered by id),
+     *    then the daily total row of each sender owner (ordered by user id), which yields
+     *    each owner's remaining daily allowance
+     * 3. Evaluation: Validates each item in order against the in-memory running balances
+     *    and the remaining daily allowance of its sender's owner, accumulating the balance
+     *    deltas per account
+     * 4. Recording: Inserts all transaction rows with JDBC batching; each modified
+     *    account is flushed with a single UPDATE regardless of how many items touch it
+     * 5. Audit: Writes one audit entry per completed item in a single bulk insert
+     * 
+     * The daily limit applies to the owners of the sender accounts, so an admin batch
+     * counts against the limits of the customers whose money it moves.
+     * 
+     * In ALL_OR_NOTHING mode the first rejected item rolls back the whole batch and
+     * every other item is reported as SKIPPED. In BEST_EFFORT mode rejected items are
+     * reported individually and all valid items are committed.
+     * 
+     * @param request Batch request with the transfers and execution mode
+     * @return Per-item results in request order
+     * @throws IllegalStateException if the rapid-transfer check fails or the ledger engine is active
+     */
+    public BatchTransferResponse transferBatch(BatchTransferRequest request) {
+        // The ledger engine owns all balances in LEDGER mode; direct row updates would be lost
+        if (transferMode == TransferMode.LEDGER) {
+            throw new IllegalStateException("Batch transfers are not available in LEDGER mode");
+        }
+        
         User currentUser = getCurrentUser();
+        BatchTransferRequest.BatchMode mode = request.getMode() != null
+            ? request.getMode()
+            : BatchTransferRequest.BatchMode.ALL_OR_NOTHING;
+        
+        // Step 1: Fraud detection once per sender owner - the batch counts as one submission each
+        List<User> owners = senderOwners(currentUser, request.getTransfers());
+        for (User owner : owners) {
+            if (!fraudDetectionService.checkRapidTransfers(owner)) {
+                throw new IllegalStateException("Transfer rejected: Rapid transfer detected");
+            }
+        }
+        
+        BatchTransferResponse response = transferRetryPolicy.execute(() -> transactionTemplate.execute(status -> {
+            BatchTransferResponse result = executeBatch(currentUser, request.getTransfers(), mode);
+            if (mode == BatchTransferRequest.BatchMode.ALL_OR_NOTHING && result.getRejected() > 0) {
+                status.setRollbackOnly();
+            }
+            return result;
+        }));
+        
+        // Step 5: Bulk audit of the committed items, and one fraud event per owner for the limit breaches
+        List<String> auditDetails = new ArrayList<>();
+        Map<UUID, Money> limitRejectedByOwner = new LinkedHashMap<>();
+        for (BatchTransferItemResult item : response.getResults()) {
+            TransferRequest transfer = request.getTransfers().get(item.getIndex());
+            if (BATCH_COMPLETED.equals(item.getStatus())) {
+                auditDetails.add(String.format("Transfer: %s from %s to %s",
+                    transfer.getAmount(), transfer.getFromIban(), transfer.getToIban()));
+            } else if (DAILY_LIMIT_REJECTION.equals(item.getError())) {
+                UUID ownerId = accountLookupCache.find(transfer.getFromIban())
+                    .map(AccountSummary::ownerId)
+                    .orElse(currentUser.getId());
+                limitRejectedByOwner.merge(ownerId, Money.of(transfer.getAmount()), Money::plus);
+            }
+        }
+        if (!auditDetails.isEmpty()) {
+            auditService.logActions(currentUser, AuditLog.AuditAction.TRANSFER, auditDetails, null);
+        }
+        Map<UUID, User> ownersById = owners.stream().collect(Collectors.toMap(User::getId, owner -> owner));
+        limitRejectedByOwner.forEach((ownerId, amount) -> fraudDetectionService.logFraudEvent(
+            ownersById.getOrDefault(ownerId, currentUser), FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED,
+            String.format("Daily limit exceeded by batch. Rejected: %s", amount),
+            amount, FraudEvent.FraudSeverity.HIGH));
+        
+        return response;
+    }
+    
+    /**
+     * Resolves the users whose transfers a batch makes. A customer can only send from
+     * their own accounts; an admin batch may span the accounts of many users.
+     * Unknown sender accounts are skipped here and rejected per item.
+     * 
+     * @param currentUser Authenticated user executing the batch
+     * @param transfers Transfers in request order
+     * @return Owners of the sender accounts
+     */
+    private List<User> senderOwners(User currentUser, List<TransferRequest> transfers) {
+        if (currentUser.getRole() != User.Role.ADMIN) {
+            return List.of(currentUser);
+        }
+        Set<UUID> ownerIds = new HashSet<>();
+        for (TransferRequest transfer : transfers) {
+            accountLookupCache.find(transfer.getFromIban())
+                .ifPresent(sender -> ownerIds.add(sender.ownerId()));
+        }
+        return userRepository.findAllById(ownerIds);
+    }
+    
+    /**
+     * Evaluates and applies a batch of transfers. Must be called inside a transaction.
+     * 
+     * @param currentUser Authenticated user executing the batch
+     * @param transfers Transfers in request order
+     * @param mode Batch execution mode
+     * @return Per-item results
+     */
+    private BatchTransferResponse executeBatch(User currentUser, List<TransferRequest> transfers,
+                                               BatchTransferRequest.BatchMode mode) {
+        // Step 2: Lock every involved account once, in id order
+        Set<String> ibans = new HashSet<>();
+        for (TransferRequest transfer : transfers) {
+            ibans.add(transfer.getFromIban());
+            ibans.add(transfer.getToIban());
+        }
+        
+        long lockStart = System.nanoTime();
+        accountRepository.setLockTimeout(lockTimeoutMs + "ms");
+        Map<String, Account> accountsByIban = new HashMap<>();
+        for (Account account : accountRepository.findByIbanInForUpdate(ibans)) {
+            // Striped accounts are locked here anyway - fold their stripes so debits see the total
+            if (account.isStriped()) {
+                account.setBalance(balanceStripingService.fold(account.getId()));
+            }
+            accountsByIban.put(account.getIban(), account);
+        }
+        
+        // Daily totals of the sender owners, locked after the accounts (like the single-transfer
+        // reservation) and in user id order so concurrent batches never deadlock on them
+        Map<UUID, Long> allowances = new TreeMap<>(TransferService::compareLockOrder);
+        for (TransferRequest transfer : transfers) {
+            Account sender = accountsByIban.get(transfer.getFromIban());
+            if (sender != null && (currentUser.getRole() == User.Role.ADMIN
+                    || sender.getUser().getId().equals(currentUser.getId()))) {
+                allowances.put(sender.getUser().getId(), null);
+            }
+        }
+        for (Map.Entry<UUID, Long> owner : allowances.entrySet()) {
+            owner.setValue(fraudDetectionService.lockRemainingDailyLimit(owner.getKey()).getMinorUnits());
+        }
+        transferMetrics.recordLockWait(System.nanoTime() - lockStart);
+        
+        // Step 3: Evaluate items in order against the running balances
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, Long> used = new TreeMap<>(TransferService::compareLockOrder);
+        BatchTransferItemResult[] results = new BatchTransferItemResult[transfers.size()];
+        List<Transaction> transactions = new ArrayList<>();
+        List<Integer> transactionIndexes = new ArrayList<>();
+        int rejected = 0;
+        
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest transfer = transfers.get(i);
+            try {
+                Account sender = accountsByIban.get(transfer.getFromIban());
+                if (sender == null) {
+                    throw new IllegalArgumentException("Sender account not found");
+                }
+                Account receiver = accountsByIban.get(transfer.getToIban());
+                if (receiver == null) {
+                    throw new IllegalArgumentException("Receiver account not found");
+                }
+                if (!sender.getUser().getId().equals(currentUser.getId()) &&
+                    currentUser.getRole() != User.Role.ADMIN) {
+                    throw new SecurityException("Access denied: You can only transfer from your own accounts");
+                }
+                UUID ownerId = sender.getUser().getId();
+                long amount = Money.toMinorUnits(transfer.getAmount());
+                long ownerUsed = used.getOrDefault(ownerId, 0L);
+                if (Money.exceedsLimit(ownerUsed, amount, allowances.get(ownerId))) {
+                    throw new IllegalStateException(DAILY_LIMIT_REJECTION);
+                }
+                validateTransfer(sender, receiver, transfer.getAmount());
+                
+                // Deltas accumulate on the managed entities; one UPDATE per account at flush
+                sender.setBalance(sender.getBalance().subtract(transfer.getAmount()));
+                receiver.setBalance(receiver.getBalance().add(transfer.getAmount()));
+                used.put(ownerId, Money.addMinor(ownerUsed, amount));
+                
+                transactions.add(Transaction.builder()
+                    .senderAccount(sender)
+                    .receiverAccount(receiver)
+                    .amount(transfer.getAmount())
+                    .timestamp(now)
+                    .status(Transaction.TransactionStatus.COMPLETED)
+                    .description(transfer.getDescription())
+                    .build());
+                transactionIndexes.add(i);
+            } catch (IllegalArgumentException | IllegalStateException | SecurityException ex) {
+                results[i] = BatchTransferItemResult.builder()
+                    .index(i)
+                    .status(BATCH_REJECTED)
+                    .error(ex.getMessage())
+                    .build();
+                rejected++;
+                if (mode == BatchTransferRequest.BatchMode.ALL_OR_NOTHING) {
+                    break;
+                }
+            }
+        }
         
-        // Step 1: Fraud detection - check for rapid transfer patterns
-        if (!fraudDetectionService.checkRapidTransfers(currentUser)) {
-            throw new IllegalStateException("Transfer rejected: Rapid transfer detected");
+        // Step 4: Batch insert of the transaction rows (skipped when the batch rolls back)
+        boolean rollback = mode == BatchTransferRequest.BatchMode.ALL_OR_NOTHING && rejected > 0;
+        if (!rollback) {
+            used.forEach((ownerId, amount) -> fraudDetectionService.addToDailyTotal(ownerId, Money.ofMinor(amount)));
+            List<Transaction> saved = transactionRepository.saveAll(transactions);
+            for (int j = 0; j < saved.size(); j++) {
+                int index = transactionIndexes.get(j);
+                TransferRequest transfer = transfers.get(index);
+                publishCompleted(saved.get(j).getSenderAccount().getUser().getId(), saved.get(j).getId(),
+                    transfer, saved.get(j).getTimestamp());
+                results[index] = BatchTransferItemResult.builder()
+                    .index(index)
+                    .status(BATCH_COMPLETED)
+                    .transaction(toDto(saved.get(j), transfer.getFromIban(), transfer.getToIban()))
+                    .build();
+            }
         }
         
-        // Step 2: Fraud detection - check daily transfer limit
-        if (!fraudDetectionService.checkDailyLimit(currentUser, request.getAmount())) {
-            throw new IllegalStateException("Transfer rejected: Daily limit exceeded");
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = BatchTransferItemResult.builder()
+                    .index(i)
+                    .status(BATCH_SKIPPED)
+                    .build();
+            }
         }
         
-        // Step 3: Load accounts from database
-        Account senderAccount = accountRepository.findByIban(request.getFromIban())
+        return BatchTransferResponse.builder()
+            .mode(mode.name())
+            .total(transfers.size())
+            .completed(rollback ? 0 : transactions.size())
+            .rejected(rejected)
+            .results(Arrays.asList(results))
+            .build();
+    }
+    
+    /**
+     * Performs the balance update of a transfer under row-level locks.
+     * Must be called inside a transaction.
+     * 
+     * Both accounts are locked with SELECT ... FOR UPDATE in ascending id order
+     * (see {@link #compareLockOrder}), the order batches lock in as well. Two transfers
+     * moving money in opposite directions between the same accounts therefore always
+     * acquire the locks in the same order and cannot deadlock.
+     * Only the two rows involved are locked, so unrelated transfers run in parallel.
+     * 
+     * A striped receiver is credited through a stripe row and its accounts row is not
+     * locked at all (see {@link BalanceStripingService}).
+     * 
+     * @param currentUser Authenticated user executing the transfer
+     * @param request Transfer request
+     * @param pending Claimed PENDING transaction to complete, or null to create a new one
+     * @return Transaction DTO with transfer details
+     */
+    private TransactionDto executeLockedTransfer(User currentUser, TransferRequest request, Transaction pending) {
+        // Step 3: Resolve account ids without loading the entities
+        UUID senderId = accountRepository.findIdByIban(request.getFromIban())
             .orElseThrow(() -> new IllegalArgumentException("Sender account not found"));
         
-        Account receiverAccount = accountRepository.findByIban(request.getToIban())
+        AccountRef receiver = accountRepository.findRefByIban(request.getToIban())
             .orElseThrow(() -> new IllegalArgumentException("Receiver account not found"));
+        UUID receiverId = receiver.id();
+        
+        if (senderId.equals(receiverId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
         
-        // Step 4: Security check - ensure user owns sender account (or is admin)
+        // Step 4: Lock both rows in ascending id order (deadlock-free ordering)
+        Account senderAccount;
+        Account receiverAccount;
+        long lockStart = System.nanoTime();
+        accountRepository.setLockTimeout(lockTimeoutMs + "ms");
+        if (receiver.striped()) {
+            // Credited through a stripe - the hot receiver row is read, not locked; its
+            // status is checked again by the credit statement
+            senderAccount = lockAccount(senderId);
+            receiverAccount = accountRepository.findById(receiverId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+        } else if (compareLockOrder(senderId, receiverId) < 0) {
+            senderAccount = lockAccount(senderId);
+            receiverAccount = lockAccount(receiverId);
+        } else {
+            receiverAccount = lockAccount(receiverId);
+            senderAccount = lockAccount(senderId);
+        }
+        transferMetrics.recordLockWait(System.nanoTime() - lockStart);
+        
+        // Step 5: Security check - ensure user owns sender account (or is admin)
         if (!senderAccount.getUser().getId().equals(currentUser.getId()) &&
             currentUser.getRole() != User.Role.ADMIN) {
             throw new SecurityException("Access denied: You can only transfer from your own accounts");
         }
         
-        // Step 5: Validate transfer (balance, status, rules)
+        // A striped sender may hold part of its balance in stripes - fold them in before the check
+        if (senderAccount.isStriped() && senderAccount.getBalance().compareTo(request.getAmount()) < 0) {
+            senderAccount.setBalance(balanceStripingService.fold(senderId));
+        }
+        
+        // Step 6: Validate transfer (balance, status, rules) against the locked state
         validateTransfer(senderAccount, receiverAccount, request.getAmount());
         
-        // Step 6: Execute transfer - update balances atomically
-        senderAccount.setBalance(senderAccount.getBalance().subtract(request.getAmount()));
-        receiverAccount.setBalance(receiverAccount.getBalance().add(request.getAmount()));
+        // Reserve against the daily limit; concurrent transfers of the user wait for this row
+        if (!fraudDetectionService.reserveDailyLimit(currentUser.getId(), request.getAmount())) {
+            throw new IllegalStateException(DAILY_LIMIT_REJECTION);
+        }
         
+        // Step 7: Execute transfer - update balances atomically
+        senderAccount.setBalance(senderAccount.getBalance().subtract(request.getAmount()));
         accountRepository.save(senderAccount);
-        accountRepository.save(receiverAccount);
         
-        // Step 7: Create immutable transaction record
+        if (receiver.striped()) {
+            // The status read above is unlocked, so the credit only matches a still ACTIVE receiver
+            if (accountRepository.creditIfActive(request.getToIban(), request.getAmount(),
+                    balanceStripingService.stripeFor(request.getFromIban())).isEmpty()) {
+                throw new IllegalStateException("Receiver account is not active");
+            }
+        } else {
+            receiverAccount.setBalance(receiverAccount.getBalance().add(request.getAmount()));
+            accountRepository.save(receiverAccount);
+        }
+        
+        // Step 8: Create immutable transaction record
+        Transaction savedTransaction = recordTransaction(pending, senderAccount, receiverAccount, request);
+        publishCompleted(senderAccount.getUser().getId(), savedTransaction.getId(), request,
+            savedTransaction.getTimestamp());
+        
+        // Step 9: Audit log for compliance and security
+        auditService.logAction(currentUser, AuditLog.AuditAction.TRANSFER,
+            String.format("Transfer: %s from %s to %s", 
+                request.getAmount(), request.getFromIban(), request.getToIban()),
+            null);
+        
+        return toDto(savedTransaction);
+    }
+    
+    /**
+     * Performs the balance update of a transfer with two conditional UPDATE statements.
+     * Must be called inside a transaction.
+     * 
+     * The debit only matches an ACTIVE sender owned by the current user (or any sender
+     * for ADMIN) with sufficient balance; the credit only matches an ACTIVE receiver.
+     * The affected-row count replaces the Java-side balance and status validation,
+     * so no entity is loaded and there is no read-modify-write window. If either
+     * statement matches nothing, the transaction is rolled back and the account is
+     * read once to report the precise reason.
+     * 
+     * The two statements are issued in ascending account id order (see
+     * {@link #compareLockOrder}), the order the locking mode and batches lock rows in, so
+     * a conditional transfer never waits on a row another path locked out of order. The
+     * ids come from the {@link AccountLookupCache}; an account's id never changes.
+     * Striped receivers are credited through a stripe row by the same statement.
+     * 
+     * @param currentUser Authenticated user executing the transfer
+     * @param request Transfer request
+     * @param pending Claimed PENDING transaction to complete, or null to create a new one
+     * @return Transaction DTO with transfer details
+     */
+    private TransactionDto executeConditionalTransfer(User currentUser, TransferRequest request,
+                                                      Transaction pending) {
+        String fromIban = request.getFromIban();
+        String toIban = request.getToIban();
+        BigDecimal amount = request.getAmount();
+        
+        if (fromIban.equals(toIban)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+        
+        // Ids only decide the statement order; the statements check existence and status again
+        UUID senderId = accountLookupCache.find(fromIban)
+            .orElseThrow(() -> new IllegalArgumentException("Sender account not found")).id();
+        UUID receiverId = accountLookupCache.find(toIban)
+            .orElseThrow(() -> new IllegalArgumentException("Receiver account not found")).id();
+        
+        boolean anyOwner = currentUser.getRole() == User.Role.ADMIN;
+        accountRepository.setLockTimeout(lockTimeoutMs + "ms");
+        
+        int stripe = balanceStripingService.stripeFor(fromIban);
+        
+        if (compareLockOrder(senderId, receiverId) < 0) {
+            debit(currentUser, fromIban, amount, anyOwner);
+            credit(toIban, amount, stripe);
+        } else {
+            credit(toIban, amount, stripe);
+            debit(currentUser, fromIban, amount, anyOwner);
+        }
+        
+        // Reserve against the daily limit after the account row locks, as in the locking path
+        if (!fraudDetectionService.reserveDailyLimit(currentUser.getId(), amount)) {
+            throw new IllegalStateException(DAILY_LIMIT_REJECTION);
+        }
+        
+        // References only - no SELECT is issued for the account rows
+        Transaction savedTransaction = recordTransaction(pending,
+            accountRepository.getReferenceById(senderId), accountRepository.getReferenceById(receiverId), request);
+        
+        // The debit matched the current user as owner unless it is an admin
+        UUID senderUserId = anyOwner
+            ? accountRepository.findUserIdByIban(fromIban).orElse(currentUser.getId())
+            : currentUser.getId();
+        publishCompleted(senderUserId, savedTransaction.getId(), request, savedTransaction.getTimestamp());
+        
+        auditService.logAction(currentUser, AuditLog.AuditAction.TRANSFER,
+            String.format("Transfer: %s from %s to %s", amount, fromIban, toIban),
+            null);
+        
+        return toDto(savedTransaction, fromIban, toIban);
+    }
+    
+    /**
+     * Debits the sender with a conditional UPDATE.
+     * 
+     * The statement checks the stored balance only. For a striped sender that is not
+     * enough, the stripes are folded into the balance and the debit is tried once more.
+     * 
+     * @throws IllegalArgumentException if the account does not exist
+     * @throws SecurityException if the user doesn't own the account
+     * @throws IllegalStateException if the account is not active or balance is insufficient
+     */
+    private void debit(User currentUser, String iban, BigDecimal amount, boolean anyOwner) {
+        if (accountRepository.debitIfSufficient(iban, amount, currentUser.getId(), anyOwner).isPresent()) {
+            return;
+        }
+        
+        // No row matched - read the account once to report why
+        Account sender = accountRepository.findByIban(iban)
+            .orElseThrow(() -> new IllegalArgumentException("Sender account not found"));
+        if (!anyOwner && !sender.getUser().getId().equals(currentUser.getId())) {
+            throw new SecurityException("Access denied: You can only transfer from your own accounts");
+        }
+        if (sender.getStatus() != Account.AccountStatus.ACTIVE) {
+            throw new IllegalStateException("Sender account is not active");
+        }
+        if (sender.isStriped()) {
+            balanceStripingService.fold(sender.getId());
+            if (accountRepository.debitIfSufficient(iban, amount, currentUser.getId(), anyOwner).isPresent()) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Insufficient balance");
+    }
+    
+    /**
+     * Credits the receiver with a conditional UPDATE.
+     * 
+     * @param stripe Stripe used if the receiver is striped
+     * @throws IllegalArgumentException if the account does not exist
+     * @throws IllegalStateException if the account is not active
+     */
+    private void credit(String iban, BigDecimal amount, int stripe) {
+        if (accountRepository.creditIfActive(iban, amount, stripe).isPresent()) {
+            return;
+        }
+        
+        if (!accountRepository.existsByIban(iban)) {
+            throw new IllegalArgumentException("Receiver account not found");
+        }
+        throw new IllegalStateException("Receiver account is not active");
+    }
+    
+    /**
+     * Persists the transaction record of an applied transfer.
+     * 
+     * A claimed PENDING transaction already references both accounts and is only
+     * moved to COMPLETED; otherwise a new COMPLETED transaction is inserted.
+     * 
+     * @param pending Claimed PENDING transaction, or null
+     * @param sender Sender account (entity or reference)
+     * @param receiver Receiver account (entity or reference)
+     * @param request Transfer request
+     * @return Saved transaction
+     */
+    private Transaction recordTransaction(Transaction pending, Account sender, Account receiver,
+                                          TransferRequest request) {
+        if (pending != null) {
+            pending.setStatus(Transaction.TransactionStatus.COMPLETED);
+            return transactionRepository.save(pending);
+        }
+        
         Transaction transaction = Transaction.builder()
-            .senderAccount(senderAccount)
-            .receiverAccount(receiverAccount)
+            .senderAccount(sender)
+            .receiverAccount(receiver)
             .amount(request.getAmount())
             .timestamp(LocalDateTime.now())
             .status(Transaction.TransactionStatus.COMPLETED)
             .description(request.getDescription())
             .build();
+        return transactionRepository.save(transaction);
+    }
+    
+    /**
+     * Records a fraud event when a transfer lost the daily-limit reservation, i.e. it passed
+     * the early check but concurrent transfers of the user used up the allowance first.
+     * Runs after the rollback, so the event is not rolled back with the transfer.
+     */
+    private void logReservationRejection(User user, TransferRequest request, IllegalStateException ex) {
+        if (DAILY_LIMIT_REJECTION.equals(ex.getMessage())) {
+            fraudDetectionService.logFraudEvent(user, FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED,
+                String.format("Daily limit reserved by concurrent transfers. Attempted: %s", request.getAmount()),
+                Money.of(request.getAmount()), FraudEvent.FraudSeverity.HIGH);
+        }
+    }
+    
+    /**
+     * Announces a COMPLETED transfer; transactional listeners receive it after the commit.
+     * 
+     * @param senderUserId Owner of the sender account
+     * @param transactionId Id of the transaction row
+     * @param request Transfer request
+     * @param timestamp Timestamp of the transaction row
+     */
+    private void publishCompleted(UUID senderUserId, UUID transactionId, TransferRequest request,
+                                  LocalDateTime timestamp) {
+        eventPublisher.publishEvent(new TransferCompletedEvent(transactionId, senderUserId,
+            request.getFromIban(), request.getToIban(), request.getAmount(), timestamp));
+    }
+    
+    /**
+     * Compares account ids in the order rows are locked in: the order PostgreSQL sorts
+     * uuid values in (unsigned, byte by byte), which batches use through ORDER BY id.
+     * {@link UUID#compareTo} compares signed halves and would disagree for some ids.
+     * 
+     * @return Negative if a is locked before b, positive if after, 0 if equal
+     */
+    static int compareLockOrder(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+    
+    /**
+     * Loads an account with a pessimistic write lock.
+     * 
+     * @param accountId UUID of the account
+     * @return Locked account entity
+     * @throws IllegalArgumentException if the account no longer exists
+     */
+    private Account lockAccount(UUID accountId) {
+        return accountRepository.findByIdForUpdate(accountId)
+            .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+    }
+    
+    /**
+     * Applies a PENDING transfer submitted through {@link AsyncTransferService}.
+     * Called by the transfer workers, outside of any request or security context.
+     * 
+     * Process Flow:
+     * 1. Loads the transfer and the user who submitted it
+     * 2. Fraud Detection: Checks rapid transfers again (concurrent submissions may all have
+     *    passed before any of them was PENDING) and the daily limit
+     * 3. Claiming: Locks the transaction row; if it is no longer PENDING another
+     *    worker already processed it and its current state is returned
+     * 4. Execution: Applies the balances with the conditional statements in CONDITIONAL
+     *    mode and with row locks otherwise - LEDGER and SEQUENCER fall back to the
+     *    locking path, as the PENDING row has to be completed in the same transaction
+     * 
+     * @param transactionId Id of the PENDING transaction
+     * @return Transaction DTO with the final state
+     * @throws IllegalStateException if the transfer is rejected
+     * @throws SecurityException if the submitter doesn't own the sender account
+     * @throws IllegalArgumentException if the transfer is invalid
+     */
+    TransactionDto completePendingTransfer(UUID transactionId) {
+        // Step 1: Load the transfer outside of the claiming transaction
+        Transaction submitted = transactionRepository.findWithAccountsById(transactionId)
+            .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+        if (submitted.getStatus() != Transaction.TransactionStatus.PENDING) {
+            return toDto(submitted);
+        }
         
-        Transaction savedTransaction = transactionRepository.save(transaction);
+        User submitter = submitted.getInitiatedBy();
+        TransferRequest request = new TransferRequest();
+        request.setFromIban(submitted.getSenderAccount().getIban());
+        request.setToIban(submitted.getReceiverAccount().getIban());
+        request.setAmount(submitted.getAmount());
+        request.setDescription(submitted.getDescription());
         
-        // Step 8: Audit log for compliance and security
-        auditService.logAction(currentUser, AuditLog.AuditAction.TRANSFER,
-            String.format("Transfer: %s from %s to %s", 
-                request.getAmount(), request.getFromIban(), request.getToIban()),
-            null);
+        // Step 2: Fraud detection - transfers completed since the submission count now
+        if (!fraudDetectionService.checkRapidTransfers(submitter)) {
+            throw new IllegalStateException(RapidTransferRule.REJECTION);
+        }
+        if (!fraudDetectionService.checkDailyLimit(submitter, request.getAmount())) {
+            throw new IllegalStateException(DAILY_LIMIT_REJECTION);
+        }
         
-        return toDto(savedTransaction);
+        try {
+            return transferRetryPolicy.execute(() -> transactionTemplate.execute(status -> {
+                // Step 3: Claim the row - the lock serializes duplicate workers
+                Transaction pending = transactionRepository.findByIdForUpdate(transactionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+                if (pending.getStatus() != Transaction.TransactionStatus.PENDING) {
+                    return toDto(pending);
+                }
+                
+                // Step 4: Apply the transfer and complete the claimed row
+                return transferMode == TransferMode.CONDITIONAL
+                    ? executeConditionalTransfer(submitter, request, pending)
+                    : executeLockedTransfer(submitter, request, pending);
+            }));
+        } catch (IllegalStateException ex) {
+            logReservationRejection(submitter, request, ex);
+            throw ex;
+        }
+    }
+    
+    /**
+     * Moves a PENDING transfer to REJECTED or FAILED.
+     * 
+     * @param transactionId Id of the PENDING transaction
+     * @param status Final status
+     * @param reason Reason reported to the client
+     * @return Transaction DTO with the current state
+     */
+    TransactionDto closePendingTransfer(UUID transactionId, Transaction.TransactionStatus status, String reason) {
+        transactionTemplate.executeWithoutResult(tx -> transactionRepository.closePending(transactionId, status, reason));
+        return transactionRepository.findWithAccountsById(transactionId)
+            .map(this::toDto)
+            .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+    }
+    
+    /**
+     * Retrieves a single transaction, e.g. to poll the status of an asynchronous transfer.
+     * 
+     * Security: Only the owner of the sender or receiver account, or ADMIN, can view it.
+     * 
+     * @param transactionId UUID of the transaction
+     * @return Transaction DTO with the current status
+     * @throws IllegalArgumentException if the transaction does not exist
+     * @throws SecurityException if the user may not view the transaction
+     */
+    @Transactional(readOnly = true)
+    public TransactionDto getTransaction(UUID transactionId) {
+        User currentUser = getCurrentUser();
+        Transaction transaction = transactionRepository.findWithAccountsById(transactionId)
+            .orElseThrow(() -> new IllegalArgumentException("Transaction not found"));
+        
+        if (currentUser.getRole() != User.Role.ADMIN &&
+            !transaction.getSenderAccount().getUser().getId().equals(currentUser.getId()) &&
+            !transaction.getReceiverAccount().getUser().getId().equals(currentUser.getId())) {
+            throw new SecurityException("Access denied");
+        }
+        
+        return toDto(transaction);
     }
     
     /**
@@ -214,14 +1016,29 @@ public class TransferService {
      * @return TransactionDto with transfer details
      */
     private TransactionDto toDto(Transaction transaction) {
+        return toDto(transaction, transaction.getSenderAccount().getIban(),
+            transaction.getReceiverAccount().getIban());
+    }
+    
+    /**
+     * Converts Transaction entity to DTO using already known IBANs,
+     * avoiding initialization of lazy account references.
+     * 
+     * @param transaction Transaction entity
+     * @param fromIban Sender IBAN
+     * @param toIban Receiver IBAN
+     * @return TransactionDto with transfer details
+     */
+    private TransactionDto toDto(Transaction transaction, String fromIban, String toIban) {
         return TransactionDto.builder()
             .id(transaction.getId())
-            .fromIban(transaction.getSenderAccount().getIban())
-            .toIban(transaction.getReceiverAccount().getIban())
+            .fromIban(fromIban)
+            .toIban(toIban)
             .amount(transaction.getAmount())
             .timestamp(transaction.getTimestamp())
             .status(transaction.getStatus().name())
             .description(transaction.getDescription())
+            .failureReason(transaction.getFailureReason())
             .build();
     }
     
@@ -234,5 +1051,16 @@ public class TransferService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (User) authentication.getPrincipal();
     }
+    
+    /**
+     * Strategy for applying the balance update of a single transfer.
+     * 
+     * LOCKING: Loads both accounts under row locks (in id order) and validates in Java
+     * CONDITIONAL: Debits and credits with conditional UPDATE statements, no entity loading
+     * LEDGER: Applies transfers in the sharded in-memory ledger with a write-behind journal
+     * SEQUENCER: Orders transfers through a ring buffer and commits them in groups
+     */
+    public enum TransferMode {
+        LOCKING, CONDITIONAL, LEDGER, SEQUENCER
+    }
 }
-
@@ -0,0 +1,51 @@
+package com.banking.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+    
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("SE" + i);
+        }
+        
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("SE" + i));
+        }
+    }
+    
+    @Test
+    void testMightContain_FalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("SE" + i);
+        }
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("DE" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+    
+    @Test
+    void testSize_TenMillionAtOnePercent() {
+        BloomFilter filter = new BloomFilter(10_000_000, 0.01);
+        
+        long megabytes = filter.getBitSize() / 8 / (1024 * 1024);
+        assertTrue(megabytes >= 11 && megabytes <= 12, "Size in MB: " + megabytes);
+        assertEquals(7, filter.getHashCount());
+    }
+    
+    @Test
+    void testConstructor_RejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
@@ -0,0 +1,129 @@
+package com.banking.fraud;
+
+import com.banking.entity.AccountStatistics;
+import com.banking.repository.AccountStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStatisticsTrackerTest {
+    
+    private static final String IBAN = "SE1234567890123456789012";
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 10, 12, 0);
+    
+    @Mock
+    private AccountStatisticsRepository accountStatisticsRepository;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @InjectMocks
+    private AccountStatisticsTracker tracker;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "maxAccounts", 2);
+        ReflectionTestUtils.setField(tracker, "ewmaAlpha", 0.1);
+        ReflectionTestUtils.setField(tracker, "minSamples", 20);
+    }
+    
+    @Test
+    void testScores_FlagOnlyAmountsAndGapsFarFromHistory() {
+        // 30 transfers of 95-105 SEK, one per hour
+        for (int i = 0; i < 30; i++) {
+            tracker.record(IBAN, 10_000 + (i % 3 - 1) * 500, seconds(START.plusHours(i)));
+        }
+        LocalDateTime last = START.plusHours(29);
+        
+        assertTrue(tracker.amountScore(IBAN, 10_000).getAsDouble() < 1);
+        assertTrue(tracker.amountScore(IBAN, 500_000).getAsDouble() > 4);
+        
+        assertTrue(tracker.gapScore(IBAN, last.plusHours(1)).getAsDouble() < 1);
+        assertTrue(tracker.gapScore(IBAN, last.plusSeconds(5)).getAsDouble() > 4);
+    }
+    
+    @Test
+    void testScores_EmptyUntilMinSamples() {
+        for (int i = 0; i < 19; i++) {
+            tracker.record(IBAN, 10_000, seconds(START.plusHours(i)));
+        }
+        assertEquals(OptionalDouble.empty(), tracker.amountScore(IBAN, 500_000));
+        assertEquals(OptionalDouble.empty(), tracker.amountScore("SE9876543210987654321098", 500_000));
+    }
+    
+    @Test
+    void testRecord_BoundedByMaxAccounts() {
+        tracker.record("A", 100, seconds(START));
+        tracker.record("B", 100, seconds(START));
+        tracker.record("C", 100, seconds(START));
+        
+        assertEquals(2, tracker.trackedAccounts());
+    }
+    
+    @Test
+    void testFlush_UpsertsChangedAccountsOnceAndResumesAfterLoad() {
+        for (int i = 0; i < 20; i++) {
+            tracker.record(IBAN, 10_000, seconds(START.plusHours(i)));
+        }
+        
+        tracker.flush();
+        tracker.flush();
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        Object[] row = rows.getValue().get(0);
+        assertEquals(IBAN, row[0]);
+        assertEquals(20L, row[1]);
+        assertEquals(START.plusHours(19), row[2]);
+        
+        // A restarted tracker scores the account from the snapshot alone
+        AccountStatisticsTracker restarted = new AccountStatisticsTracker(accountStatisticsRepository, jdbcTemplate);
+        ReflectionTestUtils.setField(restarted, "enabled", true);
+        ReflectionTestUtils.setField(restarted, "maxAccounts", 2);
+        ReflectionTestUtils.setField(restarted, "minSamples", 20);
+        when(accountStatisticsRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+            AccountStatistics.builder()
+                .iban(IBAN)
+                .sampleCount((long) row[1])
+                .lastAt((LocalDateTime) row[2])
+                .amountMean((double) row[3])
+                .amountM2((double) row[4])
+                .amountEwma((double) row[5])
+                .amountEwvar((double) row[6])
+                .gapMean((double) row[7])
+                .gapM2((double) row[8])
+                .gapEwma((double) row[9])
+                .gapEwvar((double) row[10])
+                .updatedAt(START)
+                .build())));
+        restarted.load();
+        
+        assertEquals(tracker.amountScore(IBAN, 500_000), restarted.amountScore(IBAN, 500_000));
+        assertEquals(tracker.gapScore(IBAN, START.plusHours(20)), restarted.gapScore(IBAN, START.plusHours(20)));
+    }
+    
+    private static double seconds(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,130 @@
+package com.banking.fraud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CounterpartyTrackerTest {
+    
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 10, 0);
+    
+    private CounterpartyTracker tracker;
+    
+    @BeforeEach
+    void setUp() {
+        tracker = new CounterpartyTracker();
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "windowMinutes", 60);
+        ReflectionTestUtils.setField(tracker, "maxAccounts", 1000);
+    }
+    
+    @Test
+    void testDistinctReceivers_RepeatsCountedOnce() {
+        UUID sender = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            tracker.record(sender, iban(i), NOW);
+        }
+        long estimate = tracker.distinctReceivers(sender, iban(0), NOW.plusMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            tracker.record(sender, iban(i), NOW.plusMinutes(1));
+        }
+        
+        assertTrue(Math.abs(estimate - 10) <= 2, "estimate " + estimate);
+        assertEquals(estimate, tracker.distinctReceivers(sender, iban(0), NOW.plusMinutes(2)));
+    }
+    
+    @Test
+    void testDistinctReceivers_LargeCountsWithinSketchError() {
+        UUID sender = UUID.randomUUID();
+        for (int i = 0; i < 1000; i++) {
+            tracker.record(sender, iban(i), NOW);
+        }
+        
+        long estimate = tracker.distinctReceivers(sender, iban(0), NOW);
+        
+        assertTrue(estimate > 600 && estimate < 1400, "estimate " + estimate);
+    }
+    
+    @Test
+    void testDistinctSenders_CountsUsersPerReceiver() {
+        for (int i = 0; i < 5; i++) {
+            tracker.record(user(i), "SE01", NOW);
+        }
+        tracker.record(user(0), "SE01", NOW);
+        
+        long estimate = tracker.distinctSenders("SE01", user(5), NOW);
+        
+        assertTrue(Math.abs(estimate - 6) <= 1, "estimate " + estimate);
+        assertEquals(1, tracker.distinctSenders("SE02", user(5), NOW));
+    }
+    
+    @Test
+    void testWindow_OldTransfersExpire() {
+        UUID sender = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            tracker.record(sender, iban(i), NOW);
+        }
+        tracker.record(sender, iban(10), NOW.plusMinutes(50));
+        
+        assertTrue(tracker.distinctReceivers(sender, iban(0), NOW.plusMinutes(50)) > 5);
+        assertEquals(2, tracker.distinctReceivers(sender, iban(11), NOW.plusMinutes(70)));
+    }
+    
+    @Test
+    void testEvictIdle_ReleasesSketchesOutsideWindow() {
+        UUID sender = UUID.randomUUID();
+        tracker.record(sender, "SE01", NOW);
+        tracker.record(UUID.randomUUID(), "SE02", NOW.plusMinutes(50));
+        
+        tracker.evictIdle(NOW.plusMinutes(70));
+        
+        assertEquals(1, tracker.trackedSenders());
+        assertEquals(1, tracker.trackedReceivers());
+        assertEquals(1, tracker.distinctReceivers(sender, "SE03", NOW.plusMinutes(70)));
+    }
+    
+    @Test
+    void testMaxAccounts_NewUsersNotTracked() {
+        ReflectionTestUtils.setField(tracker, "maxAccounts", 1);
+        UUID tracked = user(0);
+        UUID untracked = user(1);
+        tracker.record(tracked, "SE01", NOW);
+        tracker.record(untracked, "SE01", NOW);
+        tracker.record(untracked, "SE02", NOW);
+        
+        assertEquals(1, tracker.trackedSenders());
+        assertEquals(1, tracker.distinctReceivers(untracked, "SE01", NOW));
+        // Both senders were counted for the tracked receiver
+        assertEquals(3, tracker.distinctSenders("SE01", user(9), NOW));
+    }
+    
+    @Test
+    void testIsKnownReceiver_RemembersRecentReceivers() {
+        UUID sender = user(0);
+        for (int i = 0; i <= CounterpartyTracker.RECENT_RECEIVERS; i++) {
+            tracker.record(sender, iban(i), NOW);
+        }
+        
+        assertTrue(tracker.isKnownReceiver(sender, iban(CounterpartyTracker.RECENT_RECEIVERS)));
+        assertTrue(tracker.isKnownReceiver(sender, iban(1)));
+        // The oldest receiver has been replaced
+        assertFalse(tracker.isKnownReceiver(sender, iban(0)));
+        assertFalse(tracker.isKnownReceiver(user(1), iban(1)));
+        
+        tracker.evictIdle(NOW.plusMinutes(70));
+        assertFalse(tracker.isKnownReceiver(sender, iban(1)));
+    }
+    
+    private static String iban(int i) {
+        return String.format("SE%020d", i);
+    }
+    
+    private static UUID user(int i) {
+        return new UUID(1, i);
+    }
+}
@@ -0,0 +1,111 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.entity.User;
+import com.banking.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudEventCoalescerTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 10, 12, 0);
+    
+    @Mock
+    private FraudEventSink fraudEventSink;
+    
+    @Mock
+    private FraudReactionQueue fraudReactionQueue;
+    
+    @InjectMocks
+    private FraudEventCoalescer coalescer;
+    
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(UUID.randomUUID()).username("testuser").build();
+        ReflectionTestUtils.setField(coalescer, "windowMs", 60_000L);
+    }
+    
+    @Test
+    void testRepeatsWithinWindow_AreWrittenAsOneEventWhenItCloses() {
+        coalescer.submit(event(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED, 0, "100.00"), 0);
+        coalescer.submit(event(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED, 1, "200.00"), 1_000);
+        coalescer.submit(event(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED, 2, "300.00"), 2_000);
+        coalescer.submit(event(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED, 3, "400.00"), 3_000);
+        
+        // Only the first event so far
+        verify(fraudEventSink, times(1)).submit(any());
+        
+        coalescer.closeExpired(30_000);
+        verify(fraudEventSink, times(1)).submit(any());
+        
+        coalescer.closeExpired(60_000);
+        ArgumentCaptor<FraudEvent> written = ArgumentCaptor.forClass(FraudEvent.class);
+        verify(fraudEventSink, times(2)).submit(written.capture());
+        
+        FraudEvent repeats = written.getAllValues().get(1);
+        assertEquals(3, repeats.getOccurrences());
+        assertEquals(START.plusSeconds(1), repeats.getTimestamp());
+        assertEquals(START.plusSeconds(3), repeats.getLastTimestamp());
+        assertEquals(Money.valueOf("900.00"), repeats.getAmount());
+        assertEquals(0, coalescer.openWindows());
+    }
+    
+    @Test
+    void testDifferentTypesAndExpiredWindows_AreNotCoalesced() {
+        coalescer.submit(event(FraudEvent.FraudType.RAPID_TRANSFERS, 0, null), 0);
+        coalescer.submit(event(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED, 0, "100.00"), 0);
+        
+        // The sweep has not run; the next event closes the old window itself
+        coalescer.submit(event(FraudEvent.FraudType.RAPID_TRANSFERS, 61, null), 61_000);
+        
+        ArgumentCaptor<FraudEvent> written = ArgumentCaptor.forClass(FraudEvent.class);
+        verify(fraudEventSink, times(3)).submit(written.capture());
+        assertTrue(written.getAllValues().stream().allMatch(event -> event.getOccurrences() == 1));
+    }
+    
+    @Test
+    void testShutdown_WritesOpenWindows() {
+        coalescer.submit(event(FraudEvent.FraudType.RAPID_TRANSFERS, 0, null), 0);
+        coalescer.submit(event(FraudEvent.FraudType.RAPID_TRANSFERS, 1, null), 1_000);
+        
+        coalescer.shutdown();
+        
+        verify(fraudEventSink, times(2)).submit(any());
+        assertEquals(0, coalescer.openWindows());
+    }
+    
+    @Test
+    void testSubmit_CoalescedEventsStillReachReactions() {
+        coalescer.submit(event(FraudEvent.FraudType.RAPID_TRANSFERS, 0, null), 0);
+        coalescer.submit(event(FraudEvent.FraudType.RAPID_TRANSFERS, 1, null), 1_000);
+        
+        verify(fraudEventSink, times(1)).submit(any());
+        verify(fraudReactionQueue, times(2)).submit(any());
+    }
+    
+    private FraudEvent event(FraudEvent.FraudType type, int second, String amount) {
+        return FraudEvent.builder()
+            .user(user)
+            .type(type)
+            .timestamp(START.plusSeconds(second))
+            .description("Fraud check failed")
+            .amount(amount != null ? Money.valueOf(amount) : null)
+            .severity(FraudEvent.FraudSeverity.HIGH)
+            .build();
+    }
+}
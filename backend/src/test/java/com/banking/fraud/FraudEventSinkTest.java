@@ -0,0 +1,132 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudEventSinkTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    /** Sizes of the batches passed to the JDBC batch insert */
+    private final List<Integer> batches = new ArrayList<>();
+    
+    private FraudEventSink sink;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(UUID.randomUUID()).username("testuser").build();
+        sink = new FraudEventSink(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(sink, "capacity", 2);
+        ReflectionTestUtils.setField(sink, "batchSize", 10);
+        ReflectionTestUtils.setField(sink, "flushIntervalMs", 20L);
+        
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocation -> {
+                Collection<?> events = invocation.getArgument(1);
+                synchronized (batches) {
+                    batches.add(events.size());
+                }
+                return new int[0][];
+            });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        sink.stop();
+    }
+    
+    @Test
+    void testSubmit_WritesSynchronouslyWhenNotRunning() {
+        sink.submit(event(FraudEvent.FraudSeverity.LOW));
+        
+        assertEquals(List.of(1), batches);
+    }
+    
+    @Test
+    void testSubmit_BuffersAndDrainsOnStop() {
+        sink.start();
+        sink.submit(event(FraudEvent.FraudSeverity.LOW));
+        sink.submit(event(FraudEvent.FraudSeverity.MEDIUM));
+        
+        sink.stop();
+        
+        synchronized (batches) {
+            assertEquals(2, batches.stream().mapToInt(Integer::intValue).sum());
+        }
+    }
+    
+    @Test
+    void testSubmit_OverflowDropsLowSeverityAndWritesHighSeverityInline() throws InterruptedException {
+        // Block the writer inside its first batch so the buffer fills up
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(invocation -> {
+                Collection<?> events = invocation.getArgument(1);
+                synchronized (batches) {
+                    batches.add(events.size());
+                }
+                if (Thread.currentThread().getName().equals("fraud-event-writer") && writing.getCount() > 0) {
+                    writing.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return new int[0][];
+            });
+        sink.start();
+        sink.submit(event(FraudEvent.FraudSeverity.LOW));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        
+        sink.submit(event(FraudEvent.FraudSeverity.LOW));
+        sink.submit(event(FraudEvent.FraudSeverity.LOW));
+        sink.submit(event(FraudEvent.FraudSeverity.LOW));
+        sink.submit(event(FraudEvent.FraudSeverity.CRITICAL));
+        
+        assertEquals(1.0, meterRegistry.get("banking.fraud.events.dropped").counter().count());
+        synchronized (batches) {
+            // The writer's first batch, then the CRITICAL event written by the caller
+            assertEquals(List.of(1, 1), batches);
+        }
+        release.countDown();
+    }
+    
+    private FraudEvent event(FraudEvent.FraudSeverity severity) {
+        return FraudEvent.builder()
+            .user(user)
+            .type(FraudEvent.FraudType.RAPID_TRANSFERS)
+            .timestamp(LocalDateTime.now())
+            .description("Rapid transfer detected")
+            .severity(severity)
+            .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.banking.fraud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH measurement of fraud model scoring on the transfer path: filling the feature
+ * vector and scoring it.
+ * 
+ * Not a unit test; run from the backend directory with
+ *   mvn test-compile exec:java -Dexec.mainClass=com.banking.fraud.FraudModelBenchmark -Dexec.classpathScope=test
+ * and add -prof gc to the options below to confirm that scoring allocates nothing.
+ * 
+ * @author Banking Platform Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudModelBenchmark {
+    
+    /** Distinct transfers cycled through, so the branch predictor cannot learn one input */
+    private static final int TRANSFERS = 1024;
+    
+    private FraudModel model;
+    private long[] amounts;
+    private int[] secondsOfDay;
+    private long[] recentTransfers;
+    private boolean[] newReceivers;
+    private final double[] features = new double[FraudFeatures.COUNT];
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        model = new FraudModel("benchmark", -7.5, new double[] {0.8, 0.3, -0.2, 0.15, 1.2}, 0.9);
+        Random random = new Random(42);
+        amounts = new long[TRANSFERS];
+        secondsOfDay = new int[TRANSFERS];
+        recentTransfers = new long[TRANSFERS];
+        newReceivers = new boolean[TRANSFERS];
+        for (int i = 0; i < TRANSFERS; i++) {
+            amounts[i] = random.nextInt(1_000_000);
+            secondsOfDay[i] = random.nextInt(24 * 60 * 60);
+            recentTransfers[i] = random.nextInt(6);
+            newReceivers[i] = random.nextBoolean();
+        }
+    }
+    
+    @Benchmark
+    public double score() {
+        return model.score(features);
+    }
+    
+    @Benchmark
+    public double extractAndScore() {
+        int i = next++ & (TRANSFERS - 1);
+        FraudFeatures.extract(amounts[i], secondsOfDay[i], recentTransfers[i], newReceivers[i], features);
+        return model.score(features);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(FraudModelBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.banking.fraud;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FraudModelTest {
+    
+    @TempDir
+    Path directory;
+    
+    private Path file;
+    private FraudModelLoader loader;
+    
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("fraud-model.properties");
+        loader = new FraudModelLoader();
+        ReflectionTestUtils.setField(loader, "path", file.toString());
+        ReflectionTestUtils.setField(loader, "threshold", 0.9);
+    }
+    
+    @Test
+    void testScore_LogisticOfWeightedFeatures() throws IOException {
+        write("version=v1\nbias=-4\nweight.amount=0.5\nweight.new-receiver=2\n", 1);
+        loader.reload();
+        FraudModel model = loader.current();
+        
+        double[] features = new double[FraudFeatures.COUNT];
+        FraudFeatures.extract(99_900, 0, 0, true, features);   // 999.00 -> ln(1000)
+        
+        double z = -4 + 0.5 * Math.log(1000) + 2;
+        assertEquals(1 / (1 + Math.exp(-z)), model.score(features), 1e-12);
+        assertEquals("v1", model.getVersion());
+        assertEquals(0.9, model.getThreshold());
+    }
+    
+    @Test
+    void testFeatures_TimeOfDayIsCyclic() {
+        double[] midnight = new double[FraudFeatures.COUNT];
+        double[] beforeMidnight = new double[FraudFeatures.COUNT];
+        FraudFeatures.extract(100, 0, 3, false, midnight);
+        FraudFeatures.extract(100, 24 * 60 * 60 - 1, 3, false, beforeMidnight);
+        
+        assertEquals(midnight[FraudFeatures.TIME_OF_DAY_COS], beforeMidnight[FraudFeatures.TIME_OF_DAY_COS], 1e-6);
+        assertEquals(midnight[FraudFeatures.TIME_OF_DAY_SIN], beforeMidnight[FraudFeatures.TIME_OF_DAY_SIN], 1e-4);
+        assertEquals(3, midnight[FraudFeatures.RECENT_TRANSFERS]);
+        assertEquals(0, midnight[FraudFeatures.NEW_RECEIVER]);
+    }
+    
+    @Test
+    void testReload_SwapsChangedFileOnly() throws IOException {
+        write("version=v1\nbias=-4\n", 1);
+        loader.reload();
+        FraudModel first = loader.current();
+        
+        loader.reload();
+        assertSame(first, loader.current());
+        
+        write("version=v2\nbias=-3\nthreshold=0.8\n", 2);
+        loader.reload();
+        assertEquals("v2", loader.current().getVersion());
+        assertEquals(0.8, loader.current().getThreshold());
+    }
+    
+    @Test
+    void testReload_InvalidFileKeepsPreviousModel() throws IOException {
+        write("version=v1\nbias=-4\n", 1);
+        loader.reload();
+        
+        write("version=v2\nbias=-4\nweight.amont=1\n", 2);
+        loader.reload();
+        assertEquals("v1", loader.current().getVersion());
+        
+        write("version=v3\nbias=NaN\n", 3);
+        loader.reload();
+        assertEquals("v1", loader.current().getVersion());
+    }
+    
+    @Test
+    void testReload_MissingFileLeavesScoringDisabled() {
+        loader.reload();
+        
+        assertNull(loader.current());
+    }
+    
+    /**
+     * Writes the model file with a distinct modification time, as a real replacement would have.
+     */
+    private void write(String content, int version) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.ofEpochSecond(1_700_000_000L + version)));
+    }
+}
@@ -0,0 +1,225 @@
+package com.banking.fraud;
+
+import com.banking.entity.Account;
+import com.banking.entity.AuditLog;
+import com.banking.entity.FraudEvent;
+import com.banking.entity.User;
+import com.banking.ledger.LedgerEngine;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserDailyTotalRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.AccountLookupCache;
+import com.banking.service.AuditService;
+import com.banking.service.FraudDetectionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudReactionQueueTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private AuditService auditService;
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    @Mock
+    private LedgerEngine ledgerEngine;
+    
+    @Mock
+    private AccountLookupCache accountLookupCache;
+    
+    @Mock
+    private ResultSet resultSet;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    /** Accounts the mocked UPDATE freezes, as (IBAN, owner) */
+    private final List<Object[]> activeAccounts = new ArrayList<>();
+    
+    private FraudReactionQueue queue;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        queue = new FraudReactionQueue(jdbcTemplate, transactionTemplate, auditService, userRepository,
+            ledgerEngine, accountLookupCache, meterRegistry);
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "batchSize", 10);
+        ReflectionTestUtils.setField(queue, "flushIntervalMs", 20L);
+        
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(userRepository.getReferenceById(any()))
+            .thenAnswer(invocation -> User.builder().id(invocation.getArgument(0)).build());
+        
+        int[] current = {0};
+        lenient().when(resultSet.getString("iban")).thenAnswer(i -> activeAccounts.get(current[0])[0]);
+        lenient().when(resultSet.getObject("user_id", UUID.class)).thenAnswer(i -> activeAccounts.get(current[0])[1]);
+        lenient().when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+            .thenAnswer(invocation -> {
+                RowMapper<?> mapper = invocation.getArgument(1);
+                List<Object> rows = new ArrayList<>();
+                for (current[0] = 0; current[0] < activeAccounts.size(); current[0]++) {
+                    rows.add(mapper.mapRow(resultSet, current[0]));
+                }
+                return rows;
+            });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+    
+    @Test
+    void testSubmit_OnlyCriticalEventsQueuedOncePerUser() {
+        UUID userId = UUID.randomUUID();
+        queue.submit(event(userId, FraudEvent.FraudSeverity.HIGH));
+        queue.submit(event(userId, FraudEvent.FraudSeverity.CRITICAL));
+        queue.submit(event(userId, FraudEvent.FraudSeverity.CRITICAL));
+        
+        assertEquals(1, queue.queuedUsers());
+    }
+    
+    @Test
+    void testSubmit_DisabledIgnoresEvents() {
+        ReflectionTestUtils.setField(queue, "enabled", false);
+        
+        queue.submit(event(UUID.randomUUID(), FraudEvent.FraudSeverity.CRITICAL));
+        
+        assertEquals(0, queue.queuedUsers());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStop_FreezesQueuedUsersInOneBatch() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        activeAccounts.add(new Object[] {"SE01", first});
+        activeAccounts.add(new Object[] {"SE02", first});
+        activeAccounts.add(new Object[] {"SE03", second});
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        queue.submit(event(first, FraudEvent.FraudSeverity.CRITICAL));
+        queue.submit(event(second, FraudEvent.FraudSeverity.CRITICAL));
+        
+        queue.start();
+        queue.stop();
+        
+        ArgumentCaptor<Object[]> userIds = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), userIds.capture());
+        assertArrayEquals(new Object[] {first, second}, userIds.getValue());
+        
+        ArgumentCaptor<List<AuditLog>> auditLogs = ArgumentCaptor.forClass(List.class);
+        verify(auditService).logAll(auditLogs.capture());
+        assertEquals(3, auditLogs.getValue().size());
+        assertTrue(auditLogs.getValue().stream()
+            .allMatch(auditLog -> auditLog.getAction() == AuditLog.AuditAction.ACCOUNT_FROZEN));
+        assertEquals(first, auditLogs.getValue().get(0).getUser().getId());
+        
+        verify(accountLookupCache).invalidate("SE01");
+        verify(accountLookupCache).invalidate("SE02");
+        verify(accountLookupCache).invalidate("SE03");
+        verify(ledgerEngine).updateStatus("SE01", Account.AccountStatus.FROZEN);
+        verify(ledgerEngine).updateStatus("SE03", Account.AccountStatus.FROZEN);
+        assertEquals(3.0, meterRegistry.get("banking.fraud.reactions.frozen").counter().count());
+        assertEquals(0, queue.queuedUsers());
+    }
+    
+    @Test
+    void testFreeze_FailureIsCountedAndUserCanBeQueuedAgain() {
+        UUID userId = UUID.randomUUID();
+        when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("connection lost"));
+        queue.submit(event(userId, FraudEvent.FraudSeverity.CRITICAL));
+        
+        queue.start();
+        queue.stop();
+        
+        assertEquals(1.0, meterRegistry.get("banking.fraud.reactions.failed").counter().count());
+        verifyNoInteractions(ledgerEngine, accountLookupCache);
+        
+        queue.submit(event(userId, FraudEvent.FraudSeverity.CRITICAL));
+        assertEquals(1, queue.queuedUsers());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRepeatedTransferGraphCycles_FreezeTheSendersAccounts() {
+        UUID mule = UUID.randomUUID();
+        activeAccounts.add(new Object[] {"SE01", mule});
+        FraudEventSink fraudEventSink = mock(FraudEventSink.class);
+        FraudEventCoalescer coalescer = new FraudEventCoalescer(fraudEventSink, queue);
+        ReflectionTestUtils.setField(coalescer, "windowMs", 60_000L);
+        FraudDetectionService fraudDetectionService = new FraudDetectionService(coalescer,
+            mock(TransactionRepository.class), mock(VelocityTracker.class), mock(UserDailyTotalRepository.class),
+            mock(FraudRuleRegistry.class), mock(RapidTransferRule.class), mock(DailyLimitRule.class),
+            mock(FraudThresholds.class));
+        TransferGraph graph = new TransferGraph(mock(TransactionRepository.class), mock(AccountRepository.class),
+            userRepository, fraudDetectionService);
+        ReflectionTestUtils.setField(graph, "windowMinutes", 60);
+        ReflectionTestUtils.setField(graph, "maxCycleLength", 4);
+        ReflectionTestUtils.setField(graph, "maxVisits", 1000);
+        ReflectionTestUtils.setField(graph, "criticalCycles", 2);
+        ReflectionTestUtils.setField(graph, "fanInThreshold", 50);
+        ReflectionTestUtils.setField(graph, "fanOutThreshold", 50);
+        
+        LocalDateTime now = LocalDateTime.now();
+        graph.record("SE01", "SE02", mule, now.minusMinutes(30), true);
+        graph.record("SE02", "SE01", mule, now.minusMinutes(20), true);
+        assertEquals(0, queue.queuedUsers());
+        graph.record("SE02", "SE01", mule, now.minusMinutes(10), true);
+        assertEquals(1, queue.queuedUsers());
+        
+        queue.start();
+        queue.stop();
+        
+        ArgumentCaptor<List<AuditLog>> auditLogs = ArgumentCaptor.forClass(List.class);
+        verify(auditService).logAll(auditLogs.capture());
+        assertEquals(1, auditLogs.getValue().size());
+        assertEquals(mule, auditLogs.getValue().get(0).getUser().getId());
+        assertEquals(AuditLog.AuditAction.ACCOUNT_FROZEN, auditLogs.getValue().get(0).getAction());
+        verify(accountLookupCache).invalidate("SE01");
+        // The CRITICAL repeat is coalesced into the window of the first cycle and written when it closes
+        coalescer.closeExpired(Long.MAX_VALUE);
+        verify(fraudEventSink, atLeastOnce()).submit(argThat(event ->
+            event.getSeverity() == FraudEvent.FraudSeverity.CRITICAL));
+    }
+    
+    private static FraudEvent event(UUID userId, FraudEvent.FraudSeverity severity) {
+        return FraudEvent.builder()
+            .user(User.builder().id(userId).username("testuser").build())
+            .type(FraudEvent.FraudType.ACCOUNT_ANOMALY)
+            .timestamp(LocalDateTime.now())
+            .description("Transfer cycle detected")
+            .severity(severity)
+            .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FraudRuleRegistryTest {
+    
+    private static final TransferContext CONTEXT = new TransferContext(null, "SE1234567890123456789012",
+        "SE9876543210987654321098", Money.valueOf("100.00"), 0, Money.ZERO,
+        new FraudLimits(Money.valueOf("10000.00"), 5, 60));
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    
+    private FraudRuleRegistry registry;
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        registry.shutdown();
+    }
+    
+    @Test
+    void testEvaluate_AggregatesResultsInRegistryOrder() {
+        registry = registry(List.of(
+            rule("first", true, 0, FraudRuleResult.pass("first")),
+            rule("second", false, 0, FraudRuleResult.reject("second", FraudEvent.FraudType.ACCOUNT_ANOMALY,
+                FraudEvent.FraudSeverity.HIGH, "anomaly", "Transfer rejected: second")),
+            rule("third", true, 0, FraudRuleResult.reject("third", FraudEvent.FraudType.SUSPICIOUS_AMOUNT,
+                FraudEvent.FraudSeverity.LOW, "amount", "Transfer rejected: third"))));
+        
+        FraudDecision decision = registry.evaluate(CONTEXT);
+        
+        assertEquals(List.of("first", "second", "third"),
+            decision.results().stream().map(FraudRuleResult::rule).toList());
+        assertTrue(decision.isRejected());
+        assertEquals("Transfer rejected: second", decision.rejection().get().rejection());
+        assertEquals(2, decision.triggered().size());
+        assertEquals(1, meterRegistry.get("banking.fraud.rule.latency")
+            .tags("rule", "second", "outcome", "reject").timer().count());
+    }
+    
+    @Test
+    void testEvaluate_AnomalyRuleRunsOnThePoolWithinItsBudget() {
+        AccountStatisticsTracker tracker = mock(AccountStatisticsTracker.class);
+        String[] thread = new String[1];
+        when(tracker.amountScore(anyString(), anyLong())).thenAnswer(invocation -> {
+            thread[0] = Thread.currentThread().getName();
+            return OptionalDouble.of(9.0);
+        });
+        when(tracker.gapScore(anyString(), any())).thenReturn(OptionalDouble.empty());
+        AccountAnomalyRule anomalyRule = new AccountAnomalyRule(tracker);
+        ReflectionTestUtils.setField(anomalyRule, "zThreshold", 4.0);
+        ReflectionTestUtils.setField(anomalyRule, "timeoutMs", 500L);
+        registry = registry(List.of(anomalyRule));
+        
+        FraudDecision decision = registry.evaluate(CONTEXT);
+        
+        assertFalse(anomalyRule.isInline());
+        assertEquals(500L, anomalyRule.timeoutMs());
+        assertTrue(thread[0].startsWith("fraud-rule-"));
+        assertEquals(FraudRuleResult.Outcome.FLAG, decision.results().get(0).outcome());
+    }
+    
+    @Test
+    void testEvaluate_SlowConcurrentRuleIsSkippedAfterItsBudget() {
+        FraudRule slow = new FraudRule() {
+            @Override
+            public String name() {
+                return "slow";
+            }
+            
+            @Override
+            public FraudRuleResult evaluate(TransferContext context) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return FraudRuleResult.reject(name(), FraudEvent.FraudType.ACCOUNT_ANOMALY,
+                    FraudEvent.FraudSeverity.HIGH, "too late", "Transfer rejected: slow");
+            }
+            
+            @Override
+            public boolean isInline() {
+                return false;
+            }
+            
+            @Override
+            public long timeoutMs() {
+                return 20;
+            }
+        };
+        registry = registry(List.of(slow, rule("fast", true, 0, FraudRuleResult.pass("fast"))));
+        
+        long start = System.nanoTime();
+        FraudDecision decision = registry.evaluate(CONTEXT);
+        
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertFalse(decision.isRejected());
+        assertEquals(FraudRuleResult.Outcome.SKIPPED, decision.results().get(0).outcome());
+        assertEquals(1, meterRegistry.get("banking.fraud.rule.latency")
+            .tags("rule", "slow", "outcome", "timeout").timer().count());
+    }
+    
+    @Test
+    void testEvaluate_FailingConcurrentRuleDoesNotBlockTransfer() {
+        FraudRule failing = rule("failing", false, 0, null);
+        registry = registry(List.of(failing));
+        
+        FraudDecision decision = registry.evaluate(CONTEXT);
+        
+        assertFalse(decision.isRejected());
+        assertEquals(FraudRuleResult.Outcome.SKIPPED, decision.results().get(0).outcome());
+    }
+    
+    private FraudRuleRegistry registry(List<FraudRule> rules) {
+        FraudRuleRegistry created = new FraudRuleRegistry(rules, meterRegistry);
+        ReflectionTestUtils.setField(created, "workers", 2);
+        ReflectionTestUtils.setField(created, "queueCapacity", 10);
+        ReflectionTestUtils.setField(created, "timeoutMs", 1000L);
+        created.init();
+        return created;
+    }
+    
+    /**
+     * Rule returning a fixed result; a null result makes it throw.
+     */
+    private static FraudRule rule(String name, boolean inline, long timeoutMs, FraudRuleResult result) {
+        return new FraudRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+            
+            @Override
+            public FraudRuleResult evaluate(TransferContext context) {
+                if (result == null) {
+                    throw new IllegalStateException("rule failed");
+                }
+                return result;
+            }
+            
+            @Override
+            public boolean isInline() {
+                return inline;
+            }
+            
+            @Override
+            public long timeoutMs() {
+                return timeoutMs;
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudThreshold;
+import com.banking.entity.User;
+import com.banking.money.Money;
+import com.banking.repository.FraudThresholdRepository;
+import com.banking.repository.UserRepository;
+import com.banking.repository.UserSegment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudThresholdsTest {
+    
+    private static final FraudLimits DEFAULTS = new FraudLimits(Money.valueOf("10000.00"), 5, 60);
+    
+    @Mock
+    private FraudThresholdRepository fraudThresholdRepository;
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    @InjectMocks
+    private FraudThresholds fraudThresholds;
+    
+    private final UUID retailUser = UUID.randomUUID();
+    private final UUID businessUser = UUID.randomUUID();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fraudThresholds, "dailyTransferLimit", Money.valueOf("10000.00"));
+        ReflectionTestUtils.setField(fraudThresholds, "rapidTransferThreshold", 5);
+        ReflectionTestUtils.setField(fraudThresholds, "rapidTransferWindowMinutes", 60);
+        when(userRepository.findSegmentsOtherThan(User.Segment.RETAIL))
+            .thenReturn(List.of(new UserSegment(businessUser, User.Segment.BUSINESS)));
+    }
+    
+    @Test
+    void testWithoutOverrides_DefaultsForEveryone() {
+        when(fraudThresholdRepository.findAll()).thenReturn(List.of());
+        
+        fraudThresholds.reload();
+        
+        assertEquals(DEFAULTS, fraudThresholds.limitsFor(retailUser));
+        assertEquals(DEFAULTS, fraudThresholds.limitsFor(businessUser));
+    }
+    
+    @Test
+    void testSegmentOverride_InheritsEmptyLimitsFromDefaults() {
+        when(fraudThresholdRepository.findAll()).thenReturn(List.of(FraudThreshold.builder()
+            .segment(User.Segment.BUSINESS)
+            .dailyTransferLimit(Money.valueOf("250000.00"))
+            .rapidTransferThreshold(50)
+            .build()));
+        
+        fraudThresholds.reload();
+        
+        assertEquals(new FraudLimits(Money.valueOf("250000.00"), 50, 60), fraudThresholds.limitsFor(businessUser));
+        assertEquals(DEFAULTS, fraudThresholds.limitsFor(retailUser));
+    }
+    
+    @Test
+    void testUserOverride_InheritsFromUsersSegment() {
+        when(fraudThresholdRepository.findAll()).thenReturn(List.of(
+            FraudThreshold.builder().segment(User.Segment.BUSINESS).dailyTransferLimit(Money.valueOf("250000.00")).build(),
+            FraudThreshold.builder().segment(User.Segment.RETAIL).rapidTransferWindowMinutes(30).build(),
+            FraudThreshold.builder().userId(businessUser).rapidTransferThreshold(100).build(),
+            FraudThreshold.builder().userId(retailUser).dailyTransferLimit(Money.valueOf("500.00")).build()));
+        
+        fraudThresholds.reload();
+        
+        assertEquals(new FraudLimits(Money.valueOf("250000.00"), 100, 60), fraudThresholds.limitsFor(businessUser));
+        assertEquals(new FraudLimits(Money.valueOf("500.00"), 5, 30), fraudThresholds.limitsFor(retailUser));
+        assertEquals(new FraudLimits(Money.valueOf("10000.00"), 5, 30), fraudThresholds.limitsFor(UUID.randomUUID()));
+    }
+    
+    @Test
+    void testReload_AppliesChangedOverrides() {
+        when(fraudThresholdRepository.findAll())
+            .thenReturn(List.of())
+            .thenReturn(List.of(FraudThreshold.builder().userId(retailUser).rapidTransferThreshold(2).build()));
+        fraudThresholds.reload();
+        assertEquals(DEFAULTS, fraudThresholds.limitsFor(retailUser));
+        
+        fraudThresholds.reload();
+        
+        assertEquals(2, fraudThresholds.limitsFor(retailUser).rapidTransferThreshold());
+    }
+}
@@ -0,0 +1,134 @@
+package com.banking.fraud;
+
+import com.banking.entity.FraudEvent;
+import com.banking.entity.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserRepository;
+import com.banking.service.FraudDetectionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferGraphTest {
+    
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    
+    @Mock
+    private TransactionRepository transactionRepository;
+    
+    @Mock
+    private AccountRepository accountRepository;
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+    
+    @InjectMocks
+    private TransferGraph graph;
+    
+    private final UUID userId = UUID.randomUUID();
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = User.builder().id(userId).username("mule").build();
+        lenient().when(userRepository.getReferenceById(userId)).thenReturn(user);
+        
+        ReflectionTestUtils.setField(graph, "windowMinutes", 60);
+        ReflectionTestUtils.setField(graph, "maxCycleLength", 4);
+        ReflectionTestUtils.setField(graph, "maxVisits", 1000);
+        ReflectionTestUtils.setField(graph, "criticalCycles", 3);
+        ReflectionTestUtils.setField(graph, "fanInThreshold", 3);
+        ReflectionTestUtils.setField(graph, "fanOutThreshold", 3);
+    }
+    
+    @Test
+    void testRecord_DetectsTimeOrderedCycle() {
+        graph.record("A", "B", userId, NOW.minusMinutes(30), true);
+        graph.record("B", "C", userId, NOW.minusMinutes(20), true);
+        verifyNoInteractions(fraudDetectionService);
+        
+        graph.record("C", "A", userId, NOW.minusMinutes(10), true);
+        
+        verify(fraudDetectionService).logFraudEvent(eq(user), eq(FraudEvent.FraudType.ACCOUNT_ANOMALY),
+            contains("C -> A -> B -> C"), any(), eq(FraudEvent.FraudSeverity.HIGH));
+    }
+    
+    @Test
+    void testRecord_RepeatedCyclesOfOneAccountBecomeCritical() {
+        graph.record("A", "B", userId, NOW.minusMinutes(30), true);
+        for (int i = 0; i < 3; i++) {
+            graph.record("B", "A", userId, NOW.minusMinutes(20 - i), true);
+        }
+        
+        verify(fraudDetectionService, times(2)).logFraudEvent(eq(user), eq(FraudEvent.FraudType.ACCOUNT_ANOMALY),
+            contains("Transfer cycle"), any(), eq(FraudEvent.FraudSeverity.HIGH));
+        verify(fraudDetectionService).logFraudEvent(eq(user), eq(FraudEvent.FraudType.ACCOUNT_ANOMALY),
+            contains("3 cycles closed by B"), any(), eq(FraudEvent.FraudSeverity.CRITICAL));
+    }
+    
+    @Test
+    void testRecord_IgnoresCyclesAgainstTimeOrderOrOutsideWindow() {
+        // B -> C happened before A -> B, so money cannot have flowed A -> B -> C
+        graph.record("B", "C", userId, NOW.minusMinutes(30), true);
+        graph.record("A", "B", userId, NOW.minusMinutes(20), true);
+        graph.record("C", "A", userId, NOW.minusMinutes(10), true);
+        
+        // X -> Y expired before Y -> X
+        graph.record("X", "Y", userId, NOW.minusMinutes(120), true);
+        graph.record("Y", "X", userId, NOW, true);
+        
+        verifyNoInteractions(fraudDetectionService);
+    }
+    
+    @Test
+    void testRecord_ReportsHubsOnceWhenThresholdIsReached() {
+        UUID merchantOwner = UUID.randomUUID();
+        User merchant = User.builder().id(merchantOwner).username("merchant").build();
+        when(accountRepository.findUserIdByIban("HUB")).thenReturn(Optional.of(merchantOwner));
+        when(userRepository.getReferenceById(merchantOwner)).thenReturn(merchant);
+        
+        for (int i = 0; i < 5; i++) {
+            graph.record("S" + i, "HUB", userId, NOW.minusMinutes(5 - i), true);
+        }
+        
+        verify(fraudDetectionService, times(1)).logFraudEvent(eq(merchant), eq(FraudEvent.FraudType.ACCOUNT_ANOMALY),
+            contains("Fan-in hub: HUB"), any(), eq(FraudEvent.FraudSeverity.MEDIUM));
+    }
+    
+    @Test
+    void testSweep_ReleasesExpiredAccountsAndReusesIds() {
+        for (int i = 0; i < 2000; i++) {
+            graph.record("OLD" + i, "SINK", userId, NOW.minusMinutes(90), false);
+        }
+        graph.record("NEW", "SINK", userId, NOW, false);
+        assertEquals(2002, graph.nodeCount());
+        
+        graph.sweep(NOW);
+        
+        assertEquals(2, graph.nodeCount());
+        assertEquals(1, graph.edgeCount());
+        
+        graph.record("OTHER", "SINK", userId, NOW, false);
+        assertEquals(2, graph.edgeCount());
+        assertEquals(3, graph.nodeCount());
+    }
+}
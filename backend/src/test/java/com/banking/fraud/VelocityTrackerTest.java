@@ -0,0 +1,135 @@
+package com.banking.fraud;
+
+import com.banking.entity.Transaction;
+import com.banking.repository.TransactionRepository;
+import com.banking.repository.TransferActivity;
+import com.banking.service.TransferCompletedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VelocityTrackerTest {
+    
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 30);
+    
+    @Mock
+    private TransactionRepository transactionRepository;
+    
+    @InjectMocks
+    private VelocityTracker velocityTracker;
+    
+    private final UUID userId = UUID.randomUUID();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(velocityTracker, "enabled", true);
+        ReflectionTestUtils.setField(velocityTracker, "maxUsers", 2);
+        ReflectionTestUtils.setField(velocityTracker, "idleAfterMinutes", 120L);
+        ReflectionTestUtils.setField(velocityTracker, "windowMinutes", 60);
+    }
+    
+    @Test
+    void testFirstUse_SeedsFromDatabaseOnce() {
+        when(transactionRepository.findActivityBySenderUser(eq(userId), eq(Transaction.TransactionStatus.COMPLETED), any()))
+            .thenReturn(List.of(
+                activity(UUID.randomUUID(), NOW.minusMinutes(10), "100.00"),
+                activity(UUID.randomUUID(), NOW.minusMinutes(90), "50.00"),
+                activity(UUID.randomUUID(), NOW.minusDays(1), "999.00")));
+        
+        assertEquals(OptionalLong.of(1), velocityTracker.recentTransfers(userId, 60, NOW));
+        assertEquals(OptionalLong.of(15_000), velocityTracker.dailyTotal(userId, NOW));
+        verify(transactionRepository, times(1)).findActivityBySenderUser(any(), any(), any());
+    }
+    
+    @Test
+    void testCompletion_UpdatesCountersButSkipsSeededTransfers() {
+        UUID seeded = UUID.randomUUID();
+        when(transactionRepository.findActivityBySenderUser(any(), any(), any()))
+            .thenReturn(List.of(activity(seeded, NOW.minusMinutes(1), "100.00")));
+        velocityTracker.recentTransfers(userId, 60, NOW);
+        
+        velocityTracker.onTransferCompleted(completed(seeded, NOW.minusMinutes(1), "100.00"));
+        velocityTracker.onTransferCompleted(completed(UUID.randomUUID(), NOW, "25.50"));
+        
+        assertEquals(OptionalLong.of(2), velocityTracker.recentTransfers(userId, 60, NOW));
+        assertEquals(OptionalLong.of(12_550), velocityTracker.dailyTotal(userId, NOW));
+    }
+    
+    @Test
+    void testWindow_DropsBucketsOlderThanWindow() {
+        when(transactionRepository.findActivityBySenderUser(any(), any(), any())).thenReturn(List.of());
+        velocityTracker.recentTransfers(userId, 60, NOW);
+        velocityTracker.onTransferCompleted(completed(UUID.randomUUID(), NOW, "10.00"));
+        
+        assertEquals(OptionalLong.of(1), velocityTracker.recentTransfers(userId, 60, NOW.plusMinutes(59)));
+        assertEquals(OptionalLong.of(0), velocityTracker.recentTransfers(userId, 60, NOW.plusMinutes(60)));
+        assertEquals(OptionalLong.of(0), velocityTracker.dailyTotal(userId, NOW.plusDays(1)));
+    }
+    
+    @Test
+    void testShorterWindow_CountsFromSameBuckets() {
+        when(transactionRepository.findActivityBySenderUser(any(), any(), any()))
+            .thenReturn(List.of(activity(UUID.randomUUID(), NOW.minusMinutes(20), "10.00")));
+        velocityTracker.recentTransfers(userId, 60, NOW);
+        velocityTracker.onTransferCompleted(completed(UUID.randomUUID(), NOW, "10.00"));
+        
+        assertEquals(OptionalLong.of(1), velocityTracker.recentTransfers(userId, 15, NOW));
+        assertEquals(OptionalLong.of(2), velocityTracker.recentTransfers(userId, 60, NOW));
+        // Longer than the tracked window: left to the database
+        assertEquals(OptionalLong.empty(), velocityTracker.recentTransfers(userId, 120, NOW));
+    }
+    
+    @Test
+    void testUnknownUserCompletion_IsLeftToTheSeed() {
+        velocityTracker.onTransferCompleted(completed(UUID.randomUUID(), NOW, "10.00"));
+        
+        assertEquals(0, velocityTracker.trackedUsers());
+        verifyNoInteractions(transactionRepository);
+    }
+    
+    @Test
+    void testCapacity_FallsBackUntilIdleUsersAreEvicted() {
+        when(transactionRepository.findActivityBySenderUser(any(), any(), any())).thenReturn(List.of());
+        velocityTracker.recentTransfers(UUID.randomUUID(), 60, NOW);
+        velocityTracker.recentTransfers(UUID.randomUUID(), 60, NOW);
+        
+        assertEquals(OptionalLong.empty(), velocityTracker.recentTransfers(userId, 60, NOW));
+        
+        velocityTracker.evictIdle(NOW.plusMinutes(121));
+        assertEquals(0, velocityTracker.trackedUsers());
+        assertEquals(OptionalLong.of(0), velocityTracker.recentTransfers(userId, 60, NOW.plusMinutes(121)));
+    }
+    
+    @Test
+    void testDisabled_NeverTracks() {
+        ReflectionTestUtils.setField(velocityTracker, "enabled", false);
+        
+        assertEquals(OptionalLong.empty(), velocityTracker.dailyTotal(userId, NOW));
+        verifyNoInteractions(transactionRepository);
+    }
+    
+    private TransferActivity activity(UUID transactionId, LocalDateTime timestamp, String amount) {
+        return new TransferActivity(transactionId, userId, timestamp, new BigDecimal(amount));
+    }
+    
+    private TransferCompletedEvent completed(UUID transactionId, LocalDateTime timestamp, String amount) {
+        return new TransferCompletedEvent(transactionId, userId, "SE1234567890123456789012",
+            "SE9876543210987654321098", new BigDecimal(amount), timestamp);
+    }
+}
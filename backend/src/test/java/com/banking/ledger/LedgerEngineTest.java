@@ -0,0 +1,197 @@
+package com.banking.ledger;
+
+import com.banking.dto.TransactionDto;
+import com.banking.entity.Account;
+import com.banking.service.IdempotencyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private IdempotencyService idempotencyService;
+    
+    @InjectMocks
+    private LedgerEngine ledgerEngine;
+    
+    /** Accounts the shards load on first use, by IBAN */
+    private final Map<String, LedgerAccount> stored = new ConcurrentHashMap<>();
+    
+    private UUID ownerId;
+    
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        
+        ReflectionTestUtils.setField(ledgerEngine, "transferMode", "LEDGER");
+        ReflectionTestUtils.setField(ledgerEngine, "shardCount", 4);
+        ReflectionTestUtils.setField(ledgerEngine, "journalBatchSize", 10);
+        ReflectionTestUtils.setField(ledgerEngine, "journalFlushIntervalMs", 5L);
+        ReflectionTestUtils.setField(ledgerEngine, "journalMaxAttempts", 2);
+        ReflectionTestUtils.setField(ledgerEngine, "journalRetryDelayMs", 1L);
+        ReflectionTestUtils.setField(ledgerEngine, "maxInFlight", 100);
+        ReflectionTestUtils.setField(ledgerEngine, "submitTimeoutMs", 1000L);
+        
+        lenient().when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyString())).thenAnswer(invocation -> {
+            LedgerAccount account = stored.get(invocation.<String>getArgument(2));
+            return account == null ? List.of() : List.of(account);
+        });
+        lenient().doAnswer(invocation -> {
+            Consumer<Object> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        
+        ledgerEngine.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        ledgerEngine.stop();
+    }
+    
+    @Test
+    void testSubmit_CrossShardTransferMovesBalancesAndIsJournaled() throws Exception {
+        String[] ibans = ibansOnDifferentShards();
+        LedgerAccount sender = account(ibans[0], 100_00, Account.AccountStatus.ACTIVE);
+        LedgerAccount receiver = account(ibans[1], 0, Account.AccountStatus.ACTIVE);
+        
+        TransactionDto result = await(submit(ibans[0], ibans[1], "25.00"));
+        
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(new BigDecimal("25.00"), result.getAmount());
+        assertEquals(75_00, sender.balance);
+        assertEquals(25_00, receiver.balance);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO transactions"), anyCollection(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+    }
+    
+    @Test
+    void testSubmit_InsufficientBalanceIsRejectedWithoutJournal() {
+        String[] ibans = ibansOnDifferentShards();
+        LedgerAccount sender = account(ibans[0], 10_00, Account.AccountStatus.ACTIVE);
+        LedgerAccount receiver = account(ibans[1], 0, Account.AccountStatus.ACTIVE);
+        
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> await(submit(ibans[0], ibans[1], "25.00")));
+        
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals("Insufficient balance", ex.getCause().getMessage());
+        assertEquals(10_00, sender.balance);
+        assertEquals(0, receiver.balance);
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+    
+    @Test
+    void testSubmit_FrozenReceiverRefundsSender() {
+        String[] ibans = ibansOnDifferentShards();
+        LedgerAccount sender = account(ibans[0], 100_00, Account.AccountStatus.ACTIVE);
+        LedgerAccount receiver = account(ibans[1], 0, Account.AccountStatus.FROZEN);
+        
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> await(submit(ibans[0], ibans[1], "25.00")));
+        
+        assertEquals("Receiver account is not active", ex.getCause().getMessage());
+        assertEquals(100_00, sender.balance);
+        assertEquals(0, receiver.balance);
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+    
+    @Test
+    void testSubmit_UnjournaledTransferIsRevertedOnBothShards() {
+        String[] ibans = ibansOnDifferentShards();
+        LedgerAccount sender = account(ibans[0], 100_00, Account.AccountStatus.ACTIVE);
+        LedgerAccount receiver = account(ibans[1], 0, Account.AccountStatus.ACTIVE);
+        AtomicBoolean failing = new AtomicBoolean(true);
+        // Lenient: the balance delta batches do not match this stub
+        lenient().when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO transactions"), anyCollection(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                if (failing.get()) {
+                    throw new DataIntegrityViolationException("value too long for type character varying(500)");
+                }
+                return new int[0][];
+            });
+        
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> await(submit(ibans[0], ibans[1], "25.00")));
+        
+        assertEquals("Transfer could not be processed", ex.getCause().getMessage());
+        assertEquals(100_00, sender.balance);
+        assertEquals(0, receiver.balance);
+        
+        // The ledger keeps working after the failed transfer
+        failing.set(false);
+        assertDoesNotThrow(() -> await(submit(ibans[0], ibans[1], "10.00")));
+        assertEquals(90_00, sender.balance);
+    }
+    
+    @Test
+    void testUpdateStatus_FrozenSenderIsRejected() {
+        String[] ibans = ibansOnDifferentShards();
+        account(ibans[0], 100_00, Account.AccountStatus.ACTIVE);
+        account(ibans[1], 0, Account.AccountStatus.ACTIVE);
+        
+        ledgerEngine.updateStatus(ibans[0], Account.AccountStatus.FROZEN);
+        
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> await(submit(ibans[0], ibans[1], "25.00")));
+        assertEquals("Sender account is not active", ex.getCause().getMessage());
+    }
+    
+    private CompletableFuture<TransactionDto> submit(String fromIban, String toIban, String amount) {
+        return ledgerEngine.submit(fromIban, toIban, new BigDecimal(amount), null, ownerId, false, null);
+    }
+    
+    private TransactionDto await(CompletableFuture<TransactionDto> result) throws Exception {
+        return result.get(5, TimeUnit.SECONDS);
+    }
+    
+    private LedgerAccount account(String iban, long balance, Account.AccountStatus status) {
+        LedgerAccount account = new LedgerAccount(UUID.randomUUID(), ownerId, balance, status);
+        stored.put(iban, account);
+        return account;
+    }
+    
+    private String[] ibansOnDifferentShards() {
+        String first = String.format("SE%022d", 1);
+        for (int i = 2; ; i++) {
+            String candidate = String.format("SE%022d", i);
+            if (ledgerEngine.shardFor(candidate) != ledgerEngine.shardFor(first)) {
+                return new String[] {first, candidate};
+            }
+        }
+    }
+}
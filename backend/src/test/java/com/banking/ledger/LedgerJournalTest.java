@@ -0,0 +1,204 @@
+package com.banking.ledger;
+
+import com.banking.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerJournalTest {
+    
+    private static final UUID ACCOUNT_A = UUID.randomUUID();
+    private static final UUID ACCOUNT_B = UUID.randomUUID();
+    private static final UUID ACCOUNT_C = UUID.randomUUID();
+    
+    @Mock
+    private LedgerEngine ledgerEngine;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private IdempotencyService idempotencyService;
+    
+    private LedgerJournal journal;
+    
+    @BeforeEach
+    void setUp() {
+        journal = new LedgerJournal(ledgerEngine, jdbcTemplate, transactionTemplate, idempotencyService,
+            10, 5, 2, 1);
+        
+        lenient().doAnswer(invocation -> {
+            Consumer<Object> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
+    @Test
+    void testRun_WritesQueuedTransfersInOneBatch() {
+        LedgerTransfer first = transfer(ACCOUNT_A, ACCOUNT_B, 10_000, null);
+        LedgerTransfer second = transfer(ACCOUNT_A, ACCOUNT_B, 2_500, null);
+        LedgerTransfer third = transfer(ACCOUNT_B, ACCOUNT_C, 4_000, null);
+        
+        drain(first, second, third);
+        
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Object>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO transactions"), inserted.capture(), eq(3),
+            any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(3, inserted.getValue().size());
+        
+        // One net delta per account
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Map.Entry<UUID, Long>>> deltas = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE accounts"), deltas.capture(), eq(3),
+            any(ParameterizedPreparedStatementSetter.class));
+        Map<UUID, Long> byAccount = new HashMap<>();
+        for (Map.Entry<UUID, Long> delta : deltas.getValue()) {
+            byAccount.put(delta.getKey(), delta.getValue());
+        }
+        assertEquals(-12_500L, byAccount.get(ACCOUNT_A));
+        assertEquals(8_500L, byAccount.get(ACCOUNT_B));
+        assertEquals(4_000L, byAccount.get(ACCOUNT_C));
+        
+        assertEquals(new BigDecimal("100.00"), first.result.join().getAmount());
+        assertTrue(second.result.isDone() && third.result.isDone());
+    }
+    
+    @Test
+    void testRun_IdempotencyKeysAreRecordedInTheBatchTransaction() {
+        IdempotencyService.PendingKey key = new IdempotencyService.PendingKey(UUID.randomUUID(), "key-1", "hash");
+        LedgerTransfer keyed = transfer(ACCOUNT_A, ACCOUNT_B, 10_000, null, key);
+        LedgerTransfer unkeyed = transfer(ACCOUNT_B, ACCOUNT_C, 4_000, null);
+        
+        drain(keyed, unkeyed);
+        
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(idempotencyService).recordAll(Map.of(keyed.transactionId, key));
+        assertEquals("COMPLETED", keyed.result.join().getStatus());
+    }
+    
+    @Test
+    void testRun_DuplicateIdempotencyKeyIsPassedToTheCaller() {
+        IdempotencyService.PendingKey key = new IdempotencyService.PendingKey(UUID.randomUUID(), "key-1", "hash");
+        LedgerTransfer keyed = transfer(ACCOUNT_A, ACCOUNT_B, 10_000, null, key);
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException("duplicate key");
+        doThrow(duplicate).when(idempotencyService).recordAll(any());
+        
+        drain(keyed);
+        
+        // Passed on as is, so the caller can look up the stored result
+        verify(ledgerEngine).revert(keyed, duplicate);
+    }
+    
+    @Test
+    void testRun_TransientFailureIsRetried() {
+        LedgerTransfer transfer = transfer(ACCOUNT_A, ACCOUNT_B, 10_000, null);
+        doThrow(new CannotGetJdbcConnectionException("Connection refused"))
+            .doAnswer(invocation -> {
+                Consumer<Object> action = invocation.getArgument(0);
+                action.accept(null);
+                return null;
+            })
+            .when(transactionTemplate).executeWithoutResult(any());
+        
+        drain(transfer);
+        
+        assertEquals("COMPLETED", transfer.result.join().getStatus());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verifyNoInteractions(ledgerEngine);
+    }
+    
+    @Test
+    void testRun_FailingTransferIsRevertedWithoutBlockingOthers() {
+        LedgerTransfer good = transfer(ACCOUNT_A, ACCOUNT_B, 10_000, null);
+        LedgerTransfer bad = transfer(ACCOUNT_A, ACCOUNT_C, 2_500, "x".repeat(600));
+        LedgerTransfer later = transfer(ACCOUNT_B, ACCOUNT_C, 4_000, null);
+        // Lenient: the balance delta batches do not match this stub
+        lenient().when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO transactions"), anyCollection(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                Collection<?> rows = invocation.getArgument(1);
+                if (rows.contains(bad)) {
+                    throw new DataIntegrityViolationException("value too long for type character varying(500)");
+                }
+                return new int[0][];
+            });
+        
+        drain(good, bad, later);
+        
+        assertEquals("COMPLETED", good.result.join().getStatus());
+        assertEquals("COMPLETED", later.result.join().getStatus());
+        assertFalse(bad.result.isDone());
+        ArgumentCaptor<RuntimeException> reason = ArgumentCaptor.forClass(RuntimeException.class);
+        verify(ledgerEngine).revert(eq(bad), reason.capture());
+        assertEquals("Transfer could not be processed", reason.getValue().getMessage());
+        verify(ledgerEngine, never()).revert(eq(good), any());
+    }
+    
+    @Test
+    void testRun_OutageRevertsEveryTransferOfTheBatch() {
+        LedgerTransfer first = transfer(ACCOUNT_A, ACCOUNT_B, 10_000, null);
+        LedgerTransfer second = transfer(ACCOUNT_B, ACCOUNT_C, 4_000, null);
+        doThrow(new CannotGetJdbcConnectionException("Connection refused"))
+            .when(transactionTemplate).executeWithoutResult(any());
+        
+        drain(first, second);
+        
+        // Two attempts for the batch, then one per transfer
+        verify(transactionTemplate, times(4)).executeWithoutResult(any());
+        verify(ledgerEngine).revert(eq(first), any());
+        verify(ledgerEngine).revert(eq(second), any());
+    }
+    
+    /**
+     * Queues the transfers and runs the journal on this thread until they are written.
+     */
+    private void drain(LedgerTransfer... transfers) {
+        for (LedgerTransfer transfer : transfers) {
+            journal.append(transfer);
+        }
+        journal.stop();
+        journal.run();
+    }
+    
+    private LedgerTransfer transfer(UUID senderId, UUID receiverId, long amount, String description) {
+        return transfer(senderId, receiverId, amount, description, null);
+    }
+    
+    private LedgerTransfer transfer(UUID senderId, UUID receiverId, long amount, String description,
+                                    IdempotencyService.PendingKey idempotencyKey) {
+        LedgerTransfer transfer = new LedgerTransfer("SE" + senderId, "SE" + receiverId, amount, description,
+            UUID.randomUUID(), false, idempotencyKey);
+        transfer.senderId = senderId;
+        transfer.receiverId = receiverId;
+        return transfer;
+    }
+}
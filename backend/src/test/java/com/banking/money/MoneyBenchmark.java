@@ -0,0 +1,101 @@
+package com.banking.money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of BigDecimal and Money for the daily-limit arithmetic:
+ * summing a user's transfers of the day and checking the limit.
+ * 
+ * - bigDecimal: BigDecimal throughout
+ * - money: converts each BigDecimal amount, then checks with Money instances
+ * - minorUnits: the static long helpers on amounts already held in minor units,
+ *   as on the batch and rule paths - no conversion and no allocation
+ * 
+ * Not a unit test; run from the backend directory with
+ *   mvn test-compile exec:java -Dexec.mainClass=com.banking.money.MoneyBenchmark -Dexec.classpathScope=test
+ * and add -prof gc to the options below to compare allocation rates.
+ * 
+ * @author Banking Platform Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    
+    /** Transfers of one user per day, roughly what the daily limit check sums */
+    private static final int TRANSFERS = 50;
+    
+    private BigDecimal[] amounts;
+    private BigDecimal limit;
+    private Money moneyLimit;
+    private long[] minorAmounts;
+    private long minorLimit;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[TRANSFERS];
+        for (int i = 0; i < TRANSFERS; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(100_000), 2);
+        }
+        limit = new BigDecimal("10000.00");
+        moneyLimit = Money.of(limit);
+        minorAmounts = new long[TRANSFERS];
+        for (int i = 0; i < TRANSFERS; i++) {
+            minorAmounts[i] = Money.toMinorUnits(amounts[i]);
+        }
+        minorLimit = moneyLimit.getMinorUnits();
+    }
+    
+    @Benchmark
+    public boolean bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total.add(amounts[0]).compareTo(limit) > 0;
+    }
+    
+    @Benchmark
+    public boolean money() {
+        long total = 0;
+        for (BigDecimal amount : amounts) {
+            total = Math.addExact(total, Money.toMinorUnits(amount));
+        }
+        return Money.ofMinor(total).plus(Money.of(amounts[0])).isGreaterThan(moneyLimit);
+    }
+    
+    @Benchmark
+    public boolean minorUnits() {
+        long total = 0;
+        for (long amount : minorAmounts) {
+            total = Money.addMinor(total, amount);
+        }
+        return Money.exceedsLimit(total, minorAmounts[0], minorLimit);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(MoneyBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.banking.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    
+    @Test
+    void testOf_ConvertsToMinorUnits() {
+        assertEquals(10050, Money.of(new BigDecimal("100.50")).getMinorUnits());
+        assertEquals(10000, Money.of(new BigDecimal("100")).getMinorUnits());
+        assertEquals(new BigDecimal("100.50"), Money.ofMinor(10050).toBigDecimal());
+    }
+    
+    @Test
+    void testOf_RejectsMoreThanTwoDecimals() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("0.001")));
+    }
+    
+    @Test
+    void testArithmetic_IsOverflowChecked() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)));
+    }
+    
+    @Test
+    void testMinorHelpers_MatchMoneyArithmetic() {
+        assertEquals(Money.ofMinor(150).plus(Money.ofMinor(25)).getMinorUnits(), Money.addMinor(150, 25));
+        assertEquals(Money.ofMinor(150).minus(Money.ofMinor(25)).getMinorUnits(), Money.subtractMinor(150, 25));
+        assertFalse(Money.exceedsLimit(900_000, 100_000, 1_000_000));
+        assertTrue(Money.exceedsLimit(900_000, 100_001, 1_000_000));
+        assertThrows(ArithmeticException.class, () -> Money.exceedsLimit(Long.MAX_VALUE, 1, 0));
+    }
+    
+    @Test
+    void testCompare_RejectsCurrencyMismatch() {
+        Money eur = Money.ofMinor(100, Currency.getInstance("EUR"));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(100).compareTo(eur));
+        assertTrue(Money.valueOf("10.01").isGreaterThan(Money.valueOf("10.00")));
+    }
+    
+    @Test
+    void testJson_KeepsDecimalFormat() throws Exception {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Money.class, new MoneyJsonComponent.Serializer());
+        module.addDeserializer(Money.class, new MoneyJsonComponent.Deserializer());
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(module);
+        
+        assertEquals("100.50", objectMapper.writeValueAsString(Money.valueOf("100.50")));
+        assertEquals(Money.valueOf("100.50"), objectMapper.readValue("100.5", Money.class));
+        assertEquals(Money.valueOf("100.50"), objectMapper.readValue("\"100.50\"", Money.class));
+    }
+    
+    @Test
+    void testConverter_KeepsDecimalColumn() {
+        MoneyConverter converter = new MoneyConverter();
+        assertEquals(new BigDecimal("19.99"), converter.convertToDatabaseColumn(Money.valueOf("19.99")));
+        assertEquals(Money.valueOf("19.99"), converter.convertToEntityAttribute(new BigDecimal("19.99")));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,238 @@
+package com.banking.sequencer;
+
+import com.banking.dto.TransactionDto;
+import com.banking.entity.Account;
+import com.banking.entity.User;
+import com.banking.repository.AccountRepository;
+import com.banking.service.BalanceStripingService;
+import com.banking.service.FraudDetectionService;
+import com.banking.service.IdempotencyService;
+import com.banking.service.TransferMetrics;
+import com.banking.service.TransferRetryPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferSequencerTest {
+    
+    private static final String SENDER_IBAN = "SE1234567890123456789012";
+    private static final String RECEIVER_IBAN = "SE9876543210987654321098";
+    
+    @Mock
+    private AccountRepository accountRepository;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private TransferRetryPolicy transferRetryPolicy;
+    
+    @Mock
+    private TransferMetrics transferMetrics;
+    
+    @Mock
+    private BalanceStripingService balanceStripingService;
+    
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+    
+    @Mock
+    private IdempotencyService idempotencyService;
+    
+    @InjectMocks
+    private TransferSequencer transferSequencer;
+    
+    private User testUser;
+    private UUID senderId;
+    private UUID receiverId;
+    
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder()
+            .id(UUID.randomUUID())
+            .username("testuser")
+            .role(User.Role.CUSTOMER)
+            .build();
+        senderId = UUID.randomUUID();
+        receiverId = UUID.randomUUID();
+        
+        ReflectionTestUtils.setField(transferSequencer, "transferMode", "SEQUENCER");
+        ReflectionTestUtils.setField(transferSequencer, "ringSize", 8);
+        ReflectionTestUtils.setField(transferSequencer, "batchSize", 4);
+        ReflectionTestUtils.setField(transferSequencer, "submitTimeoutMs", 1000L);
+        
+        // Run retried operations and transaction callbacks inline
+        lenient().when(transferRetryPolicy.execute(any())).thenAnswer(invocation -> {
+            Supplier<?> operation = invocation.getArgument(0);
+            return operation.get();
+        });
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        
+        transferSequencer.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        transferSequencer.stop();
+    }
+    
+    @Test
+    void testSubmit_AppliesValidTransfersAndRejectsOthersInOrder() {
+        when(accountRepository.findIdByIban(SENDER_IBAN)).thenReturn(Optional.of(senderId));
+        when(accountRepository.findIdByIban(RECEIVER_IBAN)).thenReturn(Optional.of(receiverId));
+        when(accountRepository.debitIfSufficient(SENDER_IBAN, new BigDecimal("100.00"), testUser.getId(), false))
+            .thenReturn(Optional.of(senderId));
+        when(accountRepository.debitIfSufficient(SENDER_IBAN, new BigDecimal("5000.00"), testUser.getId(), false))
+            .thenReturn(Optional.empty());
+        when(fraudDetectionService.reserveDailyLimit(testUser.getId(), new BigDecimal("100.00"))).thenReturn(true);
+        when(accountRepository.creditIfActive(RECEIVER_IBAN, new BigDecimal("100.00"), 0))
+            .thenReturn(Optional.of(receiverId));
+        when(accountRepository.findByIban(SENDER_IBAN)).thenReturn(Optional.of(Account.builder()
+            .id(senderId)
+            .iban(SENDER_IBAN)
+            .status(Account.AccountStatus.ACTIVE)
+            .user(testUser)
+            .build()));
+        
+        CompletableFuture<TransactionDto> accepted = transferSequencer.submit(SENDER_IBAN, RECEIVER_IBAN,
+            new BigDecimal("100.00"), null, testUser.getId(), false, null);
+        CompletableFuture<TransactionDto> rejected = transferSequencer.submit(SENDER_IBAN, RECEIVER_IBAN,
+            new BigDecimal("5000.00"), null, testUser.getId(), false, null);
+        
+        TransactionDto transaction = accepted.join();
+        assertEquals("COMPLETED", transaction.getStatus());
+        assertEquals(new BigDecimal("100.00"), transaction.getAmount());
+        
+        CompletionException ex = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals("Insufficient balance", ex.getCause().getMessage());
+        
+        // Only the applied transfer is inserted
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Object>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), inserted.capture(), anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, inserted.getValue().size());
+    }
+    
+    @Test
+    void testSubmit_IdempotencyKeyIsRecordedInTheGroupCommit() {
+        when(accountRepository.findIdByIban(SENDER_IBAN)).thenReturn(Optional.of(senderId));
+        when(accountRepository.findIdByIban(RECEIVER_IBAN)).thenReturn(Optional.of(receiverId));
+        when(accountRepository.debitIfSufficient(SENDER_IBAN, new BigDecimal("100.00"), testUser.getId(), false))
+            .thenReturn(Optional.of(senderId));
+        when(fraudDetectionService.reserveDailyLimit(testUser.getId(), new BigDecimal("100.00"))).thenReturn(true);
+        when(accountRepository.creditIfActive(RECEIVER_IBAN, new BigDecimal("100.00"), 0))
+            .thenReturn(Optional.of(receiverId));
+        IdempotencyService.PendingKey key = new IdempotencyService.PendingKey(testUser.getId(), "key-1", "hash");
+        
+        TransactionDto transaction = transferSequencer.submit(SENDER_IBAN, RECEIVER_IBAN,
+            new BigDecimal("100.00"), null, testUser.getId(), false, key).join();
+        
+        verify(idempotencyService).recordAll(Map.of(transaction.getId(), key));
+    }
+    
+    @Test
+    void testStop_ProducerWaitingForASlotIsRejectedInsteadOfHanging() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountRepository.findIdByIban(SENDER_IBAN)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.empty();
+        });
+        
+        // Fill the ring while the validation stage is held up
+        List<CompletableFuture<TransactionDto>> accepted = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            accepted.add(transferSequencer.submit(SENDER_IBAN, RECEIVER_IBAN, new BigDecimal("100.00"), null,
+                testUser.getId(), false, null));
+        }
+        CompletableFuture<TransactionDto> waiting = CompletableFuture.supplyAsync(() -> transferSequencer.submit(
+            SENDER_IBAN, RECEIVER_IBAN, new BigDecimal("100.00"), null, testUser.getId(), false, null).join());
+        Semaphore freeSlots = (Semaphore) ReflectionTestUtils.getField(transferSequencer, "freeSlots");
+        while (!freeSlots.hasQueuedThreads()) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(transferSequencer::stop);
+        while ((boolean) ReflectionTestUtils.getField(transferSequencer, "accepting")) {
+            Thread.onSpinWait();
+        }
+        
+        // The drained slots free up after stop() stopped accepting transfers
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+        
+        CompletionException ex = assertThrows(CompletionException.class, waiting.orTimeout(5, TimeUnit.SECONDS)::join);
+        assertEquals("Transfer sequencer is not running", ex.getCause().getMessage());
+        for (CompletableFuture<TransactionDto> transfer : accepted) {
+            assertTrue(transfer.isCompletedExceptionally());
+        }
+    }
+    
+    @Test
+    void testSubmit_UnknownReceiverIsRejectedBeforeAnyUpdate() {
+        when(accountRepository.findIdByIban(SENDER_IBAN)).thenReturn(Optional.of(senderId));
+        when(accountRepository.findIdByIban(RECEIVER_IBAN)).thenReturn(Optional.empty());
+        
+        CompletableFuture<TransactionDto> result = transferSequencer.submit(SENDER_IBAN, RECEIVER_IBAN,
+            new BigDecimal("100.00"), null, testUser.getId(), false, null);
+        
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        verify(accountRepository, never()).debitIfSufficient(any(), any(), any(), eq(false));
+    }
+    
+    @Test
+    void testSubmit_DailyLimitRejectionRefundsTheSender() {
+        when(accountRepository.findIdByIban(SENDER_IBAN)).thenReturn(Optional.of(senderId));
+        when(accountRepository.findIdByIban(RECEIVER_IBAN)).thenReturn(Optional.of(receiverId));
+        when(accountRepository.debitIfSufficient(SENDER_IBAN, new BigDecimal("100.00"), testUser.getId(), false))
+            .thenReturn(Optional.of(senderId));
+        when(fraudDetectionService.reserveDailyLimit(testUser.getId(), new BigDecimal("100.00"))).thenReturn(false);
+        
+        CompletableFuture<TransactionDto> result = transferSequencer.submit(SENDER_IBAN, RECEIVER_IBAN,
+            new BigDecimal("100.00"), null, testUser.getId(), false, null);
+        
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertEquals("Transfer rejected: Daily limit exceeded", ex.getCause().getMessage());
+        verify(accountRepository).creditIfActive(SENDER_IBAN, new BigDecimal("100.00"), 0);
+        verify(accountRepository, never()).creditIfActive(eq(RECEIVER_IBAN), any(), anyInt());
+    }
+}
@@ -0,0 +1,153 @@
+package com.banking.service;
+
+import com.banking.entity.Account;
+import com.banking.entity.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLookupCacheTest {
+    
+    private static final String IBAN = "SE4550000000058398257466";
+    
+    @Mock
+    private AccountRepository accountRepository;
+    
+    @Mock
+    private KnownIbanFilter knownIbanFilter;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    private AccountLookupCache accountLookupCache;
+    private User owner;
+    
+    @BeforeEach
+    void setUp() {
+        owner = User.builder().id(UUID.randomUUID()).username("owner").role(User.Role.CUSTOMER).build();
+        lenient().when(knownIbanFilter.mightExist(any())).thenReturn(true);
+        accountLookupCache = new AccountLookupCache(accountRepository, knownIbanFilter, meterRegistry);
+        ReflectionTestUtils.setField(accountLookupCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(accountLookupCache, "ttlSeconds", 60L);
+        accountLookupCache.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void testFind_SecondLookupServedFromMemory() {
+        when(accountRepository.findSummaryByIban(IBAN)).thenReturn(Optional.of(summary(Account.AccountStatus.ACTIVE)));
+        
+        accountLookupCache.find(IBAN);
+        accountLookupCache.find(IBAN);
+        
+        verify(accountRepository, times(1)).findSummaryByIban(IBAN);
+        assertEquals(1.0, meterRegistry.get("banking.account.cache.hits").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("banking.account.cache.misses").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("banking.account.cache.size").gauge().value());
+    }
+    
+    @Test
+    void testFind_AbsentAccountNotCached() {
+        when(accountRepository.findSummaryByIban(IBAN)).thenReturn(Optional.empty());
+        
+        assertTrue(accountLookupCache.find(IBAN).isEmpty());
+        assertTrue(accountLookupCache.find(IBAN).isEmpty());
+        
+        verify(accountRepository, times(2)).findSummaryByIban(IBAN);
+    }
+    
+    @Test
+    void testFind_UnknownToFilterAnsweredWithoutQuery() {
+        when(knownIbanFilter.mightExist("SE00")).thenReturn(false);
+        
+        assertThrows(IllegalArgumentException.class, () -> accountLookupCache.requireReceiver("SE00"));
+        verifyNoInteractions(accountRepository);
+    }
+    
+    @Test
+    void testInvalidate_NextLookupReadsNewStatus() {
+        when(accountRepository.findSummaryByIban(IBAN))
+            .thenReturn(Optional.of(summary(Account.AccountStatus.ACTIVE)))
+            .thenReturn(Optional.of(summary(Account.AccountStatus.FROZEN)));
+        accountLookupCache.find(IBAN);
+        
+        accountLookupCache.invalidate(IBAN);
+        
+        assertThrows(IllegalStateException.class, () -> accountLookupCache.requireSender(owner, IBAN));
+    }
+    
+    @Test
+    void testFind_LookupRacingWithInvalidationIsNotKept() {
+        when(accountRepository.findSummaryByIban(IBAN)).thenAnswer(invocation -> {
+            // The status changes while the old row is being read
+            accountLookupCache.invalidate(IBAN);
+            return Optional.of(summary(Account.AccountStatus.ACTIVE));
+        });
+        
+        accountLookupCache.find(IBAN);
+        accountLookupCache.find(IBAN);
+        
+        verify(accountRepository, times(2)).findSummaryByIban(IBAN);
+    }
+    
+    @Test
+    void testInvalidate_InTransactionEvictsAgainAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        accountLookupCache.invalidate(IBAN);
+        
+        // A lookup during the transaction still sees the committed old row
+        when(accountRepository.findSummaryByIban(IBAN)).thenReturn(Optional.of(summary(Account.AccountStatus.ACTIVE)));
+        accountLookupCache.find(IBAN);
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        accountLookupCache.find(IBAN);
+        
+        verify(accountRepository, times(2)).findSummaryByIban(IBAN);
+    }
+    
+    @Test
+    void testRequireSender_ForeignAccountDenied() {
+        when(accountRepository.findSummaryByIban(IBAN)).thenReturn(Optional.of(summary(Account.AccountStatus.ACTIVE)));
+        User other = User.builder().id(UUID.randomUUID()).role(User.Role.CUSTOMER).build();
+        User admin = User.builder().id(UUID.randomUUID()).role(User.Role.ADMIN).build();
+        
+        assertThrows(SecurityException.class, () -> accountLookupCache.requireSender(other, IBAN));
+        assertNotNull(accountLookupCache.requireSender(admin, IBAN));
+        assertNotNull(accountLookupCache.requireSender(owner, IBAN));
+    }
+    
+    @Test
+    void testRequireReceiver_UnknownOrInactiveRejected() {
+        when(accountRepository.findSummaryByIban(IBAN)).thenReturn(Optional.of(summary(Account.AccountStatus.CLOSED)));
+        when(accountRepository.findSummaryByIban("SE00")).thenReturn(Optional.empty());
+        
+        assertThrows(IllegalStateException.class, () -> accountLookupCache.requireReceiver(IBAN));
+        assertThrows(IllegalArgumentException.class, () -> accountLookupCache.requireReceiver("SE00"));
+    }
+    
+    private AccountSummary summary(Account.AccountStatus status) {
+        return new AccountSummary(UUID.randomUUID(), IBAN, owner.getId(), status);
+    }
+}
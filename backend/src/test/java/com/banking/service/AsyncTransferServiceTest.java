@@ -0,0 +1,159 @@
+package com.banking.service;
+
+import com.banking.dto.TransactionDto;
+import com.banking.dto.TransferRequest;
+import com.banking.entity.Account;
+import com.banking.entity.Transaction;
+import com.banking.entity.User;
+import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+    
+    @Mock
+    private TransferService transferService;
+    
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+    
+    @Mock
+    private AccountRepository accountRepository;
+    
+    @Mock
+    private TransactionRepository transactionRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private AccountLookupCache accountLookupCache;
+    
+    @Mock
+    private SecurityContext securityContext;
+    
+    @Mock
+    private Authentication authentication;
+    
+    @InjectMocks
+    private AsyncTransferService asyncTransferService;
+    
+    private User testUser;
+    private Account senderAccount;
+    private TransferRequest request;
+    
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder()
+            .id(UUID.randomUUID())
+            .username("testuser")
+            .role(User.Role.CUSTOMER)
+            .build();
+        
+        senderAccount = Account.builder()
+            .id(UUID.randomUUID())
+            .iban("SE1234567890123456789012")
+            .balance(new BigDecimal("1000.00"))
+            .status(Account.AccountStatus.ACTIVE)
+            .user(testUser)
+            .build();
+        
+        request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal("100.00"));
+        
+        ReflectionTestUtils.setField(asyncTransferService, "transferMode", TransferService.TransferMode.LOCKING);
+        ReflectionTestUtils.setField(asyncTransferService, "workers", 1);
+        ReflectionTestUtils.setField(asyncTransferService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(asyncTransferService, "maxWaitMs", 1000L);
+        asyncTransferService.init();
+        
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(testUser);
+        
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        asyncTransferService.shutdown();
+    }
+    
+    @Test
+    void testSubmit_PersistsPendingTransferAndQueuesIt() {
+        UUID receiverId = UUID.randomUUID();
+        when(fraudDetectionService.checkRapidSubmissions(testUser)).thenReturn(true);
+        when(accountLookupCache.requireSender(testUser, "SE1234567890123456789012")).thenReturn(
+            new AccountSummary(senderAccount.getId(), senderAccount.getIban(), testUser.getId(), Account.AccountStatus.ACTIVE));
+        when(accountLookupCache.requireReceiver("SE9876543210987654321098")).thenReturn(
+            new AccountSummary(receiverId, "SE9876543210987654321098", UUID.randomUUID(), Account.AccountStatus.ACTIVE));
+        when(accountRepository.getReferenceById(senderAccount.getId())).thenReturn(senderAccount);
+        when(transactionRepository.save(any())).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setId(UUID.randomUUID());
+            return transaction;
+        });
+        when(transferService.completePendingTransfer(any())).thenAnswer(invocation ->
+            TransactionDto.builder().id(invocation.getArgument(0)).status("COMPLETED").build());
+        
+        TransactionDto accepted = asyncTransferService.submit(request);
+        
+        assertEquals("PENDING", accepted.getStatus());
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(saved.capture());
+        assertEquals(Transaction.TransactionStatus.PENDING, saved.getValue().getStatus());
+        assertSame(testUser, saved.getValue().getInitiatedBy());
+        verify(transferService, timeout(1000)).completePendingTransfer(accepted.getId());
+    }
+    
+    @Test
+    void testSubmit_RapidSubmissionIsRejectedBeforePersisting() {
+        when(accountLookupCache.requireSender(testUser, "SE1234567890123456789012")).thenReturn(
+            new AccountSummary(senderAccount.getId(), senderAccount.getIban(), testUser.getId(), Account.AccountStatus.ACTIVE));
+        when(accountLookupCache.requireReceiver("SE9876543210987654321098")).thenReturn(
+            new AccountSummary(UUID.randomUUID(), "SE9876543210987654321098", UUID.randomUUID(), Account.AccountStatus.ACTIVE));
+        when(fraudDetectionService.checkRapidSubmissions(testUser)).thenReturn(false);
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> asyncTransferService.submit(request));
+        assertEquals("Transfer rejected: Rapid transfer detected", ex.getMessage());
+        verify(transactionRepository, never()).save(any());
+    }
+    
+    @Test
+    void testSubmit_ForeignSenderAccountIsRejectedBeforePersisting() {
+        when(accountLookupCache.requireSender(testUser, "SE1234567890123456789012"))
+            .thenThrow(new SecurityException("Access denied: You can only transfer from your own accounts"));
+        
+        assertThrows(SecurityException.class, () -> asyncTransferService.submit(request));
+        verifyNoInteractions(transactionTemplate, fraudDetectionService);
+        verify(transactionRepository, never()).save(any());
+        verify(transferService, never()).completePendingTransfer(any());
+    }
+}
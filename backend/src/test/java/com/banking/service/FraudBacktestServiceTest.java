@@ -0,0 +1,189 @@
+package com.banking.service;
+
+import com.banking.dto.FraudBacktestRequest;
+import com.banking.dto.FraudBacktestResult;
+import com.banking.fraud.FraudLimits;
+import com.banking.fraud.FraudThresholds;
+import com.banking.fraud.SuspiciousAmountRule;
+import com.banking.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudBacktestServiceTest {
+    
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 10, 0);
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private FraudThresholds fraudThresholds;
+    
+    @Mock
+    private ResultSet resultSet;
+    
+    /** Rows returned by the streamed query, in time order */
+    private final List<Object[]> rows = new ArrayList<>();
+    
+    private FraudBacktestService fraudBacktestService;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(fraudThresholds.defaults()).thenReturn(new FraudLimits(Money.valueOf("1000.00"), 2, 60));
+        fraudBacktestService = new FraudBacktestService(jdbcTemplate, transactionTemplate, fraudThresholds,
+            new SuspiciousAmountRule(Money.valueOf("500.00")));
+        ReflectionTestUtils.setField(fraudBacktestService, "parallelism", 2);
+        ReflectionTestUtils.setField(fraudBacktestService, "fetchSize", 10);
+        ReflectionTestUtils.setField(fraudBacktestService, "queueCapacity", 4);
+        // Run backtests on the calling thread
+        ReflectionTestUtils.setField(fraudBacktestService, "runner", (Executor) Runnable::run);
+        
+        lenient().doAnswer(invocation -> {
+            Consumer<Object> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        
+        int[] current = {0};
+        lenient().when(resultSet.getObject(1, UUID.class)).thenAnswer(i -> rows.get(current[0])[0]);
+        lenient().when(resultSet.getObject(2, LocalDateTime.class)).thenAnswer(i -> rows.get(current[0])[1]);
+        lenient().when(resultSet.getBigDecimal(3)).thenAnswer(i -> rows.get(current[0])[2]);
+        lenient().doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (current[0] = 0; current[0] < rows.size(); current[0]++) {
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+    
+    @Test
+    void testBacktest_CountsRejectionsAndFlagsPerRule() {
+        UUID rapidUser = UUID.randomUUID();
+        UUID largeUser = UUID.randomUUID();
+        row(rapidUser, DAY, "100.00");
+        row(largeUser, DAY, "600.00");
+        row(rapidUser, DAY.plusMinutes(1), "100.00");
+        row(rapidUser, DAY.plusMinutes(2), "100.00");   // third within the window
+        row(largeUser, DAY.plusMinutes(5), "600.00");   // 1200.00 today
+        row(largeUser, DAY.plusDays(1), "600.00");      // new day
+        
+        FraudBacktestResult result = runBacktest(new FraudBacktestRequest());
+        
+        assertEquals(FraudBacktestResult.Status.COMPLETED, result.getStatus());
+        assertEquals(6, result.getTransfers());
+        assertEquals(2, result.getRejected());
+        assertEquals(1L, result.getRejectedByRule().get("rapid-transfers"));
+        assertEquals(1L, result.getRejectedByRule().get("daily-limit"));
+        assertEquals(0L, result.getRejectedByRule().get("suspicious-amount"));
+        assertEquals(3L, result.getFlaggedByRule().get("suspicious-amount"));
+        assertNotNull(result.getFinishedAt());
+    }
+    
+    @Test
+    void testBacktest_RejectedTransferDoesNotCountTowardsHistory() {
+        UUID userId = UUID.randomUUID();
+        row(userId, DAY, "600.00");
+        row(userId, DAY.plusMinutes(1), "600.00");      // rejected, 1200.00 would exceed the limit
+        row(userId, DAY.plusMinutes(90), "300.00");     // 900.00 with the accepted transfer only
+        
+        FraudBacktestResult result = runBacktest(new FraudBacktestRequest());
+        
+        assertEquals(1, result.getRejected());
+        assertEquals(1L, result.getRejectedByRule().get("daily-limit"));
+    }
+    
+    @Test
+    void testBacktest_UsesCandidateSettings() {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 4; i++) {
+            row(userId, DAY.plusMinutes(i), "100.00");
+        }
+        FraudBacktestRequest request = new FraudBacktestRequest();
+        request.setRapidTransferThreshold(5);
+        request.setSuspiciousAmount(new BigDecimal("50.00"));
+        
+        FraudBacktestResult result = runBacktest(request);
+        
+        assertEquals(0, result.getRejected());
+        assertEquals(5, result.getRapidTransferThreshold());
+        assertEquals(60, result.getRapidTransferWindowMinutes());
+        assertEquals(Money.valueOf("1000.00"), result.getDailyTransferLimit());
+        assertEquals(4L, result.getFlaggedByRule().get("suspicious-amount"));
+    }
+    
+    @Test
+    void testBacktest_FailureIsReported() {
+        doThrow(new IllegalStateException("connection lost"))
+            .when(transactionTemplate).executeWithoutResult(any());
+        
+        FraudBacktestResult result = runBacktest(new FraudBacktestRequest());
+        
+        assertEquals(FraudBacktestResult.Status.FAILED, result.getStatus());
+        assertEquals("connection lost", result.getError());
+    }
+    
+    @Test
+    void testStart_SecondBacktestWhileRunning_Conflict() {
+        // Accept the backtest without running it
+        ReflectionTestUtils.setField(fraudBacktestService, "runner", (Executor) task -> { });
+        fraudBacktestService.start(period(new FraudBacktestRequest()));
+        
+        assertThrows(IllegalStateException.class,
+            () -> fraudBacktestService.start(period(new FraudBacktestRequest())));
+    }
+    
+    @Test
+    void testStart_EmptyPeriod_Rejected() {
+        FraudBacktestRequest request = new FraudBacktestRequest();
+        request.setFrom(DAY);
+        request.setTo(DAY);
+        
+        assertThrows(IllegalArgumentException.class, () -> fraudBacktestService.start(request));
+    }
+    
+    @Test
+    void testGet_Unknown_NotFound() {
+        assertThrows(IllegalArgumentException.class, () -> fraudBacktestService.get(UUID.randomUUID()));
+    }
+    
+    private FraudBacktestResult runBacktest(FraudBacktestRequest request) {
+        FraudBacktestResult started = fraudBacktestService.start(period(request));
+        return fraudBacktestService.get(started.getId());
+    }
+    
+    private static FraudBacktestRequest period(FraudBacktestRequest request) {
+        request.setFrom(DAY.minusDays(1));
+        request.setTo(DAY.plusDays(2));
+        return request;
+    }
+    
+    private void row(UUID userId, LocalDateTime timestamp, String amount) {
+        rows.add(new Object[] {userId, timestamp, new BigDecimal(amount)});
+    }
+}
@@ -1,18 +1,32 @@
 package com.banking.service;
 
+import com.banking.dto.TransferRequest;
+import com.banking.entity.FraudEvent;
+import com.banking.entity.Transaction;
 import com.banking.entity.User;
-import com.banking.repository.FraudEventRepository;
+import com.banking.fraud.DailyLimitRule;
+import com.banking.fraud.FraudDecision;
+import com.banking.fraud.FraudEventCoalescer;
+import com.banking.fraud.FraudLimits;
+import com.banking.fraud.FraudRuleRegistry;
+import com.banking.fraud.FraudRuleResult;
+import com.banking.fraud.FraudThresholds;
+import com.banking.fraud.RapidTransferRule;
+import com.banking.fraud.TransferContext;
+import com.banking.fraud.VelocityTracker;
+import com.banking.money.Money;
 import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserDailyTotalRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
-import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,12 +35,23 @@ import static org.mockito.Mockito.*;
 class FraudDetectionServiceTest {
     
     @Mock
-    private FraudEventRepository fraudEventRepository;
+    private FraudEventCoalescer fraudEventCoalescer;
     
     @Mock
     private TransactionRepository transactionRepository;
     
-    @InjectMocks
+    @Mock
+    private VelocityTracker velocityTracker;
+    
+    @Mock
+    private UserDailyTotalRepository userDailyTotalRepository;
+    
+    @Mock
+    private FraudRuleRegistry fraudRuleRegistry;
+    
+    @Mock
+    private FraudThresholds fraudThresholds;
+    
     private FraudDetectionService fraudDetectionService;
     
     private User testUser;
@@ -38,15 +63,18 @@ class FraudDetectionServiceTest {
             .username("testuser")
             .build();
         
-        ReflectionTestUtils.setField(fraudDetectionService, "dailyTransferLimit", new BigDecimal("10000.00"));
-        ReflectionTestUtils.setField(fraudDetectionService, "rapidTransferThreshold", 5);
-        ReflectionTestUtils.setField(fraudDetectionService, "rapidTransferWindowMinutes", 60);
+        lenient().when(fraudThresholds.limitsFor(testUser.getId()))
+            .thenReturn(new FraudLimits(Money.valueOf("10000.00"), 5, 60));
+        
+        fraudDetectionService = new FraudDetectionService(fraudEventCoalescer, transactionRepository, velocityTracker,
+            userDailyTotalRepository, fraudRuleRegistry, new RapidTransferRule(), new DailyLimitRule(), fraudThresholds);
     }
     
     @Test
     void testCheckDailyLimit_WithinLimit() {
-        when(transactionRepository.findByTimestampBetween(any(), any()))
-            .thenReturn(Collections.emptyList());
+        when(transactionRepository.sumAmountBySenderUser(eq(testUser.getId()),
+            eq(Transaction.TransactionStatus.COMPLETED), any(), any()))
+            .thenReturn(BigDecimal.ZERO);
         
         boolean result = fraudDetectionService.checkDailyLimit(testUser, new BigDecimal("100.00"));
         assertTrue(result);
@@ -54,12 +82,124 @@ class FraudDetectionServiceTest {
     
     @Test
     void testCheckDailyLimit_ExceedsLimit() {
-        when(transactionRepository.findByTimestampBetween(any(), any()))
-            .thenReturn(Collections.emptyList());
+        when(transactionRepository.sumAmountBySenderUser(any(), any(), any(), any()))
+            .thenReturn(BigDecimal.ZERO);
         
         boolean result = fraudDetectionService.checkDailyLimit(testUser, new BigDecimal("15000.00"));
         assertFalse(result);
-        verify(fraudEventRepository, times(1)).save(any());
+        verify(fraudEventCoalescer, times(1)).submit(any());
+    }
+    
+    @Test
+    void testCheckDailyLimit_IncludesTransfersSentToday() {
+        when(transactionRepository.sumAmountBySenderUser(any(), any(), any(), any()))
+            .thenReturn(new BigDecimal("9950.00"));
+        
+        assertTrue(fraudDetectionService.checkDailyLimit(testUser, new BigDecimal("50.00")));
+        assertFalse(fraudDetectionService.checkDailyLimit(testUser, new BigDecimal("50.01")));
+        verify(transactionRepository, never()).findByTimestampBetween(any(), any());
+    }
+    
+    @Test
+    void testChecks_UseTrackedCountersWithoutQueries() {
+        when(velocityTracker.dailyTotal(testUser.getId())).thenReturn(OptionalLong.of(995_000));
+        when(velocityTracker.recentTransfers(testUser.getId(), 60)).thenReturn(OptionalLong.of(5));
+        
+        assertTrue(fraudDetectionService.checkDailyLimit(testUser, new BigDecimal("50.00")));
+        assertFalse(fraudDetectionService.checkRapidTransfers(testUser));
+        verifyNoInteractions(transactionRepository);
+    }
+    
+    @Test
+    void testCheckRapidTransfers_CountsUntrackedUserInDatabase() {
+        when(velocityTracker.recentTransfers(testUser.getId(), 60)).thenReturn(OptionalLong.empty());
+        when(transactionRepository.countBySenderUser(eq(testUser.getId()),
+            eq(Transaction.TransactionStatus.COMPLETED), any(), any())).thenReturn(2L);
+        
+        assertTrue(fraudDetectionService.checkRapidTransfers(testUser));
+    }
+    
+    @Test
+    void testCheckRapidSubmissions_PendingTransfersCount() {
+        // Nothing completed yet: every earlier submission is still PENDING
+        when(velocityTracker.recentTransfers(testUser.getId(), 60)).thenReturn(OptionalLong.of(0));
+        long[] pending = {0};
+        when(transactionRepository.countBySenderUser(eq(testUser.getId()),
+            eq(Transaction.TransactionStatus.PENDING), any(), any())).thenAnswer(invocation -> pending[0]);
+        
+        // Threshold 5: five fast submissions pass, the sixth is rejected
+        for (int i = 0; i < 5; i++) {
+            assertTrue(fraudDetectionService.checkRapidSubmissions(testUser));
+            pending[0]++;
+        }
+        assertFalse(fraudDetectionService.checkRapidSubmissions(testUser));
+        assertTrue(fraudDetectionService.checkRapidTransfers(testUser));
+        verify(fraudEventCoalescer, times(1)).submit(any());
+    }
+    
+    @Test
+    void testChecks_UseTheUsersOwnLimits() {
+        when(fraudThresholds.limitsFor(testUser.getId()))
+            .thenReturn(new FraudLimits(Money.valueOf("250000.00"), 50, 15));
+        when(velocityTracker.dailyTotal(testUser.getId())).thenReturn(OptionalLong.of(995_000));
+        when(velocityTracker.recentTransfers(testUser.getId(), 15)).thenReturn(OptionalLong.of(20));
+        when(userDailyTotalRepository.addIfWithinLimit(eq(testUser.getId()), any(), any(),
+            eq(new BigDecimal("250000.00")))).thenReturn(1);
+        
+        assertTrue(fraudDetectionService.checkDailyLimit(testUser, new BigDecimal("20000.00")));
+        assertTrue(fraudDetectionService.checkRapidTransfers(testUser));
+        assertTrue(fraudDetectionService.reserveDailyLimit(testUser.getId(), new BigDecimal("20000.00")));
+    }
+    
+    @Test
+    void testReserveDailyLimit_SeedsFirstRowOfTheDay() {
+        BigDecimal amount = new BigDecimal("100.00");
+        BigDecimal limit = new BigDecimal("10000.00");
+        when(userDailyTotalRepository.addIfWithinLimit(eq(testUser.getId()), any(), eq(amount), eq(limit)))
+            .thenReturn(0, 1);
+        when(userDailyTotalRepository.existsById(any())).thenReturn(false);
+        
+        assertTrue(fraudDetectionService.reserveDailyLimit(testUser.getId(), amount));
+        verify(userDailyTotalRepository).insertIfAbsent(eq(testUser.getId()), any(), any());
+    }
+    
+    @Test
+    void testReserveDailyLimit_RejectsWhenExistingTotalWouldExceedLimit() {
+        when(userDailyTotalRepository.addIfWithinLimit(any(), any(), any(), any())).thenReturn(0);
+        when(userDailyTotalRepository.existsById(any())).thenReturn(true);
+        
+        assertFalse(fraudDetectionService.reserveDailyLimit(testUser.getId(), new BigDecimal("100.00")));
+        verify(userDailyTotalRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+    
+    @Test
+    void testScreenTransfer_LoadsContextOnceAndLogsTriggeredRules() {
+        when(velocityTracker.recentTransfers(testUser.getId(), 60)).thenReturn(OptionalLong.of(1));
+        when(velocityTracker.dailyTotal(testUser.getId())).thenReturn(OptionalLong.of(20_000));
+        when(fraudRuleRegistry.evaluate(any())).thenReturn(new FraudDecision(List.of(
+            FraudRuleResult.pass("daily-limit"),
+            FraudRuleResult.flag("suspicious-amount", FraudEvent.FraudType.SUSPICIOUS_AMOUNT,
+                FraudEvent.FraudSeverity.LOW, "Large single transfer"))));
+        
+        TransferRequest request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal("6000.00"));
+        
+        FraudDecision decision = fraudDetectionService.screenTransfer(testUser, request);
+        assertFalse(decision.isRejected());
+        
+        ArgumentCaptor<TransferContext> context = ArgumentCaptor.forClass(TransferContext.class);
+        verify(fraudRuleRegistry).evaluate(context.capture());
+        assertEquals(1, context.getValue().recentTransfers());
+        assertEquals(Money.valueOf("200.00"), context.getValue().dailyTotal());
+        assertEquals(Money.valueOf("6000.00"), context.getValue().amount());
+        
+        // Only the flagged rule is logged, with the transfer amount
+        ArgumentCaptor<FraudEvent> logged = ArgumentCaptor.forClass(FraudEvent.class);
+        verify(fraudEventCoalescer, times(1)).submit(logged.capture());
+        assertEquals(FraudEvent.FraudType.SUSPICIOUS_AMOUNT, logged.getValue().getType());
+        assertEquals(Money.valueOf("6000.00"), logged.getValue().getAmount());
+        verifyNoInteractions(transactionRepository);
     }
 }
-
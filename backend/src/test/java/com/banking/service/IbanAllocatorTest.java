@@ -0,0 +1,119 @@
+package com.banking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IbanAllocatorTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    /** Last value of the mocked sequence */
+    private final AtomicLong sequence = new AtomicLong();
+    
+    private IbanAllocator ibanAllocator;
+    
+    @BeforeEach
+    void setUp() {
+        ibanAllocator = new IbanAllocator(jdbcTemplate);
+        ReflectionTestUtils.setField(ibanAllocator, "countryCode", "SE");
+        ReflectionTestUtils.setField(ibanAllocator, "bankCode", "500");
+        ReflectionTestUtils.setField(ibanAllocator, "blockSize", 10);
+        
+        lenient().when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+            .thenAnswer(invocation -> sequence.addAndGet(10));
+    }
+    
+    @Test
+    void testCheckDigits_MatchPublishedIbans() {
+        assertEquals("SE4550000000058398257466", ibanAllocator.format(58398257466L));
+        assertEquals("82", IbanAllocator.checkDigits("GB", "WEST12345698765432"));
+        assertTrue(IbanAllocator.isValid("DE89370400440532013000"));
+        assertFalse(IbanAllocator.isValid("SE4650000000058398257466"));
+    }
+    
+    @Test
+    void testNext_HandsOutBlockFromMemory() {
+        String first = ibanAllocator.next();
+        for (int i = 0; i < 9; i++) {
+            ibanAllocator.next();
+        }
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class));
+        
+        String eleventh = ibanAllocator.next();
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+        
+        assertEquals(ibanAllocator.format(1), first);
+        assertEquals(ibanAllocator.format(11), eleventh);
+        assertEquals(24, first.length());
+        assertTrue(IbanAllocator.isValid(first));
+        assertTrue(IbanAllocator.isValid(eleventh));
+    }
+    
+    @Test
+    void testAccountNumber_OnlyForValidIbansOfTheAllocatedLayout() {
+        assertEquals(5839825L, IbanAllocator.accountNumber(ibanAllocator.format(5839825)));
+        assertEquals(-1L, IbanAllocator.accountNumber("SE1250000000000000000099"));
+        assertEquals(-1L, IbanAllocator.accountNumber("GB82WEST12345698765432"));
+    }
+    
+    @Test
+    void testNext_ConcurrentCallersGetDistinctNumbers() throws Exception {
+        Set<String> ibans = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        ibans.add(ibanAllocator.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        assertEquals(2000, ibans.size());
+        // Every leased block was used up before the next one was leased
+        assertEquals(2000, sequence.get());
+    }
+    
+    @Test
+    void testInit_CreatesSequenceWithBlockIncrement() {
+        ibanAllocator.init();
+        
+        verify(jdbcTemplate).execute("CREATE SEQUENCE IF NOT EXISTS account_number_seq START WITH 10 INCREMENT BY 10");
+        verify(jdbcTemplate).execute("ALTER SEQUENCE account_number_seq INCREMENT BY 10");
+    }
+    
+    @Test
+    void testInit_InvalidBankCode_Rejected() {
+        ReflectionTestUtils.setField(ibanAllocator, "bankCode", "50");
+        
+        assertThrows(IllegalStateException.class, () -> ibanAllocator.init());
+    }
+}
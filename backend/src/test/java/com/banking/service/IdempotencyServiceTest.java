@@ -0,0 +1,135 @@
+package com.banking.service;
+
+import com.banking.dto.TransactionDto;
+import com.banking.dto.TransferRequest;
+import com.banking.entity.User;
+import com.banking.repository.IdempotencyRecordRepository;
+import com.banking.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Mock
+    private TransactionRepository transactionRepository;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+    
+    private User testUser;
+    private TransferRequest request;
+    
+    @BeforeEach
+    void setUp() {
+        testUser = User.builder()
+            .id(UUID.randomUUID())
+            .username("testuser")
+            .build();
+        
+        request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal("100.00"));
+        
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 100);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 1000L);
+        idempotencyService.init();
+    }
+    
+    @Test
+    void testRepeatedKey_ReturnsStoredResultWithoutExecutingAgain() {
+        when(idempotencyRecordRepository.findActive(any(), any(), any())).thenReturn(Optional.empty());
+        AtomicInteger executions = new AtomicInteger();
+        TransactionDto original = TransactionDto.builder().id(UUID.randomUUID()).build();
+        
+        TransactionDto first = idempotencyService.execute(testUser, "key-1", request, () -> {
+            executions.incrementAndGet();
+            return original;
+        });
+        TransactionDto second = idempotencyService.execute(testUser, "key-1", request, () -> {
+            executions.incrementAndGet();
+            return TransactionDto.builder().id(UUID.randomUUID()).build();
+        });
+        
+        assertSame(original, first);
+        assertSame(original, second);
+        assertEquals(1, executions.get());
+        verify(idempotencyRecordRepository, times(1)).findActive(any(), any(), any());
+    }
+    
+    @Test
+    void testReusedKeyWithDifferentRequest_IsRejected() {
+        when(idempotencyRecordRepository.findActive(any(), any(), any())).thenReturn(Optional.empty());
+        idempotencyService.execute(testUser, "key-1", request,
+            () -> TransactionDto.builder().id(UUID.randomUUID()).build());
+        
+        TransferRequest other = new TransferRequest();
+        other.setFromIban(request.getFromIban());
+        other.setToIban(request.getToIban());
+        other.setAmount(new BigDecimal("999.00"));
+        
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(testUser, "key-1", other,
+            () -> TransactionDto.builder().id(UUID.randomUUID()).build()));
+    }
+    
+    @Test
+    void testFailedTransfer_IsNotRemembered() {
+        when(idempotencyRecordRepository.findActive(any(), any(), any())).thenReturn(Optional.empty());
+        
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(testUser, "key-1", request,
+            () -> {
+                throw new IllegalStateException("Insufficient balance");
+            }));
+        
+        TransactionDto retried = TransactionDto.builder().id(UUID.randomUUID()).build();
+        assertSame(retried, idempotencyService.execute(testUser, "key-1", request, () -> retried));
+    }
+    
+    @Test
+    void testRecordAll_WritesEveryKeyOfTheGroupInOneBatch() {
+        IdempotencyService.PendingKey first = idempotencyService.pendingKey(testUser, "key-1", request);
+        IdempotencyService.PendingKey second = idempotencyService.pendingKey(testUser, "key-2", request);
+        
+        idempotencyService.recordAll(Map.of(UUID.randomUUID(), first, UUID.randomUUID(), second));
+        
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM idempotency_keys"), anyCollection(), eq(2),
+            any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO idempotency_keys"), anyCollection(), eq(2),
+            any(ParameterizedPreparedStatementSetter.class));
+    }
+    
+    @Test
+    void testRecordAll_EmptyGroupIsNotWritten() {
+        idempotencyService.recordAll(Map.of());
+        
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
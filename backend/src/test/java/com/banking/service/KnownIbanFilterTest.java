@@ -0,0 +1,191 @@
+package com.banking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KnownIbanFilterTest {
+    
+    private static final String STORED = iban(1000);
+    private static final String UNKNOWN = iban(2);
+    
+    /** Database clock, behind the clock of this instance */
+    private static final LocalDateTime DATABASE_TIME = LocalDateTime.now().minusMinutes(10);
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private ResultSet resultSet;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    
+    /** IBANs in the accounts table */
+    private final List<String> rows = new ArrayList<>();
+    
+    private KnownIbanFilter knownIbanFilter;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        knownIbanFilter = new KnownIbanFilter(jdbcTemplate, transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(knownIbanFilter, "enabled", true);
+        ReflectionTestUtils.setField(knownIbanFilter, "expectedAccounts", 1000L);
+        ReflectionTestUtils.setField(knownIbanFilter, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(knownIbanFilter, "fetchSize", 100);
+        ReflectionTestUtils.setField(knownIbanFilter, "blockSize", 100);
+        
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        lenient().when(jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class))
+            .thenReturn(DATABASE_TIME);
+        
+        int[] current = {0};
+        lenient().when(resultSet.getString(1)).thenAnswer(i -> rows.get(current[0]));
+        lenient().doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (current[0] = 0; current[0] < rows.size(); current[0]++) {
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        
+        rows.add(STORED);
+    }
+    
+    @Test
+    void testMightExist_EverythingUntilBuilt() {
+        assertTrue(knownIbanFilter.mightExist(UNKNOWN));
+        assertTrue(knownIbanFilter.mightExist("SE00"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+    
+    @Test
+    void testBuild_RejectsUnknownAndInvalidIbans() {
+        knownIbanFilter.build();
+        
+        assertTrue(knownIbanFilter.mightExist(STORED));
+        assertFalse(knownIbanFilter.mightExist(UNKNOWN));
+        assertFalse(knownIbanFilter.mightExist("SE00"));
+        assertEquals(2.0, meterRegistry.get("banking.iban.filter.rejected").counter().count());
+    }
+    
+    @Test
+    void testBuild_LegacyIbanStillFound() {
+        String legacy = "SE1250000000000000000099";
+        assertFalse(IbanAllocator.isValid(legacy));
+        rows.add(legacy);
+        
+        knownIbanFilter.build();
+        
+        assertTrue(knownIbanFilter.mightExist(legacy));
+        assertFalse(knownIbanFilter.mightExist(UNKNOWN));
+    }
+    
+    @Test
+    void testBuild_FailureLeavesLookupsToDatabase() {
+        doThrow(new IllegalStateException("connection lost")).when(transactionTemplate).execute(any());
+        
+        knownIbanFilter.build();
+        
+        assertTrue(knownIbanFilter.mightExist(UNKNOWN));
+    }
+    
+    @Test
+    void testAdd_NewAccountKnownImmediately() {
+        knownIbanFilter.build();
+        
+        knownIbanFilter.add(UNKNOWN);
+        
+        assertTrue(knownIbanFilter.mightExist(UNKNOWN));
+    }
+    
+    @Test
+    void testRefresh_AddsAccountsOfOtherInstances() throws Exception {
+        knownIbanFilter.build();
+        doReturn(UNKNOWN).when(resultSet).getString(1);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(LocalDateTime.class));
+        
+        knownIbanFilter.refresh();
+        
+        assertTrue(knownIbanFilter.mightExist(UNKNOWN));
+    }
+    
+    @Test
+    void testMightExist_NewerAccountNumbersAreLookedUpUntilRefreshed() throws Exception {
+        knownIbanFilter.build();
+        
+        // Created on another instance since the build: above the highest number seen
+        assertTrue(knownIbanFilter.mightExist(iban(2000)));
+        // Another instance may still hand out numbers from a block leased before
+        assertTrue(knownIbanFilter.mightExist(iban(950)));
+        assertFalse(knownIbanFilter.mightExist(iban(850)));
+        
+        doReturn(iban(2000)).when(resultSet).getString(1);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(LocalDateTime.class));
+        knownIbanFilter.refresh();
+        
+        assertTrue(knownIbanFilter.mightExist(iban(2000)));
+        assertTrue(knownIbanFilter.mightExist(iban(2050)));
+        assertFalse(knownIbanFilter.mightExist(iban(950)));
+    }
+    
+    @Test
+    void testRefresh_BoundIsTakenFromTheDatabaseClock() {
+        knownIbanFilter.build();
+        
+        knownIbanFilter.refresh();
+        
+        // Not the clock of this instance, which may be ahead of the database
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(DATABASE_TIME.minusMinutes(1)));
+    }
+    
+    @Test
+    void testDisabled_NeverRejects() {
+        ReflectionTestUtils.setField(knownIbanFilter, "enabled", false);
+        
+        knownIbanFilter.build();
+        knownIbanFilter.refresh();
+        
+        assertTrue(knownIbanFilter.mightExist("SE00"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+    
+    private static String iban(long accountNumber) {
+        String bban = "500" + String.format("%017d", accountNumber);
+        return "SE" + IbanAllocator.checkDigits("SE", bban) + bban;
+    }
+}
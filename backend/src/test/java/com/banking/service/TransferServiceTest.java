@@ -1,25 +1,52 @@
 package com.banking.service;
 
+import com.banking.dto.BatchTransferRequest;
+import com.banking.dto.BatchTransferResponse;
+import com.banking.dto.TransactionDto;
 import com.banking.dto.TransferRequest;
 import com.banking.entity.Account;
+import com.banking.entity.FraudEvent;
+import com.banking.entity.Transaction;
 import com.banking.entity.User;
+import com.banking.fraud.FraudDecision;
+import com.banking.fraud.FraudRuleResult;
+import com.banking.ledger.LedgerEngine;
+import com.banking.money.Money;
+import com.banking.repository.AccountRef;
 import com.banking.repository.AccountRepository;
+import com.banking.repository.AccountSummary;
 import com.banking.repository.TransactionRepository;
+import com.banking.repository.UserRepository;
+import com.banking.sequencer.TransferSequencer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +64,36 @@ class TransferServiceTest {
     @Mock
     private AuditService auditService;
     
+    @Mock
+    private TransferRetryPolicy transferRetryPolicy;
+    
+    @Mock
+    private TransferMetrics transferMetrics;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private IdempotencyService idempotencyService;
+    
+    @Mock
+    private LedgerEngine ledgerEngine;
+    
+    @Mock
+    private TransferSequencer transferSequencer;
+    
+    @Mock
+    private BalanceStripingService balanceStripingService;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private AccountLookupCache accountLookupCache;
+    
+    @Mock
+    private UserRepository userRepository;
+    
     @Mock
     private SecurityContext securityContext;
     
@@ -74,9 +131,24 @@ class TransferServiceTest {
             .user(testUser)
             .build();
         
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.LOCKING);
+        
         SecurityContextHolder.setContext(securityContext);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getPrincipal()).thenReturn(testUser);
+        // Lenient: worker-side operations run without a security context
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(testUser);
+        
+        // Run retried operations and transaction callbacks inline
+        lenient().when(transferRetryPolicy.execute(any())).thenAnswer(invocation -> {
+            Supplier<?> operation = invocation.getArgument(0);
+            return operation.get();
+        });
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        lenient().when(fraudDetectionService.screenTransfer(any(), any())).thenReturn(FraudDecision.ALLOW);
+        lenient().when(fraudDetectionService.reserveDailyLimit(any(), any())).thenReturn(true);
     }
     
     @Test
@@ -86,17 +158,27 @@ class TransferServiceTest {
         request.setToIban("SE9876543210987654321098");
         request.setAmount(new BigDecimal("100.00"));
         
-        when(accountRepository.findByIban("SE1234567890123456789012"))
-            .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIban("SE9876543210987654321098"))
-            .thenReturn(Optional.of(receiverAccount));
-        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(true);
-        when(fraudDetectionService.checkDailyLimit(testUser, request.getAmount())).thenReturn(true);
+        stubAccountLookups();
         when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         
         assertDoesNotThrow(() -> transferService.transfer(request));
         verify(accountRepository, times(2)).save(any());
         verify(transactionRepository, times(1)).save(any());
+        assertEquals(new BigDecimal("900.00"), senderAccount.getBalance());
+        assertEquals(new BigDecimal("600.00"), receiverAccount.getBalance());
+    }
+    
+    @Test
+    void testTransfer_RejectedByFraudRuleBeforeAnyLock() {
+        TransferRequest request = transferRequest("100.00");
+        when(fraudDetectionService.screenTransfer(testUser, request)).thenReturn(new FraudDecision(List.of(
+            FraudRuleResult.pass("daily-limit"),
+            FraudRuleResult.reject("rapid-transfers", FraudEvent.FraudType.RAPID_TRANSFERS,
+                FraudEvent.FraudSeverity.MEDIUM, "Rapid transfer detected", "Transfer rejected: Rapid transfer detected"))));
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
+        assertEquals("Transfer rejected: Rapid transfer detected", ex.getMessage());
+        verifyNoInteractions(accountRepository, transactionRepository);
     }
     
     @Test
@@ -106,14 +188,436 @@ class TransferServiceTest {
         request.setToIban("SE9876543210987654321098");
         request.setAmount(new BigDecimal("2000.00"));
         
-        when(accountRepository.findByIban("SE1234567890123456789012"))
-            .thenReturn(Optional.of(senderAccount));
-        when(accountRepository.findByIban("SE9876543210987654321098"))
-            .thenReturn(Optional.of(receiverAccount));
-        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(true);
-        when(fraudDetectionService.checkDailyLimit(testUser, request.getAmount())).thenReturn(true);
+        stubAccountLookups();
         
         assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
     }
+    
+    @Test
+    void testTransfer_LocksAccountsInIdOrder() {
+        // Give the receiver the lower id so the lock order differs from the request order
+        receiverAccount.setId(new UUID(0L, 1L));
+        senderAccount.setId(new UUID(0L, 2L));
+        
+        TransferRequest request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal("100.00"));
+        
+        stubAccountLookups();
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        transferService.transfer(request);
+        
+        InOrder lockOrder = inOrder(accountRepository);
+        lockOrder.verify(accountRepository).findByIdForUpdate(receiverAccount.getId());
+        lockOrder.verify(accountRepository).findByIdForUpdate(senderAccount.getId());
+    }
+    
+    @Test
+    void testConditionalTransfer_Success() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.CONDITIONAL);
+        stubAccountSummaries();
+        
+        TransferRequest request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal("100.00"));
+        
+        when(accountRepository.debitIfSufficient("SE1234567890123456789012", request.getAmount(),
+            testUser.getId(), false)).thenReturn(Optional.of(senderAccount.getId()));
+        when(accountRepository.creditIfActive("SE9876543210987654321098", request.getAmount(), 0))
+            .thenReturn(Optional.of(receiverAccount.getId()));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        assertDoesNotThrow(() -> transferService.transfer(request));
+        verify(accountRepository, never()).findByIdForUpdate(any());
+        verify(accountRepository, never()).save(any());
+        verify(transactionRepository, times(1)).save(any());
+    }
+    
+    @Test
+    void testConditionalTransfer_InsufficientBalance() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.CONDITIONAL);
+        stubAccountSummaries();
+        
+        TransferRequest request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal("2000.00"));
+        
+        when(accountRepository.debitIfSufficient("SE1234567890123456789012", request.getAmount(),
+            testUser.getId(), false)).thenReturn(Optional.empty());
+        when(accountRepository.findByIban("SE1234567890123456789012")).thenReturn(Optional.of(senderAccount));
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
+        assertEquals("Insufficient balance", ex.getMessage());
+        verify(transactionRepository, never()).save(any());
+    }
+    
+    @Test
+    void testConditionalTransfer_StripedSenderFoldsBeforeRejecting() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.CONDITIONAL);
+        stubAccountSummaries();
+        senderAccount.setStriped(true);
+        
+        TransferRequest request = transferRequest("1200.00");
+        
+        when(accountRepository.debitIfSufficient("SE1234567890123456789012", request.getAmount(),
+            testUser.getId(), false))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(senderAccount.getId()));
+        when(accountRepository.findByIban("SE1234567890123456789012")).thenReturn(Optional.of(senderAccount));
+        when(accountRepository.creditIfActive("SE9876543210987654321098", request.getAmount(), 0))
+            .thenReturn(Optional.of(receiverAccount.getId()));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        assertDoesNotThrow(() -> transferService.transfer(request));
+        verify(balanceStripingService).fold(senderAccount.getId());
+        verify(transactionRepository, times(1)).save(any());
+    }
+    
+    @Test
+    void testConditionalTransfer_IssuesStatementsInIdOrder() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.CONDITIONAL);
+        // The receiver has the lower id but the higher IBAN
+        receiverAccount.setId(new UUID(0L, 1L));
+        senderAccount.setId(new UUID(0L, 2L));
+        stubAccountSummaries();
+        
+        TransferRequest request = transferRequest("100.00");
+        
+        when(accountRepository.debitIfSufficient("SE1234567890123456789012", request.getAmount(),
+            testUser.getId(), false)).thenReturn(Optional.of(senderAccount.getId()));
+        when(accountRepository.creditIfActive("SE9876543210987654321098", request.getAmount(), 0))
+            .thenReturn(Optional.of(receiverAccount.getId()));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        transferService.transfer(request);
+        
+        InOrder statementOrder = inOrder(accountRepository);
+        statementOrder.verify(accountRepository).creditIfActive(any(), any(), anyInt());
+        statementOrder.verify(accountRepository).debitIfSufficient(any(), any(), any(), anyBoolean());
+    }
+    
+    @Test
+    void testCompareLockOrder_MatchesPostgresUuidOrder() {
+        UUID low = UUID.fromString("7fffffff-ffff-ffff-ffff-ffffffffffff");
+        UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        
+        // UUID.compareTo orders these the other way round
+        assertTrue(high.compareTo(low) < 0);
+        assertTrue(TransferService.compareLockOrder(low, high) < 0);
+        assertTrue(TransferService.compareLockOrder(high, low) > 0);
+        assertEquals(0, TransferService.compareLockOrder(low, low));
+    }
+    
+    @Test
+    void testTransfer_StripedReceiverIsCreditedWithoutLock() {
+        receiverAccount.setStriped(true);
+        TransferRequest request = transferRequest("100.00");
+        
+        when(accountRepository.findIdByIban("SE1234567890123456789012"))
+            .thenReturn(Optional.of(senderAccount.getId()));
+        when(accountRepository.findRefByIban("SE9876543210987654321098"))
+            .thenReturn(Optional.of(new AccountRef(receiverAccount.getId(), true)));
+        when(accountRepository.findByIdForUpdate(senderAccount.getId())).thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findById(receiverAccount.getId())).thenReturn(Optional.of(receiverAccount));
+        when(accountRepository.creditIfActive("SE9876543210987654321098", request.getAmount(), 0))
+            .thenReturn(Optional.of(receiverAccount.getId()));
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        transferService.transfer(request);
+        
+        assertEquals(new BigDecimal("900.00"), senderAccount.getBalance());
+        assertEquals(new BigDecimal("500.00"), receiverAccount.getBalance());
+        verify(accountRepository).creditIfActive("SE9876543210987654321098", request.getAmount(), 0);
+        verify(accountRepository, never()).findByIdForUpdate(receiverAccount.getId());
+        verify(accountRepository, never()).save(receiverAccount);
+    }
+    
+    @Test
+    void testTransfer_StripedReceiverFrozenAfterTheReadIsNotCredited() {
+        receiverAccount.setStriped(true);
+        TransferRequest request = transferRequest("100.00");
+        
+        when(accountRepository.findIdByIban("SE1234567890123456789012"))
+            .thenReturn(Optional.of(senderAccount.getId()));
+        when(accountRepository.findRefByIban("SE9876543210987654321098"))
+            .thenReturn(Optional.of(new AccountRef(receiverAccount.getId(), true)));
+        when(accountRepository.findByIdForUpdate(senderAccount.getId())).thenReturn(Optional.of(senderAccount));
+        // Still ACTIVE when read, frozen before the credit
+        when(accountRepository.findById(receiverAccount.getId())).thenReturn(Optional.of(receiverAccount));
+        when(accountRepository.creditIfActive("SE9876543210987654321098", request.getAmount(), 0))
+            .thenReturn(Optional.empty());
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
+        assertEquals("Receiver account is not active", ex.getMessage());
+        verify(transactionRepository, never()).save(any());
+    }
+    
+    @Test
+    void testLedgerTransfer_RejectionIsUnwrapped() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.LEDGER);
+        
+        TransferRequest request = transferRequest("2000.00");
+        
+        when(ledgerEngine.submit("SE1234567890123456789012", "SE9876543210987654321098", request.getAmount(),
+            null, testUser.getId(), false, null))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Insufficient balance")));
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
+        assertEquals("Insufficient balance", ex.getMessage());
+        verify(transactionTemplate, never()).execute(any());
+        verify(auditService, never()).logAction(any(), any(), any(), any());
+    }
+    
+    @Test
+    void testLedgerTransfer_UnconfirmedCommitTimesOut() {
+        ReflectionTestUtils.setField(transferService, "transferMode", TransferService.TransferMode.LEDGER);
+        ReflectionTestUtils.setField(transferService, "queuedTimeoutMs", 50L);
+        
+        TransferRequest request = transferRequest("2000.00");
+        
+        when(ledgerEngine.submit("SE1234567890123456789012", "SE9876543210987654321098", request.getAmount(),
+            null, testUser.getId(), false, null))
+            .thenReturn(new CompletableFuture<>());
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
+        assertTrue(ex.getMessage().contains("not confirmed in time"));
+        verify(auditService, never()).logAction(any(), any(), any(), any());
+    }
+    
+    @Test
+    void testTransferBatch_BestEffortRejectsOnlyInvalidItems() {
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setMode(BatchTransferRequest.BatchMode.BEST_EFFORT);
+        request.setTransfers(List.of(
+            transferRequest("100.00"),
+            transferRequest("5000.00"),
+            transferRequest("200.00")));
+        
+        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(true);
+        when(fraudDetectionService.lockRemainingDailyLimit(testUser.getId())).thenReturn(Money.valueOf("10000.00"));
+        when(accountRepository.findByIbanInForUpdate(any())).thenReturn(List.of(senderAccount, receiverAccount));
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        BatchTransferResponse response = transferService.transferBatch(request);
+        
+        assertEquals(2, response.getCompleted());
+        assertEquals(1, response.getRejected());
+        assertEquals("COMPLETED", response.getResults().get(0).getStatus());
+        assertEquals("REJECTED", response.getResults().get(1).getStatus());
+        assertEquals("Insufficient balance", response.getResults().get(1).getError());
+        assertEquals("COMPLETED", response.getResults().get(2).getStatus());
+        assertEquals(new BigDecimal("700.00"), senderAccount.getBalance());
+        assertEquals(new BigDecimal("800.00"), receiverAccount.getBalance());
+        verify(transactionRepository, times(1)).saveAll(any());
+        verify(auditService, times(1)).logActions(eq(testUser), any(), argThat(details -> details.size() == 2), any());
+        verify(fraudDetectionService).addToDailyTotal(testUser.getId(), Money.valueOf("300.00"));
+    }
+    
+    @Test
+    void testTransferBatch_AdminBatchChecksEverySenderOwner() {
+        User admin = User.builder()
+            .id(UUID.randomUUID())
+            .username("admin")
+            .role(User.Role.ADMIN)
+            .build();
+        User otherOwner = User.builder()
+            .id(UUID.randomUUID())
+            .username("other")
+            .role(User.Role.CUSTOMER)
+            .build();
+        when(authentication.getPrincipal()).thenReturn(admin);
+        
+        TransferRequest fromOther = transferRequest("50.00");
+        fromOther.setFromIban("SE5550000000000000000042");
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(transferRequest("100.00"), fromOther));
+        
+        when(accountLookupCache.find("SE1234567890123456789012")).thenReturn(Optional.of(new AccountSummary(
+            senderAccount.getId(), senderAccount.getIban(), testUser.getId(), Account.AccountStatus.ACTIVE)));
+        when(accountLookupCache.find("SE5550000000000000000042")).thenReturn(Optional.of(new AccountSummary(
+            UUID.randomUUID(), "SE5550000000000000000042", otherOwner.getId(), Account.AccountStatus.ACTIVE)));
+        when(userRepository.findAllById(any()))
+            .thenReturn(List.of(testUser, otherOwner));
+        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(true);
+        when(fraudDetectionService.checkRapidTransfers(otherOwner)).thenReturn(false);
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> transferService.transferBatch(request));
+        assertEquals("Transfer rejected: Rapid transfer detected", ex.getMessage());
+        verify(fraudDetectionService, never()).checkRapidTransfers(admin);
+        verify(accountRepository, never()).findByIbanInForUpdate(any());
+    }
+    
+    @Test
+    void testTransferBatch_AdminBatchUsesTheDailyLimitOfEachSenderOwner() {
+        User admin = User.builder()
+            .id(UUID.randomUUID())
+            .username("admin")
+            .role(User.Role.ADMIN)
+            .build();
+        User otherOwner = User.builder()
+            .id(UUID.randomUUID())
+            .username("other")
+            .role(User.Role.CUSTOMER)
+            .build();
+        Account otherAccount = Account.builder()
+            .id(UUID.randomUUID())
+            .iban("SE5550000000000000000042")
+            .balance(new BigDecimal("1000.00"))
+            .status(Account.AccountStatus.ACTIVE)
+            .user(otherOwner)
+            .build();
+        when(authentication.getPrincipal()).thenReturn(admin);
+        
+        TransferRequest overLimit = transferRequest("150.00");
+        overLimit.setFromIban(otherAccount.getIban());
+        TransferRequest withinLimit = transferRequest("50.00");
+        withinLimit.setFromIban(otherAccount.getIban());
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setMode(BatchTransferRequest.BatchMode.BEST_EFFORT);
+        request.setTransfers(List.of(transferRequest("100.00"), overLimit, withinLimit));
+        
+        when(accountLookupCache.find("SE1234567890123456789012")).thenReturn(Optional.of(new AccountSummary(
+            senderAccount.getId(), senderAccount.getIban(), testUser.getId(), Account.AccountStatus.ACTIVE)));
+        when(accountLookupCache.find(otherAccount.getIban())).thenReturn(Optional.of(new AccountSummary(
+            otherAccount.getId(), otherAccount.getIban(), otherOwner.getId(), Account.AccountStatus.ACTIVE)));
+        when(userRepository.findAllById(any())).thenReturn(List.of(testUser, otherOwner));
+        when(fraudDetectionService.checkRapidTransfers(any())).thenReturn(true);
+        when(accountRepository.findByIbanInForUpdate(any()))
+            .thenReturn(List.of(senderAccount, receiverAccount, otherAccount));
+        when(fraudDetectionService.lockRemainingDailyLimit(testUser.getId())).thenReturn(Money.valueOf("10000.00"));
+        when(fraudDetectionService.lockRemainingDailyLimit(otherOwner.getId())).thenReturn(Money.valueOf("100.00"));
+        when(transactionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        BatchTransferResponse response = transferService.transferBatch(request);
+        
+        assertEquals(2, response.getCompleted());
+        assertEquals("Transfer rejected: Daily limit exceeded", response.getResults().get(1).getError());
+        assertEquals(new BigDecimal("950.00"), otherAccount.getBalance());
+        
+        // Owner rows are locked in user id order; the admin's own row is never touched
+        boolean testUserFirst = TransferService.compareLockOrder(testUser.getId(), otherOwner.getId()) < 0;
+        InOrder lockOrder = inOrder(fraudDetectionService);
+        lockOrder.verify(fraudDetectionService).lockRemainingDailyLimit(
+            testUserFirst ? testUser.getId() : otherOwner.getId());
+        lockOrder.verify(fraudDetectionService).lockRemainingDailyLimit(
+            testUserFirst ? otherOwner.getId() : testUser.getId());
+        verify(fraudDetectionService, never()).lockRemainingDailyLimit(admin.getId());
+        
+        verify(fraudDetectionService).addToDailyTotal(testUser.getId(), Money.valueOf("100.00"));
+        verify(fraudDetectionService).addToDailyTotal(otherOwner.getId(), Money.valueOf("50.00"));
+        verify(fraudDetectionService, never()).addToDailyTotal(eq(admin.getId()), any());
+        verify(fraudDetectionService).logFraudEvent(eq(otherOwner), eq(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED),
+            any(), eq(Money.valueOf("150.00")), eq(FraudEvent.FraudSeverity.HIGH));
+    }
+    
+    @Test
+    void testTransfer_LostDailyLimitReservationIsRejectedAndLogged() {
+        TransferRequest request = transferRequest("100.00");
+        
+        stubAccountLookups();
+        when(fraudDetectionService.reserveDailyLimit(testUser.getId(), request.getAmount())).thenReturn(false);
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> transferService.transfer(request));
+        assertEquals("Transfer rejected: Daily limit exceeded", ex.getMessage());
+        verify(transactionRepository, never()).save(any());
+        verify(fraudDetectionService).logFraudEvent(eq(testUser), eq(FraudEvent.FraudType.DAILY_LIMIT_EXCEEDED),
+            any(), eq(Money.valueOf("100.00")), eq(FraudEvent.FraudSeverity.HIGH));
+    }
+    
+    @Test
+    void testCompletePendingTransfer_CompletesClaimedRow() {
+        Transaction pending = pendingTransaction();
+        
+        when(transactionRepository.findWithAccountsById(pending.getId())).thenReturn(Optional.of(pending));
+        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(true);
+        when(transactionRepository.findByIdForUpdate(pending.getId())).thenReturn(Optional.of(pending));
+        when(fraudDetectionService.checkDailyLimit(testUser, pending.getAmount())).thenReturn(true);
+        stubAccountLookups();
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        TransactionDto result = transferService.completePendingTransfer(pending.getId());
+        
+        assertEquals(pending.getId(), result.getId());
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(new BigDecimal("900.00"), senderAccount.getBalance());
+        assertEquals(new BigDecimal("600.00"), receiverAccount.getBalance());
+        verify(transactionRepository, times(1)).save(pending);
+    }
+    
+    @Test
+    void testCompletePendingTransfer_SkipsRowClaimedByAnotherWorker() {
+        Transaction pending = pendingTransaction();
+        Transaction completed = pendingTransaction();
+        completed.setId(pending.getId());
+        completed.setStatus(Transaction.TransactionStatus.COMPLETED);
+        
+        when(transactionRepository.findWithAccountsById(pending.getId())).thenReturn(Optional.of(pending));
+        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(true);
+        when(transactionRepository.findByIdForUpdate(pending.getId())).thenReturn(Optional.of(completed));
+        when(fraudDetectionService.checkDailyLimit(testUser, pending.getAmount())).thenReturn(true);
+        
+        TransactionDto result = transferService.completePendingTransfer(pending.getId());
+        
+        assertEquals("COMPLETED", result.getStatus());
+        verify(accountRepository, never()).findByIdForUpdate(any());
+        verify(transactionRepository, never()).save(any());
+        assertEquals(new BigDecimal("1000.00"), senderAccount.getBalance());
+    }
+    
+    @Test
+    void testCompletePendingTransfer_RapidTransfersCompletedMeanwhileAreRejected() {
+        Transaction pending = pendingTransaction();
+        
+        when(transactionRepository.findWithAccountsById(pending.getId())).thenReturn(Optional.of(pending));
+        when(fraudDetectionService.checkRapidTransfers(testUser)).thenReturn(false);
+        
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> transferService.completePendingTransfer(pending.getId()));
+        assertEquals("Transfer rejected: Rapid transfer detected", ex.getMessage());
+        verify(transactionRepository, never()).findByIdForUpdate(any());
+        assertEquals(new BigDecimal("1000.00"), senderAccount.getBalance());
+    }
+    
+    private Transaction pendingTransaction() {
+        return Transaction.builder()
+            .id(UUID.randomUUID())
+            .senderAccount(senderAccount)
+            .receiverAccount(receiverAccount)
+            .amount(new BigDecimal("100.00"))
+            .timestamp(LocalDateTime.now())
+            .status(Transaction.TransactionStatus.PENDING)
+            .initiatedBy(testUser)
+            .build();
+    }
+    
+    private TransferRequest transferRequest(String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromIban("SE1234567890123456789012");
+        request.setToIban("SE9876543210987654321098");
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+    
+    private void stubAccountSummaries() {
+        when(accountLookupCache.find("SE1234567890123456789012")).thenReturn(Optional.of(new AccountSummary(
+            senderAccount.getId(), senderAccount.getIban(), testUser.getId(), Account.AccountStatus.ACTIVE)));
+        when(accountLookupCache.find("SE9876543210987654321098")).thenReturn(Optional.of(new AccountSummary(
+            receiverAccount.getId(), receiverAccount.getIban(), testUser.getId(), Account.AccountStatus.ACTIVE)));
+    }
+    
+    private void stubAccountLookups() {
+        when(accountRepository.findIdByIban("SE1234567890123456789012"))
+            .thenReturn(Optional.of(senderAccount.getId()));
+        when(accountRepository.findRefByIban("SE9876543210987654321098"))
+            .thenReturn(Optional.of(new AccountRef(receiverAccount.getId(), receiverAccount.isStriped())));
+        when(accountRepository.findByIdForUpdate(senderAccount.getId()))
+            .thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findByIdForUpdate(receiverAccount.getId()))
+            .thenReturn(Optional.of(receiverAccount));
+    }
 }
-